@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.bench;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.Intrinsics;
+import me.abje.lingua.interpreter.obj.ListObj;
+import me.abje.lingua.interpreter.obj.NumberObj;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.interpreter.obj.StringObj;
+import me.abje.lingua.interpreter.obj.bridge.ObjectBridge;
+import me.abje.lingua.parser.expr.Expr;
+import me.abje.lingua.util.TriFunction;
+import me.abje.lingua.vm.VM;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of calling builtin methods: through the bridges generated at compile time, through the
+ * reflective bridges used for classes compiled without them, and from a script.
+ * <pre>
+ * ./gradlew jmh -PjmhArgs="BuiltinCallBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuiltinCallBenchmark {
+    private static final String SOURCE = "" +
+            "calls(xs, n) = {\n" +
+            "    var i = 0\n" +
+            "    while (i < n) i = i + xs.size() - 2\n" +
+            "    i\n" +
+            "}\n" +
+            "var xs = [1, 2, 3]\n";
+
+    /**
+     * Whether scripts are run on the VM instead of the tree-walking interpreter.
+     */
+    @Param({"false", "true"})
+    public boolean vm;
+
+    private Interpreter interpreter;
+    private ListObj list;
+    private List<Obj> noArgs;
+    private List<Obj> separator;
+    private TriFunction<Interpreter, ListObj, List<Obj>, Obj> generatedSize;
+    private TriFunction<Interpreter, ListObj, List<Obj>, Obj> generatedJoin;
+    private TriFunction<Interpreter, ListObj, List<Obj>, Obj> reflectiveSize;
+    private TriFunction<Interpreter, ListObj, List<Obj>, Obj> reflectiveJoin;
+    private Expr calls;
+
+    @Setup
+    public void setup() {
+        interpreter = new Interpreter();
+        new Intrinsics(interpreter).register(Collections.emptyList());
+        interpreter.addImport("lingua.core");
+        if (vm)
+            interpreter.setVm(new VM(interpreter));
+        interpreter.interpret(new StringReader(SOURCE), "<bench>");
+        calls = interpreter.compile(new StringReader("calls(xs, 1000)"), "<bench>").get(0);
+
+        list = new ListObj(new ArrayList<>(Arrays.asList(NumberObj.of(1), NumberObj.of(2), NumberObj.of(3))));
+        noArgs = Collections.emptyList();
+        separator = Collections.singletonList(new StringObj(", "));
+
+        var generated = ObjectBridge.findGeneratedBridge(ListObj.class).createFunctions();
+        generatedSize = generated.get("size");
+        generatedJoin = generated.get("join");
+        var methods = ObjectBridge.createMethodMap(ListObj.class, null);
+        reflectiveSize = ObjectBridge.createFunctionBridge("size", methods.get("size"));
+        reflectiveJoin = ObjectBridge.createFunctionBridge("join", methods.get("join"));
+    }
+
+    @Benchmark
+    public Obj generatedSize() {
+        return generatedSize.apply(interpreter, list, noArgs);
+    }
+
+    @Benchmark
+    public Obj generatedJoin() {
+        return generatedJoin.apply(interpreter, list, separator);
+    }
+
+    @Benchmark
+    public Obj reflectiveSize() {
+        return reflectiveSize.apply(interpreter, list, noArgs);
+    }
+
+    @Benchmark
+    public Obj reflectiveJoin() {
+        return reflectiveJoin.apply(interpreter, list, separator);
+    }
+
+    /**
+     * Calls <code>xs.size()</code> 1000 times from a script.
+     */
+    @Benchmark
+    public Obj script() {
+        return interpreter.run(calls);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.bench;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.lexer.Lexer;
+import me.abje.lingua.lexer.Morpher;
+import me.abje.lingua.parser.Parser;
+import me.abje.lingua.parser.expr.Expr;
+import me.abje.lingua.resolver.Resolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures variable lookups through nested block frames, with and without lexical addresses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+    /**
+     * The number of blocks between the lookups and the variable's declaration.
+     */
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    /**
+     * Whether the benchmarked code is resolved before it is run.
+     */
+    @Param({"true", "false"})
+    public boolean resolved;
+
+    private Interpreter interpreter;
+    private Expr call;
+
+    @Setup
+    public void setup() {
+        StringBuilder source = new StringBuilder("lookup() = {\n    var x = 1\n");
+        for (int i = 0; i < depth; i++)
+            source.append("{\n");
+        source.append("x + x + x + x + x + x + x + x\n");
+        for (int i = 0; i < depth; i++)
+            source.append("}\n");
+        source.append("}\nlookup()\n");
+
+        Parser parser = new Parser(new Morpher(new Lexer(new StringReader(source.toString()), "<bench>")));
+        List<Expr> exprs = new ArrayList<>();
+        Expr expr;
+        while ((expr = parser.next()) != null) {
+            exprs.add(expr);
+        }
+        if (resolved)
+            new Resolver(true).resolve(exprs);
+
+        interpreter = new Interpreter();
+        interpreter.next(exprs.get(0));
+        call = exprs.get(1);
+    }
+
+    @Benchmark
+    public Object lookup() {
+        return interpreter.next(call);
+    }
+}
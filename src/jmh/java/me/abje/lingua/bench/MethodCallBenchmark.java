@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.bench;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.Intrinsics;
+import me.abje.lingua.lexer.Lexer;
+import me.abje.lingua.lexer.Morpher;
+import me.abje.lingua.parser.Parser;
+import me.abje.lingua.parser.expr.Expr;
+import me.abje.lingua.vm.VM;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures method calls on user-defined objects. Run with <code>-prof gc</code> to see the allocation per call:
+ * <pre>
+ * ./gradlew jmh -PjmhArgs="MethodCallBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodCallBenchmark {
+    private static final String SOURCE = "" +
+            "class Counter {\n" +
+            "    var count = 0\n" +
+            "    fun add(n) = self.count = self.count + n\n" +
+            "    fun get() = self.count\n" +
+            "}\n" +
+            "class Sub : Counter {\n" +
+            "    fun add(n) = super.add(n * 2)\n" +
+            "}\n" +
+            "calls(c, n) = {\n" +
+            "    var i = 0\n" +
+            "    while (i < n) i = i + 1 + c.add(1) - c.get()\n" +
+            "    i\n" +
+            "}\n" +
+            "var counter = Counter()\n" +
+            "var sub = Sub()\n";
+
+    /**
+     * Whether code is run on the VM instead of the tree-walking interpreter.
+     */
+    @Param({"false", "true"})
+    public boolean vm;
+
+    private Interpreter interpreter;
+    private Expr calls;
+    private Expr superCalls;
+
+    @Setup
+    public void setup() {
+        interpreter = new Interpreter();
+        new Intrinsics(interpreter).register(Collections.emptyList());
+        interpreter.addImport("lingua.core");
+        if (vm)
+            interpreter.setVm(new VM(interpreter));
+        interpreter.interpret(new StringReader(SOURCE), "<bench>");
+        calls = parse("calls(counter, 1000)");
+        superCalls = parse("calls(sub, 1000)");
+    }
+
+    private Expr parse(String source) {
+        Parser parser = new Parser(new Morpher(new Lexer(new StringReader(source), "<bench>")));
+        List<Expr> exprs = new ArrayList<>();
+        Expr expr;
+        while ((expr = parser.next()) != null) {
+            exprs.add(expr);
+        }
+        return exprs.get(0);
+    }
+
+    @Benchmark
+    public Object calls() {
+        return interpreter.run(calls);
+    }
+
+    @Benchmark
+    public Object superCalls() {
+        return interpreter.run(superCalls);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.bench;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.Intrinsics;
+import me.abje.lingua.jit.JIT;
+import me.abje.lingua.lexer.Lexer;
+import me.abje.lingua.lexer.Morpher;
+import me.abje.lingua.parser.Parser;
+import me.abje.lingua.parser.expr.Expr;
+import me.abje.lingua.vm.VM;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures tight numeric loops on each engine, over integers that are mostly outside the number cache and over
+ * non-integral numbers. Run with the GC profiler to see the boxing cost per iteration:
+ * <pre>
+ * ./gradlew jmh -PjmhArgs="NumericBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumericBenchmark {
+    private static final String SOURCE = "" +
+            "integers(n) = {\n" +
+            "    var i = 0\n" +
+            "    var acc = 0\n" +
+            "    while (i < n) acc = acc + (i = i + 1) * 3\n" +
+            "    acc\n" +
+            "}\n" +
+            "reals(n) = {\n" +
+            "    var i = 0\n" +
+            "    var acc = 0\n" +
+            "    while (i < n) acc = acc + (i = i + 1) * 0.5\n" +
+            "    acc\n" +
+            "}\n";
+
+    /**
+     * The engine code is run on: "ast", "vm" or "jit".
+     */
+    @Param({"ast", "vm", "jit"})
+    public String engine;
+
+    private Interpreter interpreter;
+    private Expr integers;
+    private Expr reals;
+
+    @Setup
+    public void setup() {
+        interpreter = new Interpreter();
+        new Intrinsics(interpreter).register(Collections.emptyList());
+        if (engine.equals("vm"))
+            interpreter.setVm(new VM(interpreter));
+        else if (engine.equals("jit"))
+            interpreter.setJit(new JIT(JIT.DEFAULT_THRESHOLD));
+        interpreter.interpret(new StringReader(SOURCE), "<bench>");
+        integers = parse("integers(10000)");
+        reals = parse("reals(10000)");
+    }
+
+    private Expr parse(String source) {
+        Parser parser = new Parser(new Morpher(new Lexer(new StringReader(source), "<bench>")));
+        List<Expr> exprs = new ArrayList<>();
+        Expr expr;
+        while ((expr = parser.next()) != null) {
+            exprs.add(expr);
+        }
+        return exprs.get(0);
+    }
+
+    @Benchmark
+    public Object integers() {
+        return interpreter.run(integers);
+    }
+
+    @Benchmark
+    public Object reals() {
+        return interpreter.run(reals);
+    }
+}
@@ -29,10 +29,9 @@ import me.abje.lingua.interpreter.InterpreterException;
 import me.abje.lingua.interpreter.obj.*;
 
 import java.io.*;
-import java.util.ArrayList;
 
 public class ByteInputObj extends Obj {
-    public static ClassObj SYNTHETIC = bridgeClass(ByteInputObj.class);
+    public static final ClassObj SYNTHETIC = bridgeClass(ByteInputObj.class);
     private final InputStream in;
 
     public ByteInputObj(InputStream in) {
@@ -65,19 +64,11 @@ public class ByteInputObj extends Obj {
     }
 
     @Bridge
-    public ListObj all() {
+    public byte[] all() {
         try {
-            return toListObj(ByteStreams.toByteArray(in));
+            return ByteStreams.toByteArray(in);
         } catch (IOException e) {
             throw new InterpreterException("IOException", e.getMessage());
         }
     }
-
-    private ListObj toListObj(byte[] bytes) {
-        ListObj list = new ListObj(new ArrayList<>());
-        for (byte b : bytes) {
-            list.add(NumberObj.of(b));
-        }
-        return list;
-    }
 }
@@ -30,7 +30,7 @@ import me.abje.lingua.interpreter.obj.*;
 import java.io.*;
 
 public class ByteOutputObj extends Obj {
-    public static ClassObj SYNTHETIC = bridgeClass(ByteOutputObj.class);
+    public static final ClassObj SYNTHETIC = bridgeClass(ByteOutputObj.class);
     private final OutputStream out;
 
     public ByteOutputObj(OutputStream out) {
@@ -52,9 +52,9 @@ public class ByteOutputObj extends Obj {
     }
 
     @Bridge
-    public Obj write(NumberObj num) {
+    public Obj write(int num) {
         try {
-            out.write((int) num.getValue());
+            out.write(num);
         } catch (IOException e) {
             throw new InterpreterException("IOException", e.getMessage());
         }
@@ -62,9 +62,9 @@ public class ByteOutputObj extends Obj {
     }
 
     @Bridge
-    public NumberObj writeAll(ListObj all) {
+    public long writeAll(byte[] all) {
         try {
-            return NumberObj.of(ByteStreams.copy(new ByteArrayInputStream(fromListObj(all)), out));
+            return ByteStreams.copy(new ByteArrayInputStream(all), out);
         } catch (IOException e) {
             throw new InterpreterException("IOException", e.getMessage());
         }
@@ -89,16 +89,4 @@ public class ByteOutputObj extends Obj {
             throw new InterpreterException("IOException", e.getMessage());
         }
     }
-
-    private byte[] fromListObj(ListObj list) {
-        try {
-            byte[] bytes = new byte[list.size()];
-            for (int i = 0; i < list.size(); i++) {
-                bytes[i] = (byte) ((NumberObj) list.get(i)).getValue();
-            }
-            return bytes;
-        } catch (ClassCastException e) {
-            throw new InterpreterException("IOException", "non-byte value passed to writeAll");
-        }
-    }
 }
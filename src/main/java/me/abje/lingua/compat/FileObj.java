@@ -39,13 +39,13 @@ public class FileObj extends Obj {
     }
 
     @Bridge
-    public static FileObj init(StringObj path) {
-        return new FileObj(new File(path.getValue()));
+    public static FileObj init(String path) {
+        return new FileObj(new File(path));
     }
 
     @Bridge
-    public static FileObj init(FileObj parent, StringObj path) {
-        return new FileObj(new File(parent.file, path.getValue()));
+    public static FileObj init(FileObj parent, String path) {
+        return new FileObj(new File(parent.file, path));
     }
 
     @Bridge
@@ -54,38 +54,38 @@ public class FileObj extends Obj {
     }
 
     @Bridge
-    public FileObj child(StringObj path) {
-        return new FileObj(new File(file, path.getValue()));
+    public FileObj child(String path) {
+        return new FileObj(new File(file, path));
     }
 
     @Bridge
-    public StringObj name() {
-        return new StringObj(file.getName());
+    public String name() {
+        return file.getName();
     }
 
     @Bridge
-    public StringObj nameWithoutExtension() {
-        return new StringObj(file.getName().replaceFirst("\\.[^.]*$", ""));
+    public String nameWithoutExtension() {
+        return file.getName().replaceFirst("\\.[^.]*$", "");
     }
 
     @Bridge
-    public StringObj extension() {
-        return new StringObj(file.getName().replaceFirst(".*\\.([^.]*)$", "$1"));
+    public String extension() {
+        return file.getName().replaceFirst(".*\\.([^.]*)$", "$1");
     }
 
     @Bridge
-    public StringObj path() {
-        return new StringObj(file.getPath());
+    public String path() {
+        return file.getPath();
     }
 
     @Bridge
-    public StringObj absolutePath() {
-        return new StringObj(file.getAbsolutePath());
+    public String absolutePath() {
+        return file.getAbsolutePath();
     }
 
     @Bridge
-    public BooleanObj exists() {
-        return BooleanObj.of(file.exists());
+    public boolean exists() {
+        return file.exists();
     }
 
     @Bridge
@@ -99,8 +99,8 @@ public class FileObj extends Obj {
     }
 
     @Bridge
-    public BooleanObj isDirectory() {
-        return BooleanObj.of(file.isDirectory());
+    public boolean isDirectory() {
+        return file.isDirectory();
     }
 
     @Override
@@ -20,19 +20,31 @@
  * THE SOFTWARE.
  */
 
+
 package me.abje.lingua.interpreter;
 
+import me.abje.lingua.interpreter.obj.ClassObj;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.resolver.LexicalAddress;
+import me.abje.lingua.resolver.Scope;
+import me.abje.lingua.resolver.Upvalue;
 import me.abje.lingua.util.DefinitionType;
 
-import javax.annotation.Nonnull;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
- * A stack of {@link me.abje.lingua.interpreter.Environment.Frame Frames} that store a map of variable names to values.
+ * A stack of {@link me.abje.lingua.interpreter.Environment.Frame Frames} that store variables in slots.
+ * <p>
+ * Each frame links to the frame below it. A function's call frames are pushed on the root frame of the module it was
+ * defined in, and the variables it references from enclosing functions are shared with it through
+ * {@link Cell Cells} (see {@link #capture(Scope)}).
+ * <p>
+ * Popped frames are kept in a pool and reused by later pushes, unless a closure may still reach them.
  */
 public class Environment {
     /**
@@ -42,16 +54,46 @@ public class Environment {
     private final Frame globals = new Frame("<main>");
 
     /**
-     * The stack that holds this Environment's frames.
+     * The top of the stack.
+     */
+    private Frame top = globals;
+    private Frame oldTop;
+
+    /**
+     * The maximum number of popped frames kept for reuse.
+     */
+    private static final int MAX_POOLED = 256;
+
+    /**
+     * The most recently popped frame that can be reused, or null if there is none. Pooled frames are linked through
+     * their parents.
+     */
+    private Frame pool;
+
+    /**
+     * The number of frames in {@link #pool}.
      */
-    private Deque<Frame> stack = new ArrayDeque<>();
-    private Deque<Frame> oldStack;
+    private int pooled;
 
     /**
-     * Creates a new, empty Environment.
+     * Creates a new Environment with empty globals.
      */
     public Environment() {
-        stack.push(globals);
+        this(null);
+    }
+
+    /**
+     * Creates a new Environment whose globals are layered on a frozen global frame. Variables of the base frame are
+     * visible in the new globals until they are assigned or redefined, which shadows them; the base frame itself is
+     * never changed, so it can be shared by Environments on different threads. The base frame can itself be layered
+     * on another. Functions that were defined in a frozen frame run on the new globals instead.
+     *
+     * @param base The base frame, frozen with {@link Frame#freeze()}. Can be null.
+     */
+    public Environment(Frame base) {
+        if (base != null && !base.frozen)
+            throw new IllegalArgumentException("base frame is not frozen");
+        globals.base = base;
     }
 
     /**
@@ -76,6 +118,8 @@ public class Environment {
      * @throws me.abje.lingua.interpreter.InterpreterException If a variable with that name doesn't exist in the top frame.
      */
     public Obj update(String name, Obj value, DefinitionType type) {
+        if (value instanceof ClassObj)
+            ClassObj.invalidateBindings();
         if (type == DefinitionType.NEVER_NEW) {
             return peekFrame().update(name, value);
         } else if (type == DefinitionType.ALWAYS_NEW) {
@@ -92,7 +136,7 @@ public class Environment {
      * @return Whether such a variable exists.
      */
     public boolean has(String name) {
-        for (Frame frame : stack) {
+        for (Frame frame = top; frame != null; frame = frame.parent) {
             if (frame.has(name)) {
                 return true;
             }
@@ -110,9 +154,10 @@ public class Environment {
      * @throws me.abje.lingua.interpreter.InterpreterException If a variable with that name doesn't exist in the stack.
      */
     public Obj get(String name) {
-        for (Frame frame : stack) {
-            if (frame.has(name)) {
-                return frame.get(name);
+        for (Frame frame = top; frame != null; frame = frame.parent) {
+            Obj value = frame.lookup(name);
+            if (value != null) {
+                return value;
             }
         }
 
@@ -130,7 +175,7 @@ public class Environment {
      * @param value The variable's value.
      */
     public Obj put(String name, Obj value) {
-        for (Frame frame : stack) {
+        for (Frame frame = top; frame != null; frame = frame.parent) {
             if (frame.has(name)) {
                 return frame.update(name, value);
             }
@@ -145,19 +190,150 @@ public class Environment {
      * @param name The variable's name.
      */
     public void delete(String name) {
-        stack.stream().filter(frame -> frame.has(name)).forEach(frame -> frame.delete(name));
+        for (Frame frame = top; frame != null; frame = frame.parent) {
+            if (frame.has(name)) {
+                frame.delete(name);
+            }
+        }
 
         throw new InterpreterException("UndefinedException", "variable '" + name + "' is not defined in this context");
     }
 
+    /**
+     * Gets the value of the variable at the given address.
+     * Equivalent to {@link #get(String)}, but only visits the frames the variable may be declared in.
+     *
+     * @param address The variable's address.
+     * @return The variable's value.
+     * @throws me.abje.lingua.interpreter.InterpreterException If the variable is not defined.
+     */
+    public Obj get(LexicalAddress address) {
+        Frame frame = top;
+        int depth = 0;
+        for (int i = 0, size = address.size(); i < size; i++) {
+            for (int target = address.getDepth(i); depth < target && frame != null; depth++) {
+                frame = frame.parent;
+            }
+            if (frame == null || frame.scope != address.getScope(i)) {
+                return get(address.getName());
+            }
+
+            Obj value;
+            if (!address.isUpvalue(i))
+                value = frame.getSlot(address.getSlot(i));
+            else if (frame.upvalues != null)
+                value = frame.upvalues[address.getUpvalue(i)].value;
+            else
+                return get(address.getName());
+            if (value != null) {
+                return value;
+            }
+        }
+
+        if (address.isGlobal()) {
+            Obj value = globals.lookup(address.getName());
+            if (value != null) {
+                return value;
+            }
+            throw new InterpreterException("UndefinedException", "variable '" + address.getName() + "' is not defined in this context");
+        } else {
+            return get(address.getName());
+        }
+    }
+
+    /**
+     * Defines a new variable at the given address in the top frame.
+     *
+     * @param address The variable's address.
+     * @param value   The variable's value.
+     * @return The variable's value.
+     * @throws me.abje.lingua.interpreter.InterpreterException If the variable is already defined in the top frame.
+     */
+    public Obj define(LexicalAddress address, Obj value) {
+        return update(address, value, DefinitionType.ALWAYS_NEW);
+    }
+
+    /**
+     * Updates the variable at the given address.
+     * Equivalent to {@link #update(String, Obj, DefinitionType)}.
+     *
+     * @param address The variable's address.
+     * @param value   The variable's new value.
+     * @param type    The definition's type.
+     * @return The variable's new value.
+     */
+    public Obj update(LexicalAddress address, Obj value, DefinitionType type) {
+        if (value instanceof ClassObj)
+            ClassObj.invalidateBindings();
+        if (type == DefinitionType.AUTO) {
+            return put(address, value);
+        } else if (address.isLocal() && top.scope == address.getScope(0)) {
+            int slot = address.getSlot(0);
+            if (type == DefinitionType.ALWAYS_NEW && top.getSlot(slot) != null) {
+                throw new InterpreterException("InvalidOperationException", "variable '" + address.getName() + "' is already defined in this context");
+            } else if (type == DefinitionType.NEVER_NEW && top.getSlot(slot) == null) {
+                throw new InterpreterException("UndefinedException", "variable '" + address.getName() + "' is not defined in this context");
+            }
+            top.setSlot(slot, value);
+            return value;
+        } else {
+            return update(address.getName(), value, type);
+        }
+    }
+
+    /**
+     * Updates or creates the variable at the given address.
+     * Equivalent to {@link #put(String, Obj)}.
+     *
+     * @param address The variable's address.
+     * @param value   The variable's value.
+     * @return The variable's value.
+     */
+    public Obj put(LexicalAddress address, Obj value) {
+        Frame frame = top;
+        int depth = 0;
+        for (int i = 0, size = address.size(); i < size; i++) {
+            for (int target = address.getDepth(i); depth < target && frame != null; depth++) {
+                frame = frame.parent;
+            }
+            if (frame == null || frame.scope != address.getScope(i)) {
+                return put(address.getName(), value);
+            }
+
+            if (!address.isUpvalue(i)) {
+                int slot = address.getSlot(i);
+                if (frame.getSlot(slot) != null) {
+                    frame.setSlot(slot, value);
+                    return value;
+                }
+            } else if (frame.upvalues == null) {
+                return put(address.getName(), value);
+            } else {
+                Cell cell = frame.upvalues[address.getUpvalue(i)];
+                if (cell.value != null) {
+                    cell.value = value;
+                    return value;
+                }
+            }
+        }
+
+        if (!address.isGlobal()) {
+            return put(address.getName(), value);
+        } else if (globals.has(address.getName())) {
+            return globals.update(address.getName(), value);
+        } else if (address.isLocal() && top.scope == address.getScope(0)) {
+            top.setSlot(address.getSlot(0), value);
+            return value;
+        } else {
+            return peekFrame().define(address.getName(), value);
+        }
+    }
+
     /**
      * Peeks the top frame.
      * @return The top frame, never null (globals always exists).
      */
     public Frame peekFrame() {
-        Frame top = stack.peek();
-        if (top == null)
-            return globals;
         return top;
     }
 
@@ -165,71 +341,358 @@ public class Environment {
      * Pushes a new frame onto the top of the stack.
      */
     public void pushFrame(String name) {
-        Frame frame = new Frame(name);
-        Frame top = peekFrame();
-        frame.fileName = top.fileName;
-        frame.line = top.line;
-        stack.push(frame);
+        pushFrame(name, null);
+    }
+
+    /**
+     * Pushes a new frame for a scope onto the top of the stack. Does nothing if the scope needs no frame of its own
+     * (see {@link Scope#hasFrame()}).
+     *
+     * @param name  The frame's name.
+     * @param scope The scope the frame's slots are laid out for, or null if they are only known at runtime.
+     */
+    public void pushFrame(String name, Scope scope) {
+        if (scope == null || scope.hasFrame())
+            pushFrame(null, name, scope, null);
+    }
+
+    /**
+     * Pushes a new call frame onto the top of the stack.
+     *
+     * @param name     The frame's name.
+     * @param scope    The scope the frame's slots are laid out for, or null if they are only known at runtime.
+     * @param upvalues The cells of the variables the called function captured, or null if it captured a whole frame.
+     */
+    public void pushFrame(String name, Scope scope, Cell[] upvalues) {
+        pushFrame(null, name, scope, upvalues);
+    }
+
+    /**
+     * Pushes a new call frame onto the top of the stack.
+     *
+     * @param owner    The name of the class the frame's function belongs to, or null if it belongs to none. The frame's
+     *                 name is only joined with it when asked for.
+     * @param name     The frame's name.
+     * @param scope    The scope the frame's slots are laid out for, or null if they are only known at runtime.
+     * @param upvalues The cells of the variables the called function captured, or null if it captured a whole frame.
+     */
+    public void pushFrame(String owner, String name, Scope scope, Cell[] upvalues) {
+        Frame frame = pool;
+        if (frame != null) {
+            pool = frame.parent;
+            pooled--;
+            frame.init(owner, name, scope, top);
+        } else {
+            frame = new Frame(owner, name, scope, top);
+        }
+        frame.positions = top.positions;
+        frame.offset = top.offset;
+        frame.upvalues = upvalues;
+        top = frame;
+    }
+
+    /**
+     * Captures the environment of a function defined in the top frame.
+     * <p>
+     * If the function was resolved and the frames on the stack are the ones it was resolved against, it captures only
+     * the cells of the variables it references from enclosing functions, and its call frames are pushed on the root
+     * frame of its module. Otherwise it captures the top frame, and with it every frame below.
+     *
+     * @param scope The scope of the function's call frames. Can be null.
+     * @return The function's closure.
+     */
+    public Closure capture(Scope scope) {
+        if (scope == null || !scope.isResolved())
+            return new Closure(escape(top), null);
+
+        // Frames up to the enclosing function's call frame must match the scopes; that frame was pushed on the root.
+        Frame root = top;
+        for (Scope expected = scope.getParent(); expected != null; expected = expected.getParent()) {
+            if (!expected.hasFrame())
+                continue;
+            if (root == null || root.scope != expected)
+                return new Closure(escape(top), null);
+            root = root.parent;
+            if (expected.isFunction())
+                break;
+        }
+        if (root == null)
+            return new Closure(escape(top), null);
+
+        List<Upvalue> upvalues = scope.getUpvalues();
+        Cell[] cells = upvalues.isEmpty() ? Closure.NO_UPVALUES : new Cell[upvalues.size()];
+        for (int i = 0; i < cells.length; i++) {
+            Upvalue upvalue = upvalues.get(i);
+            Frame frame = top;
+            for (int depth = 0; depth < upvalue.getDepth(); depth++) {
+                frame = frame.parent;
+            }
+            Cell[] source = upvalue.isLocal() ? frame.cells : frame.upvalues;
+            if (source == null)
+                return new Closure(escape(top), null);
+            cells[i] = source[upvalue.getIndex()];
+        }
+        return new Closure(escape(root), cells);
     }
 
     /**
-     * Pops the topmost frame from the stack.
+     * Marks a frame and every frame below it as reachable from a closure, so that they are never reused.
+     *
+     * @param frame The frame.
+     * @return The frame.
+     */
+    private static Frame escape(Frame frame) {
+        for (Frame current = frame; current != null && !current.escaped; current = current.parent) {
+            current.escaped = true;
+        }
+        return frame;
+    }
+
+    /**
+     * Pops the topmost frame from the stack. The frame is reused by a later push unless a closure may reach it.
      */
     public void popFrame() {
-        if (stack.size() > 1) {
-            stack.pop();
+        Frame frame = top;
+        if (frame.parent != null) {
+            top = frame.parent;
+            if (!frame.escaped && pooled < MAX_POOLED) {
+                frame.release();
+                frame.parent = pool;
+                pool = frame;
+                pooled++;
+            }
         }
     }
 
     /**
-     * Returns this Environment's global frame.
+     * Pops the frame of a scope from the stack. Does nothing if the scope needs no frame of its own.
+     *
+     * @param scope The scope, or null if it is only known at runtime.
      */
-    public Frame getGlobals() {
-        return globals;
+    public void popFrame(Scope scope) {
+        if (scope == null || scope.hasFrame())
+            popFrame();
     }
 
-    public Deque<Frame> getStack() {
-        return stack;
+    /**
+     * Makes the given frame the top of the stack. Frames above it are discarded, and not reused. A frozen frame is
+     * replaced by this Environment's globals, since it can't be run on.
+     *
+     * @param top The new top frame.
+     */
+    public void setTop(Frame top) {
+        this.top = top != null && top.frozen ? globals : top;
     }
 
-    public void setStack(Deque<Frame> stack) {
-        this.stack = stack;
+    /**
+     * Returns this Environment's global frame.
+     */
+    public Frame getGlobals() {
+        return globals;
     }
 
-    public void setOldStack(Deque<Frame> oldStack) {
-        this.oldStack = oldStack;
+    public void setOldTop(Frame oldTop) {
+        this.oldTop = oldTop;
     }
 
-    public Deque<Frame> getOldStack() {
-        return oldStack;
+    public Frame getOldTop() {
+        return oldTop;
     }
 
     /**
-     * A stack frame. Holds local variables in a map.
+     * A stack frame. Holds local variables in slots.
+     * <p>
+     * Variables declared in the frame's {@link Scope} have fixed slots. Any other variable (defined at the root of a
+     * module, or by code that was not resolved) is given a new slot when it is first defined.
      */
     public static class Frame {
+        private static final Obj[] EMPTY = new Obj[0];
+
+        /**
+         * The name of the class this Frame's function belongs to. Can be null.
+         */
+        private String owner;
+
         /**
          * This Frame's name.
          */
-        private final String name;
+        private String name;
+
+        /**
+         * The frame below this one, or null if this is the global frame. While this Frame is pooled, the next pooled
+         * frame.
+         */
+        private Frame parent;
+
+        /**
+         * The scope this Frame's slots are laid out for. Can be null.
+         */
+        private Scope scope;
+
+        /**
+         * The slots of variables that are not declared in {@link #scope}. Null until the first such variable is
+         * defined.
+         */
+        private Map<String, Integer> extraSlots;
+
+        /**
+         * This Frame's local variables. A null slot holds no variable. May be longer than the frame needs when the
+         * frame is reused.
+         */
+        private Obj[] values = EMPTY;
+
+        /**
+         * The cells of this Frame's captured slots, which hold those slots' values instead of {@link #values}. Null if
+         * no slot is captured.
+         */
+        private Cell[] cells;
+
+        /**
+         * The cells of the variables captured by the function this is a call frame of. Null if this is not a call
+         * frame, or the function captured a whole frame instead.
+         */
+        private Cell[] upvalues;
+
+        /**
+         * The code this Frame was last known to be executing. Null if it is executing native code.
+         */
+        private PositionTable positions;
+
+        /**
+         * The offset into {@link #positions} this Frame was last known to be executing.
+         */
+        private int offset;
+
+        /**
+         * Whether this Frame belongs to a native function.
+         */
+        private boolean nativeFrame;
 
         /**
-         * This Frame's local variables.
+         * Whether a closure may reach this Frame, which must then not be reused.
          */
-        private final Map<String, Obj> locals = new HashMap<>();
+        private boolean escaped;
 
         /**
-         * This Frame's current line.
+         * A frozen frame whose variables are visible in this one unless this one defines them. Only set on global
+         * frames.
          */
-        private int line;
+        private Frame base;
 
         /**
-         * This Frame's current file name.
+         * Whether this Frame's variables can no longer be changed.
          */
-        private String fileName;
+        private boolean frozen;
 
         public Frame(String name) {
+            this(name, null, null);
+        }
+
+        /**
+         * Creates a new Frame.
+         *
+         * @param name   The frame's name.
+         * @param scope  The scope the frame's slots are laid out for. Can be null.
+         * @param parent The frame below this one.
+         */
+        public Frame(String name, Scope scope, Frame parent) {
+            this(null, name, scope, parent);
+        }
+
+        private Frame(String owner, String name, Scope scope, Frame parent) {
+            init(owner, name, scope, parent);
+        }
+
+        /**
+         * Lays this Frame out for a scope. The frame must hold no variables.
+         *
+         * @param owner  The name of the class the frame's function belongs to. Can be null.
+         * @param name   The frame's name.
+         * @param scope  The scope the frame's slots are laid out for. Can be null.
+         * @param parent The frame below this one.
+         */
+        private void init(String owner, String name, Scope scope, Frame parent) {
+            this.owner = owner;
             this.name = name;
+            this.scope = scope;
+            this.parent = parent;
+            this.nativeFrame = false;
+
+            int size = scope != null ? scope.size() : 0;
+            if (values.length < size)
+                values = new Obj[size];
+
+            int[] captured = scope != null ? scope.getCaptured() : null;
+            if (captured != null && captured.length > 0) {
+                cells = new Cell[size];
+                for (int slot : captured) {
+                    cells[slot] = new Cell();
+                }
+            }
+        }
+
+        /**
+         * Clears this Frame's variables, so that it can be reused.
+         */
+        private void release() {
+            Arrays.fill(values, null);
+            extraSlots = null;
+            cells = null;
+            upvalues = null;
+            scope = null;
+            positions = null;
+        }
+
+        /**
+         * Returns the slot of the variable with the given name, or -1 if it has none.
+         *
+         * @param name The variable's name.
+         */
+        private int slotOf(String name) {
+            int slot = scope != null ? scope.slotOf(name) : -1;
+            if (slot == -1 && extraSlots != null) {
+                Integer extra = extraSlots.get(name);
+                if (extra != null)
+                    slot = extra;
+            }
+            return slot;
+        }
+
+        /**
+         * Returns the value of the variable with the given name, or null if it does not exist in this Frame.
+         *
+         * @param name The variable's name.
+         */
+        private Obj lookup(String name) {
+            int slot = slotOf(name);
+            Obj value = slot != -1 ? getSlot(slot) : null;
+            return value == null && base != null ? base.lookup(name) : value;
+        }
+
+        /**
+         * Returns the value in the given slot, or null if it holds no variable.
+         *
+         * @param slot The slot.
+         */
+        private Obj getSlot(int slot) {
+            Cell[] cells = this.cells;
+            if (cells != null && slot < cells.length && cells[slot] != null)
+                return cells[slot].value;
+            return values[slot];
+        }
+
+        /**
+         * Sets the value in the given slot.
+         *
+         * @param slot  The slot.
+         * @param value The new value, or null to remove the variable.
+         */
+        private void setSlot(int slot, Obj value) {
+            Cell[] cells = this.cells;
+            if (cells != null && slot < cells.length && cells[slot] != null)
+                cells[slot].value = value;
+            else
+                values[slot] = value;
         }
 
         /**
@@ -241,12 +704,21 @@ public class Environment {
          * @throws me.abje.lingua.interpreter.InterpreterException If a variable with the given name already exists.
          */
         public Obj define(String name, Obj value) {
-            if (locals.containsKey(name)) {
+            checkFrozen();
+            int slot = slotOf(name);
+            if (slot == -1) {
+                if (extraSlots == null)
+                    extraSlots = new HashMap<>();
+                slot = (scope != null ? scope.size() : 0) + extraSlots.size();
+                extraSlots.put(name, slot);
+                if (slot >= values.length)
+                    values = Arrays.copyOf(values, Math.max(4, slot * 2));
+            } else if (getSlot(slot) != null) {
                 throw new InterpreterException("InvalidOperationException", "variable '" + name + "' is already defined in this context");
-            } else {
-                locals.put(name, value);
-                return value;
             }
+
+            setSlot(slot, value);
+            return value;
         }
 
         /**
@@ -258,10 +730,14 @@ public class Environment {
          * @throws me.abje.lingua.interpreter.InterpreterException If a variable with the given name does not exist.
          */
         public Obj update(String name, Obj value) {
-            if (!locals.containsKey(name)) {
+            checkFrozen();
+            int slot = slotOf(name);
+            if (slot == -1 || getSlot(slot) == null) {
+                if (base != null && base.lookup(name) != null)
+                    return define(name, value);
                 throw new InterpreterException("UndefinedException", "variable '" + name + "' is not defined in this context");
             } else {
-                locals.put(name, value);
+                setSlot(slot, value);
                 return value;
             }
         }
@@ -272,7 +748,7 @@ public class Environment {
          * @param name The name to find.
          */
         public boolean has(String name) {
-            return locals.containsKey(name);
+            return lookup(name) != null;
         }
 
         /**
@@ -283,10 +759,11 @@ public class Environment {
          * @throws me.abje.lingua.interpreter.InterpreterException If a variable with the given name does not exist.
          */
         public Obj get(String name) {
-            if (!locals.containsKey(name)) {
+            Obj value = lookup(name);
+            if (value == null) {
                 throw new InterpreterException("UndefinedException", "variable '" + name + "' is not defined in this context");
             } else {
-                return locals.get(name);
+                return value;
             }
         }
 
@@ -296,31 +773,158 @@ public class Environment {
          * @param name The variable's name.
          */
         public void delete(String name) {
-            if (!locals.containsKey(name)) {
+            checkFrozen();
+            if (!has(name)) {
                 throw new InterpreterException("UndefinedException", "variable '" + name + "' is not defined in this context");
+            } else if (slotOf(name) == -1) {
+                throw new InterpreterException("InvalidOperationException", "variable '" + name + "' cannot be deleted");
             } else {
-                locals.remove(name);
+                setSlot(slotOf(name), null);
             }
         }
 
+        /**
+         * Returns the names of the variables defined in this Frame that are not declared in its scope, which for a
+         * global frame is all of them. Variables of its base are not included.
+         */
+        public Set<String> getDefinedNames() {
+            Set<String> names = new HashSet<>();
+            if (extraSlots != null) {
+                extraSlots.forEach((name, slot) -> {
+                    if (getSlot(slot) != null)
+                        names.add(name);
+                });
+            }
+            return names;
+        }
+
+        /**
+         * Prevents this Frame's variables from being changed, so that it can be used as the base of other Environments'
+         * globals (see {@link Environment#Environment(Frame)}).
+         */
+        public void freeze() {
+            frozen = true;
+        }
+
+        /**
+         * Returns whether this Frame's variables can no longer be changed.
+         */
+        public boolean isFrozen() {
+            return frozen;
+        }
+
+        private void checkFrozen() {
+            if (frozen)
+                throw new InterpreterException("InvalidOperationException", "cannot change variables of a frozen frame");
+        }
+
+        /**
+         * Returns this Frame's name, qualified with the class its function belongs to.
+         */
         public String getName() {
-            return name;
+            return owner != null ? owner + "." + name : name;
         }
 
-        public int getLine() {
-            return line;
+        /**
+         * Returns the frame below this one, or null if this is the global frame.
+         */
+        public Frame getParent() {
+            return parent;
+        }
+
+        /**
+         * Returns the scope this Frame's slots are laid out for. Can be null.
+         */
+        public Scope getScope() {
+            return scope;
         }
 
-        public void setLine(int line) {
-            this.line = line;
+        /**
+         * Returns the source line this Frame was last known to be executing, or 0 if it is not known.
+         */
+        public int getLine() {
+            return positions != null && !nativeFrame ? positions.getLine(offset) : 0;
         }
 
+        /**
+         * Returns the file this Frame was last known to be executing, or null if it is not known or this Frame
+         * belongs to a native function.
+         */
         public String getFileName() {
-            return fileName;
+            return positions != null && !nativeFrame ? positions.getFileName() : null;
+        }
+
+        /**
+         * Records the code this Frame is executing.
+         *
+         * @param positions The code.
+         * @param offset    The offset into the code.
+         */
+        public void setPosition(PositionTable positions, int offset) {
+            this.positions = positions;
+            this.offset = offset;
         }
 
-        public void setFileName(String fileName) {
-            this.fileName = fileName;
+        /**
+         * Returns whether this Frame belongs to a native function.
+         */
+        public boolean isNative() {
+            return nativeFrame;
+        }
+
+        /**
+         * Marks this Frame as belonging to a native function, which has no source position.
+         */
+        public void setNative() {
+            this.nativeFrame = true;
+        }
+    }
+
+    /**
+     * A variable shared between the frame that declares it and the functions that capture it.
+     */
+    public static class Cell {
+        /**
+         * The variable's value, or null if it is not defined.
+         */
+        private Obj value;
+    }
+
+    /**
+     * The environment captured by a function.
+     */
+    public static class Closure {
+        private static final Cell[] NO_UPVALUES = new Cell[0];
+
+        /**
+         * The frame the function's call frames are pushed on.
+         */
+        private final Frame parent;
+
+        /**
+         * The cells of the variables the function references from enclosing functions, or null if it captured
+         * {@link #parent} as a whole.
+         */
+        private final Cell[] upvalues;
+
+        private Closure(Frame parent, Cell[] upvalues) {
+            this.parent = parent;
+            this.upvalues = upvalues;
+        }
+
+        /**
+         * Returns the frame the function's call frames are pushed on.
+         */
+        public Frame getParent() {
+            return parent;
+        }
+
+        /**
+         * Returns the cells of the variables the function references from enclosing functions, or null if it
+         * captured its parent frame as a whole.
+         */
+        public Cell[] getUpvalues() {
+            return upvalues;
         }
     }
 }
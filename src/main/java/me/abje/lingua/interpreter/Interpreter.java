@@ -25,11 +25,16 @@ package me.abje.lingua.interpreter;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.jit.JIT;
 import me.abje.lingua.lexer.Lexer;
 import me.abje.lingua.lexer.Morpher;
 import me.abje.lingua.parser.ParseException;
 import me.abje.lingua.parser.Parser;
 import me.abje.lingua.parser.expr.*;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.VM;
 import org.jline.reader.EndOfFileException;
 import org.jline.reader.LineReader;
 import org.jline.reader.LineReaderBuilder;
@@ -50,38 +55,88 @@ import java.util.*;
  */
 public class Interpreter {
     public static Logger log = LoggerFactory.getLogger(Interpreter.class);
-    private static final Terminal terminal;
-    private static final LineReader in;
-    private static final PrintWriter out;
-
-    static {
-        try {
-            terminal = TerminalBuilder.builder()
-                    .nativeSignals(true)
-                    .signalHandler(Terminal.SignalHandler.SIG_IGN)
-                    .build();
-            in = LineReaderBuilder.builder()
-                    .terminal(terminal)
-                    .option(LineReader.Option.INSERT_BRACKET, true)
-                    .build();
-            out = terminal.writer();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
 
     /**
      * The environment used for interpretation.
      */
-    private final Environment env = new Environment();
+    private final Environment env;
+
+    /**
+     * The paths of the modules that have been imported.
+     */
     private final List<String> imported = new ArrayList<>();
 
+    /**
+     * The VM used to run compiled code, or null if expressions are evaluated by walking the tree.
+     */
+    private VM vm;
+
+    /**
+     * The JIT used to compile hot functions, or null if functions are always interpreted.
+     */
+    private JIT jit;
+
+    /**
+     * Whether modules are optimized before they are resolved.
+     */
+    private boolean optimizing = true;
+
+    /**
+     * Whether the optimizer logs its rewrites.
+     */
+    private boolean optimizerLogging;
+
+    /**
+     * Whether imported modules are loaded from, and saved to, their precompiled forms.
+     */
+    private boolean caching = true;
+
+    /**
+     * The stream that scripts print to.
+     */
+    private PrintWriter out = new PrintWriter(System.out, true);
+
+    /**
+     * The stream that scripts print errors to.
+     */
+    private PrintWriter err = new PrintWriter(System.err, true);
+
+    /**
+     * The reader that scripts read lines from, or null if it hasn't been used yet. Created lazily, since wrapping
+     * standard input buffers from it.
+     */
+    private BufferedReader in;
+
+    /**
+     * Creates a new interpreter with empty globals.
+     */
+    public Interpreter() {
+        this(new Environment());
+    }
+
+    /**
+     * Creates a new interpreter which runs in the given environment.
+     *
+     * @param env The environment.
+     */
+    public Interpreter(Environment env) {
+        this.env = env;
+    }
+
     @SuppressWarnings("unchecked")
     public static void main(String[] args) throws IOException {
         OptionParser optParser = new OptionParser() {
             {
                 accepts("clear", "Clear the screen before running");
                 accepts("no-core", "Don't import core (advanced)");
+                accepts("vm", "Compile to bytecode and run it on the VM");
+                accepts("jit", "Compile hot functions to specialized code");
+                accepts("jit-threshold", "Number of calls after which a function is compiled (implies --jit)")
+                        .withRequiredArg().ofType(Integer.class).defaultsTo(JIT.DEFAULT_THRESHOLD);
+                accepts("jit-log", "Log compiled and deoptimized functions (implies --jit)");
+                accepts("no-cache", "Don't load or write precompiled modules");
+                accepts("no-optimize", "Don't fold constants or prune dead branches before running");
+                accepts("optimize-log", "Log the optimizer's rewrites");
                 accepts("h", "Show help").forHelp();
             }
         };
@@ -94,13 +149,26 @@ public class Interpreter {
 
         List<?> files = options.nonOptionArguments();
         Interpreter interpreter = new Interpreter();
+        if (options.has("vm"))
+            interpreter.setVm(new VM(interpreter));
+        if (options.has("jit") || options.has("jit-threshold") || options.has("jit-log")) {
+            JIT jit = new JIT((Integer) options.valueOf("jit-threshold"));
+            jit.setLogging(options.has("jit-log"));
+            interpreter.setJit(jit);
+        }
+        interpreter.setOptimizing(!options.has("no-optimize"));
+        interpreter.setCaching(!options.has("no-cache"));
+        interpreter.setOptimizerLogging(options.has("optimize-log"));
 
-        new Intrinsics(interpreter.env).register(files.isEmpty() ? Collections.emptyList() :
+        new Intrinsics(interpreter).register(files.isEmpty() ? Collections.emptyList() :
                 (List<String>) files.subList(1, files.size()));
         if (!options.has("no-core"))
             interpreter.addImport("lingua.core");
-        if (options.has("clear"))
+        Terminal terminal = null;
+        if (options.has("clear")) {
+            terminal = createTerminal();
             terminal.puts(InfoCmp.Capability.clear_screen);
+        }
 
         if (!files.isEmpty()) {
             try {
@@ -111,6 +179,13 @@ public class Interpreter {
                 handleInterpreterException(e, interpreter);
             }
         } else {
+            if (terminal == null)
+                terminal = createTerminal();
+            LineReader in = LineReaderBuilder.builder()
+                    .terminal(terminal)
+                    .option(LineReader.Option.INSERT_BRACKET, true)
+                    .build();
+            PrintWriter out = terminal.writer();
             out.println("Welcome to Lingua REPL version 1.0 (Java " +
                     System.getProperty("java.version") + ").");
             out.println("Type in expressions to evaluate them.");
@@ -145,8 +220,10 @@ public class Interpreter {
                         exprs.add(expr);
                     }
 
+                    interpreter.optimize(exprs);
+                    interpreter.resolve(exprs);
                     for (Expr x : exprs) {
-                        Obj value = interpreter.next(x);
+                        Obj value = interpreter.run(x);
                         if (x instanceof AssignmentExpr || x instanceof FunctionExpr ||
                                 x instanceof IndexSetExpr || x instanceof MemberSetExpr) {
                             out.println(x.toString());
@@ -180,35 +257,40 @@ public class Interpreter {
         }
     }
 
+    private static Terminal createTerminal() throws IOException {
+        return TerminalBuilder.builder()
+                .nativeSignals(true)
+                .signalHandler(Terminal.SignalHandler.SIG_IGN)
+                .build();
+    }
+
     private static void handleInterpreterException(InterpreterException e, Interpreter interpreter) {
         e.initialize(interpreter);
 
-        Deque<Environment.Frame> stack = interpreter.getEnv().getStack();
-        ArrayDeque<Environment.Frame> oldStack = new ArrayDeque<>(stack);
-        interpreter.getEnv().setOldStack(oldStack);
+        Environment.Frame top = interpreter.getEnv().peekFrame();
+        interpreter.getEnv().setOldTop(top);
         e.getExceptionObj().getMember(interpreter, "printError").call(interpreter, Collections.emptyList());
-        interpreter.getEnv().setOldStack(null);
-        interpreter.getEnv().setStack(stack);
+        interpreter.getEnv().setOldTop(null);
+        interpreter.getEnv().setTop(top);
     }
 
     public void addImport(String fullName) {
         try {
             String name = fullName.replace('.', '/') + ".ling";
             if (!imported.contains(name)) {
-                InputStream classpathStream = Interpreter.class.getResourceAsStream("/" + name);
                 String[] parts = name.split("/");
                 imported.add(name);
-                if (classpathStream != null) {
-                    interpret(new InputStreamReader(classpathStream), parts[parts.length - 1]);
-                } else {
-                    File file = new File(name);
-                    interpret(new FileReader(file), parts[parts.length - 1]);
-                }
+                List<Expr> exprs = ModuleCache.load(name, parts[parts.length - 1], caching);
+                optimize(exprs);
+                resolve(exprs);
+                exprs.forEach(this::run);
             } else {
                 log.warn("Ignoring already-imported module {}.", fullName);
             }
         } catch (FileNotFoundException e) {
             throw new InterpreterException("UndefinedException", "module not found: " + fullName, this);
+        } catch (IOException e) {
+            throw new InterpreterException("IOException", e.getMessage(), this);
         }
     }
 
@@ -219,9 +301,12 @@ public class Interpreter {
      * @return The result of interpreting the expression.
      */
     public Obj next(Expr expr) {
-        env.getStack().peek().setLine(expr.getToken().getLine());
-        env.getStack().peek().setFileName(expr.getToken().getFile());
-        return expr.evaluate(this);
+        try {
+            return expr.evaluate(this);
+        } catch (InterpreterException e) {
+            e.locate(env.peekFrame(), expr, 0);
+            throw e;
+        }
     }
 
     /**
@@ -231,13 +316,54 @@ public class Interpreter {
      * @param fileName The file name of the input.
      */
     public void interpret(Reader reader, String fileName) {
-        Parser parser = new Parser(new Morpher(new Lexer(reader, fileName)));
-        List<Expr> exprs = new ArrayList<>();
-        Expr expr;
-        while ((expr = parser.next()) != null) {
-            exprs.add(expr);
-        }
-        exprs.forEach(this::next);
+        compile(reader, fileName).forEach(this::run);
+    }
+
+    /**
+     * Parses, optimizes and resolves each expression in the given input without running it. The expressions can be
+     * run any number of times, by this interpreter or another, with {@link #run(Expr)}.
+     *
+     * @param reader   The input.
+     * @param fileName The file name of the input.
+     * @return The expressions.
+     */
+    public List<Expr> compile(Reader reader, String fileName) {
+        List<Expr> exprs = new Parser(new Morpher(new Lexer(reader, fileName))).parseAll();
+        optimize(exprs);
+        resolve(exprs);
+        return exprs;
+    }
+
+    /**
+     * Runs a top-level expression. If a VM is in use, the expression is compiled first.
+     *
+     * @param expr The expression to run.
+     * @return The result of running the expression.
+     */
+    public Obj run(Expr expr) {
+        if (vm != null)
+            return vm.execute(Compiler.compileChunk(expr));
+        else
+            return next(expr);
+    }
+
+    /**
+     * Optimizes a module's expressions, if optimization is enabled.
+     *
+     * @param exprs The module's expressions. Optimized expressions are replaced in the list.
+     */
+    private void optimize(List<Expr> exprs) {
+        if (optimizing)
+            new Optimizer(optimizerLogging).optimize(exprs);
+    }
+
+    /**
+     * Resolves the names referenced by a module's expressions, as seen from the current top frame.
+     *
+     * @param exprs The module's expressions.
+     */
+    private void resolve(List<Expr> exprs) {
+        new Resolver(env.peekFrame() == env.getGlobals()).resolve(exprs);
     }
 
     /**
@@ -246,4 +372,128 @@ public class Interpreter {
     public Environment getEnv() {
         return env;
     }
+
+    /**
+     * Returns the paths of the modules that have been imported.
+     */
+    List<String> getImported() {
+        return imported;
+    }
+
+    /**
+     * Returns the VM used to run compiled code, or null if expressions are evaluated by walking the tree.
+     */
+    public VM getVm() {
+        return vm;
+    }
+
+    /**
+     * Sets the VM used to run compiled code.
+     *
+     * @param vm The VM, or null to evaluate expressions by walking the tree.
+     */
+    public void setVm(VM vm) {
+        this.vm = vm;
+    }
+
+    /**
+     * Returns the JIT used to compile hot functions, or null if functions are always interpreted.
+     */
+    public JIT getJit() {
+        return jit;
+    }
+
+    /**
+     * Sets the JIT used to compile hot functions.
+     *
+     * @param jit The JIT, or null to always interpret functions.
+     */
+    public void setJit(JIT jit) {
+        this.jit = jit;
+    }
+
+    /**
+     * Returns whether modules are optimized before they are resolved.
+     */
+    public boolean isOptimizing() {
+        return optimizing;
+    }
+
+    /**
+     * Sets whether modules are optimized before they are resolved.
+     *
+     * @param optimizing Whether to optimize.
+     */
+    public void setOptimizing(boolean optimizing) {
+        this.optimizing = optimizing;
+    }
+
+    /**
+     * Sets whether imported modules are loaded from, and saved to, their precompiled forms.
+     *
+     * @param caching Whether to use precompiled modules.
+     * @see ModuleCache
+     */
+    public void setCaching(boolean caching) {
+        this.caching = caching;
+    }
+
+    /**
+     * Sets whether the optimizer logs its rewrites.
+     *
+     * @param optimizerLogging Whether to log.
+     */
+    public void setOptimizerLogging(boolean optimizerLogging) {
+        this.optimizerLogging = optimizerLogging;
+    }
+
+    /**
+     * Returns the stream that scripts print to. Standard output by default.
+     */
+    public PrintWriter getOut() {
+        return out;
+    }
+
+    /**
+     * Sets the stream that scripts print to.
+     *
+     * @param out The stream.
+     */
+    public void setOut(Writer out) {
+        this.out = out instanceof PrintWriter ? (PrintWriter) out : new PrintWriter(out, true);
+    }
+
+    /**
+     * Returns the stream that scripts print errors to. Standard error by default.
+     */
+    public PrintWriter getErr() {
+        return err;
+    }
+
+    /**
+     * Sets the stream that scripts print errors to.
+     *
+     * @param err The stream.
+     */
+    public void setErr(Writer err) {
+        this.err = err instanceof PrintWriter ? (PrintWriter) err : new PrintWriter(err, true);
+    }
+
+    /**
+     * Returns the reader that scripts read lines from. Standard input by default.
+     */
+    public BufferedReader getIn() {
+        if (in == null)
+            in = new BufferedReader(new InputStreamReader(System.in));
+        return in;
+    }
+
+    /**
+     * Sets the reader that scripts read lines from.
+     *
+     * @param in The reader.
+     */
+    public void setIn(Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+    }
 }
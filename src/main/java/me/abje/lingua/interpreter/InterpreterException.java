@@ -29,32 +29,62 @@ import java.util.Collections;
 
 /**
  * An exception thrown at runtime by the interpreter.
+ * <p>
+ * Interpreter exceptions are used for control flow as often as for errors, so they don't capture a Java stack trace,
+ * and the Lingua exception object is only created when the exception is caught or reported.
  */
 public class InterpreterException extends RuntimeException {
     private String exceptionClass;
     private Obj exceptionObj;
+    private String message;
+    private boolean located;
 
     public InterpreterException(String exceptionClass, String message) {
         this(new StringObj(message));
         this.exceptionClass = exceptionClass;
+        this.message = message;
     }
 
     public InterpreterException(String exceptionClass, String message, Interpreter interpreter) {
-        this(interpreter.getEnv().get(exceptionClass).call(interpreter, Collections.singletonList(new StringObj(message))));
+        this(exceptionClass, message);
     }
 
     public InterpreterException(Obj exceptionObj) {
-        super(exceptionObj.toString());
+        super(null, null, false, false);
         this.exceptionObj = exceptionObj;
     }
 
     public void initialize(Interpreter interpreter) {
-        if (exceptionObj instanceof StringObj) {
+        if (exceptionClass != null && exceptionObj instanceof StringObj) {
             exceptionObj = interpreter.getEnv().get(exceptionClass).call(interpreter, Collections.singletonList(exceptionObj));
         }
     }
 
+    /**
+     * Records where this exception was thrown in the top frame, the first time it passes through code that knows its
+     * position. Native frames are left without a position.
+     *
+     * @param top       The top frame.
+     * @param positions The code the exception passed through.
+     * @param offset    The offset into the code.
+     */
+    public void locate(Environment.Frame top, PositionTable positions, int offset) {
+        if (!located) {
+            located = true;
+            if (!top.isNative())
+                top.setPosition(positions, offset);
+        }
+    }
+
     public Obj getExceptionObj() {
         return exceptionObj;
     }
+
+    @Override
+    public String getMessage() {
+        if (message == null) {
+            message = exceptionObj.toString();
+        }
+        return message;
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter;
+
+import me.abje.lingua.interpreter.obj.Obj;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out interpreters with core and a set of other modules already loaded.
+ * <p>
+ * The modules are lexed, parsed and run once, by a template interpreter whose globals are then frozen. Each borrowed
+ * interpreter gets its own globals layered on that snapshot (see {@link Environment#Environment(Environment.Frame)}):
+ * it sees everything the modules defined, and assigning or redefining a variable only shadows it in that interpreter.
+ * Borrowing an interpreter creates its environment and registers its intrinsics, so it takes microseconds instead of
+ * the milliseconds of running core again.
+ * <p>
+ * Pools are thread-safe, and the interpreters borrowed from one can run on different threads at once. Borrowed
+ * interpreters don't need to be returned.
+ */
+public class InterpreterPool {
+    /**
+     * The frozen globals of the template interpreter.
+     */
+    private final Environment.Frame snapshot;
+
+    /**
+     * The paths of the modules the template interpreter imported.
+     */
+    private final List<String> imported;
+
+    /**
+     * Creates a new pool, and loads core and the given modules.
+     *
+     * @param modules The names of the modules to load after core, like those given to
+     *                {@link Interpreter#addImport(String)}.
+     * @throws InterpreterException If a module could not be loaded.
+     */
+    public InterpreterPool(String... modules) {
+        Interpreter template = new Interpreter();
+        new Intrinsics(template).register(Collections.emptyList());
+        template.addImport("lingua.core");
+        for (String module : modules) {
+            template.addImport(module);
+        }
+
+        this.snapshot = template.getEnv().getGlobals();
+        this.snapshot.freeze();
+        this.imported = List.copyOf(template.getImported());
+    }
+
+    /**
+     * Borrows an interpreter with no script arguments.
+     *
+     * @return The interpreter.
+     */
+    public Interpreter borrow() {
+        return borrow(Collections.emptyList());
+    }
+
+    /**
+     * Borrows an interpreter.
+     *
+     * @param args The script arguments, available to the script as <code>__args__</code>.
+     * @return The interpreter.
+     */
+    public Interpreter borrow(List<String> args) {
+        return borrow(snapshot, args);
+    }
+
+    /**
+     * Borrows an interpreter with extra global variables. Scripts see them like the variables of the preloaded
+     * modules, so declaring or assigning one only shadows it.
+     *
+     * @param globals The variables.
+     * @return The interpreter.
+     */
+    public Interpreter borrow(Map<String, Obj> globals) {
+        if (globals.isEmpty())
+            return borrow();
+        Environment.Frame base = new Environment(snapshot).getGlobals();
+        globals.forEach(base::define);
+        base.freeze();
+        return borrow(base, Collections.emptyList());
+    }
+
+    private Interpreter borrow(Environment.Frame base, List<String> args) {
+        Interpreter interpreter = new Interpreter(new Environment(base));
+        interpreter.getImported().addAll(imported);
+        new Intrinsics(interpreter).register(args);
+        return interpreter;
+    }
+}
@@ -23,6 +23,7 @@
 package me.abje.lingua.interpreter;
 
 import me.abje.lingua.interpreter.obj.*;
+import me.abje.lingua.interpreter.obj.bridge.JavaClassObj;
 import me.abje.lingua.interpreter.obj.bridge.ObjectBridge;
 import me.abje.lingua.lexer.Lexer;
 import me.abje.lingua.lexer.Morpher;
@@ -30,14 +31,33 @@ import me.abje.lingua.parser.Parser;
 import me.abje.lingua.parser.expr.Expr;
 import me.abje.lingua.util.TriFunction;
 
+import java.io.IOException;
 import java.io.StringReader;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * Registers intrinsic (built-in) functions with the interpreter.
  */
 public class Intrinsics {
+    /**
+     * The bridges to the intrinsic functions. Created once and shared by every Intrinsics, which passes itself as the
+     * receiver, so that registering the intrinsics with an interpreter needs no reflection.
+     */
+    private static final Map<String, TriFunction<Interpreter, Intrinsics, List<Obj>, Obj>> FUNCTIONS =
+            ObjectBridge.createFunctions(Intrinsics.class);
+
+    /**
+     * The classes returned by {@link #doNative(StringObj)}, by Java class name.
+     */
+    private static final Map<String, ClassObj> NATIVES = new ConcurrentHashMap<>();
+
+    /**
+     * The interpreter to register in.
+     */
+    private final Interpreter interpreter;
+
     /**
      * The environment to register in.
      */
@@ -46,20 +66,21 @@ public class Intrinsics {
     /**
      * Creates a new Intrinsics.
      *
-     * @param env The environment to register in.
+     * @param interpreter The interpreter to register in. Its streams are used for input and output.
      */
-    public Intrinsics(Environment env) {
-        this.env = env;
+    public Intrinsics(Interpreter interpreter) {
+        this.interpreter = interpreter;
+        this.env = interpreter.getEnv();
     }
 
     @Bridge(anyLength = true)
     public void print(Obj... args) {
-        System.out.println(Arrays.stream(args).map(Object::toString).collect(Collectors.joining("")));
+        interpreter.getOut().println(Arrays.stream(args).map(Object::toString).collect(Collectors.joining("")));
     }
 
     @Bridge(anyLength = true)
     public void error(Obj... args) {
-        System.err.println(Arrays.stream(args).map(Object::toString).collect(Collectors.joining("")));
+        interpreter.getErr().println(Arrays.stream(args).map(Object::toString).collect(Collectors.joining("")));
     }
 
     @Bridge
@@ -80,47 +101,36 @@ public class Intrinsics {
 
     @Bridge
     public NumberObj sqrt(NumberObj num) {
-        return NumberObj.of((float) Math.sqrt(num.getValue()));
+        return NumberObj.of(Math.sqrt(num.doubleValue()));
     }
 
     @Bridge
     public StringObj read() {
-        Scanner scanner = new Scanner(System.in);
-        if (scanner.hasNextLine()) {
-            return new StringObj(scanner.nextLine());
-        } else {
-            return null;
+        try {
+            String line = interpreter.getIn().readLine();
+            return line != null ? new StringObj(line) : null;
+        } catch (IOException e) {
+            throw new InterpreterException("IOException", e.getMessage(), interpreter);
         }
     }
 
     @Bridge
     public StringObj read(StringObj prompt) {
-        Scanner scanner = new Scanner(System.in);
-        System.out.print(prompt);
-        if (scanner.hasNextLine()) {
-            return new StringObj(scanner.nextLine());
-        } else {
-            return null;
-        }
+        interpreter.getOut().print(prompt);
+        interpreter.getOut().flush();
+        return read();
     }
 
     @Bridge
     public ListObj dumpStack() {
-        Deque<Environment.Frame> stack;
-        if (env.getOldStack() != null) {
-            stack = env.getOldStack();
+        Environment.Frame frame;
+        if (env.getOldTop() != null) {
+            frame = env.getOldTop();
         } else {
-            stack = new ArrayDeque<>(env.getStack());
-            stack.pop();
+            frame = env.peekFrame().getParent();
         }
 
-        return new ListObj(stack.stream().map(frame -> {
-            if (frame.getFileName() == null || frame.getFileName().equals("<native>")) {
-                return new StringObj(frame.getName() + "(native)");
-            } else {
-                return new StringObj(frame.getName() + "(" + frame.getFileName() + ":" + frame.getLine() + ")");
-            }
-        }).collect(Collectors.toList()));
+        return new ListObj(new StackTrace(frame));
     }
 
     @Bridge("throw")
@@ -130,21 +140,30 @@ public class Intrinsics {
 
     @Bridge("native")
     public ClassObj doNative(StringObj name) {
+        ClassObj cached = NATIVES.get(name.getValue());
+        if (cached != null)
+            return cached;
         try {
             Class<?> clazz = Class.forName(name.getValue());
-            return (ClassObj) clazz.getField("SYNTHETIC").get(null);
+            ClassObj type = (ClassObj) clazz.getField("SYNTHETIC").get(null);
+            NATIVES.put(name.getValue(), type);
+            return type;
         } catch (ClassNotFoundException | IllegalAccessException | NoSuchFieldException e) {
             e.printStackTrace();
             return null;
         }
     }
 
+    @Bridge
+    public JavaClassObj java(String name) {
+        return JavaClassObj.forName(name);
+    }
+
     /**
      * Register the intrinsics.
      */
     public void register(List<String> args) {
-        ObjectBridge.createMethodMap(Intrinsics.class, this).
-                forEach((name, map) -> addFunction(name, ObjectBridge.createFunctionBridge(name, map)));
+        FUNCTIONS.forEach(this::addFunction);
         env.define("__args__", new ListObj(args.stream().map(StringObj::new).collect(Collectors.toList())));
     }
 
@@ -154,11 +173,11 @@ public class Intrinsics {
      * @param name The function's name.
      * @param func The function's body.
      */
-    private void addFunction(String name, TriFunction<Interpreter, Obj, List<Obj>, Obj> func) {
+    private void addFunction(String name, TriFunction<Interpreter, Intrinsics, List<Obj>, Obj> func) {
         env.getGlobals().define(name, new SyntheticFunctionObj(FunctionObj.SYNTHETIC) {
             @Override
-            public Obj call(Interpreter interpreter, List<Obj> args) {
-                return func.apply(interpreter, getSelf(), args);
+            public Obj call(Interpreter interpreter, Obj self, List<Obj> args) {
+                return func.apply(interpreter, Intrinsics.this, args);
             }
         });
     }
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter;
+
+import me.abje.lingua.lexer.Lexer;
+import me.abje.lingua.lexer.Morpher;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleReader;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.parser.Parser;
+import me.abje.lingua.parser.expr.Expr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+
+/**
+ * Loads modules, using their precompiled forms (<code>.lingc</code> files, see {@link ModuleFormat}) when they are
+ * up to date, so that the module's source does not need to be lexed and parsed again.
+ * <p>
+ * Modules on the classpath use the precompiled form shipped alongside them, which the build generates for the bundled
+ * modules. Modules on the file system are precompiled the first time they are imported, next to their source or, if
+ * the <code>lingua.cacheDir</code> system property is set, in that directory. A precompiled module is only used if it
+ * was compiled from the same source, so editing a module is always safe.
+ */
+public final class ModuleCache {
+    private static final Logger log = LoggerFactory.getLogger(ModuleCache.class);
+
+    /**
+     * The extension of precompiled modules. A module's precompiled form is named after its source, with this extension
+     * in place of <code>.ling</code>.
+     */
+    public static final String EXTENSION = ".lingc";
+
+    /**
+     * The directory to write precompiled modules to, or null to write them next to their sources.
+     */
+    private static final Path DIRECTORY = System.getProperty("lingua.cacheDir") == null ? null :
+            Paths.get(System.getProperty("lingua.cacheDir"));
+
+    private ModuleCache() {
+    }
+
+    /**
+     * Loads a module from the classpath or the file system, preferring the classpath.
+     *
+     * @param name     The module's path, ending in <code>.ling</code>.
+     * @param fileName The module's file name, used in tokens.
+     * @param caching  Whether to use and write precompiled modules.
+     * @return The module's expressions, as returned by the parser.
+     * @throws FileNotFoundException If the module doesn't exist.
+     * @throws IOException           If the module can't be read.
+     */
+    public static List<Expr> load(String name, String fileName, boolean caching) throws IOException {
+        byte[] source;
+        try (InputStream classpathStream = ModuleCache.class.getResourceAsStream("/" + name)) {
+            if (classpathStream != null) {
+                source = classpathStream.readAllBytes();
+                if (caching) {
+                    List<Expr> exprs = readResource("/" + precompiledName(name), source);
+                    if (exprs != null)
+                        return exprs;
+                }
+                return parse(source, fileName);
+            }
+        }
+
+        Path path = Paths.get(name);
+        try {
+            source = Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(name);
+        }
+        if (!caching)
+            return parse(source, fileName);
+
+        Path precompiled = precompiledPath(path);
+        List<Expr> exprs = readFile(precompiled, source);
+        if (exprs == null) {
+            exprs = parse(source, fileName);
+            writeFile(precompiled, exprs, source);
+        }
+        return exprs;
+    }
+
+    /**
+     * Parses a module's source.
+     *
+     * @param source   The source.
+     * @param fileName The module's file name, used in tokens.
+     * @return The module's expressions.
+     */
+    public static List<Expr> parse(byte[] source, String fileName) {
+        String text = new String(source, Charset.defaultCharset());
+        return new Parser(new Morpher(new Lexer(new StringReader(text), fileName))).parseAll();
+    }
+
+    private static String precompiledName(String name) {
+        return name.substring(0, name.length() - ".ling".length()) + EXTENSION;
+    }
+
+    private static Path precompiledPath(Path source) {
+        String fileName = precompiledName(source.getFileName().toString());
+        if (DIRECTORY == null)
+            return source.resolveSibling(fileName);
+
+        // Modules with the same name in different directories shouldn't share a precompiled module.
+        String absolute = source.toAbsolutePath().normalize().toString();
+        long hash = ModuleFormat.hash(absolute.getBytes(StandardCharsets.UTF_8));
+        return DIRECTORY.resolve(Long.toHexString(hash) + "-" + fileName);
+    }
+
+    private static List<Expr> readResource(String name, byte[] source) throws IOException {
+        try (InputStream stream = ModuleCache.class.getResourceAsStream(name)) {
+            if (stream == null)
+                return null;
+            return read(ByteBuffer.wrap(stream.readAllBytes()), source, name);
+        }
+    }
+
+    private static List<Expr> readFile(Path path, byte[] source) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), source, path);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.debug("Couldn't read precompiled module {}.", path, e);
+            return null;
+        }
+    }
+
+    private static List<Expr> read(ByteBuffer buffer, byte[] source, Object name) {
+        try {
+            return ModuleReader.read(buffer, ModuleFormat.hash(source));
+        } catch (IllegalStateException e) {
+            log.debug("Ignoring malformed precompiled module {}.", name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a precompiled module. Failures are logged and otherwise ignored, since the module can always be parsed
+     * from its source instead.
+     */
+    private static void writeFile(Path path, List<Expr> exprs, byte[] source) {
+        try {
+            byte[] bytes = ModuleWriter.write(exprs, ModuleFormat.hash(source));
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            // Write to a temporary file first, so that a concurrent import never sees a partial module.
+            Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temp, bytes);
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.debug("Couldn't write precompiled module {}.", path, e);
+        }
+    }
+
+    /**
+     * Precompiles modules. Used by the build to precompile the bundled modules.
+     * <p>
+     * Usage: <code>ModuleCache sourceDirectory outputDirectory module...</code>, where each module is a path relative
+     * to the source directory, such as <code>lingua/core.ling</code>.
+     *
+     * @param args The arguments.
+     * @throws IOException If a module can't be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ModuleCache sourceDirectory outputDirectory module...");
+            System.exit(1);
+        }
+
+        Path sourceDirectory = Paths.get(args[0]);
+        Path outputDirectory = Paths.get(args[1]);
+        for (int i = 2; i < args.length; i++) {
+            Path module = Paths.get(args[i]);
+            byte[] source = Files.readAllBytes(sourceDirectory.resolve(module));
+            List<Expr> exprs = parse(source, module.getFileName().toString());
+            Path output = outputDirectory.resolve(precompiledName(args[i]));
+            Files.createDirectories(output.toAbsolutePath().getParent());
+            Files.write(output, ModuleWriter.write(exprs, ModuleFormat.hash(source)));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter;
+
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.interpreter.obj.StringObj;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The frames of a Lingua stack, captured as plain arrays and only formatted into strings once the list is read.
+ * Frames are reused once they are popped, so their names and lines are copied rather than referenced.
+ */
+class StackTrace extends AbstractList<Obj> {
+    private final String[] names;
+    private final String[] fileNames;
+    private final int[] lines;
+    private List<Obj> formatted;
+
+    /**
+     * Captures the given frame and its parents.
+     *
+     * @param frame The innermost frame.
+     */
+    StackTrace(Environment.Frame frame) {
+        int size = 0;
+        for (Environment.Frame f = frame; f != null; f = f.getParent()) {
+            size++;
+        }
+
+        names = new String[size];
+        fileNames = new String[size];
+        lines = new int[size];
+        for (int i = 0; frame != null; frame = frame.getParent(), i++) {
+            names[i] = frame.getName();
+            fileNames[i] = frame.getFileName();
+            lines[i] = frame.getLine();
+        }
+    }
+
+    private List<Obj> formatted() {
+        if (formatted == null) {
+            formatted = new ArrayList<>(names.length);
+            for (int i = 0; i < names.length; i++) {
+                if (fileNames[i] == null || fileNames[i].equals("<native>")) {
+                    formatted.add(new StringObj(names[i] + "(native)"));
+                } else {
+                    formatted.add(new StringObj(names[i] + "(" + fileNames[i] + ":" + lines[i] + ")"));
+                }
+            }
+        }
+        return formatted;
+    }
+
+    @Override
+    public Obj get(int index) {
+        return formatted().get(index);
+    }
+
+    @Override
+    public int size() {
+        return formatted != null ? formatted.size() : names.length;
+    }
+
+    @Override
+    public Obj set(int index, Obj element) {
+        return formatted().set(index, element);
+    }
+
+    @Override
+    public void add(int index, Obj element) {
+        formatted().add(index, element);
+    }
+
+    @Override
+    public Obj remove(int index) {
+        return formatted().remove(index);
+    }
+}
@@ -72,22 +72,22 @@ public class CharObj extends Obj {
     }
 
     @Bridge
-    public static CharObj init(NumberObj n) {
-        return new CharObj((char) n.getValue());
+    public static CharObj init(int n) {
+        return of((char) n);
     }
 
     @Bridge
-    public BooleanObj isDigit() {
-        return BooleanObj.of(Character.isDigit(value));
+    public boolean isDigit() {
+        return Character.isDigit(value);
     }
 
     @Bridge
-    public BooleanObj isLetter() {
-        return BooleanObj.of(Character.isLetter(value));
+    public boolean isLetter() {
+        return Character.isLetter(value);
     }
 
     @Bridge
-    public BooleanObj isWhitespace() {
-        return BooleanObj.of(Character.isWhitespace(value));
+    public boolean isWhitespace() {
+        return Character.isWhitespace(value);
     }
 }
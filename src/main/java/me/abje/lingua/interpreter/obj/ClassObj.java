@@ -30,6 +30,7 @@ import me.abje.lingua.interpreter.Static;
 import me.abje.lingua.util.TriFunction;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -37,6 +38,12 @@ import java.util.stream.Collectors;
  * A Lingua class. Classes have names, functions, and fields.
  */
 public class ClassObj extends Obj {
+    /**
+     * Incremented whenever a class is created or assigned to a variable, so that cached decisions which depend on the
+     * class a name refers to can be discarded. Declared before {@link #SYNTHETIC}, which creates classes.
+     */
+    private static final AtomicInteger bindingVersion = new AtomicInteger();
+
     public static final ClassObj SYNTHETIC = bridgeClass(ClassObj.class);
 
     /**
@@ -47,14 +54,16 @@ public class ClassObj extends Obj {
     /**
      * A map of the functions provided by this class.
      * The keys are the names of the functions, and the values the functions themselves.
+     * The map is unmodifiable, so that classes can be shared between interpreters running on different threads; it is
+     * replaced as a whole by {@link #setFunction(String, Obj)}.
      */
-    private final Map<String, Obj> functionMap;
+    private volatile Map<String, Obj> functionMap;
 
     /**
      * The fields provided by this class, in map form.
-     * The keys are the names of the fields, and the values the fields themselves.
+     * The keys are the names of the fields, and the values the fields themselves. Unmodifiable.
      */
-    private final Map<String, ObjField> fieldMap = new HashMap<>();
+    private final Map<String, ObjField> fieldMap;
 
     /**
      * The superclasses of this class, from top to bottom.
@@ -72,6 +81,11 @@ public class ClassObj extends Obj {
      */
     private final ClassObj superClass;
 
+    /**
+     * Incremented whenever this class's members change, so that cached lookups can be discarded.
+     */
+    private final AtomicInteger version = new AtomicInteger();
+
     /**
      * Creates a new class.
      *
@@ -80,15 +94,17 @@ public class ClassObj extends Obj {
      * @param fields     The class's fields.
      * @param superClass This class's superclass.
      */
-    public ClassObj(String name, Map<String, Obj> functions, List<ObjField> fields, ClassObj superClass) {
+    public ClassObj(String name, Map<String, Obj> functions, List<? extends ObjField> fields, ClassObj superClass) {
         super(null);
         this.name = name;
-        this.functionMap = functions;
+        this.functionMap = Collections.unmodifiableMap(new HashMap<>(functions));
         this.superClass = superClass;
 
+        Map<String, ObjField> fieldMap = new HashMap<>();
         for (ObjField fn : fields) {
             fieldMap.put(fn.getName(), fn);
         }
+        this.fieldMap = Collections.unmodifiableMap(fieldMap);
 
         List<ClassObj> supers = new ArrayList<>();
         ClassObj current = this;
@@ -98,6 +114,7 @@ public class ClassObj extends Obj {
         }
         Collections.reverse(supers);
         this.superClasses = supers;
+        invalidateBindings();
     }
 
     /**
@@ -108,7 +125,7 @@ public class ClassObj extends Obj {
      * @param fields     The class's fields.
      * @param superClass This class's superclass.
      */
-    public ClassObj(String name, List<FunctionObj> functions, List<ObjField> fields, ClassObj superClass) {
+    public ClassObj(String name, List<FunctionObj> functions, List<? extends ObjField> fields, ClassObj superClass) {
         this(name, functions.stream().collect(Collectors.toMap(FunctionObj::getName, Function.identity())),
                 fields, superClass);
     }
@@ -138,19 +155,15 @@ public class ClassObj extends Obj {
             UserObj instance = new UserObj(this);
 
             for (ClassObj clazz : superClasses) {
-                interpreter.getEnv().pushFrame(clazz.name + ".<init>");
+                if (clazz.fieldMap.isEmpty())
+                    continue;
+                interpreter.getEnv().pushFrame(clazz.name, "<init>", null, null);
                 clazz.fieldMap.forEach((name, field) -> field.init(interpreter, instance));
                 interpreter.getEnv().popFrame();
             }
 
             if (functionMap.containsKey("init")) {
-                Obj init = instance.getMember(interpreter, "init");
-                if (init instanceof SyntheticFunctionObj) {
-                    ((SyntheticFunctionObj) init).setSelf(instance);
-                } else if (init instanceof FunctionObj) {
-                    init = ((FunctionObj) init).withSelf(instance);
-                }
-                init.call(interpreter, args);
+                instance.getMember(interpreter, "init").call(interpreter, args);
             }
 
             return instance;
@@ -180,19 +193,32 @@ public class ClassObj extends Obj {
     }
 
     /**
-     * Returns this class's fields.
+     * Returns this class's fields. The map is unmodifiable.
      */
     public Map<String, ObjField> getFieldMap() {
         return fieldMap;
     }
 
     /**
-     * Returns this class's functions.
+     * Returns this class's functions. The map is unmodifiable.
      */
     public Map<String, Obj> getFunctionMap() {
         return functionMap;
     }
 
+    /**
+     * Defines or replaces a function of this class, and discards cached lookups of its members.
+     *
+     * @param name     The function's name.
+     * @param function The function.
+     */
+    public synchronized void setFunction(String name, Obj function) {
+        Map<String, Obj> functions = new HashMap<>(functionMap);
+        functions.put(name, function);
+        functionMap = Collections.unmodifiableMap(functions);
+        invalidate();
+    }
+
     @Override
     public String toString() {
         return name;
@@ -214,33 +240,186 @@ public class ClassObj extends Obj {
     }
 
     public Obj getObjMember(Interpreter interpreter, String name, Obj self) {
-        if (functionMap.containsKey(name)) {
-            Obj function = functionMap.get(name);
-            if (function instanceof FunctionObj) {
+        Member member = findMember(name);
+        if (member == null)
+            throw new InterpreterException("UndefinedException", "unknown field: " + name);
+        return member.get(interpreter, self);
+    }
+
+    public void setObjMember(Interpreter interpreter, String name, Obj self, Obj value) {
+        Member member = findField(name);
+        if (member == null)
+            throw new InterpreterException("UndefinedException", "unknown field: " + name);
+        member.set(interpreter, self, value);
+    }
+
+    /**
+     * Finds the function or field with the given name in this class or its superclasses. Functions take precedence
+     * over fields in the same class, and subclasses over superclasses.
+     *
+     * @param name The member's name.
+     * @return The member, or null if there is none.
+     */
+    public Member findMember(String name) {
+        for (ClassObj clazz = this; clazz != null; clazz = clazz.superClass) {
+            Obj function = clazz.functionMap.get(name);
+            if (function != null)
+                return new Member(clazz, function, null);
+            ObjField field = clazz.fieldMap.get(name);
+            if (field != null)
+                return new Member(clazz, null, field);
+        }
+        return null;
+    }
+
+    /**
+     * Finds the field with the given name in this class or its superclasses.
+     *
+     * @param name The field's name.
+     * @return The field, or null if there is none.
+     */
+    public Member findField(String name) {
+        for (ClassObj clazz = this; clazz != null; clazz = clazz.superClass) {
+            ObjField field = clazz.fieldMap.get(name);
+            if (field != null)
+                return new Member(clazz, null, field);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the version of this class's members. Changes whenever {@link #invalidate()} is called.
+     */
+    public int getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Returns the version of the bindings of names to classes. Changes whenever {@link #invalidateBindings()} is
+     * called.
+     */
+    public static int getBindingVersion() {
+        return bindingVersion.get();
+    }
+
+    /**
+     * Discards cached decisions that depend on the class a name refers to. Called whenever a class is created or
+     * assigned to a variable.
+     */
+    public static void invalidateBindings() {
+        bindingVersion.incrementAndGet();
+    }
+
+    /**
+     * Discards cached lookups of this class's members.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * A function or field found by a member lookup, along with the class that provides it.
+     */
+    public static class Member {
+        /**
+         * The class which provides the member.
+         */
+        private final ClassObj owner;
+
+        /**
+         * The function, or null if the member is a field.
+         */
+        private final Obj function;
+
+        /**
+         * The field, or null if the member is a function.
+         */
+        private final ObjField field;
+
+        private Member(ClassObj owner, Obj function, ObjField field) {
+            this.owner = owner;
+            this.function = function;
+            this.field = field;
+        }
+
+        /**
+         * Returns the member's value for the given object. Functions are bound to the object.
+         *
+         * @param interpreter The interpreter.
+         * @param self        The object.
+         * @return The value.
+         */
+        public Obj get(Interpreter interpreter, Obj self) {
+            if (function == null) {
+                return field.get(interpreter, self);
+            } else if (function instanceof FunctionObj) {
                 return ((FunctionObj) function).withSelf(self);
             } else if (function instanceof SyntheticFunctionObj) {
-                SyntheticFunctionObj synthetic = (SyntheticFunctionObj) function;
-                synthetic.setSelf(self);
-                return function;
+                return ((SyntheticFunctionObj) function).bind(self);
             } else {
                 return function;
             }
-        } else if (fieldMap.containsKey(name)) {
-            return fieldMap.get(name).get(interpreter, self);
-        } else if (superClass != null) {
-            return superClass.getObjMember(interpreter, name, self);
-        } else {
-            throw new InterpreterException("UndefinedException", "unknown field: " + name);
         }
-    }
 
-    public void setObjMember(Interpreter interpreter, String name, Obj self, Obj value) {
-        if (fieldMap.containsKey(name)) {
-            fieldMap.get(name).set(interpreter, self, value);
-        } else if (superClass != null) {
-            superClass.setObjMember(interpreter, name, self, value);
-        } else {
-            throw new InterpreterException("UndefinedException", "unknown field: " + name);
+        /**
+         * Calls the member on the given object. Unlike calling the result of {@link #get(Interpreter, Obj)}, this
+         * doesn't bind a function to the object first.
+         *
+         * @param interpreter The interpreter.
+         * @param self        The object.
+         * @param args        The arguments.
+         * @return The result of the call.
+         */
+        public Obj invoke(Interpreter interpreter, Obj self, List<Obj> args) {
+            if (function instanceof MethodObj) {
+                return ((MethodObj) function).call(interpreter, self, args);
+            } else if (function instanceof FunctionObj) {
+                return ((FunctionObj) function).call(interpreter, self, args);
+            } else if (function instanceof SyntheticFunctionObj) {
+                return ((SyntheticFunctionObj) function).call(interpreter, self, args);
+            } else {
+                return get(interpreter, self).call(interpreter, args);
+            }
+        }
+
+        /**
+         * Returns the function a call of the member on the given object runs, with the object as its "self"
+         * argument.
+         *
+         * @param interpreter The interpreter.
+         * @param args        The arguments.
+         * @return The function, or null if the member isn't a Lingua function or the call can't be dispatched to
+         * one up front.
+         */
+        public FunctionObj function(Interpreter interpreter, List<Obj> args) {
+            if (function instanceof MethodObj) {
+                return ((MethodObj) function).select(interpreter, args);
+            } else if (function instanceof FunctionObj) {
+                return (FunctionObj) function;
+            } else {
+                return null;
+            }
+        }
+
+        /**
+         * Sets the member's value for the given object.
+         *
+         * @param interpreter The interpreter.
+         * @param self        The object.
+         * @param value       The new value.
+         * @throws InterpreterException If the member is a function.
+         */
+        public void set(Interpreter interpreter, Obj self, Obj value) {
+            if (field == null)
+                throw new InterpreterException("InvalidOperationException", "cannot set a function", interpreter);
+            field.set(interpreter, self, value);
+        }
+
+        /**
+         * Returns the class which provides this member.
+         */
+        public ClassObj getOwner() {
+            return owner;
         }
     }
 
@@ -288,11 +467,11 @@ public class ClassObj extends Obj {
         public Builder<O> withFunction(String name, TriFunction<Interpreter, O, List<Obj>, Obj> body) {
             this.functions.put(name, new SyntheticFunctionObj() {
                 @Override
-                public Obj call(Interpreter interpreter, List<Obj> args) {
-                    interpreter.getEnv().pushFrame(Builder.this.name + "." + name);
-                    interpreter.getEnv().getStack().peek().setFileName("<native>");
+                public Obj call(Interpreter interpreter, Obj self, List<Obj> args) {
+                    interpreter.getEnv().pushFrame(Builder.this.name, name, null, null);
+                    interpreter.getEnv().peekFrame().setNative();
                     @SuppressWarnings("unchecked")
-                    Obj result = body.apply(interpreter, (O) getSelf(), args);
+                    Obj result = body.apply(interpreter, (O) self, args);
                     interpreter.getEnv().popFrame();
                     return result;
                 }
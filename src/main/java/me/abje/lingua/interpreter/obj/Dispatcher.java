@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter.obj;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.parser.expr.Expr;
+import me.abje.lingua.parser.expr.NameExpr;
+import me.abje.lingua.parser.expr.TypePatternExpr;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects which of a method's functions a call dispatches to, caching the decision for the argument classes it has
+ * seen.
+ * <p>
+ * Each parameter of each function is classified once, when the method is created. Name patterns match anything, type
+ * patterns match depending only on the argument's class, and literal patterns match by equality. For every
+ * combination of argument count and argument classes, the functions that can still apply are compiled into a
+ * {@link Plan}: a function whose parameters are all name and type patterns is selected without binding anything,
+ * literal patterns are compared directly, with runs of literal patterns on the same parameter turned into a table
+ * lookup, and only functions with other patterns (such as list patterns) are still tried by binding their arguments.
+ * <p>
+ * Type patterns look their class up by name, so plans are discarded whenever a name may have been
+ * {@link ClassObj#invalidateBindings() bound to a different class}. Once more than {@link #MAX_ENTRIES} combinations
+ * have been seen, plans are no longer cached.
+ */
+class Dispatcher {
+    private static final int MAX_ENTRIES = 8;
+
+    /**
+     * The functions to dispatch between, in the order they are tried.
+     */
+    private final FunctionObj[] functions;
+
+    /**
+     * The literal each parameter of each function must equal, or null for parameters that are not literals.
+     */
+    private final Obj[][] literals;
+
+    /**
+     * Whether each function has a type pattern.
+     */
+    private final boolean[] typed;
+
+    /**
+     * Whether each function has a pattern that can only be checked by binding it.
+     */
+    private final boolean[] opaque;
+
+    /**
+     * The cached plans. Replaced rather than modified, so that lookups need no locking.
+     */
+    private volatile Entry[] entries = new Entry[0];
+
+    /**
+     * Creates a new dispatcher.
+     *
+     * @param functions The functions to dispatch between.
+     */
+    Dispatcher(Collection<FunctionObj> functions) {
+        this.functions = functions.toArray(new FunctionObj[0]);
+        this.literals = new Obj[this.functions.length][];
+        this.typed = new boolean[this.functions.length];
+        this.opaque = new boolean[this.functions.length];
+        for (int i = 0; i < this.functions.length; i++) {
+            List<Expr> argNames = this.functions[i].getArgNames();
+            literals[i] = new Obj[argNames.size()];
+            for (int j = 0; j < argNames.size(); j++) {
+                Expr argName = argNames.get(j);
+                if (argName instanceof TypePatternExpr && ((TypePatternExpr) argName).getLeft() instanceof NameExpr)
+                    typed[i] = true;
+                else if (argName.getConstant() != null)
+                    literals[i][j] = argName.getConstant();
+                else if (!(argName instanceof NameExpr))
+                    opaque[i] = true;
+            }
+        }
+    }
+
+    /**
+     * Selects the function a call with the given arguments dispatches to.
+     *
+     * @param interpreter The interpreter.
+     * @param args        The arguments.
+     * @return The function, or null if none is applicable.
+     */
+    FunctionObj select(Interpreter interpreter, List<Obj> args) {
+        int bindingVersion = ClassObj.getBindingVersion();
+        Entry[] entries = this.entries;
+        for (Entry entry : entries) {
+            if (entry.bindingVersion == bindingVersion && entry.matches(args))
+                return entry.plan.select(interpreter, args);
+        }
+
+        Plan plan = plan(interpreter, args);
+        if (entries.length < MAX_ENTRIES || entries[0].bindingVersion != bindingVersion) {
+            List<Entry> live = new ArrayList<>();
+            for (Entry entry : entries) {
+                if (entry.bindingVersion == bindingVersion)
+                    live.add(entry);
+            }
+            if (live.size() < MAX_ENTRIES) {
+                live.add(new Entry(args, bindingVersion, plan));
+                this.entries = live.toArray(new Entry[0]);
+            }
+        }
+        return plan.select(interpreter, args);
+    }
+
+    /**
+     * Compiles the decisions that remain once the number and classes of the arguments are known.
+     *
+     * @param interpreter The interpreter.
+     * @param args        Arguments with the number and classes the plan is for.
+     * @return The plan.
+     */
+    private Plan plan(Interpreter interpreter, List<Obj> args) {
+        List<Step> steps = new ArrayList<>();
+        for (int i = 0; i < functions.length; i++) {
+            FunctionObj function = functions[i];
+            if (function.getArgNames().size() != args.size())
+                continue;
+
+            if (opaque[i]) {
+                steps.add(new Step(function, null, null));
+                continue;
+            }
+            if (typed[i] && !function.matchesTypes(interpreter, args))
+                continue;
+
+            List<Integer> positions = new ArrayList<>();
+            List<Obj> values = new ArrayList<>();
+            for (int j = 0; j < literals[i].length; j++) {
+                if (literals[i][j] != null) {
+                    positions.add(j);
+                    values.add(literals[i][j]);
+                }
+            }
+            steps.add(new Step(function, positions.stream().mapToInt(Integer::intValue).toArray(),
+                    values.toArray(new Obj[0])));
+            if (positions.isEmpty())
+                break; // Always applicable, so later functions are never reached.
+        }
+        return new Plan(steps);
+    }
+
+    /**
+     * A cached plan, along with the argument classes it is for.
+     */
+    private static class Entry {
+        private final ClassObj[] types;
+        private final int bindingVersion;
+        private final Plan plan;
+
+        private Entry(List<Obj> args, int bindingVersion, Plan plan) {
+            this.types = new ClassObj[args.size()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = args.get(i).getType();
+            }
+            this.bindingVersion = bindingVersion;
+            this.plan = plan;
+        }
+
+        private boolean matches(List<Obj> args) {
+            if (args.size() != types.length)
+                return false;
+            for (int i = 0; i < types.length; i++) {
+                if (args.get(i).getType() != types[i])
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A decision in a plan.
+     */
+    private static abstract class Node {
+        /**
+         * Returns the function this decision selects for the given arguments, or null if the next decision should be
+         * tried.
+         */
+        abstract FunctionObj select(Interpreter interpreter, List<Obj> args);
+    }
+
+    /**
+     * A function that may be applicable, along with the literal patterns that decide whether it is.
+     */
+    private static class Step extends Node {
+        private final FunctionObj function;
+
+        /**
+         * The positions of the function's literal patterns, or null if the function must be tried by binding its
+         * arguments.
+         */
+        private final int[] positions;
+
+        private final Obj[] values;
+
+        private Step(FunctionObj function, int[] positions, Obj[] values) {
+            this.function = function;
+            this.positions = positions;
+            this.values = values;
+        }
+
+        @Override
+        FunctionObj select(Interpreter interpreter, List<Obj> args) {
+            if (positions == null)
+                return function.isApplicable(interpreter, args) ? function : null;
+            for (int i = 0; i < positions.length; i++) {
+                // Only the literal's equals is called, since user-defined classes may override theirs.
+                if (!values[i].equals(args.get(positions[i])))
+                    return null;
+            }
+            return function;
+        }
+
+        private boolean isTableEntry() {
+            return positions != null && positions.length == 1;
+        }
+    }
+
+    /**
+     * A run of functions that each have one literal pattern, all on the same parameter and of the same class.
+     */
+    private static class Table extends Node {
+        private final int position;
+        private final Class<?> literalClass;
+        private final Map<Obj, FunctionObj> functions = new HashMap<>();
+
+        private Table(List<Step> steps) {
+            this.position = steps.get(0).positions[0];
+            this.literalClass = steps.get(0).values[0].getClass();
+            for (Step step : steps) {
+                functions.putIfAbsent(step.values[0], step.function);
+            }
+        }
+
+        @Override
+        FunctionObj select(Interpreter interpreter, List<Obj> args) {
+            Obj arg = args.get(position);
+            return arg.getClass() == literalClass ? functions.get(arg) : null;
+        }
+    }
+
+    /**
+     * The decisions that select a function for arguments of particular classes, tried in order.
+     */
+    private static class Plan {
+        private final Node[] nodes;
+
+        /**
+         * Creates a plan from the steps that may apply, replacing each run of single-literal steps on the same
+         * parameter with a table.
+         *
+         * @param steps The steps.
+         */
+        private Plan(List<Step> steps) {
+            List<Node> nodes = new ArrayList<>();
+            for (int i = 0; i < steps.size(); ) {
+                Step step = steps.get(i);
+                int end = i + 1;
+                if (step.isTableEntry()) {
+                    while (end < steps.size() && steps.get(end).isTableEntry() &&
+                            steps.get(end).positions[0] == step.positions[0] &&
+                            steps.get(end).values[0].getClass() == step.values[0].getClass())
+                        end++;
+                }
+                nodes.add(end - i > 1 ? new Table(steps.subList(i, end)) : step);
+                i = end;
+            }
+            this.nodes = nodes.toArray(new Node[0]);
+        }
+
+        private FunctionObj select(Interpreter interpreter, List<Obj> args) {
+            for (Node node : nodes) {
+                FunctionObj function = node.select(interpreter, args);
+                if (function != null)
+                    return function;
+            }
+            return null;
+        }
+    }
+}
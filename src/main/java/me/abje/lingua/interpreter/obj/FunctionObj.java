@@ -23,11 +23,14 @@
 package me.abje.lingua.interpreter.obj;
 
 import me.abje.lingua.interpreter.*;
+import me.abje.lingua.jit.JIT;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.parser.Annotation;
 import me.abje.lingua.parser.expr.Expr;
-import me.abje.lingua.parser.expr.TupleExpr;
+import me.abje.lingua.parser.expr.TypePatternExpr;
+import me.abje.lingua.resolver.Scope;
 import me.abje.lingua.util.DefinitionType;
 
-import java.util.Deque;
 import java.util.List;
 
 /**
@@ -56,7 +59,15 @@ public class FunctionObj extends Obj {
      */
     private final Obj self;
 
-    private final Deque<Environment.Frame> captured;
+    /**
+     * The scope of this function's call frames. Can be null.
+     */
+    private final Scope scope;
+
+    /**
+     * The environment this function captured when it was defined. Call frames are pushed on top of its parent frame.
+     */
+    private final Environment.Closure closure;
 
     /**
      * Creates a new function.
@@ -64,10 +75,11 @@ public class FunctionObj extends Obj {
      * @param name     The function's name.
      * @param argNames The function's formal argument list.
      * @param body     The function's body expression.
-     * @param captured The function's captured frames.
+     * @param scope    The scope of the function's call frames.
+     * @param closure  The function's captured environment.
      */
-    public FunctionObj(String name, List<Expr> argNames, Expr body, Deque<Environment.Frame> captured) {
-        this(name, argNames, body, null, captured);
+    public FunctionObj(String name, List<Expr> argNames, Expr body, Scope scope, Environment.Closure closure) {
+        this(name, argNames, body, null, scope, closure);
     }
 
     /**
@@ -77,15 +89,17 @@ public class FunctionObj extends Obj {
      * @param argNames The function's formal argument list.
      * @param body     The function's body expression.
      * @param self     The function's "self" implicit argument.
-     * @param captured The function's captured frames.
+     * @param scope    The scope of the function's call frames.
+     * @param closure  The function's captured environment.
      */
-    public FunctionObj(String name, List<Expr> argNames, Expr body, Obj self, Deque<Environment.Frame> captured) {
+    public FunctionObj(String name, List<Expr> argNames, Expr body, Obj self, Scope scope, Environment.Closure closure) {
         super(SYNTHETIC);
         this.name = name;
         this.argNames = argNames;
         this.body = body;
         this.self = self;
-        this.captured = captured;
+        this.scope = scope;
+        this.closure = closure;
     }
 
     /**
@@ -110,43 +124,160 @@ public class FunctionObj extends Obj {
         return body;
     }
 
+    /**
+     * Returns the scope of this function's call frames. Can be null.
+     */
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Returns the "self" implicit argument passed to this function. Can be null.
+     */
+    public Obj getSelf() {
+        return self;
+    }
+
+    /**
+     * Returns the environment this function captured when it was defined.
+     */
+    public Environment.Closure getClosure() {
+        return closure;
+    }
+
     @Override
     public Obj call(Interpreter interpreter, List<Obj> args) {
+        return call(interpreter, self, args);
+    }
+
+    /**
+     * Calls this function with the given "self" implicit argument, without binding a copy of the function to it.
+     * <p>
+     * If the body returns a {@link TailCall}, that call is made in its place, after this function's frame has been
+     * discarded, and so on until a function returns a result. Tail calls therefore run in constant Java stack.
+     *
+     * @param interpreter The interpreter.
+     * @param self        The "self" implicit argument. Can be null.
+     * @param args        The arguments.
+     * @return The result of the call.
+     */
+    public Obj call(Interpreter interpreter, Obj self, List<Obj> args) {
         Environment env = interpreter.getEnv();
-        Deque<Environment.Frame> oldStack = env.getStack();
-        env.setStack(captured);
-        if (self != null)
-            env.pushFrame(self.getType().getName() + "." + name);
-        else
-            env.pushFrame(name);
+        Environment.Frame oldTop = env.peekFrame();
+        Obj result = execute(interpreter, self, args);
+        while (result instanceof TailCall) {
+            TailCall call = (TailCall) result;
+            env.popFrame();
+            result = call.getFunction().execute(interpreter, call.getSelf(), call.getArgs());
+        }
+        env.popFrame();
+        env.setTop(oldTop);
+        return result;
+    }
+
+    /**
+     * Returns a call of this function with its own "self" implicit argument, to be made by the function it is
+     * returned from.
+     *
+     * @param args The arguments.
+     * @return The tail call.
+     */
+    public TailCall tailCall(List<Obj> args) {
+        return new TailCall(this, self, args);
+    }
+
+    /**
+     * Enters this function and evaluates its body. Leaves the function's frame on the stack.
+     *
+     * @param interpreter The interpreter.
+     * @param self        The "self" implicit argument. Can be null.
+     * @param args        The arguments.
+     * @return The result of the body, which may be a {@link TailCall}.
+     */
+    private Obj execute(Interpreter interpreter, Obj self, List<Obj> args) {
+        enter(interpreter, self, args);
+        JIT jit = interpreter.getJit();
+        Node compiled = jit != null ? jit.getCompiledBody(this) : null;
+        return compiled != null ? compiled.execute(interpreter) : invoke(interpreter);
+    }
+
+    /**
+     * Pushes a call frame for this function on top of the frame it captured and binds the arguments in it.
+     *
+     * @param interpreter The interpreter.
+     * @param self        The "self" implicit argument. Can be null.
+     * @param args        The arguments.
+     * @throws InterpreterException If the arguments don't match this function's formal arguments.
+     */
+    public void enter(Interpreter interpreter, Obj self, List<Obj> args) {
+        Environment env = interpreter.getEnv();
+        env.setTop(closure.getParent());
+        env.pushFrame(self != null ? self.getType().getName() : null, name, scope, closure.getUpvalues());
 
         Environment.Frame frame = env.peekFrame();
-        TupleExpr argNamesTuple = new TupleExpr(null, argNames);
-        TupleObj argsTuple = new TupleObj(args);
-        if (argNamesTuple.match(interpreter, frame, argsTuple, DefinitionType.ALWAYS_NEW) == null)
+        if (!bind(interpreter, frame, args))
             throw new InterpreterException("CallException", "invalid arguments for function " + name, interpreter);
 
         if (self != null) {
             env.define("self", self);
-            env.define("super", new Obj(self.getType().getSuperClass()) {
-                @Override
-                public Obj getMember(Interpreter interpreter, String name) {
-                    return self.getType().getSuperClass().getObjMember(interpreter, name, self);
-                }
-
-                @Override
-                public void setMember(Interpreter interpreter, String name, Obj value) {
-                    self.getType().getSuperClass().setObjMember(interpreter, name, self, value);
-                }
-            });
+            if (scope == null || scope.isReferenced("super"))
+                env.define("super", createSuper(self));
         }
+    }
 
-        Obj obj = interpreter.next(body);
+    /**
+     * Binds the arguments of a call to this function's formal arguments in the given frame. Works like matching a
+     * tuple of the arguments against a tuple of the formal arguments, but without creating either tuple.
+     *
+     * @param interpreter The interpreter.
+     * @param frame       The call frame.
+     * @param args        The arguments.
+     * @return Whether the arguments matched.
+     */
+    private boolean bind(Interpreter interpreter, Environment.Frame frame, List<Obj> args) {
+        for (int i = 0; i < argNames.size(); i++) {
+            Expr argName = argNames.get(i);
+            if (argName.hasAnnotation(Annotation.REST)) {
+                if (i == argNames.size() - 1)
+                    return args.size() >= i &&
+                            argName.match(interpreter, frame, new TupleObj(args).drop(i), DefinitionType.ALWAYS_NEW) != null;
+                else
+                    throw new InterpreterException("CallException", "weird @rest annotation");
+            }
+            if (args.size() <= i || argName.match(interpreter, frame, args.get(i), DefinitionType.ALWAYS_NEW) == null)
+                return false;
+        }
+        return true;
+    }
 
-        captured.pop();
-        env.setStack(oldStack);
+    /**
+     * Creates the value of <code>super</code> for a method called on the given object: a view of the object through
+     * its class's superclass.
+     *
+     * @param self The object.
+     */
+    private static Obj createSuper(Obj self) {
+        return new Obj(self.getType().getSuperClass()) {
+            @Override
+            public Obj getMember(Interpreter interpreter, String name) {
+                return self.getType().getSuperClass().getObjMember(interpreter, name, self);
+            }
 
-        return obj;
+            @Override
+            public void setMember(Interpreter interpreter, String name, Obj value) {
+                self.getType().getSuperClass().setObjMember(interpreter, name, self, value);
+            }
+        };
+    }
+
+    /**
+     * Evaluates this function's body. Called with the function's frame on top of the stack.
+     *
+     * @param interpreter The interpreter.
+     * @return The result of the body.
+     */
+    protected Obj invoke(Interpreter interpreter) {
+        return interpreter.next(body);
     }
 
     @Bridge
@@ -183,18 +314,40 @@ public class FunctionObj extends Obj {
      * @param self The new value of <code>self</code>.
      */
     public FunctionObj withSelf(Obj self) {
-        return new FunctionObj(name, argNames, body, self, captured);
+        return new FunctionObj(name, argNames, body, self, scope, closure);
     }
 
     public boolean isApplicable(Interpreter interpreter, List<Obj> args) {
-        if (args.size() != argNames.size())
-            return false;
+        return args.size() == argNames.size() && matches(interpreter, args, false);
+    }
 
-        Environment.Frame frame = interpreter.getEnv().getStack().peek();
-        for (int i = 0; i < args.size(); i++)
-            if (argNames.get(i).match(interpreter, frame, args.get(i), DefinitionType.ALWAYS_NEW) == null)
-                return false;
+    /**
+     * Returns whether the given arguments match this function's type patterns, ignoring its other patterns.
+     *
+     * @param interpreter The interpreter.
+     * @param args        The arguments, as many as this function takes.
+     */
+    boolean matchesTypes(Interpreter interpreter, List<Obj> args) {
+        return matches(interpreter, args, true);
+    }
 
-        return true;
+    private boolean matches(Interpreter interpreter, List<Obj> args, boolean typesOnly) {
+        Environment env = interpreter.getEnv();
+        Environment.Frame oldTop = env.peekFrame();
+        env.setTop(closure.getParent());
+        env.pushFrame(name, "<args>", scope, closure.getUpvalues());
+        Environment.Frame frame = env.peekFrame();
+        boolean applicable = true;
+        for (int i = 0; i < args.size() && applicable; i++) {
+            Expr argName = argNames.get(i);
+            if (typesOnly && !(argName instanceof TypePatternExpr))
+                continue;
+            if (argName.match(interpreter, frame, args.get(i), DefinitionType.ALWAYS_NEW) == null)
+                applicable = false;
+        }
+
+        env.popFrame();
+        env.setTop(oldTop);
+        return applicable;
     }
 }
@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.stream.Collectors;
 
 /**
@@ -94,7 +95,7 @@ public class ListObj extends Obj {
     @Override
     public Obj getAtIndex(Obj index) {
         if (index instanceof NumberObj)
-            return get((int) ((NumberObj) index).getValue());
+            return get(((NumberObj) index).intValue());
         else
             throw new InterpreterException("CallException", "list index not a number");
     }
@@ -102,7 +103,7 @@ public class ListObj extends Obj {
     @Override
     public void setAtIndex(Obj index, Obj value) {
         if (index instanceof NumberObj)
-            set((int) ((NumberObj) index).getValue(), value);
+            set(((NumberObj) index).intValue(), value);
         else
             throw new InterpreterException("CallException", "list index not a number");
     }
@@ -113,8 +114,8 @@ public class ListObj extends Obj {
      * @return The length of this list.
      */
     @Bridge
-    public NumberObj length() {
-        return NumberObj.of(this.items.size());
+    public int length() {
+        return this.items.size();
     }
 
     /**
@@ -190,16 +191,16 @@ public class ListObj extends Obj {
      * @return This list.
      */
     @Bridge
-    public ListObj add(Obj obj, NumberObj n) {
+    public ListObj add(Obj obj, int n) {
         if (obj == this)
             throw new InterpreterException("InvalidOperationException", "attempt to add collection to itself");
-        items.add((int) n.getValue(), obj);
+        items.add(n, obj);
         return this;
     }
 
     @Bridge
-    public Obj remove(NumberObj n) {
-        return items.remove((int) n.getValue());
+    public Obj remove(int n) {
+        return items.remove(n);
     }
 
     @Bridge
@@ -234,16 +235,20 @@ public class ListObj extends Obj {
 
     @Bridge
     public Obj foldLeft(Obj function, Obj start, Interpreter interpreter) {
-        if (items.isEmpty())
-            return start;
-        return tail().foldLeft(function, function.call(interpreter, Arrays.asList(start, head())), interpreter);
+        Obj result = start;
+        for (Obj item : items) {
+            result = function.call(interpreter, Arrays.asList(result, item));
+        }
+        return result;
     }
 
     @Bridge
     public Obj foldRight(Obj function, Obj start, Interpreter interpreter) {
-        if (items.isEmpty())
-            return start;
-        return function.call(interpreter, Arrays.asList(head(), tail().foldRight(function, start, interpreter)));
+        Obj result = start;
+        for (ListIterator<Obj> it = items.listIterator(items.size()); it.hasPrevious(); ) {
+            result = function.call(interpreter, Arrays.asList(it.previous(), result));
+        }
+        return result;
     }
 
     /**
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.interpreter.obj;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.bridge.JavaCallSite;
+import me.abje.lingua.interpreter.obj.bridge.JavaObj;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An inline cache for the member accesses at one site. Remembers which member a name resolves to for the last few
+ * receiver classes, so that repeated accesses skip the lookup through the class hierarchy. Once a site has seen more
+ * than {@link #MAX_ENTRIES} classes it is considered megamorphic and stops caching.
+ * <p>
+ * Entries are keyed on the receiver's Java class, its Lingua class and that class's
+ * {@link ClassObj#getVersion() version}. A redefined class
+ * is a new {@link ClassObj}, so it never hits the old class's entries; a class whose members change in place is
+ * invalidated through {@link ClassObj#invalidate()}.
+ * <p>
+ * Calls of the methods of wrapped Java objects are cached separately, in a {@link JavaCallSite}.
+ */
+public class MemberCache {
+    private static final int MAX_ENTRIES = 4;
+
+    /**
+     * Whether members of instances of a Java class can be cached, which is only the case if the class looks members
+     * up through its type like {@link Obj} does.
+     */
+    private static final ClassValue<Boolean> CACHEABLE = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("getMember", Interpreter.class, String.class).getDeclaringClass() == Obj.class &&
+                        type.getMethod("setMember", Interpreter.class, String.class, Obj.class)
+                                .getDeclaringClass() == Obj.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    /**
+     * The name of the member.
+     */
+    private final String name;
+
+    /**
+     * The cached lookups. Replaced rather than modified, so that a cache shared between threads needs no locking.
+     */
+    private volatile Entry[] entries = new Entry[0];
+
+    private volatile boolean megamorphic;
+
+    /**
+     * The site for calls on Java objects, created by the first such call.
+     */
+    private volatile JavaCallSite javaSite;
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param name The name of the member.
+     */
+    public MemberCache(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the member of the given object.
+     *
+     * @param interpreter The interpreter.
+     * @param self        The object.
+     * @return The member.
+     * @throws me.abje.lingua.interpreter.InterpreterException If a member by that name could not be found.
+     */
+    public Obj get(Interpreter interpreter, Obj self) {
+        ClassObj.Member member = lookup(self, false);
+        if (member != null)
+            return member.get(interpreter, self);
+        else
+            return self.getMember(interpreter, name);
+    }
+
+    /**
+     * Calls the member of the given object.
+     *
+     * @param interpreter The interpreter.
+     * @param self        The object.
+     * @param args        The arguments.
+     * @return The result of the call.
+     * @throws me.abje.lingua.interpreter.InterpreterException If a member by that name could not be found.
+     */
+    public Obj invoke(Interpreter interpreter, Obj self, List<Obj> args) {
+        if (self instanceof JavaObj)
+            return javaSite().invoke((JavaObj) self, args);
+        ClassObj.Member member = lookup(self, false);
+        if (member != null)
+            return member.invoke(interpreter, self, args);
+        else
+            return self.getMember(interpreter, name).call(interpreter, args);
+    }
+
+    /**
+     * Returns the function a call of the member of the given object runs, with the object as its "self" argument.
+     *
+     * @param interpreter The interpreter.
+     * @param self        The object.
+     * @param args        The arguments.
+     * @return The function, or null if the call must be made with {@link #invoke(Interpreter, Obj, List)}.
+     */
+    public FunctionObj function(Interpreter interpreter, Obj self, List<Obj> args) {
+        ClassObj.Member member = lookup(self, false);
+        return member != null ? member.function(interpreter, args) : null;
+    }
+
+    /**
+     * Sets the member of the given object.
+     *
+     * @param interpreter The interpreter.
+     * @param self        The object.
+     * @param value       The new value of the member.
+     * @throws me.abje.lingua.interpreter.InterpreterException If a member by that name could not be found.
+     */
+    public void set(Interpreter interpreter, Obj self, Obj value) {
+        ClassObj.Member member = lookup(self, true);
+        if (member != null)
+            member.set(interpreter, self, value);
+        else
+            self.setMember(interpreter, name, value);
+    }
+
+    /**
+     * Finds the member of the given object, using or filling the cache.
+     *
+     * @param self   The object.
+     * @param fields Whether to only look for fields.
+     * @return The member, or null if the object's members can't be cached or it has no such member.
+     */
+    private ClassObj.Member lookup(Obj self, boolean fields) {
+        Class<?> javaClass = self.getClass();
+        ClassObj type = self.getType();
+        int version = type.getVersion();
+        Entry[] entries = this.entries;
+        for (int i = 0; i < entries.length; i++) {
+            Entry entry = entries[i];
+            if (entry.type == type && entry.javaClass == javaClass) {
+                if (entry.version == version)
+                    return entry.member;
+                ClassObj.Member member = find(type, fields);
+                if (member != null) {
+                    Entry[] updated = entries.clone();
+                    updated[i] = new Entry(javaClass, type, version, member);
+                    this.entries = updated;
+                }
+                return member;
+            }
+        }
+
+        if (megamorphic || !CACHEABLE.get(javaClass))
+            return null;
+
+        ClassObj.Member member = find(type, fields);
+        if (member != null) {
+            if (entries.length < MAX_ENTRIES) {
+                Entry[] updated = Arrays.copyOf(entries, entries.length + 1);
+                updated[entries.length] = new Entry(javaClass, type, version, member);
+                this.entries = updated;
+            } else {
+                megamorphic = true;
+            }
+        }
+        return member;
+    }
+
+    private JavaCallSite javaSite() {
+        JavaCallSite site = javaSite;
+        if (site == null)
+            javaSite = site = new JavaCallSite(name);
+        return site;
+    }
+
+    private ClassObj.Member find(ClassObj type, boolean fields) {
+        return fields ? type.findField(name) : type.findMember(name);
+    }
+
+    /**
+     * Returns the name of the member.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * A cached lookup.
+     */
+    private static class Entry {
+        private final Class<?> javaClass;
+        private final ClassObj type;
+        private final int version;
+        private final ClassObj.Member member;
+
+        private Entry(Class<?> javaClass, ClassObj type, int version, ClassObj.Member member) {
+            this.javaClass = javaClass;
+            this.type = type;
+            this.version = version;
+            this.member = member;
+        }
+    }
+}
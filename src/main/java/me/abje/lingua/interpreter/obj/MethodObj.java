@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.interpreter.obj;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.InterpreterException;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A method of a user-defined class: all the class's functions with the same name, dispatched on their arguments.
+ * Falls back to the superclass's method if none of the functions is applicable.
+ */
+public class MethodObj extends SyntheticFunctionObj {
+    /**
+     * The method's name.
+     */
+    private final String name;
+
+    /**
+     * The class's superclass.
+     */
+    private final ClassObj superClass;
+
+    /**
+     * The only function, or null if there are several. Calls with the right number of arguments can go straight to it
+     * when there's no superclass method to fall back to: the function's own argument matching then fails in exactly
+     * the cases where dispatch would.
+     */
+    private final FunctionObj direct;
+
+    /**
+     * Selects between the functions when the call can't go straight to one.
+     */
+    private final Dispatcher dispatcher;
+
+    /**
+     * Creates a new method.
+     *
+     * @param name          The method's name.
+     * @param possibilities The functions to dispatch between.
+     * @param superClass    The class's superclass.
+     */
+    public MethodObj(String name, Collection<FunctionObj> possibilities, ClassObj superClass) {
+        super(FunctionObj.SYNTHETIC);
+        this.name = name;
+        this.superClass = superClass;
+        this.direct = possibilities.size() == 1 ? possibilities.iterator().next() : null;
+        this.dispatcher = new Dispatcher(possibilities);
+    }
+
+    /**
+     * Calls this method on the given object.
+     *
+     * @param interpreter The interpreter.
+     * @param self        The object.
+     * @param args        The arguments.
+     * @return The result of the call.
+     */
+    @Override
+    public Obj call(Interpreter interpreter, Obj self, List<Obj> args) {
+        FunctionObj function = select(interpreter, args);
+        if (function != null)
+            return function.call(interpreter, self, args);
+
+        if (hasSuperMethod()) {
+            return superClass.getMember(interpreter, name).call(interpreter, args);
+        } else {
+            throw new InterpreterException("CallException", "invalid arguments for function " + name);
+        }
+    }
+
+    /**
+     * Selects the function a call with the given arguments dispatches to.
+     *
+     * @param interpreter The interpreter.
+     * @param args        The arguments.
+     * @return The function, or null if the call falls back to the superclass's method or fails.
+     */
+    public FunctionObj select(Interpreter interpreter, List<Obj> args) {
+        if (direct != null && args.size() == direct.getArgNames().size() && !hasSuperMethod())
+            return direct;
+
+        return dispatcher.select(interpreter, args);
+    }
+
+    private boolean hasSuperMethod() {
+        return superClass != null && superClass.getFunctionMap().containsKey(name) && !name.equals("init");
+    }
+
+    /**
+     * Returns this method's name.
+     */
+    public String getName() {
+        return name;
+    }
+}
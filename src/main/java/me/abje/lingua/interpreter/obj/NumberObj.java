@@ -29,45 +29,204 @@ import me.abje.lingua.interpreter.InterpreterException;
 import java.util.List;
 
 /**
- * A Lingua number. Represented by a Java float.
+ * A Lingua number. Integral numbers are represented by a Java long, and other numbers by a Java double. Arithmetic
+ * on integral numbers is exact, and only produces a double when the result is not integral or overflows a long.
+ * <p>
+ * Integral numbers from -128 to {@value #DEFAULT_CACHE_HIGH} are cached. The upper bound can be raised with the
+ * <code>lingua.numberCache.high</code> system property.
  */
 public class NumberObj extends Obj {
     public static final ClassObj SYNTHETIC = bridgeClass(NumberObj.class);
-    private static final NumberObj[] CACHE = new NumberObj[256];
+
+    /**
+     * The default upper bound of the cached integral numbers.
+     */
+    public static final int DEFAULT_CACHE_HIGH = 1023;
+
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = Math.max(127, Integer.getInteger("lingua.numberCache.high", DEFAULT_CACHE_HIGH));
+    private static final NumberObj[] CACHE = new NumberObj[CACHE_HIGH - CACHE_LOW + 1];
 
     static {
-        for (int i = -128; i < 128; i++) {
-            CACHE[i + 128] = new NumberObj(i);
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new NumberObj(i + CACHE_LOW);
         }
     }
 
     /**
-     * This Number's value.
+     * Whether this Number is integral, and so represented by {@link #bits} directly.
      */
-    private final float value;
+    private final boolean integral;
 
     /**
-     * Creates a new Number with the given value.
+     * This Number's value if it is integral, and the raw bits of its double value otherwise.
+     */
+    private final long bits;
+
+    /**
+     * Creates a new integral Number with the given value.
      *
      * @param value The value.
      */
-    private NumberObj(float value) {
+    private NumberObj(long value) {
         super(SYNTHETIC);
-        this.value = value;
+        this.integral = true;
+        this.bits = value;
+    }
+
+    /**
+     * Creates a new Number with the given value, which is not representable by a long.
+     *
+     * @param value The value.
+     */
+    private NumberObj(double value) {
+        super(SYNTHETIC);
+        this.integral = false;
+        this.bits = Double.doubleToRawLongBits(value);
+    }
+
+    /**
+     * Returns whether this Number is integral, and so exactly represented by {@link #longValue()}.
+     */
+    public boolean isIntegral() {
+        return integral;
+    }
+
+    /**
+     * Returns this Number's value as a long. Truncates the fractional part of non-integral numbers.
+     */
+    public long longValue() {
+        return integral ? bits : (long) Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Returns this Number's value as an int. Truncates the fractional part of non-integral numbers.
+     */
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    /**
+     * Returns this Number's value as a double.
+     */
+    public double doubleValue() {
+        return integral ? bits : Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Adds a Number to this one.
+     *
+     * @param other The other Number.
+     * @return The sum.
+     */
+    public NumberObj plus(NumberObj other) {
+        if (integral && other.integral)
+            return add(bits, other.bits);
+        return of(doubleValue() + other.doubleValue());
+    }
+
+    /**
+     * Subtracts a Number from this one.
+     *
+     * @param other The other Number.
+     * @return The difference.
+     */
+    public NumberObj minus(NumberObj other) {
+        if (integral && other.integral)
+            return subtract(bits, other.bits);
+        return of(doubleValue() - other.doubleValue());
+    }
+
+    /**
+     * Multiplies this Number by another.
+     *
+     * @param other The other Number.
+     * @return The product.
+     */
+    public NumberObj times(NumberObj other) {
+        if (integral && other.integral)
+            return multiply(bits, other.bits);
+        return of(doubleValue() * other.doubleValue());
+    }
+
+    /**
+     * Divides this Number by another.
+     *
+     * @param other The other Number.
+     * @return The quotient.
+     */
+    public NumberObj dividedBy(NumberObj other) {
+        if (integral && other.integral)
+            return divide(bits, other.bits);
+        return of(doubleValue() / other.doubleValue());
+    }
+
+    /**
+     * Raises this Number to the power of another.
+     *
+     * @param other The exponent.
+     * @return The power.
+     */
+    public NumberObj pow(NumberObj other) {
+        if (integral && other.integral)
+            return pow(bits, other.bits);
+        return of(Math.pow(doubleValue(), other.doubleValue()));
+    }
+
+    /**
+     * Returns the negation of this Number.
+     */
+    public NumberObj negate() {
+        if (integral)
+            return subtract(0, bits);
+        return of(-doubleValue());
+    }
+
+    /**
+     * Returns whether this Number is less than another.
+     *
+     * @param other The other Number.
+     */
+    public boolean lessThan(NumberObj other) {
+        if (integral && other.integral)
+            return bits < other.bits;
+        return doubleValue() < other.doubleValue();
     }
 
     /**
-     * Returns this Number's value.
+     * Returns whether this Number is less than or equal to another.
+     *
+     * @param other The other Number.
      */
-    public float getValue() {
-        return value;
+    public boolean lessThanOrEqual(NumberObj other) {
+        if (integral && other.integral)
+            return bits <= other.bits;
+        return doubleValue() <= other.doubleValue();
+    }
+
+    /**
+     * Returns whether this Number is greater than another.
+     *
+     * @param other The other Number.
+     */
+    public boolean greaterThan(NumberObj other) {
+        return other.lessThan(this);
+    }
+
+    /**
+     * Returns whether this Number is greater than or equal to another.
+     *
+     * @param other The other Number.
+     */
+    public boolean greaterThanOrEqual(NumberObj other) {
+        return other.lessThanOrEqual(this);
     }
 
     @Override
     public String toString() {
-        if (value == (int) value)
-            return String.valueOf((int) value);
-        return String.valueOf(value);
+        if (integral)
+            return Long.toString(bits);
+        return Double.toString(doubleValue());
     }
 
     @Override
@@ -76,7 +235,7 @@ public class NumberObj extends Obj {
             throw new InterpreterException("CallException", "too many arguments for number application", interpreter);
         if (!(args.get(0) instanceof NumberObj))
             throw new InterpreterException("CallException", "argument for number application must be a number", interpreter);
-        return new NumberObj(value * ((NumberObj) args.get(0)).getValue());
+        return times((NumberObj) args.get(0));
     }
 
     @Override
@@ -86,38 +245,160 @@ public class NumberObj extends Obj {
 
         NumberObj numberObj = (NumberObj) o;
 
-        return Float.compare(numberObj.value, value) == 0;
-
+        if (integral)
+            return numberObj.integral && numberObj.bits == bits;
+        return !numberObj.integral && Double.compare(numberObj.doubleValue(), doubleValue()) == 0;
     }
 
     @Override
     public int hashCode() {
-        return (value != +0.0f ? Float.floatToIntBits(value) : 0);
+        return integral ? Long.hashCode(bits) : Double.hashCode(doubleValue());
     }
 
     /**
      * Numbers are truthy depending on their values.
      *
-     * @return Whether this Number is not 0.0.
+     * @return Whether this Number is not 0.
      */
     @Override
     public boolean isTruthy() {
-        return value != 0;
+        return integral ? bits != 0 : doubleValue() != 0;
     }
 
     @Bridge
     public static NumberObj init(Obj source) {
+        String string = source.toString();
+        boolean integer = !string.isEmpty();
+        boolean digits = false;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (i > 0 || (c != '-' && c != '+')) {
+                integer = false;
+            }
+        }
+
+        // Parse failures fill in a stack trace, so strings that can't be numbers are rejected up front.
+        if (!digits && !string.contains("NaN") && !string.contains("Infinity"))
+            throw new InterpreterException("ConversionException", "not a number: " + source);
+
+        if (integer) {
+            try {
+                return of(Long.parseLong(string));
+            } catch (NumberFormatException ignored) {
+            }
+        }
         try {
-            return new NumberObj(Float.parseFloat(source.toString()));
+            return of(Double.parseDouble(string));
         } catch (NumberFormatException e) {
             throw new InterpreterException("ConversionException", "not a number: " + source);
         }
     }
 
-    public static NumberObj of(float f) {
-        int i = (int) f;
-        if (f == i && i <= 127 && i >= -128)
-            return CACHE[i + 128];
-        return new NumberObj(f);
+    /**
+     * Returns an integral Number with the given value.
+     *
+     * @param l The value.
+     */
+    public static NumberObj of(long l) {
+        if (l >= CACHE_LOW && l <= CACHE_HIGH)
+            return CACHE[(int) l - CACHE_LOW];
+        return new NumberObj(l);
+    }
+
+    /**
+     * Returns a Number with the given value. The Number is integral if the value is.
+     *
+     * @param d The value.
+     */
+    public static NumberObj of(double d) {
+        long l = (long) d;
+        if (l == d && d >= -0x1p63 && d < 0x1p63)
+            return of(l);
+        return new NumberObj(d);
+    }
+
+    /**
+     * Adds two longs, producing a double if the sum overflows.
+     *
+     * @param a The left operand.
+     * @param b The right operand.
+     * @return The sum.
+     */
+    public static NumberObj add(long a, long b) {
+        long result = a + b;
+        if (((a ^ result) & (b ^ result)) < 0)
+            return of((double) a + (double) b);
+        return of(result);
+    }
+
+    /**
+     * Subtracts two longs, producing a double if the difference overflows.
+     *
+     * @param a The left operand.
+     * @param b The right operand.
+     * @return The difference.
+     */
+    public static NumberObj subtract(long a, long b) {
+        long result = a - b;
+        if (((a ^ b) & (a ^ result)) < 0)
+            return of((double) a - (double) b);
+        return of(result);
+    }
+
+    /**
+     * Multiplies two longs, producing a double if the product overflows.
+     *
+     * @param a The left operand.
+     * @param b The right operand.
+     * @return The product.
+     */
+    public static NumberObj multiply(long a, long b) {
+        long result = a * b;
+        if (Math.multiplyHigh(a, b) != (result >> 63))
+            return of((double) a * (double) b);
+        return of(result);
+    }
+
+    /**
+     * Divides two longs, producing a double if the quotient is not integral.
+     *
+     * @param a The dividend.
+     * @param b The divisor.
+     * @return The quotient.
+     */
+    public static NumberObj divide(long a, long b) {
+        if (b != 0 && a % b == 0 && (a != Long.MIN_VALUE || b != -1))
+            return of(a / b);
+        return of((double) a / (double) b);
+    }
+
+    /**
+     * Raises a long to the power of another, producing a double if the power is not integral or overflows.
+     *
+     * @param base     The base.
+     * @param exponent The exponent.
+     * @return The power.
+     */
+    public static NumberObj pow(long base, long exponent) {
+        if (exponent < 0)
+            return of(Math.pow(base, exponent));
+
+        long result = 1;
+        long square = base;
+        for (long e = exponent; e != 0; e >>= 1) {
+            if ((e & 1) != 0) {
+                if (Math.multiplyHigh(result, square) != ((result * square) >> 63))
+                    return of(Math.pow(base, exponent));
+                result *= square;
+            }
+            if (e > 1) {
+                if (Math.multiplyHigh(square, square) != ((square * square) >> 63))
+                    return of(Math.pow(base, exponent));
+                square *= square;
+            }
+        }
+        return of(result);
     }
 }
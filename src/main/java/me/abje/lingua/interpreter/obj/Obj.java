@@ -26,7 +26,6 @@ import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.InterpreterException;
 import me.abje.lingua.interpreter.obj.bridge.ObjectBridge;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -160,10 +159,8 @@ public class Obj {
             className = originalName;
 
         ClassObj.Builder<C> builder = ClassObj.builder(className);
-        Map<String, Map<Integer, ObjectBridge.MethodMetadata>> methodMap = ObjectBridge.createMethodMap(clazz, null);
-        methodMap.forEach((methodName, map) -> ObjectBridge.addFunction(builder, methodName, map));
-        Map<String, ObjField> fieldMap = ObjectBridge.createFieldMap(clazz, null);
-        builder.withFields(new ArrayList<>(fieldMap.values()));
+        ObjectBridge.createFunctions(clazz).forEach(builder::withFunction);
+        builder.withFields(ObjectBridge.createFields(clazz));
         return builder.build();
     }
 
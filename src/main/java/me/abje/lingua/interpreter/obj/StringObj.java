@@ -102,9 +102,8 @@ public class StringObj extends Obj {
     }
 
     @Bridge
-    public CharObj charAt(NumberObj index) {
-        // todo cache this
-        return CharObj.of(value.charAt((int) index.getValue()));
+    public char charAt(int index) {
+        return value.charAt(index);
     }
 
     @Bridge
@@ -123,7 +122,7 @@ public class StringObj extends Obj {
     }
 
     @Bridge
-    public NumberObj length() {
-        return NumberObj.of(value.length());
+    public int length() {
+        return value.length();
     }
 }
@@ -22,15 +22,15 @@
 
 package me.abje.lingua.interpreter.obj;
 
+import me.abje.lingua.interpreter.Interpreter;
+
+import java.util.List;
+
 /**
- * A synthetic "function." Basically just an object with a self field.
+ * A synthetic "function," defined in the JVM. Synthetic functions are shared between interpreters, so they hold no
+ * state: the "self" argument is passed to each call, or bound by {@link #bind(Obj)}.
  */
-public class SyntheticFunctionObj extends Obj {
-    /**
-     * The "self" argument to this function.
-     */
-    private Obj self;
-
+public abstract class SyntheticFunctionObj extends Obj {
     /**
      * Creates a new synthetic function.
      */
@@ -42,19 +42,66 @@ public class SyntheticFunctionObj extends Obj {
         super(type);
     }
 
+    @Override
+    public Obj call(Interpreter interpreter, List<Obj> args) {
+        return call(interpreter, null, args);
+    }
+
     /**
-     * Returns the "self" argument.
+     * Calls this function with the given "self" argument.
+     *
+     * @param interpreter The interpreter.
+     * @param self        The "self" argument. Can be null.
+     * @param args        The arguments.
+     * @return The result of the call.
      */
-    public Obj getSelf() {
-        return self;
-    }
+    public abstract Obj call(Interpreter interpreter, Obj self, List<Obj> args);
 
     /**
-     * Sets the "self" argument.
+     * Returns this function bound to the given "self" argument.
      *
-     * @param self The new "self" argument.
+     * @param self The "self" argument.
      */
-    public void setSelf(Obj self) {
-        this.self = self;
+    public SyntheticFunctionObj bind(Obj self) {
+        return new Bound(this, self);
+    }
+
+    /**
+     * A synthetic function bound to a "self" argument.
+     */
+    private static class Bound extends SyntheticFunctionObj {
+        private final SyntheticFunctionObj function;
+        private final Obj self;
+
+        private Bound(SyntheticFunctionObj function, Obj self) {
+            super(function.getType());
+            this.function = function;
+            this.self = self;
+        }
+
+        @Override
+        public Obj call(Interpreter interpreter, Obj self, List<Obj> args) {
+            return function.call(interpreter, this.self, args);
+        }
+
+        @Override
+        public SyntheticFunctionObj bind(Obj self) {
+            return function.bind(self);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Bound && ((Bound) o).function == function && ((Bound) o).self == self;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * function.hashCode() + System.identityHashCode(self);
+        }
+
+        @Override
+        public String toString() {
+            return function.toString();
+        }
     }
 }
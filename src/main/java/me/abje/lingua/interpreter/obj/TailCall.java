@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.interpreter.obj;
+
+import me.abje.lingua.interpreter.Interpreter;
+
+import java.util.List;
+
+/**
+ * A call in tail position which has not been made yet. Returned in place of the call's result, so that the function
+ * it is returned from can make the call after its own frame has been discarded, without growing the Java stack.
+ * Never visible to Lingua code.
+ *
+ * @see FunctionObj#call(Interpreter, Obj, List)
+ */
+public final class TailCall extends Obj {
+    /**
+     * The function to call.
+     */
+    private final FunctionObj function;
+
+    /**
+     * The "self" implicit argument. Can be null.
+     */
+    private final Obj self;
+
+    /**
+     * The arguments.
+     */
+    private final List<Obj> args;
+
+    /**
+     * Creates a new tail call.
+     *
+     * @param function The function to call.
+     * @param self     The "self" implicit argument. Can be null.
+     * @param args     The arguments.
+     */
+    public TailCall(FunctionObj function, Obj self, List<Obj> args) {
+        super(FunctionObj.SYNTHETIC);
+        this.function = function;
+        this.self = self;
+        this.args = args;
+    }
+
+    /**
+     * Makes the call.
+     *
+     * @param interpreter The interpreter.
+     * @return The result of the call.
+     */
+    public Obj complete(Interpreter interpreter) {
+        return function.call(interpreter, self, args);
+    }
+
+    /**
+     * Returns the function to call.
+     */
+    public FunctionObj getFunction() {
+        return function;
+    }
+
+    /**
+     * Returns the "self" implicit argument. Can be null.
+     */
+    public Obj getSelf() {
+        return self;
+    }
+
+    /**
+     * Returns the arguments.
+     */
+    public List<Obj> getArgs() {
+        return args;
+    }
+}
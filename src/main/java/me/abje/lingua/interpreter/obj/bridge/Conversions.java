@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter.obj.bridge;
+
+import me.abje.lingua.interpreter.InterpreterException;
+import me.abje.lingua.interpreter.obj.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Converts between the Java types bridged methods take and return and Lingua objects.
+ * <p>
+ * Results are converted by the <code>toObj</code> overloads: primitive numbers to NumberObjs, booleans to
+ * BooleanObjs, chars to CharObjs, Strings to StringObjs, arrays to ListObjs, Optionals to their value or null, and
+ * null to {@link NullObj#NULL}. Arguments are converted by the other <code>to</code> methods, each of which takes the
+ * object a parameter of its result type accepts. Generated bridges call these methods directly; the reflective bridge
+ * finds them through {@link #resultConverter} and {@link #argumentConverter}, which are cached per type.
+ */
+public final class Conversions {
+    private static final ClassValue<MethodHandle> RESULT_CONVERTERS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            Class<?> parameterType;
+            if (type.isPrimitive() || type == String.class || type == Optional.class || type == Object.class ||
+                    type == byte[].class || type == int[].class || type == long[].class || type == double[].class)
+                parameterType = type;
+            else if (Obj.class.isAssignableFrom(type))
+                parameterType = Obj.class;
+            else if (type.isArray())
+                parameterType = type.getComponentType().isPrimitive() ? Object.class : Object[].class;
+            else
+                parameterType = Object.class;
+            // byte, short and int widen to long, and float to double.
+            if (type == byte.class || type == short.class || type == int.class)
+                parameterType = long.class;
+            else if (type == float.class)
+                parameterType = double.class;
+
+            try {
+                MethodHandle converter = MethodHandles.lookup().findStatic(Conversions.class, "toObj",
+                        MethodType.methodType(Obj.class, parameterType));
+                return converter.asType(MethodType.methodType(Obj.class, type));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private static final ClassValue<MethodHandle> ARGUMENT_CONVERTERS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            for (Method method : Conversions.class.getDeclaredMethods()) {
+                if (method.getReturnType() == type && method.getParameterCount() == 1 &&
+                        Modifier.isPublic(method.getModifiers()) && !method.getName().equals("toObj")) {
+                    try {
+                        return MethodHandles.lookup().unreflect(method);
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+            return null;
+        }
+    };
+
+    private Conversions() {
+    }
+
+    /**
+     * Returns the converter from a bridged method's result to an object.
+     *
+     * @param type The result's type. Must not be void.
+     * @return A handle of type <code>(type)Obj</code>.
+     */
+    public static MethodHandle resultConverter(Class<?> type) {
+        return RESULT_CONVERTERS.get(type);
+    }
+
+    /**
+     * Returns the converter from an argument to a bridged method's parameter.
+     *
+     * @param type The parameter's type.
+     * @return A handle of type <code>(T)type</code>, where T is the type of object the parameter accepts, or null if
+     * the parameter takes objects as they are.
+     */
+    public static MethodHandle argumentConverter(Class<?> type) {
+        return ARGUMENT_CONVERTERS.get(type);
+    }
+
+    public static Obj toObj(long l) {
+        return NumberObj.of(l);
+    }
+
+    public static Obj toObj(double d) {
+        return NumberObj.of(d);
+    }
+
+    public static Obj toObj(boolean b) {
+        return BooleanObj.of(b);
+    }
+
+    public static Obj toObj(char c) {
+        return CharObj.of(c);
+    }
+
+    public static Obj toObj(String s) {
+        return s != null ? new StringObj(s) : NullObj.NULL;
+    }
+
+    public static Obj toObj(Obj obj) {
+        return obj != null ? obj : NullObj.NULL;
+    }
+
+    public static Obj toObj(Optional<?> optional) {
+        return optional != null && optional.isPresent() ? toObj(optional.get()) : NullObj.NULL;
+    }
+
+    public static Obj toObj(byte[] array) {
+        if (array == null)
+            return NullObj.NULL;
+        List<Obj> items = new ArrayList<>(array.length);
+        for (byte b : array) {
+            items.add(NumberObj.of(b));
+        }
+        return new ListObj(items);
+    }
+
+    public static Obj toObj(int[] array) {
+        if (array == null)
+            return NullObj.NULL;
+        List<Obj> items = new ArrayList<>(array.length);
+        for (int i : array) {
+            items.add(NumberObj.of(i));
+        }
+        return new ListObj(items);
+    }
+
+    public static Obj toObj(long[] array) {
+        if (array == null)
+            return NullObj.NULL;
+        List<Obj> items = new ArrayList<>(array.length);
+        for (long l : array) {
+            items.add(NumberObj.of(l));
+        }
+        return new ListObj(items);
+    }
+
+    public static Obj toObj(double[] array) {
+        if (array == null)
+            return NullObj.NULL;
+        List<Obj> items = new ArrayList<>(array.length);
+        for (double d : array) {
+            items.add(NumberObj.of(d));
+        }
+        return new ListObj(items);
+    }
+
+    public static Obj toObj(Object[] array) {
+        if (array == null)
+            return NullObj.NULL;
+        List<Obj> items = new ArrayList<>(array.length);
+        for (Object o : array) {
+            items.add(toObj(o));
+        }
+        return new ListObj(items);
+    }
+
+    /**
+     * Converts a value whose type is only known at run time.
+     *
+     * @param o The value.
+     * @return The object.
+     * @throws InterpreterException If the value has no conversion.
+     */
+    public static Obj toObj(Object o) {
+        if (o == null)
+            return NullObj.NULL;
+        else if (o instanceof Obj)
+            return (Obj) o;
+        else if (o instanceof String)
+            return new StringObj((String) o);
+        else if (o instanceof Double || o instanceof Float)
+            return NumberObj.of(((Number) o).doubleValue());
+        else if (o instanceof Long || o instanceof Integer || o instanceof Short || o instanceof Byte)
+            return NumberObj.of(((Number) o).longValue());
+        else if (o instanceof Boolean)
+            return BooleanObj.of((Boolean) o);
+        else if (o instanceof Character)
+            return CharObj.of((Character) o);
+        else if (o instanceof Optional)
+            return toObj((Optional<?>) o);
+        else if (o instanceof Object[])
+            return toObj((Object[]) o);
+        else if (o.getClass().isArray()) {
+            List<Obj> items = new ArrayList<>();
+            for (int i = 0; i < Array.getLength(o); i++) {
+                items.add(toObj(Array.get(o, i)));
+            }
+            return new ListObj(items);
+        } else
+            throw new InterpreterException("CallException", "can't convert " + o.getClass().getName() +
+                    " to an object");
+    }
+
+    public static int toInt(NumberObj num) {
+        return num.intValue();
+    }
+
+    public static long toLong(NumberObj num) {
+        return num.longValue();
+    }
+
+    public static short toShort(NumberObj num) {
+        return (short) num.longValue();
+    }
+
+    public static byte toByte(NumberObj num) {
+        return (byte) num.longValue();
+    }
+
+    public static double toDouble(NumberObj num) {
+        return num.doubleValue();
+    }
+
+    public static float toFloat(NumberObj num) {
+        return (float) num.doubleValue();
+    }
+
+    /**
+     * Converts any object to a boolean by its truthiness.
+     */
+    public static boolean toBoolean(Obj obj) {
+        return obj.isTruthy();
+    }
+
+    public static char toChar(CharObj c) {
+        return c.getValue();
+    }
+
+    public static String toJavaString(StringObj s) {
+        return s.getValue();
+    }
+
+    /**
+     * Converts an object to an Optional, which is empty if the object is {@link NullObj#NULL}.
+     */
+    public static Optional<Obj> toOptional(Obj obj) {
+        return obj == NullObj.NULL ? Optional.empty() : Optional.of(obj);
+    }
+
+    public static byte[] toBytes(ListObj list) {
+        byte[] array = new byte[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = toByte(number(list.get(i)));
+        }
+        return array;
+    }
+
+    public static int[] toInts(ListObj list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = toInt(number(list.get(i)));
+        }
+        return array;
+    }
+
+    public static long[] toLongs(ListObj list) {
+        long[] array = new long[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = toLong(number(list.get(i)));
+        }
+        return array;
+    }
+
+    public static double[] toDoubles(ListObj list) {
+        double[] array = new double[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = toDouble(number(list.get(i)));
+        }
+        return array;
+    }
+
+    public static String[] toJavaStrings(ListObj list) {
+        String[] array = new String[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            Obj item = list.get(i);
+            if (!(item instanceof StringObj))
+                throw new InterpreterException("CallException", "not a string: " + item);
+            array[i] = toJavaString((StringObj) item);
+        }
+        return array;
+    }
+
+    private static NumberObj number(Obj obj) {
+        if (!(obj instanceof NumberObj))
+            throw new InterpreterException("CallException", "not a number: " + obj);
+        return (NumberObj) obj;
+    }
+}
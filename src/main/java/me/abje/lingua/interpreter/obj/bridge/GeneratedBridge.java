@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter.obj.bridge;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.interpreter.obj.ObjField;
+import me.abje.lingua.util.TriFunction;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The bridges to a class's {@link me.abje.lingua.interpreter.Bridge} and {@link me.abje.lingua.interpreter.FieldBridge}
+ * methods, generated at compile time by <code>BridgeProcessor</code>. A generated bridge is named after its class with
+ * <code>_Bridge</code> appended, and calls the methods directly instead of through reflection.
+ *
+ * @param <C> The class.
+ * @see ObjectBridge#createFunctions(Class)
+ * @see ObjectBridge#createFields(Class)
+ */
+public interface GeneratedBridge<C> {
+    /**
+     * Creates the bridges to the class's functions, by name. Overloads with the same name share a bridge.
+     */
+    Map<String, TriFunction<Interpreter, C, List<Obj>, Obj>> createFunctions();
+
+    /**
+     * Creates the class's fields.
+     */
+    List<ObjField> createFields();
+}
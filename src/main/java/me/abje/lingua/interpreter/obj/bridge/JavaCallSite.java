@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter.obj.bridge;
+
+import me.abje.lingua.interpreter.obj.Obj;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+import java.util.List;
+
+/**
+ * A cache for the calls of a Java method at one site, in the style of an <code>invokedynamic</code> call site. The
+ * site's target starts out resolving each call with {@link JavaLinker}; every resolved method is then linked in front
+ * of it behind its guard, which checks the receiver's class and the classes of the arguments. Once a site has linked
+ * {@link #MAX_ENTRIES} methods it is considered megamorphic, and later calls that miss are resolved without being
+ * linked.
+ * <p>
+ * Sites can be shared between threads. Linking replaces the whole target, so a race can only lose an entry, which
+ * is linked again on the next miss.
+ */
+public class JavaCallSite {
+    private static final int MAX_ENTRIES = 4;
+
+    private static final MethodHandle RESOLVE;
+
+    static {
+        try {
+            RESOLVE = MethodHandles.lookup().findVirtual(JavaCallSite.class, "resolve", JavaLinker.CALL_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The name of the method.
+     */
+    private final String name;
+
+    private final MutableCallSite site;
+
+    /**
+     * Invokes the site's current target.
+     */
+    private final MethodHandle invoker;
+
+    /**
+     * The number of methods linked.
+     */
+    private volatile int entries;
+
+    /**
+     * Creates a new, empty call site.
+     *
+     * @param name The name of the method, or {@link JavaLinker#CONSTRUCTOR} for constructors.
+     */
+    public JavaCallSite(String name) {
+        this.name = name;
+        this.site = new MutableCallSite(JavaLinker.CALL_TYPE);
+        site.setTarget(RESOLVE.bindTo(this));
+        this.invoker = site.dynamicInvoker();
+    }
+
+    /**
+     * Calls the method.
+     *
+     * @param self The receiver: a wrapped object for its instance methods, or a wrapped class for its static methods
+     *             and constructors.
+     * @param args The arguments.
+     * @return The result.
+     * @throws me.abje.lingua.interpreter.InterpreterException If the call can't be resolved, or the method throws an
+     *                                                         exception. Errors are rethrown as they are.
+     */
+    public Obj invoke(JavaObj self, List<Obj> args) {
+        try {
+            return (Obj) invoker.invokeExact((Obj) self, args.toArray(new Obj[0]));
+        } catch (Error e) {
+            throw e;
+        } catch (Exception e) {
+            throw JavaLinker.exception(e);
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * The target of a call that none of the linked methods' guards accept.
+     */
+    @SuppressWarnings("unused")
+    private Obj resolve(Obj self, Obj[] args) throws Throwable {
+        JavaLinker.Target target = JavaLinker.resolve((JavaObj) self, name, args);
+        int entries = this.entries;
+        if (entries < MAX_ENTRIES) {
+            this.entries = entries + 1;
+            site.setTarget(MethodHandles.guardWithTest(target.getGuard(), target.getHandle(), site.getTarget()));
+        }
+        return (Obj) target.getHandle().invokeExact(self, args);
+    }
+
+    /**
+     * Returns the name of the method.
+     */
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter.obj.bridge;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.InterpreterException;
+import me.abje.lingua.interpreter.obj.ClassObj;
+import me.abje.lingua.interpreter.obj.Obj;
+
+import java.util.List;
+
+/**
+ * A Java class. Calling it calls one of its public constructors, and its public static fields and methods are its
+ * fields and functions.
+ */
+public class JavaClassObj extends JavaObj {
+    public static final ClassObj SYNTHETIC = bridgeClass(JavaClassObj.class);
+
+    private static final ClassValue<JavaClassObj> CLASSES = new ClassValue<>() {
+        @Override
+        protected JavaClassObj computeValue(Class<?> type) {
+            return new JavaClassObj(type);
+        }
+    };
+
+    /**
+     * The call site that calls this class's constructors.
+     */
+    private final JavaCallSite constructors = new JavaCallSite(JavaLinker.CONSTRUCTOR);
+
+    private JavaClassObj(Class<?> value) {
+        super(SYNTHETIC, value);
+    }
+
+    /**
+     * Returns the object for a Java class. There is one object per class.
+     *
+     * @param clazz The class.
+     * @return The object.
+     */
+    public static JavaClassObj of(Class<?> clazz) {
+        return CLASSES.get(clazz);
+    }
+
+    /**
+     * Loads a Java class by name.
+     *
+     * @param name The class's fully qualified name, like <code>java.util.BitSet</code>.
+     * @return The object for the class.
+     * @throws InterpreterException If the class could not be found.
+     */
+    public static JavaClassObj forName(String name) {
+        try {
+            return of(Class.forName(name, true, JavaClassObj.class.getClassLoader()));
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new InterpreterException("UndefinedException", "unknown Java class: " + name);
+        }
+    }
+
+    @Override
+    public Class<?> getMemberClass() {
+        return (Class<?>) getValue();
+    }
+
+    @Override
+    public boolean isStatic() {
+        return true;
+    }
+
+    @Override
+    public Obj call(Interpreter interpreter, List<Obj> args) {
+        return constructors.invoke(this, args);
+    }
+
+    @Override
+    public String toString() {
+        return getMemberClass().getName();
+    }
+}
@@ -0,0 +1,561 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter.obj.bridge;
+
+import me.abje.lingua.interpreter.InterpreterException;
+import me.abje.lingua.interpreter.obj.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves calls from Lingua to the public methods and constructors of arbitrary Java classes, and adapts them to
+ * method handles of type {@link #CALL_TYPE}.
+ * <p>
+ * A call is resolved by name and number of arguments. If several overloads accept the arguments, the one whose
+ * parameters fit them best is chosen: a Number goes to an integral parameter if it is integral and to a floating-point
+ * one otherwise, a String to a String parameter before a CharSequence or Object one, and so on. Arguments are
+ * converted like those of bridged methods (see {@link Conversions}), except that wrapped Java objects are unwrapped;
+ * results are converted the same way, except that objects with no conversion are wrapped in a {@link JavaObj}.
+ * <p>
+ * Each resolved call comes with a guard that tells whether a later call would resolve to the same target, so that
+ * {@link JavaCallSite} can cache it.
+ */
+public final class JavaLinker {
+    /**
+     * The type of the adapted handles: they take the receiver and the arguments and return the result.
+     */
+    public static final MethodType CALL_TYPE = MethodType.methodType(Obj.class, Obj.class, Obj[].class);
+
+    /**
+     * The name under which constructors are resolved.
+     */
+    public static final String CONSTRUCTOR = "<init>";
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private static final MethodHandle UNWRAP_RECEIVER;
+    private static final MethodHandle UNWRAP;
+    private static final MethodHandle WRAP;
+    private static final MethodHandle MATCHES;
+    private static final MethodHandle NO_RESULT = MethodHandles.constant(Obj.class, NullObj.NULL);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            UNWRAP_RECEIVER = lookup.findVirtual(JavaObj.class, "getValue", MethodType.methodType(Object.class))
+                    .asType(MethodType.methodType(Object.class, Obj.class));
+            UNWRAP = lookup.findStatic(JavaLinker.class, "unwrap", MethodType.methodType(Object.class, Obj.class));
+            WRAP = lookup.findStatic(JavaLinker.class, "wrap", MethodType.methodType(Obj.class, Object.class));
+            MATCHES = lookup.findStatic(JavaLinker.class, "matches", MethodType.methodType(boolean.class,
+                    Class.class, Class.class, Class[].class, Obj.class, Obj[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The public methods and constructors of each class, by name and then by whether they are static.
+     */
+    private static final ClassValue<Map<String, Executable[][]>> MEMBERS = new ClassValue<>() {
+        @Override
+        protected Map<String, Executable[][]> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * The members of each class that can be read by name, by name and then by whether they are static.
+     */
+    private static final ClassValue<Map<String, Property[]>> PROPERTIES = new ClassValue<>() {
+        @Override
+        protected Map<String, Property[]> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<MethodHandle> ARGUMENT_CONVERTERS = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            MethodType converterType = MethodType.methodType(type, Obj.class);
+            if (Obj.class.isAssignableFrom(type))
+                return MethodHandles.identity(Obj.class).asType(converterType);
+            Class<?> primitive = MethodType.methodType(type).unwrap().returnType();
+            MethodHandle converter = Conversions.argumentConverter(primitive);
+            if (converter != null)
+                return converter.asType(converterType);
+            return UNWRAP.asType(converterType);
+        }
+    };
+
+    private static final ClassValue<MethodHandle> RESULT_CONVERTERS = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            if (type.isPrimitive() || type == String.class || Obj.class.isAssignableFrom(type) ||
+                    type == byte[].class || type == int[].class || type == long[].class || type == double[].class)
+                return Conversions.resultConverter(type);
+            return WRAP.asType(MethodType.methodType(Obj.class, type));
+        }
+    };
+
+    private JavaLinker() {
+    }
+
+    /**
+     * A resolved call.
+     */
+    public static final class Target {
+        private final MethodHandle handle;
+        private final MethodHandle guard;
+
+        private Target(MethodHandle handle, MethodHandle guard) {
+            this.handle = handle;
+            this.guard = guard;
+        }
+
+        /**
+         * Returns the adapted method, of type {@link #CALL_TYPE}.
+         */
+        public MethodHandle getHandle() {
+            return handle;
+        }
+
+        /**
+         * Returns the guard, of type <code>(Obj, Obj[])boolean</code>, which is true for calls that resolve to the
+         * same method.
+         */
+        public MethodHandle getGuard() {
+            return guard;
+        }
+    }
+
+    /**
+     * A member of a class read by name: a public field, or the methods by that name and the call site shared by the
+     * reads that call them.
+     */
+    static final class Property {
+        private final Field field;
+        private final JavaCallSite site;
+
+        private Property(Field field, JavaCallSite site) {
+            this.field = field;
+            this.site = site;
+        }
+
+        /**
+         * Returns the field, or null if there is none.
+         */
+        Field getField() {
+            return field;
+        }
+
+        /**
+         * Returns the methods' call site, or null if there are no methods by this name.
+         */
+        JavaCallSite getSite() {
+            return site;
+        }
+    }
+
+    /**
+     * Resolves a call.
+     *
+     * @param self The receiver. Its {@link JavaObj#getMemberClass() member class} is searched for the method.
+     * @param name The method's name, or {@link #CONSTRUCTOR}.
+     * @param args The arguments.
+     * @return The resolved call.
+     * @throws InterpreterException If no method by that name accepts the arguments.
+     */
+    public static Target resolve(JavaObj self, String name, Obj[] args) {
+        Class<?> owner = self.getMemberClass();
+        boolean statics = self.isStatic();
+        Executable[] candidates = members(owner, statics, name);
+        if (candidates.length == 0)
+            throw new InterpreterException("UndefinedException", "unknown field: " + name);
+
+        Executable best = null;
+        int bestScore = Integer.MAX_VALUE;
+        for (Executable candidate : candidates) {
+            int score = score(candidate, args);
+            if (score >= 0 && score < bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        if (best == null)
+            throw new InterpreterException("CallException", "no overload of " + owner.getName() + "." + name +
+                    " accepts these arguments");
+
+        Class<?>[] argumentKeys = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argumentKeys[i] = key(args[i]);
+        }
+        MethodHandle guard = MethodHandles.insertArguments(MATCHES, 0, self.getClass(), owner, argumentKeys);
+        return new Target(adapt(best, args), guard);
+    }
+
+    /**
+     * Returns whether a class has a public method by a name.
+     *
+     * @param owner   The class.
+     * @param statics Whether to look for static methods.
+     * @param name    The method's name.
+     */
+    public static boolean hasMethod(Class<?> owner, boolean statics, String name) {
+        return members(owner, statics, name).length > 0;
+    }
+
+    /**
+     * Finds the member of a class by a name. Members are looked up once per class and name.
+     *
+     * @param owner   The class.
+     * @param statics Whether to look for static members.
+     * @param name    The member's name.
+     * @return The member. Its field and site are both null if the class has neither by that name.
+     */
+    static Property property(Class<?> owner, boolean statics, String name) {
+        return PROPERTIES.get(owner).computeIfAbsent(name, n -> new Property[]{
+                createProperty(owner, false, n), createProperty(owner, true, n)})[statics ? 1 : 0];
+    }
+
+    /**
+     * Converts a result of a Java method to an object, wrapping it in a {@link JavaObj} if it has no other conversion.
+     *
+     * @param o The result.
+     * @return The object.
+     */
+    public static Obj wrap(Object o) {
+        if (o == null)
+            return NullObj.NULL;
+        else if (o instanceof Obj)
+            return (Obj) o;
+        else if (o instanceof String || o instanceof Number || o instanceof Boolean || o instanceof Character ||
+                o instanceof byte[] || o instanceof int[] || o instanceof long[] || o instanceof double[])
+            return Conversions.toObj(o);
+        else if (o instanceof Object[]) {
+            List<Obj> items = new ArrayList<>();
+            for (Object item : (Object[]) o) {
+                items.add(wrap(item));
+            }
+            return new ListObj(items);
+        } else
+            return new JavaObj(o);
+    }
+
+    /**
+     * Converts an object to a Java value whose type is only known at run time: wrapped objects are unwrapped, Strings,
+     * Numbers, Booleans and Chars become their Java values, null becomes null, and other objects stay as they are.
+     *
+     * @param obj The object.
+     * @return The value.
+     */
+    public static Object unwrap(Obj obj) {
+        if (obj instanceof JavaObj)
+            return ((JavaObj) obj).getValue();
+        else if (obj instanceof StringObj)
+            return ((StringObj) obj).getValue();
+        else if (obj instanceof NumberObj)
+            return ((NumberObj) obj).isIntegral() ? (Object) ((NumberObj) obj).longValue() :
+                    (Object) ((NumberObj) obj).doubleValue();
+        else if (obj instanceof BooleanObj)
+            return ((BooleanObj) obj).getValue();
+        else if (obj instanceof CharObj)
+            return ((CharObj) obj).getValue();
+        else if (obj == NullObj.NULL)
+            return null;
+        else
+            return obj;
+    }
+
+    /**
+     * Converts an object to a value of a Java type.
+     *
+     * @param obj  The object.
+     * @param type The type.
+     * @return The value.
+     * @throws ClassCastException If the object can't be converted to the type.
+     */
+    static Object unwrap(Obj obj, Class<?> type) {
+        if (score(type, obj) < 0)
+            throw new ClassCastException();
+        try {
+            return ARGUMENT_CONVERTERS.get(type).invoke(obj);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Returns the exception a Java exception thrown through a call is rethrown as. Errors are not converted, so that
+     * scripts can't catch them.
+     *
+     * @param exception The Java exception.
+     */
+    public static InterpreterException exception(Exception exception) {
+        if (exception instanceof InterpreterException)
+            return (InterpreterException) exception;
+        String message = exception.getMessage();
+        return new InterpreterException("JavaException", exception.getClass().getName() +
+                (message != null ? ": " + message : ""));
+    }
+
+    private static Property createProperty(Class<?> owner, boolean statics, String name) {
+        Field field = null;
+        try {
+            Field candidate = owner.getField(name);
+            if (Modifier.isStatic(candidate.getModifiers()) == statics)
+                field = candidate;
+        } catch (NoSuchFieldException ignored) {
+        }
+        return new Property(field, hasMethod(owner, statics, name) ? new JavaCallSite(name) : null);
+    }
+
+    private static Executable[] members(Class<?> owner, boolean statics, String name) {
+        Executable[][] members = MEMBERS.get(owner).computeIfAbsent(name, n -> {
+            List<Executable> instanceMembers = new ArrayList<>();
+            List<Executable> staticMembers = new ArrayList<>();
+            if (n.equals(CONSTRUCTOR)) {
+                if (!Modifier.isAbstract(owner.getModifiers()))
+                    staticMembers.addAll(Arrays.asList(owner.getConstructors()));
+            } else {
+                // Overriding with a covariant return type leaves a bridge method with the same parameters, but a
+                // public method inherited from a class that isn't public is only found through its bridge.
+                Map<List<Class<?>>, Method> methods = new LinkedHashMap<>();
+                for (Method method : owner.getMethods()) {
+                    if (method.getName().equals(n))
+                        methods.merge(Arrays.asList(method.getParameterTypes()), method,
+                                (a, b) -> a.isBridge() ? b : a);
+                }
+                for (Method method : methods.values()) {
+                    (Modifier.isStatic(method.getModifiers()) ? staticMembers : instanceMembers).add(method);
+                }
+            }
+            return new Executable[][]{instanceMembers.toArray(new Executable[0]),
+                    staticMembers.toArray(new Executable[0])};
+        });
+        return members[statics ? 1 : 0];
+    }
+
+    /**
+     * Scores how well a method's parameters fit the arguments.
+     *
+     * @return The score, lower being better, or -1 if the method doesn't accept the arguments.
+     */
+    private static int score(Executable executable, Obj[] args) {
+        Class<?>[] parameters = executable.getParameterTypes();
+        boolean collects = collects(executable, args);
+        if (!collects && parameters.length != args.length)
+            return -1;
+
+        int total = collects ? 1 : 0;
+        for (int i = 0; i < args.length; i++) {
+            Class<?> parameter = collects && i >= parameters.length - 1 ?
+                    parameters[parameters.length - 1].getComponentType() : parameters[i];
+            int score = score(parameter, args[i]);
+            if (score < 0)
+                return -1;
+            total += score;
+        }
+        return total;
+    }
+
+    /**
+     * Returns whether a call of a method with the given arguments collects the trailing arguments into its variable
+     * arity parameter, rather than passing them as they are.
+     */
+    private static boolean collects(Executable executable, Obj[] args) {
+        if (!executable.isVarArgs())
+            return false;
+        int count = executable.getParameterCount();
+        return args.length != count || !(args[count - 1] instanceof ListObj);
+    }
+
+    /**
+     * Scores how well a parameter fits an argument.
+     *
+     * @return The score, lower being better, or -1 if the parameter doesn't accept the argument.
+     */
+    private static int score(Class<?> parameter, Obj arg) {
+        if (Obj.class.isAssignableFrom(parameter))
+            return parameter.isInstance(arg) ? (parameter == arg.getClass() ? 0 : 1) : -1;
+        if (arg == NullObj.NULL)
+            return parameter.isPrimitive() ? -1 : 1;
+        if (arg instanceof JavaObj) {
+            Object value = ((JavaObj) arg).getValue();
+            if (!parameter.isInstance(value))
+                return -1;
+            return value.getClass() == parameter ? 0 : 2;
+        }
+
+        Class<?> type = MethodType.methodType(parameter).unwrap().returnType();
+        int boxed = type != parameter ? 1 : 0;
+        if (arg instanceof NumberObj) {
+            boolean integral = ((NumberObj) arg).isIntegral();
+            if (type == long.class)
+                return integral ? boxed : -1;
+            if (type == int.class)
+                return integral ? 1 + boxed : -1;
+            if (type == short.class || type == byte.class)
+                return integral ? 3 + boxed : -1;
+            if (type == double.class)
+                return integral ? 4 + boxed : boxed;
+            if (type == float.class)
+                return integral ? 5 + boxed : 1 + boxed;
+            if (parameter.isAssignableFrom(Long.class) && parameter.isAssignableFrom(Double.class))
+                return parameter == Object.class ? 8 : 6;
+            return -1;
+        }
+        if (arg instanceof BooleanObj)
+            return type == boolean.class ? boxed : parameter == Object.class ? 8 : -1;
+        if (arg instanceof CharObj)
+            return type == char.class ? boxed : parameter == Object.class ? 8 : -1;
+        if (arg instanceof StringObj) {
+            if (parameter == String.class)
+                return 0;
+            return parameter.isAssignableFrom(String.class) ? (parameter == Object.class ? 8 : 2) : -1;
+        }
+        if (arg instanceof ListObj && parameter.isArray() && Conversions.argumentConverter(parameter) != null)
+            return 2;
+        return parameter == Object.class ? 8 : -1;
+    }
+
+    /**
+     * Returns the class an argument's fit to a parameter depends on.
+     */
+    private static Class<?> key(Obj arg) {
+        if (arg instanceof JavaObj)
+            return ((JavaObj) arg).getMemberClass();
+        else if (arg instanceof NumberObj)
+            return ((NumberObj) arg).isIntegral() ? long.class : double.class;
+        else
+            return arg.getClass();
+    }
+
+    /**
+     * The guard of resolved calls.
+     *
+     * @param selfClass    The receiver's class: {@link JavaObj} or {@link JavaClassObj}.
+     * @param owner        The receiver's member class.
+     * @param argumentKeys The {@link #key keys} of the arguments.
+     * @param self         The receiver.
+     * @param args         The arguments.
+     * @return Whether the call resolves to the same method.
+     */
+    @SuppressWarnings("unused")
+    private static boolean matches(Class<?> selfClass, Class<?> owner, Class<?>[] argumentKeys, Obj self,
+                                   Obj[] args) {
+        if (self.getClass() != selfClass || ((JavaObj) self).getMemberClass() != owner ||
+                args.length != argumentKeys.length)
+            return false;
+        for (int i = 0; i < args.length; i++) {
+            if (key(args[i]) != argumentKeys[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adapts a method to {@link #CALL_TYPE}.
+     *
+     * @param executable The method or constructor.
+     * @param args       The arguments it is called with.
+     * @return The adapted method.
+     */
+    private static MethodHandle adapt(Executable executable, Obj[] args) {
+        MethodHandle handle;
+        boolean receiver;
+        try {
+            if (executable instanceof Constructor) {
+                handle = LOOKUP.unreflectConstructor((Constructor<?>) executable);
+                receiver = false;
+            } else {
+                handle = unreflect((Method) executable);
+                receiver = !Modifier.isStatic(executable.getModifiers());
+            }
+        } catch (IllegalAccessException e) {
+            throw new InterpreterException("InvalidOperationException", "not accessible: " + executable);
+        }
+
+        handle = handle.asFixedArity();
+        int count = args.length;
+        int parameterCount = executable.getParameterCount();
+        if (collects(executable, args)) {
+            Class<?> arrayType = executable.getParameterTypes()[parameterCount - 1];
+            handle = handle.asCollector(arrayType, count - parameterCount + 1);
+        }
+
+        MethodType type = handle.type();
+        int offset = receiver ? 1 : 0;
+        MethodHandle[] filters = new MethodHandle[type.parameterCount()];
+        if (receiver)
+            filters[0] = UNWRAP_RECEIVER.asType(MethodType.methodType(type.parameterType(0), Obj.class));
+        for (int i = offset; i < filters.length; i++) {
+            filters[i] = ARGUMENT_CONVERTERS.get(type.parameterType(i));
+        }
+        handle = MethodHandles.filterArguments(handle, 0, filters);
+
+        Class<?> returnType = type.returnType();
+        if (returnType == void.class)
+            handle = MethodHandles.filterReturnValue(handle, NO_RESULT);
+        else
+            handle = MethodHandles.filterReturnValue(handle, RESULT_CONVERTERS.get(returnType));
+        if (!receiver)
+            handle = MethodHandles.dropArguments(handle, 0, Obj.class);
+        return handle.asSpreader(Obj[].class, count).asType(CALL_TYPE);
+    }
+
+    /**
+     * Unreflects a public method. A method declared in a class that isn't accessible, such as the methods of a
+     * private implementation of a public interface, is found through the accessible class or interface that declares
+     * it.
+     */
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        try {
+            return LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            Deque<Class<?>> types = new ArrayDeque<>();
+            types.add(method.getDeclaringClass());
+            while (!types.isEmpty()) {
+                Class<?> type = types.poll();
+                try {
+                    return LOOKUP.unreflect(type.getMethod(method.getName(), method.getParameterTypes()));
+                } catch (NoSuchMethodException | IllegalAccessException ignored) {
+                }
+                if (type.getSuperclass() != null)
+                    types.add(type.getSuperclass());
+                types.addAll(Arrays.asList(type.getInterfaces()));
+            }
+            throw e;
+        }
+    }
+}
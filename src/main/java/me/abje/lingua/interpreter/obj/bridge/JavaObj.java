@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter.obj.bridge;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.InterpreterException;
+import me.abje.lingua.interpreter.obj.ClassObj;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.interpreter.obj.SyntheticFunctionObj;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An arbitrary Java object. Its public fields are its fields, and its public methods its functions.
+ * <p>
+ * Calls to the object's methods are resolved by {@link JavaLinker}. A call at a member access site is cached in the
+ * site's {@link JavaCallSite}; a method that is only read as a member is called through a site shared by every read of
+ * that method of the member class.
+ */
+public class JavaObj extends Obj {
+    public static final ClassObj SYNTHETIC = bridgeClass(JavaObj.class);
+
+    /**
+     * The wrapped object.
+     */
+    private final Object value;
+
+    /**
+     * Wraps a Java object.
+     *
+     * @param value The object. Must not be null.
+     */
+    public JavaObj(Object value) {
+        this(SYNTHETIC, value);
+    }
+
+    protected JavaObj(ClassObj type, Object value) {
+        super(type);
+        this.value = Objects.requireNonNull(value);
+    }
+
+    /**
+     * Returns the wrapped object.
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the class whose members this object has.
+     */
+    public Class<?> getMemberClass() {
+        return value.getClass();
+    }
+
+    /**
+     * Returns whether this object has the static members of its {@link #getMemberClass() member class} rather than the
+     * instance members.
+     */
+    public boolean isStatic() {
+        return false;
+    }
+
+    @Override
+    public Obj getMember(Interpreter interpreter, String name) {
+        JavaLinker.Property property = JavaLinker.property(getMemberClass(), isStatic(), name);
+        Field field = property.getField();
+        if (field != null) {
+            try {
+                return JavaLinker.wrap(field.get(isStatic() ? null : value));
+            } catch (IllegalAccessException e) {
+                throw new InterpreterException("InvalidOperationException", "field not accessible: " + name);
+            }
+        }
+        JavaCallSite site = property.getSite();
+        if (site == null)
+            throw new InterpreterException("UndefinedException", "unknown field: " + name);
+
+        return new SyntheticFunctionObj() {
+            @Override
+            public Obj call(Interpreter interpreter, Obj self, List<Obj> args) {
+                return site.invoke(JavaObj.this, args);
+            }
+
+            @Override
+            public String toString() {
+                return getMemberClass().getName() + "." + name;
+            }
+        };
+    }
+
+    @Override
+    public void setMember(Interpreter interpreter, String name, Obj value) {
+        Field field = JavaLinker.property(getMemberClass(), isStatic(), name).getField();
+        if (field == null)
+            throw new InterpreterException("UndefinedException", "unknown field: " + name);
+        if (Modifier.isFinal(field.getModifiers()))
+            throw new InterpreterException("InvalidOperationException", "field not mutable: " + name);
+        try {
+            field.set(isStatic() ? null : this.value, JavaLinker.unwrap(value, field.getType()));
+        } catch (IllegalAccessException | IllegalArgumentException e) {
+            throw new InterpreterException("CallException", "invalid value for field " + name);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof JavaObj && getClass() == o.getClass() && value.equals(((JavaObj) o).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return value.toString();
+    }
+}
@@ -31,26 +31,113 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class ObjectBridge {
-    private static MethodHandle convertToNumber;
-    private static MethodHandle convertFromNumber;
+    /**
+     * Converts the result of a handle to an object with its {@link Conversions#resultConverter converter}.
+     *
+     * @param handle The handle.
+     * @return The converting handle, or the handle itself if it returns nothing.
+     */
+    private static MethodHandle filterResult(MethodHandle handle) {
+        Class<?> returnType = handle.type().returnType();
+        if (returnType == void.class)
+            return handle;
+        return MethodHandles.filterReturnValue(handle, Conversions.resultConverter(returnType));
+    }
+
+    /**
+     * Creates the bridges to a class's {@link Bridge} methods, by name. The class's {@link GeneratedBridge} is used if
+     * it was compiled with one; otherwise the methods are found and bridged with reflection.
+     *
+     * @param clazz The class.
+     * @return The bridges.
+     */
+    public static <C> Map<String, TriFunction<Interpreter, C, List<Obj>, Obj>> createFunctions(Class<C> clazz) {
+        GeneratedBridge<C> generated = findGeneratedBridge(clazz);
+        if (generated != null)
+            return generated.createFunctions();
+
+        Map<String, TriFunction<Interpreter, C, List<Obj>, Obj>> functions = new HashMap<>();
+        createMethodMap(clazz, null).forEach((name, map) -> functions.put(name, createFunctionBridge(name, map)));
+        return functions;
+    }
+
+    /**
+     * Creates the fields bridged by a class's {@link FieldBridge} methods. The class's {@link GeneratedBridge} is used
+     * if it was compiled with one; otherwise the methods are found and bridged with reflection.
+     *
+     * @param clazz The class.
+     * @return The fields.
+     */
+    public static <C> List<ObjField> createFields(Class<C> clazz) {
+        GeneratedBridge<C> generated = findGeneratedBridge(clazz);
+        if (generated != null)
+            return generated.createFields();
+        return new ArrayList<>(createFieldMap(clazz, null).values());
+    }
 
-    static {
+    /**
+     * Returns the bridge generated for a class at compile time.
+     *
+     * @param clazz The class.
+     * @return The bridge, or null if the class was compiled without one.
+     */
+    @SuppressWarnings("unchecked")
+    public static <C> GeneratedBridge<C> findGeneratedBridge(Class<C> clazz) {
+        // Nested classes' bridges are top-level classes named after the whole nesting, as in Outer_Inner_Bridge.
+        String name = clazz.getName();
+        int packageEnd = name.lastIndexOf('.') + 1;
+        String bridgeName = name.substring(0, packageEnd) + name.substring(packageEnd).replace('$', '_') + "_Bridge";
         try {
-            convertToNumber = handle("toNumberObj", float.class);
-            convertFromNumber = handle("fromNumberObj", NumberObj.class);
-        } catch (IllegalAccessException | NoSuchMethodException e) {
-            e.printStackTrace();
+            Class<?> bridge = Class.forName(bridgeName, true, clazz.getClassLoader());
+            return (GeneratedBridge<C>) bridge.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("invalid generated bridge for " + clazz.getName(), e);
         }
     }
 
-    private static MethodHandle handle(String name, Class<?>... parameterTypes)
-            throws NoSuchMethodException, IllegalAccessException {
-        return MethodHandles.lookup().unreflect(ObjectBridge.class.getDeclaredMethod(name, parameterTypes));
+    /**
+     * Converts the result of a bridged method to an object.
+     *
+     * @param result The result.
+     * @return The result, or {@link NullObj#NULL} if it is null.
+     */
+    public static Obj wrapResult(Object result) {
+        return result != null ? (Obj) result : NullObj.NULL;
+    }
+
+    /**
+     * Returns the exception thrown in place of a checked exception thrown by a bridged method.
+     *
+     * @param throwable The checked exception.
+     */
+    public static InterpreterException uncheckedException(Throwable throwable) {
+        return new InterpreterException("Exception", String.valueOf(throwable.getMessage()));
+    }
+
+    /**
+     * Returns the exception thrown when a bridged function is called with an argument of the wrong type.
+     *
+     * @param name The function's name.
+     */
+    public static InterpreterException invalidArgument(String name) {
+        return new InterpreterException("CallException", "invalid argument for function " + name);
+    }
+
+    /**
+     * Returns the exception thrown when a bridged function is called with the wrong number of arguments.
+     *
+     * @param name The function's name.
+     */
+    public static InterpreterException invalidArgumentCount(String name) {
+        return new InterpreterException("CallException", "invalid number of arguments for function " + name);
     }
 
     public static <C> Map<String, Map<Integer, MethodMetadata>> createMethodMap(Class<C> clazz, C instance) {
@@ -60,31 +147,29 @@ public class ObjectBridge {
             if (bridge != null) {
                 try {
                     String methodName = bridge.value().isEmpty() ? method.getName() : bridge.value();
-                    MethodHandle initialHandle = MethodHandles.lookup().unreflect(method);
-                    Class<?> returnType = initialHandle.type().returnType();
-                    if (returnType == byte.class || returnType == short.class ||
-                            returnType == int.class || returnType == float.class) {
-                        initialHandle = MethodHandles.filterReturnValue(initialHandle,
-                                convertToNumber.asType(MethodType.methodType(NumberObj.class, returnType)));
-                    }
+                    MethodHandle initialHandle = filterResult(MethodHandles.lookup().unreflect(method));
                     if (instance != null)
                         initialHandle = initialHandle.bindTo(instance);
                     Class<?>[] parameterArray = initialHandle.type().parameterArray();
-                    if (parameterArray.length > 0 && parameterArray[parameterArray.length - 1] == Obj[].class)
-                        initialHandle = initialHandle.asVarargsCollector(Obj[].class);
+                    boolean varargs = parameterArray.length > 0 &&
+                            parameterArray[parameterArray.length - 1] == Obj[].class;
                     int interpreterIndex = -1;
-                    for (int i = 0; i < parameterArray.length; i++) {
+                    for (int i = 0; i < parameterArray.length - (varargs ? 1 : 0); i++) {
                         Class<?> type = parameterArray[i];
+                        MethodHandle converter = Conversions.argumentConverter(type);
                         if (type == Interpreter.class) {
                             interpreterIndex = i;
-                        } else if (type == int.class) {
-                            initialHandle = MethodHandles.filterArguments(initialHandle, i, convertFromNumber);
+                        } else if (converter != null) {
+                            initialHandle = MethodHandles.filterArguments(initialHandle, i, converter);
                         }
                     }
+                    if (varargs)
+                        initialHandle = initialHandle.asVarargsCollector(Obj[].class);
                     Map<Integer, MethodMetadata> map = methodMap.computeIfAbsent(methodName, s -> new HashMap<>());
                     map.put(parameterArray.length - (interpreterIndex != -1 ? 1 : 0) -
                                     (instance == null && !Modifier.isStatic(method.getModifiers()) ? 1 : 0),
-                            new MethodMetadata(initialHandle, interpreterIndex, bridge.anyLength()));
+                            new MethodMetadata(initialHandle, interpreterIndex, bridge.anyLength(),
+                                    instance == null && !Modifier.isStatic(method.getModifiers())));
                 } catch (IllegalAccessException e) {
                     e.printStackTrace();
                 }
@@ -100,48 +185,27 @@ public class ObjectBridge {
             if (bridge != null) {
                 try {
                     String methodName = bridge.value().isEmpty() ? method.getName() : bridge.value();
-                    MethodHandle initialHandle = MethodHandles.lookup().unreflect(method);
-                    Class<?> returnType = initialHandle.type().returnType();
-                    if (returnType == byte.class || returnType == short.class ||
-                            returnType == int.class || returnType == float.class) {
-                        initialHandle = MethodHandles.filterReturnValue(initialHandle,
-                                convertToNumber.asType(MethodType.methodType(returnType, NumberObj.class)));
-                    }
+                    MethodHandle initialHandle = filterResult(MethodHandles.lookup().unreflect(method));
                     if (instance != null)
                         initialHandle = initialHandle.bindTo(instance);
                     Class<?>[] parameterArray = initialHandle.type().parameterArray();
                     int interpreterIndex = -1;
                     for (int i = 0; i < parameterArray.length; i++) {
-                        Class<?> type = parameterArray[i];
-                        if (type == Interpreter.class) {
+                        if (parameterArray[i] == Interpreter.class)
                             interpreterIndex = i;
-                        } else if (type == int.class) {
-                            initialHandle = MethodHandles.filterArguments(initialHandle, i, convertFromNumber);
-                        }
                     }
 
-                    final MethodHandle finalHandle = initialHandle;
-                    final int index = interpreterIndex;
+                    MethodHandle getter = reorderParameters(initialHandle, interpreterIndex,
+                            instance == null && !Modifier.isStatic(method.getModifiers()))
+                            .asType(MethodType.methodType(Obj.class, Interpreter.class, Obj.class));
                     fieldMap.put(methodName, new GetterObjField(methodName, method.isAnnotationPresent(Static.class),
                             (interpreter, self) -> {
-                                MethodHandle handle = finalHandle;
-                                if (index != -1)
-                                    handle = MethodHandles.insertArguments(handle, index - 1, interpreter);
-                                if (self != null)
-                                    handle = handle.bindTo(self);
                                 try {
-                                    Object result = handle.invokeWithArguments();
-                                    if (result != null) {
-                                        if (result instanceof String) {
-                                            return new StringObj((String) result);
-                                        } else {
-                                            return (Obj) result;
-                                        }
-                                    } else {
-                                        return NullObj.NULL;
-                                    }
+                                    return (Obj) getter.invokeExact(interpreter, self);
+                                } catch (RuntimeException | Error e) {
+                                    throw e;
                                 } catch (Throwable throwable) {
-                                    throw new RuntimeException(throwable);
+                                    throw uncheckedException(throwable);
                                 }
                             }, null));
                 } catch (IllegalAccessException e) {
@@ -156,88 +220,171 @@ public class ObjectBridge {
         builder.withFunction(methodName, createFunctionBridge(methodName, map));
     }
 
+    /**
+     * Creates a bridge to the overloads of a function. Each call picks an overload by the number of arguments, checks
+     * the arguments' types, and calls the overload's precompiled {@link MethodMetadata#invoke invoker}; no method
+     * handles are created per call.
+     *
+     * @param methodName The function's name.
+     * @param map        The function's overloads, by number of arguments.
+     * @return The bridge.
+     */
     public static <C> TriFunction<Interpreter, C, List<Obj>, Obj> createFunctionBridge(String methodName, Map<Integer, MethodMetadata> map) {
+        MethodMetadata[] overloads = new MethodMetadata[map.keySet().stream().mapToInt(i -> i).max().orElse(0) + 1];
+        map.forEach((arity, meta) -> overloads[arity] = meta);
+        MethodMetadata anyLength = overloads.length > 1 && overloads[1] != null && overloads[1].isAnyLength() ?
+                overloads[1] : null;
+
         return (interpreter, self, args) -> {
-            boolean hasThisSize = map.containsKey(args.size());
-            if (hasThisSize || (map.containsKey(1) && map.get(1).isAnyLength())) {
-                MethodMetadata meta = hasThisSize ? map.get(args.size()) : map.get(1);
-                MethodHandle handle = meta.getHandle();
-                int interpreterIndex = meta.getInterpreterIndex();
-                if (self != null)
-                    handle = handle.bindTo(self);
-                if (interpreterIndex != -1)
-                    handle = MethodHandles.insertArguments(handle, interpreterIndex - 1, interpreter);
-                if (!meta.anyLength)
-                    for (int i = 0; i < args.size(); i++) {
-                        if (!handle.type().parameterType(i).isAssignableFrom(args.get(i).getClass())) {
-                            throw new InterpreterException("CallException", "invalid argument for function " + methodName);
-                        }
-                    }
+            int size = args.size();
+            MethodMetadata meta = size < overloads.length ? overloads[size] : null;
+            if (meta == null)
+                meta = anyLength;
+            if (meta == null)
+                throw invalidArgumentCount(methodName);
+            if (!meta.anyLength)
+                meta.checkArguments(methodName, args);
 
-                try {
-                    Object result = handle.invokeWithArguments(args);
-                    if (result != null) {
-                        return (Obj) result;
-                    } else {
-                        return NullObj.NULL;
-                    }
-                } catch (InterpreterException e) {
-                    throw e;
-                } catch (Throwable throwable) {
-                    throwable.printStackTrace();
-                    return NullObj.NULL;
-                }
-            } else {
-                throw new InterpreterException("CallException", "invalid number of arguments for function " + methodName);
+            try {
+                return wrapResult(meta.invoke(interpreter, self, args));
+            } catch (InterpreterException e) {
+                throw e;
+            } catch (Throwable throwable) {
+                throwable.printStackTrace();
+                return NullObj.NULL;
             }
         };
     }
 
-    @SuppressWarnings("unused")
-    public static NumberObj toNumberObj(float f) {
-        return NumberObj.of(f);
-    }
+    /**
+     * Adapts a bridged method to the type <code>(Interpreter, Object, Object...)Object</code>: it takes the
+     * interpreter, the receiver and the method's other arguments in order, ignoring the interpreter or the receiver if
+     * the method doesn't take it.
+     *
+     * @param handle           The method, with fixed arity.
+     * @param interpreterIndex The index of the method's Interpreter parameter, or -1.
+     * @param hasReceiver      Whether the method's first parameter is its receiver.
+     * @return The adapted method.
+     */
+    private static MethodHandle reorderParameters(MethodHandle handle, int interpreterIndex, boolean hasReceiver) {
+        MethodType type = handle.type();
+        int receiverCount = hasReceiver ? 1 : 0;
+        int argumentCount = type.parameterCount() - receiverCount - (interpreterIndex != -1 ? 1 : 0);
+        int[] reorder = new int[type.parameterCount()];
+        int argument = 0;
+        for (int i = 0; i < reorder.length; i++) {
+            if (i == interpreterIndex)
+                reorder[i] = 0;
+            else if (i < receiverCount)
+                reorder[i] = 1;
+            else
+                reorder[i] = 2 + argument++;
+        }
 
-    @SuppressWarnings("unused")
-    public static int fromNumberObj(NumberObj num) {
-        return (int) num.getValue();
+        MethodType genericType = MethodType.methodType(Object.class, type.parameterList()).generic();
+        if (interpreterIndex != -1)
+            genericType = genericType.changeParameterType(interpreterIndex, Interpreter.class);
+        MethodType reorderedType = MethodType.genericMethodType(argumentCount + 2)
+                .changeParameterType(0, Interpreter.class);
+        return MethodHandles.permuteArguments(handle.asType(genericType), reorderedType, reorder);
     }
 
+    /**
+     * A bridged method, and the invoker it is called through.
+     */
     public static class MethodMetadata {
-        private MethodHandle handle;
-        private int interpreterIndex;
-        private boolean anyLength;
+        private final MethodHandle handle;
+        private final int interpreterIndex;
+        private final boolean anyLength;
+
+        /**
+         * The types of the arguments the method takes from Lingua, in order.
+         */
+        private final Class<?>[] argumentTypes;
 
-        private MethodMetadata(MethodHandle handle, int interpreterIndex, boolean anyLength) {
+        /**
+         * Whether the last argument collects the rest of the arguments into an array.
+         */
+        private final boolean varargs;
+
+        /**
+         * The method, adapted once to the type <code>(Interpreter, Object, Object[])Object</code>: it takes the
+         * interpreter, the receiver (ignored by static and bound methods) and the arguments, spread into the
+         * method's parameters, and returns the result, already converted to an object, or null if there is none.
+         */
+        private final MethodHandle invoker;
+
+        private MethodMetadata(MethodHandle handle, int interpreterIndex, boolean anyLength, boolean hasReceiver) {
             this.handle = handle;
             this.interpreterIndex = interpreterIndex;
             this.anyLength = anyLength;
+            this.varargs = handle.isVarargsCollector();
+
+            MethodHandle fixed = handle.asFixedArity();
+            MethodType type = fixed.type();
+            int receiverCount = hasReceiver ? 1 : 0;
+            int argumentCount = type.parameterCount() - receiverCount - (interpreterIndex != -1 ? 1 : 0);
+            this.argumentTypes = new Class<?>[argumentCount];
+            int argument = 0;
+            for (int i = receiverCount; i < type.parameterCount(); i++) {
+                if (i != interpreterIndex)
+                    argumentTypes[argument++] = type.parameterType(i);
+            }
+
+            this.invoker = reorderParameters(fixed, interpreterIndex, hasReceiver)
+                    .asSpreader(Object[].class, argumentCount);
         }
 
-        public MethodHandle getHandle() {
-            return handle;
+        /**
+         * Checks that each argument has the type of its parameter.
+         *
+         * @param methodName The name of the function being called.
+         * @param args       The arguments.
+         * @throws InterpreterException If an argument has the wrong type.
+         */
+        void checkArguments(String methodName, List<Obj> args) {
+            for (int i = 0; i < args.size(); i++) {
+                if (i >= argumentTypes.length || !argumentTypes[i].isInstance(args.get(i)))
+                    throw invalidArgument(methodName);
+            }
         }
 
-        public void setHandle(MethodHandle handle) {
-            this.handle = handle;
+        /**
+         * Calls the method.
+         *
+         * @param interpreter The interpreter.
+         * @param self        The receiver, or null.
+         * @param args        The arguments.
+         * @return The result.
+         * @throws Throwable Anything the method throws.
+         */
+        Object invoke(Interpreter interpreter, Object self, List<Obj> args) throws Throwable {
+            Object[] array;
+            if (varargs) {
+                int fixed = argumentTypes.length - 1;
+                array = new Object[argumentTypes.length];
+                for (int i = 0; i < fixed; i++) {
+                    array[i] = args.get(i);
+                }
+                array[fixed] = args.subList(fixed, args.size()).toArray(new Obj[0]);
+            } else {
+                array = args.toArray();
+            }
+            return (Object) invoker.invokeExact(interpreter, self, array);
         }
 
-        public int getInterpreterIndex() {
-            return interpreterIndex;
+        public MethodHandle getHandle() {
+            return handle;
         }
 
-        public void setInterpreterIndex(int interpreterIndex) {
-            this.interpreterIndex = interpreterIndex;
+        public int getInterpreterIndex() {
+            return interpreterIndex;
         }
 
         public boolean isAnyLength() {
             return anyLength;
         }
 
-        public void setAnyLength(boolean anyLength) {
-            this.anyLength = anyLength;
-        }
-
         @Override
         public String toString() {
             return "MethodMetadata{" +
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.NumberObj;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.parser.expr.OperatorExpr;
+
+/**
+ * An arithmetic node which assumes that both of its operands are numbers. It computes its result on unboxed longs
+ * until an operand or a result is not integral (or overflows), and on unboxed doubles from then on. If either operand
+ * turns out not to be a number, the function is deoptimized and this node falls back to the generic operator.
+ */
+public class ArithmeticNode extends BinaryNode {
+    private final Profile profile;
+
+    /**
+     * Whether an operand or a result has not been a long, so the operands should be computed on as doubles.
+     */
+    private boolean doubles;
+
+    /**
+     * Whether a guard has failed, so the operands should no longer be assumed to be numbers.
+     */
+    private boolean generic;
+
+    public ArithmeticNode(OperatorExpr site, Node left, Node right, Profile profile) {
+        super(site, left, right);
+        this.profile = profile;
+    }
+
+    @Override
+    public Obj execute(Interpreter interpreter) {
+        if (generic)
+            return apply(interpreter, left.execute(interpreter), right.execute(interpreter));
+
+        try {
+            return doubles ? NumberObj.of(executeDouble(interpreter)) : NumberObj.of(executeLong(interpreter));
+        } catch (UnexpectedResultException e) {
+            return e.getResult();
+        }
+    }
+
+    @Override
+    public long executeLong(Interpreter interpreter) throws UnexpectedResultException {
+        if (generic || doubles)
+            return expectLong(execute(interpreter));
+
+        long leftValue;
+        try {
+            leftValue = left.executeLong(interpreter);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(generalize(interpreter, e.getResult(), right.execute(interpreter)));
+        }
+
+        long rightValue;
+        try {
+            rightValue = right.executeLong(interpreter);
+        } catch (UnexpectedResultException e) {
+            throw new UnexpectedResultException(generalize(interpreter, NumberObj.of(leftValue), e.getResult()));
+        }
+
+        NumberObj result;
+        switch (operator) {
+            case PLUS: {
+                long sum = leftValue + rightValue;
+                if (((leftValue ^ sum) & (rightValue ^ sum)) >= 0)
+                    return sum;
+                result = NumberObj.add(leftValue, rightValue);
+                break;
+            }
+            case MINUS: {
+                long difference = leftValue - rightValue;
+                if (((leftValue ^ rightValue) & (leftValue ^ difference)) >= 0)
+                    return difference;
+                result = NumberObj.subtract(leftValue, rightValue);
+                break;
+            }
+            case TIMES: {
+                long product = leftValue * rightValue;
+                if (Math.multiplyHigh(leftValue, rightValue) == (product >> 63))
+                    return product;
+                result = NumberObj.multiply(leftValue, rightValue);
+                break;
+            }
+            case DIVIDE:
+                if (rightValue != 0 && leftValue % rightValue == 0 && (leftValue != Long.MIN_VALUE || rightValue != -1))
+                    return leftValue / rightValue;
+                result = NumberObj.divide(leftValue, rightValue);
+                break;
+            case POW:
+                result = NumberObj.pow(leftValue, rightValue);
+                if (result.isIntegral())
+                    return result.longValue();
+                break;
+            default:
+                throw new IllegalStateException("not an arithmetic operator: " + operator);
+        }
+
+        doubles = true;
+        throw new UnexpectedResultException(result);
+    }
+
+    @Override
+    public double executeDouble(Interpreter interpreter) throws UnexpectedResultException {
+        if (generic)
+            return expectDouble(execute(interpreter));
+
+        if (!doubles) {
+            try {
+                return executeLong(interpreter);
+            } catch (UnexpectedResultException e) {
+                return expectDouble(e.getResult());
+            }
+        }
+
+        double leftValue;
+        try {
+            leftValue = left.executeDouble(interpreter);
+        } catch (UnexpectedResultException e) {
+            generic = true;
+            throw new UnexpectedResultException(deoptimize(interpreter, profile,
+                    e.getResult(), right.execute(interpreter)));
+        }
+
+        double rightValue;
+        try {
+            rightValue = right.executeDouble(interpreter);
+        } catch (UnexpectedResultException e) {
+            generic = true;
+            throw new UnexpectedResultException(deoptimize(interpreter, profile,
+                    NumberObj.of(leftValue), e.getResult()));
+        }
+
+        switch (operator) {
+            case PLUS:
+                return leftValue + rightValue;
+            case MINUS:
+                return leftValue - rightValue;
+            case TIMES:
+                return leftValue * rightValue;
+            case DIVIDE:
+                return leftValue / rightValue;
+            case POW:
+                return Math.pow(leftValue, rightValue);
+            default:
+                throw new IllegalStateException("not an arithmetic operator: " + operator);
+        }
+    }
+
+    /**
+     * Applies the operator to operands that were not both longs. Moves this node to doubles if they are numbers, and
+     * deoptimizes the function otherwise.
+     *
+     * @param interpreter The interpreter.
+     * @param leftObj     The left operand.
+     * @param rightObj    The right operand.
+     * @return The result.
+     */
+    private Obj generalize(Interpreter interpreter, Obj leftObj, Obj rightObj) {
+        if (leftObj instanceof NumberObj && rightObj instanceof NumberObj) {
+            doubles = true;
+            return apply(interpreter, leftObj, rightObj);
+        }
+
+        generic = true;
+        return deoptimize(interpreter, profile, leftObj, rightObj);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.expr.OperatorExpr;
+
+/**
+ * A node which applies a binary operator to the results of two other nodes.
+ */
+public abstract class BinaryNode extends Node {
+    /**
+     * The expression this node was compiled from.
+     */
+    protected final OperatorExpr site;
+
+    protected final Token.Type operator;
+    protected final Node left;
+    protected final Node right;
+
+    public BinaryNode(OperatorExpr site, Node left, Node right) {
+        this.site = site;
+        this.operator = site.getToken().getType();
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Applies this node's operator to two objects, the way the tree walker does.
+     *
+     * @param interpreter The interpreter.
+     * @param leftObj     The left operand.
+     * @param rightObj    The right operand.
+     * @return The result.
+     */
+    protected Obj apply(Interpreter interpreter, Obj leftObj, Obj rightObj) {
+        interpreter.getEnv().peekFrame().setPosition(site, 0);
+        return OperatorExpr.apply(interpreter, operator, leftObj, rightObj);
+    }
+
+    /**
+     * Invalidates the compiled function after one of this node's guards failed, and applies the operator to the
+     * unexpected operands.
+     *
+     * @param interpreter The interpreter.
+     * @param profile     The profile of the function this node belongs to.
+     * @param leftObj     The left operand.
+     * @param rightObj    The right operand.
+     * @return The result.
+     */
+    protected Obj deoptimize(Interpreter interpreter, Profile profile, Obj leftObj, Obj rightObj) {
+        profile.deoptimize(site, "expected numbers for " + operator.getName() + ", got " +
+                leftObj.getType().getName() + " and " + rightObj.getType().getName());
+        return apply(interpreter, leftObj, rightObj);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.interpreter.Environment;
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.InterpreterException;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.parser.expr.BlockExpr;
+import me.abje.lingua.parser.expr.Expr;
+import me.abje.lingua.resolver.Scope;
+
+/**
+ * A block node. Runs each of its statements in a new frame, if its scope needs one.
+ */
+public class BlockNode extends Node {
+    private final BlockExpr site;
+    private final Scope scope;
+    private final Node[] statements;
+
+    /**
+     * The expression each statement was compiled from, to locate exceptions thrown by it.
+     */
+    private final Expr[] sources;
+
+    public BlockNode(BlockExpr site, Scope scope, Node[] statements, Expr[] sources) {
+        this.site = site;
+        this.scope = scope;
+        this.statements = statements;
+        this.sources = sources;
+    }
+
+    @Override
+    public Obj execute(Interpreter interpreter) {
+        Environment env = interpreter.getEnv();
+        env.peekFrame().setPosition(site, 0);
+        env.pushFrame("<anon>", scope);
+        Obj result = null;
+        int i = 0;
+        try {
+            for (; i < statements.length; i++) {
+                result = statements[i].execute(interpreter);
+            }
+        } catch (InterpreterException e) {
+            e.locate(env.peekFrame(), sources[i], 0);
+            throw e;
+        }
+        env.popFrame(scope);
+        return result;
+    }
+}
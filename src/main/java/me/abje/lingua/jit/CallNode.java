@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.FunctionObj;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.parser.expr.CallExpr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A call node.
+ */
+public class CallNode extends Node {
+    private final CallExpr site;
+    private final Node func;
+    private final Node[] args;
+
+    /**
+     * Whether the call is in tail position.
+     */
+    private final boolean tail;
+
+    public CallNode(CallExpr site, Node func, Node[] args, boolean tail) {
+        this.site = site;
+        this.func = func;
+        this.args = args;
+        this.tail = tail;
+    }
+
+    @Override
+    public Obj execute(Interpreter interpreter) {
+        List<Obj> argObjs = new ArrayList<>(args.length);
+        for (Node arg : args) {
+            argObjs.add(arg.execute(interpreter));
+        }
+        Obj funcObj = func.execute(interpreter);
+        if (tail && funcObj instanceof FunctionObj)
+            return ((FunctionObj) funcObj).tailCall(argObjs);
+        interpreter.getEnv().peekFrame().setPosition(site, 0);
+        return funcObj.call(interpreter, argObjs);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.BooleanObj;
+import me.abje.lingua.interpreter.obj.NumberObj;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.parser.expr.OperatorExpr;
+
+/**
+ * A comparison node which assumes that both of its operands are numbers. It compares them as unboxed longs until an
+ * operand is not integral, and as unboxed doubles from then on. If either operand turns out not to be a number, the
+ * function is deoptimized and this node falls back to the generic operator.
+ */
+public class CompareNode extends BinaryNode {
+    private final Profile profile;
+
+    /**
+     * Whether an operand has not been a long, so the operands should be compared as doubles.
+     */
+    private boolean doubles;
+
+    /**
+     * Whether a guard has failed, so the operands should no longer be assumed to be numbers.
+     */
+    private boolean generic;
+
+    public CompareNode(OperatorExpr site, Node left, Node right, Profile profile) {
+        super(site, left, right);
+        this.profile = profile;
+    }
+
+    @Override
+    public Obj execute(Interpreter interpreter) {
+        return BooleanObj.of(executeBoolean(interpreter));
+    }
+
+    @Override
+    public boolean executeBoolean(Interpreter interpreter) {
+        if (generic)
+            return apply(interpreter, left.execute(interpreter), right.execute(interpreter)).isTruthy();
+
+        if (!doubles) {
+            long leftValue;
+            try {
+                leftValue = left.executeLong(interpreter);
+            } catch (UnexpectedResultException e) {
+                return generalize(interpreter, e.getResult(), right.execute(interpreter)).isTruthy();
+            }
+
+            long rightValue;
+            try {
+                rightValue = right.executeLong(interpreter);
+            } catch (UnexpectedResultException e) {
+                return generalize(interpreter, NumberObj.of(leftValue), e.getResult()).isTruthy();
+            }
+
+            switch (operator) {
+                case LT:
+                    return leftValue < rightValue;
+                case LTE:
+                    return leftValue <= rightValue;
+                case GT:
+                    return leftValue > rightValue;
+                case GTE:
+                    return leftValue >= rightValue;
+                default:
+                    throw new IllegalStateException("not a comparison operator: " + operator);
+            }
+        }
+
+        double leftValue;
+        try {
+            leftValue = left.executeDouble(interpreter);
+        } catch (UnexpectedResultException e) {
+            generic = true;
+            return deoptimize(interpreter, profile, e.getResult(), right.execute(interpreter)).isTruthy();
+        }
+
+        double rightValue;
+        try {
+            rightValue = right.executeDouble(interpreter);
+        } catch (UnexpectedResultException e) {
+            generic = true;
+            return deoptimize(interpreter, profile, NumberObj.of(leftValue), e.getResult()).isTruthy();
+        }
+
+        switch (operator) {
+            case LT:
+                return leftValue < rightValue;
+            case LTE:
+                return leftValue <= rightValue;
+            case GT:
+                return leftValue > rightValue;
+            case GTE:
+                return leftValue >= rightValue;
+            default:
+                throw new IllegalStateException("not a comparison operator: " + operator);
+        }
+    }
+
+    /**
+     * Applies the operator to operands that were not both longs. Moves this node to doubles if they are numbers, and
+     * deoptimizes the function otherwise.
+     *
+     * @param interpreter The interpreter.
+     * @param leftObj     The left operand.
+     * @param rightObj    The right operand.
+     * @return The result.
+     */
+    private Obj generalize(Interpreter interpreter, Obj leftObj, Obj rightObj) {
+        if (leftObj instanceof NumberObj && rightObj instanceof NumberObj) {
+            doubles = true;
+            return apply(interpreter, leftObj, rightObj);
+        }
+
+        generic = true;
+        return deoptimize(interpreter, profile, leftObj, rightObj);
+    }
+}
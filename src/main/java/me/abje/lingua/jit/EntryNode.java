@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.InterpreterException;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.parser.expr.Expr;
+
+/**
+ * The root node of a compiled function. Records the function's source position in its call frame before running the
+ * body.
+ */
+public class EntryNode extends Node {
+    private final Expr source;
+    private final Node body;
+
+    public EntryNode(Expr source, Node body) {
+        this.source = source;
+        this.body = body;
+    }
+
+    @Override
+    public Obj execute(Interpreter interpreter) {
+        interpreter.getEnv().peekFrame().setPosition(source, 0);
+        try {
+            return body.execute(interpreter);
+        } catch (InterpreterException e) {
+            e.locate(interpreter.getEnv().peekFrame(), source, 0);
+            throw e;
+        }
+    }
+}
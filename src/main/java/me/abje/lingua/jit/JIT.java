@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.interpreter.obj.FunctionObj;
+import me.abje.lingua.parser.expr.Expr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The second execution tier. Counts calls to each function body, and once a body has been called
+ * {@link #getThreshold()} times, compiles it to a tree of specialized nodes. Numeric operations in compiled code work
+ * on unboxed longs and doubles behind type guards; when a guard fails, the compiled body is discarded and the function
+ * goes back to the interpreter.
+ * <p>
+ * Profiles are kept on function bodies rather than on function objects, so that closures created by the same
+ * expression share their counters and compiled code, and so that a profile is collected along with its body. A body is
+ * profiled by one JIT at a time: if it is run under another JIT, that JIT replaces the profile with its own.
+ */
+public class JIT {
+    private static final Logger log = LoggerFactory.getLogger(JIT.class);
+
+    /**
+     * The default number of calls after which a function is compiled.
+     */
+    public static final int DEFAULT_THRESHOLD = 1000;
+
+    /**
+     * The number of times a function may be deoptimized before the JIT stops compiling it.
+     */
+    private static final int MAX_DEOPTIMIZATIONS = 8;
+
+    private final int threshold;
+
+    /**
+     * Whether compilations and deoptimizations are logged.
+     */
+    private boolean logging;
+
+    private int compilations;
+    private int deoptimizations;
+
+    /**
+     * Creates a new JIT.
+     *
+     * @param threshold The number of calls after which a function is compiled.
+     */
+    public JIT(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Counts a call to the given function and returns its compiled body, compiling it if it has become hot.
+     *
+     * @param function The function being called.
+     * @return The compiled body, or null if the function should be run by the interpreter.
+     */
+    public Node getCompiledBody(FunctionObj function) {
+        Expr body = function.getBody();
+        Profile profile = body.getProfile();
+        if (profile == null || profile.getJit() != this) {
+            profile = new Profile(this, function.getName());
+            body.setProfile(profile);
+        }
+
+        Node compiled = profile.getCompiled();
+        if (compiled == null && profile.countCall() >= threshold &&
+                profile.getDeoptimizations() < MAX_DEOPTIMIZATIONS) {
+            compiled = new EntryNode(body, new NodeCompiler(profile).compile(body));
+            profile.setCompiled(compiled);
+            compilations++;
+            if (logging)
+                log.info("Compiled {} ({}:{})", profile.getName(), body.getToken().getFile(),
+                        body.getToken().getLine());
+        }
+        return compiled;
+    }
+
+    /**
+     * Called by a profile when its compiled body has been discarded.
+     *
+     * @param profile The profile.
+     * @param site    The operation whose guard failed.
+     * @param reason  A description of the failure.
+     */
+    void deoptimized(Profile profile, Expr site, String reason) {
+        deoptimizations++;
+        if (logging) {
+            log.info("Deoptimized {} ({}:{}): {}", profile.getName(), site.getToken().getFile(),
+                    site.getToken().getLine(), reason);
+            if (profile.getDeoptimizations() >= MAX_DEOPTIMIZATIONS)
+                log.info("Giving up on compiling {}", profile.getName());
+        }
+    }
+
+    /**
+     * Returns the number of calls after which a function is compiled.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns whether compilations and deoptimizations are logged.
+     */
+    public boolean isLogging() {
+        return logging;
+    }
+
+    /**
+     * Sets whether compilations and deoptimizations are logged.
+     *
+     * @param logging Whether to log.
+     */
+    public void setLogging(boolean logging) {
+        this.logging = logging;
+    }
+
+    /**
+     * Returns the number of function bodies compiled so far.
+     */
+    public int getCompilations() {
+        return compilations;
+    }
+
+    /**
+     * Returns the number of compiled function bodies discarded so far.
+     */
+    public int getDeoptimizations() {
+        return deoptimizations;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.BooleanObj;
+import me.abje.lingua.interpreter.obj.Obj;
+
+/**
+ * A short-circuiting <code>&amp;&amp;</code> or <code>||</code> node.
+ */
+public class LogicalNode extends Node {
+    /**
+     * Whether this is an <code>&amp;&amp;</code> node, rather than an <code>||</code> node.
+     */
+    private final boolean and;
+
+    private final Node left;
+    private final Node right;
+
+    public LogicalNode(boolean and, Node left, Node right) {
+        this.and = and;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public Obj execute(Interpreter interpreter) {
+        return BooleanObj.of(executeBoolean(interpreter));
+    }
+
+    @Override
+    public boolean executeBoolean(Interpreter interpreter) {
+        if (and)
+            return left.executeBoolean(interpreter) && right.executeBoolean(interpreter);
+        else
+            return left.executeBoolean(interpreter) || right.executeBoolean(interpreter);
+    }
+}
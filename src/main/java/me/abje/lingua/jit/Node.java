@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.NumberObj;
+import me.abje.lingua.interpreter.obj.Obj;
+
+/**
+ * A node in a compiled function body. Nodes are specialized forms of expressions which can produce their results
+ * as unboxed values.
+ */
+public abstract class Node {
+    /**
+     * Executes this node.
+     *
+     * @param interpreter The interpreter.
+     * @return The result of the node.
+     */
+    public abstract Obj execute(Interpreter interpreter);
+
+    /**
+     * Executes this node, expecting an integral number.
+     *
+     * @param interpreter The interpreter.
+     * @return The result of the node as a long.
+     * @throws UnexpectedResultException If the result is not an integral number.
+     */
+    public long executeLong(Interpreter interpreter) throws UnexpectedResultException {
+        return expectLong(execute(interpreter));
+    }
+
+    /**
+     * Executes this node, expecting a number.
+     *
+     * @param interpreter The interpreter.
+     * @return The result of the node as a double.
+     * @throws UnexpectedResultException If the result is not a number.
+     */
+    public double executeDouble(Interpreter interpreter) throws UnexpectedResultException {
+        return expectDouble(execute(interpreter));
+    }
+
+    /**
+     * Unboxes an integral number.
+     *
+     * @param obj The object.
+     * @return The number's value.
+     * @throws UnexpectedResultException If the object is not an integral number.
+     */
+    protected static long expectLong(Obj obj) throws UnexpectedResultException {
+        if (obj instanceof NumberObj && ((NumberObj) obj).isIntegral())
+            return ((NumberObj) obj).longValue();
+        else
+            throw new UnexpectedResultException(obj);
+    }
+
+    /**
+     * Unboxes a number.
+     *
+     * @param obj The object.
+     * @return The number's value.
+     * @throws UnexpectedResultException If the object is not a number.
+     */
+    protected static double expectDouble(Obj obj) throws UnexpectedResultException {
+        if (obj instanceof NumberObj)
+            return ((NumberObj) obj).doubleValue();
+        else
+            throw new UnexpectedResultException(obj);
+    }
+
+    /**
+     * Executes this node and tests the truthiness of its result.
+     *
+     * @param interpreter The interpreter.
+     * @return Whether the result of the node is truthy.
+     */
+    public boolean executeBoolean(Interpreter interpreter) {
+        return execute(interpreter).isTruthy();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.parser.expr.Expr;
+
+import java.util.List;
+
+/**
+ * Translates a function body into a tree of specialized nodes. Each expression specializes itself; see
+ * {@link Expr#specialize(NodeCompiler)}.
+ */
+public class NodeCompiler {
+    /**
+     * The profile of the function being compiled.
+     */
+    private final Profile profile;
+
+    public NodeCompiler(Profile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Specializes the given expression.
+     *
+     * @param expr The expression.
+     * @return The specialized node.
+     */
+    public Node compile(Expr expr) {
+        return expr.specialize(this);
+    }
+
+    /**
+     * Specializes each of the given expressions.
+     *
+     * @param exprs The expressions.
+     * @return The specialized nodes.
+     */
+    public Node[] compileAll(List<Expr> exprs) {
+        Node[] nodes = new Node[exprs.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = compile(exprs.get(i));
+        }
+        return nodes;
+    }
+
+    public Profile getProfile() {
+        return profile;
+    }
+}
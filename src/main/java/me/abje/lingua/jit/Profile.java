@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.parser.expr.Expr;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * The JIT's record of a function body: how often it has been called, its compiled form, and which of its operations
+ * have been seen with unexpected operands.
+ */
+public class Profile {
+    private final JIT jit;
+    private final String name;
+
+    /**
+     * Calls since the body was last compiled or deoptimized.
+     */
+    private int calls;
+
+    /**
+     * The compiled body, or null if the body is run by the interpreter.
+     */
+    private Node compiled;
+
+    private int deoptimizations;
+
+    /**
+     * Operations whose guards have failed. They are compiled without speculation.
+     */
+    private final Set<Expr> genericSites = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Creates a new profile.
+     *
+     * @param jit  The JIT which owns this profile.
+     * @param name The function's name.
+     */
+    public Profile(JIT jit, String name) {
+        this.jit = jit;
+        this.name = name;
+    }
+
+    /**
+     * Counts a call to the function.
+     *
+     * @return The number of calls since the body was last compiled or deoptimized.
+     */
+    public int countCall() {
+        return ++calls;
+    }
+
+    /**
+     * Discards the compiled body after one of its guards failed. The function is run by the interpreter until it
+     * becomes hot again, and is then recompiled without speculating on the failed operation.
+     *
+     * @param site   The operation whose guard failed.
+     * @param reason A description of the failure.
+     */
+    public void deoptimize(Expr site, String reason) {
+        if (!genericSites.add(site))
+            return;
+        compiled = null;
+        calls = 0;
+        deoptimizations++;
+        jit.deoptimized(this, site, reason);
+    }
+
+    /**
+     * Returns whether the given operation should be compiled without speculation.
+     *
+     * @param site The operation.
+     */
+    public boolean isGeneric(Expr site) {
+        return genericSites.contains(site);
+    }
+
+    public JIT getJit() {
+        return jit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Node getCompiled() {
+        return compiled;
+    }
+
+    public void setCompiled(Node compiled) {
+        this.compiled = compiled;
+        this.calls = 0;
+    }
+
+    public int getDeoptimizations() {
+        return deoptimizations;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.resolver.LexicalAddress;
+import me.abje.lingua.util.DefinitionType;
+
+/**
+ * A node which assigns to a variable.
+ */
+public class StoreNode extends Node {
+    private final String name;
+    private final LexicalAddress address;
+    private final DefinitionType type;
+    private final Node value;
+
+    /**
+     * Creates a new store node.
+     *
+     * @param name    The variable's name.
+     * @param address The variable's lexical address, or null to look it up by name.
+     * @param type    Whether the assignment creates a new variable.
+     * @param value   The assigned value.
+     */
+    public StoreNode(String name, LexicalAddress address, DefinitionType type, Node value) {
+        this.name = name;
+        this.address = address;
+        this.type = type;
+        this.value = value;
+    }
+
+    @Override
+    public Obj execute(Interpreter interpreter) {
+        Obj obj = value.execute(interpreter);
+        if (address != null)
+            interpreter.getEnv().update(address, obj, type);
+        else if (!name.equals("_"))
+            interpreter.getEnv().update(name, obj, type);
+        return obj;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.interpreter.obj.Obj;
+
+/**
+ * Thrown when a node produces a result of a different type than the one that was asked for.
+ * Carries the result, so that it doesn't have to be computed again.
+ */
+public class UnexpectedResultException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The actual result.
+     */
+    private final Obj result;
+
+    /**
+     * Creates a new UnexpectedResultException. No stack trace is recorded.
+     *
+     * @param result The actual result.
+     */
+    public UnexpectedResultException(Obj result) {
+        super(null, null, false, false);
+        this.result = result;
+    }
+
+    /**
+     * Returns the actual result.
+     */
+    public Obj getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+
+package me.abje.lingua.optimizer;
+
+import me.abje.lingua.interpreter.obj.BooleanObj;
+import me.abje.lingua.interpreter.obj.NumberObj;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.interpreter.obj.StringObj;
+import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.expr.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The phase which simplifies a module's expressions before they are resolved. Runs between the parser and the
+ * resolver.
+ * <p>
+ * Operators whose operands are all literals are folded into a literal of their result, <code>if</code> expressions
+ * with a literal condition are replaced by the branch that would be taken, and string literals are interned in a
+ * per-module pool so that equal literals share one object. Rewrites that could change behavior, such as those that
+ * would throw, are left to run time.
+ */
+public class Optimizer {
+    private static final Logger log = LoggerFactory.getLogger(Optimizer.class);
+
+    /**
+     * The largest operand for which a factorial is folded. Larger factorials overflow a double anyway.
+     */
+    private static final long MAX_FOLDED_FACTORIAL = 170;
+
+    /**
+     * The module's string constants, keyed by value.
+     */
+    private final Map<String, StringObj> strings = new HashMap<>();
+
+    /**
+     * Whether each rewrite is logged.
+     */
+    private final boolean logging;
+
+    private int folded;
+    private int pruned;
+    private int pooled;
+
+    /**
+     * Creates a new Optimizer.
+     *
+     * @param logging Whether to log each rewrite.
+     */
+    public Optimizer(boolean logging) {
+        this.logging = logging;
+    }
+
+    /**
+     * Optimizes each expression in a module, replacing the expressions in the list.
+     *
+     * @param exprs The module's expressions.
+     */
+    public void optimize(List<Expr> exprs) {
+        exprs.replaceAll(this::optimize);
+        if (logging && !exprs.isEmpty()) {
+            log.info("Optimized {}: folded {} operations, pruned {} branches, pooled {} strings",
+                    exprs.get(0).getToken().getFile(), folded, pruned, pooled);
+        }
+    }
+
+    /**
+     * Optimizes an expression.
+     *
+     * @param expr The expression.
+     * @return The expression to use in its place.
+     */
+    public Expr optimize(Expr expr) {
+        return expr.optimize(this);
+    }
+
+    /**
+     * Returns whether a factorial of the given operand may be folded.
+     *
+     * @param operand The operand.
+     */
+    public boolean isFoldableFactorial(Obj operand) {
+        return operand instanceof NumberObj && ((NumberObj) operand).isIntegral() &&
+                ((NumberObj) operand).longValue() <= MAX_FOLDED_FACTORIAL;
+    }
+
+    /**
+     * Replaces an operation with a literal of its result.
+     *
+     * @param original The operation.
+     * @param value    The result of the operation.
+     * @return The literal, or the operation if its result has no literal form.
+     */
+    public Expr fold(Expr original, Obj value) {
+        Token at = original.getToken();
+        Expr literal;
+        if (value instanceof NumberObj) {
+            literal = new NumberExpr(new Token(Token.Type.NUMBER, value.toString(), at.getLine(), at.getFile()),
+                    (NumberObj) value);
+        } else if (value instanceof StringObj) {
+            literal = new StringExpr(new Token(Token.Type.STRING, value.toString(), at.getLine(), at.getFile()),
+                    intern((StringObj) value));
+        } else if (value instanceof BooleanObj) {
+            boolean b = ((BooleanObj) value).getValue();
+            literal = new BooleanExpr(new Token(b ? Token.Type.TRUE : Token.Type.FALSE, String.valueOf(b),
+                    at.getLine(), at.getFile()), b);
+        } else {
+            return original;
+        }
+
+        folded++;
+        return replace("Folded", original, literal);
+    }
+
+    /**
+     * Replaces an expression with one of its branches, because the others can never be taken.
+     *
+     * @param original    The expression.
+     * @param replacement The branch that is always taken.
+     * @return The replacement.
+     */
+    public Expr prune(Expr original, Expr replacement) {
+        pruned++;
+        return replace("Pruned", original, replacement);
+    }
+
+    /**
+     * Returns the module's string constant equal to the given string, adding it to the pool if there is none.
+     *
+     * @param string The string.
+     * @return The pooled string.
+     */
+    public StringObj intern(StringObj string) {
+        StringObj pooledString = strings.putIfAbsent(string.getValue(), string);
+        if (pooledString == null)
+            return string;
+        pooled++;
+        return pooledString;
+    }
+
+    private Expr replace(String verb, Expr original, Expr replacement) {
+        replacement.addAnnotations(original);
+        if (logging) {
+            log.info("{} {} to {} ({}:{})", verb, original, replacement, original.getToken().getFile(),
+                    original.getToken().getLine());
+        }
+        return replacement;
+    }
+
+    /**
+     * Returns the number of operations folded into literals so far.
+     */
+    public int getFolded() {
+        return folded;
+    }
+
+    /**
+     * Returns the number of expressions replaced by one of their branches so far.
+     */
+    public int getPruned() {
+        return pruned;
+    }
+
+    /**
+     * Returns the number of string literals that were replaced by an equal pooled string so far.
+     */
+    public int getPooled() {
+        return pooled;
+    }
+}
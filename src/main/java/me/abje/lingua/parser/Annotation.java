@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.parser;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An annotation that can be attached to an expression with <code>@name</code>.
+ * <p>
+ * Annotations are registered by name the first time they are seen, and each is given a small index so that
+ * expressions can store their annotations as a bitset. The annotations the interpreter itself understands are
+ * registered up front; any other name is a user-defined annotation, which passes can look up with
+ * {@link #forName(String)}.
+ */
+public final class Annotation {
+    private static final Map<String, Annotation> registry = new ConcurrentHashMap<>();
+
+    /**
+     * Marks an assignment as a declaration of a new variable. Attached by <code>var</code>.
+     */
+    public static final Annotation VAR = of("var");
+
+    /**
+     * Marks the last element of a parameter list or list pattern as binding the remaining elements.
+     */
+    public static final Annotation REST = of("rest");
+
+    private final String name;
+    private final int index;
+
+    private Annotation(String name, int index) {
+        this.name = name;
+        this.index = index;
+    }
+
+    /**
+     * Returns the annotation with the given name, registering it if it has not been seen before.
+     *
+     * @param name The annotation's name.
+     */
+    public static Annotation of(String name) {
+        Annotation annotation = registry.get(name);
+        if (annotation != null)
+            return annotation;
+        synchronized (registry) {
+            return registry.computeIfAbsent(name, n -> new Annotation(n, registry.size()));
+        }
+    }
+
+    /**
+     * Returns the annotation with the given name, or null if no expression has been annotated with it.
+     *
+     * @param name The annotation's name.
+     */
+    public static Annotation forName(String name) {
+        return registry.get(name);
+    }
+
+    /**
+     * Returns every annotation registered so far.
+     */
+    public static Collection<Annotation> values() {
+        return Collections.unmodifiableCollection(registry.values());
+    }
+
+    /**
+     * Returns this annotation's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns this annotation's index, which is unique among registered annotations. The first 64 annotations have
+     * indices that fit in a long bitset.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "@" + name;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.parser;
+
+/**
+ * The format of precompiled modules (<code>.lingc</code> files), written by {@link ModuleWriter} and read by
+ * {@link ModuleReader}.
+ * <p>
+ * A module starts with {@link #MAGIC}, {@link #VERSION} and the {@link #hash(byte[]) hash} of the source it was
+ * compiled from. Then comes the string table, a count followed by each string as a length and its UTF-8 bytes, and
+ * the module's top-level expressions, a count followed by each expression. Integers are big-endian.
+ * <p>
+ * An expression is written as its tag, its token and its annotations, followed by the operands listed for the tag.
+ * A token is the string index of its type's name (or -1 for a null token), then its value, line and file. Strings are
+ * written as indices into the string table, or -1 for null. Lists are written as a count followed by their elements.
+ */
+public final class ModuleFormat {
+    /**
+     * The first four bytes of every module: <code>LNGC</code>.
+     */
+    public static final int MAGIC = 0x4C4E4743;
+
+    /**
+     * The version of the format. Modules written with another version are ignored.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * <code>NULL</code>: an absent expression. Has no token or annotations.
+     */
+    public static final int NULL = 0;
+
+    /**
+     * <code>ASSIGNMENT name value</code>
+     */
+    public static final int ASSIGNMENT = 1;
+
+    /**
+     * <code>BLOCK exprs</code>
+     */
+    public static final int BLOCK = 2;
+
+    /**
+     * <code>BOOLEAN value</code>, where the value is a byte.
+     */
+    public static final int BOOLEAN = 3;
+
+    /**
+     * <code>CALL func args</code>
+     */
+    public static final int CALL = 4;
+
+    /**
+     * <code>CHAR value</code>, where the value is a two-byte char.
+     */
+    public static final int CHAR = 5;
+
+    /**
+     * <code>CLASS name superClassName functions fields</code>, where each field is its name, a byte that is 1 if
+     * it is static, and its default value.
+     */
+    public static final int CLASS = 6;
+
+    /**
+     * <code>FUNCTION name argNames body</code>
+     */
+    public static final int FUNCTION = 7;
+
+    /**
+     * <code>IF condition thenBranch elseBranch</code>
+     */
+    public static final int IF = 8;
+
+    /**
+     * <code>IMPORT name</code>
+     */
+    public static final int IMPORT = 9;
+
+    /**
+     * <code>INDEX target index</code>
+     */
+    public static final int INDEX = 10;
+
+    /**
+     * <code>INDEX_SET target index value</code>
+     */
+    public static final int INDEX_SET = 11;
+
+    /**
+     * <code>LIST items</code>
+     */
+    public static final int LIST = 12;
+
+    /**
+     * <code>MAP entries</code>, where each entry is a key followed by a value.
+     */
+    public static final int MAP = 13;
+
+    /**
+     * <code>MATCH left clauses</code>, where each clause is a pattern followed by a body.
+     */
+    public static final int MATCH = 14;
+
+    /**
+     * <code>MEMBER_ACCESS left name nullable</code>, where nullable is a byte.
+     */
+    public static final int MEMBER_ACCESS = 15;
+
+    /**
+     * <code>MEMBER_SET left name value</code>
+     */
+    public static final int MEMBER_SET = 16;
+
+    /**
+     * <code>NAME value</code>
+     */
+    public static final int NAME = 17;
+
+    /**
+     * <code>NULL_LITERAL</code>: the <code>null</code> literal.
+     */
+    public static final int NULL_LITERAL = 18;
+
+    /**
+     * <code>INTEGER value</code>, where the value is a long.
+     */
+    public static final int INTEGER = 19;
+
+    /**
+     * <code>DECIMAL value</code>, where the value is a double.
+     */
+    public static final int DECIMAL = 20;
+
+    /**
+     * <code>OPERATOR left right</code>
+     */
+    public static final int OPERATOR = 21;
+
+    /**
+     * <code>POSTFIX expr type</code>, where the type is the name of a token type.
+     */
+    public static final int POSTFIX = 22;
+
+    /**
+     * <code>PREFIX type operand</code>, where the type is the name of a token type.
+     */
+    public static final int PREFIX = 23;
+
+    /**
+     * <code>STRING value</code>
+     */
+    public static final int STRING = 24;
+
+    /**
+     * <code>TRY_CATCH body clauses</code>, where each clause is a pattern followed by a body.
+     */
+    public static final int TRY_CATCH = 25;
+
+    /**
+     * <code>TUPLE items</code>
+     */
+    public static final int TUPLE = 26;
+
+    /**
+     * <code>TYPE_PATTERN left type</code>
+     */
+    public static final int TYPE_PATTERN = 27;
+
+    /**
+     * <code>WHILE condition body doWhile</code>, where doWhile is a byte.
+     */
+    public static final int WHILE = 28;
+
+    private ModuleFormat() {
+    }
+
+    /**
+     * Hashes the source of a module with 64-bit FNV-1a. The hash only detects that a source has changed since it was
+     * compiled; it is not meant to resist tampering, and is cheap enough that checking it does not eat into the time
+     * a precompiled module saves.
+     *
+     * @param source The source's bytes.
+     * @return The hash.
+     */
+    public static long hash(byte[] source) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : source) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.parser;
+
+import me.abje.lingua.interpreter.obj.DefaultObjField;
+import me.abje.lingua.interpreter.obj.NumberObj;
+import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.expr.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static me.abje.lingua.parser.ModuleFormat.*;
+
+/**
+ * Reads the expressions of a precompiled module, in the format described by {@link ModuleFormat}. The expressions are
+ * the same as the parser would have produced from the module's source, and still need to be optimized and resolved.
+ */
+public class ModuleReader {
+    private final ByteBuffer buffer;
+
+    /**
+     * The string table.
+     */
+    private final String[] strings;
+
+    /**
+     * The token types named by entries in the string table, looked up the first time they are used.
+     */
+    private final Token.Type[] types;
+
+    private ModuleReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.strings = new String[buffer.getInt()];
+        this.types = new Token.Type[strings.length];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Reads a module, if it was compiled from the given source.
+     *
+     * @param buffer The module's bytes.
+     * @param hash   The {@link ModuleFormat#hash(byte[]) hash} of the source the module should have been compiled from.
+     * @return The module's top-level expressions, or null if the module was written with another version of the
+     * format or compiled from another source.
+     * @throws IllegalStateException If the module is malformed.
+     */
+    public static List<Expr> read(ByteBuffer buffer, long hash) {
+        if (buffer.remaining() < Integer.BYTES * 2 + Long.BYTES
+                || buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != hash)
+            return null;
+        try {
+            return new ModuleReader(buffer).readExprs();
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("malformed module", e);
+        }
+    }
+
+    private List<Expr> readExprs() {
+        int count = buffer.getInt();
+        List<Expr> exprs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            exprs.add(readExpr());
+        }
+        return exprs;
+    }
+
+    private LinkedHashMap<Expr, Expr> readClauses() {
+        int count = buffer.getInt();
+        LinkedHashMap<Expr, Expr> clauses = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            clauses.put(readExpr(), readExpr());
+        }
+        return clauses;
+    }
+
+    private Expr readExpr() {
+        int tag = buffer.get();
+        if (tag == NULL)
+            return null;
+
+        Token token = readToken();
+        int annotationCount = buffer.getInt();
+        Annotation[] annotations = new Annotation[annotationCount];
+        for (int i = 0; i < annotationCount; i++) {
+            annotations[i] = Annotation.of(readString());
+        }
+
+        Expr expr;
+        switch (tag) {
+            case ASSIGNMENT:
+                expr = new AssignmentExpr(token, readExpr(), readExpr());
+                break;
+            case BLOCK:
+                expr = new BlockExpr(token, readExprs());
+                break;
+            case BOOLEAN:
+                expr = new BooleanExpr(token, readBoolean());
+                break;
+            case CALL:
+                expr = new CallExpr(token, readExpr(), readExprs());
+                break;
+            case CHAR:
+                expr = new CharExpr(token, buffer.getChar());
+                break;
+            case CLASS: {
+                String name = readString();
+                String superClassName = readString();
+                int functionCount = buffer.getInt();
+                List<FunctionExpr> functions = new ArrayList<>(functionCount);
+                for (int i = 0; i < functionCount; i++) {
+                    functions.add((FunctionExpr) readExpr());
+                }
+                int fieldCount = buffer.getInt();
+                List<DefaultObjField> fields = new ArrayList<>(fieldCount);
+                for (int i = 0; i < fieldCount; i++) {
+                    fields.add(new DefaultObjField(readString(), readBoolean(), readExpr()));
+                }
+                expr = new ClassExpr(token, name, functions, fields, superClassName);
+                break;
+            }
+            case FUNCTION:
+                expr = new FunctionExpr(token, readString(), readExprs(), readExpr());
+                break;
+            case IF:
+                expr = new IfExpr(token, readExpr(), readExpr(), readExpr());
+                break;
+            case IMPORT:
+                expr = new ImportExpr(token, readExpr());
+                break;
+            case INDEX:
+                expr = new IndexExpr(token, readExpr(), readExpr());
+                break;
+            case INDEX_SET:
+                expr = new IndexSetExpr(token, readExpr(), readExpr(), readExpr());
+                break;
+            case LIST:
+                expr = new ListExpr(token, readExprs());
+                break;
+            case MAP:
+                expr = new MapExpr(token, readClauses());
+                break;
+            case MATCH:
+                expr = new MatchExpr(token, readExpr(), readClauses());
+                break;
+            case MEMBER_ACCESS:
+                expr = new MemberAccessExpr(token, readExpr(), readString(), readBoolean());
+                break;
+            case MEMBER_SET:
+                expr = new MemberSetExpr(token, readExpr(), readString(), readExpr());
+                break;
+            case NAME:
+                expr = new NameExpr(token, readString());
+                break;
+            case NULL_LITERAL:
+                expr = new NullExpr(token);
+                break;
+            case INTEGER:
+                expr = new NumberExpr(token, NumberObj.of(buffer.getLong()));
+                break;
+            case DECIMAL:
+                expr = new NumberExpr(token, NumberObj.of(buffer.getDouble()));
+                break;
+            case OPERATOR:
+                expr = new OperatorExpr(token, readExpr(), readExpr());
+                break;
+            case POSTFIX:
+                expr = new PostfixExpr(token, readExpr(), readType());
+                break;
+            case PREFIX:
+                expr = new PrefixExpr(token, readType(), readExpr());
+                break;
+            case STRING:
+                expr = new StringExpr(token, readString());
+                break;
+            case TRY_CATCH:
+                expr = new TryCatchExpr(token, readExpr(), readClauses());
+                break;
+            case TUPLE:
+                expr = new TupleExpr(token, readExprs());
+                break;
+            case TYPE_PATTERN:
+                expr = new TypePatternExpr(token, readExpr(), readString());
+                break;
+            case WHILE:
+                expr = new WhileExpr(token, readExpr(), readExpr(), readBoolean());
+                break;
+            default:
+                throw new IllegalStateException("unknown tag " + tag);
+        }
+
+        for (Annotation annotation : annotations) {
+            expr.addAnnotation(annotation);
+        }
+        return expr;
+    }
+
+    private Token readToken() {
+        Token.Type type = readType();
+        if (type == null)
+            return null;
+        return new Token(type, readString(), buffer.getInt(), readString());
+    }
+
+    private Token.Type readType() {
+        int index = buffer.getInt();
+        if (index == -1)
+            return null;
+        Token.Type type = types[index];
+        if (type == null)
+            type = types[index] = Token.Type.valueOf(strings[index]);
+        return type;
+    }
+
+    private String readString() {
+        int index = buffer.getInt();
+        return index == -1 ? null : strings[index];
+    }
+
+    private boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.parser;
+
+import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.expr.Expr;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes parsed expressions as a precompiled module, in the format described by {@link ModuleFormat}. Each expression
+ * writes itself with {@link Expr#write(ModuleWriter)}.
+ */
+public class ModuleWriter {
+    /**
+     * The strings written so far, in the order they will appear in the string table.
+     */
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * The index of each string in {@link #strings}.
+     */
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+
+    /**
+     * The expressions written so far. The header and string table are only written once the expressions are done.
+     */
+    private byte[] bytes = new byte[4096];
+
+    private int size;
+
+    /**
+     * Writes a module.
+     *
+     * @param exprs The module's top-level expressions, as returned by the parser.
+     * @param hash  The {@link ModuleFormat#hash(byte[]) hash} of the module's source.
+     * @return The module's bytes.
+     */
+    public static byte[] write(List<Expr> exprs, long hash) {
+        ModuleWriter writer = new ModuleWriter();
+        writer.writeExprs(exprs);
+        return writer.toByteArray(hash);
+    }
+
+    /**
+     * Writes an expression, which may be null.
+     *
+     * @param expr The expression.
+     */
+    public void writeExpr(Expr expr) {
+        if (expr == null)
+            writeByte(ModuleFormat.NULL);
+        else
+            expr.write(this);
+    }
+
+    /**
+     * Writes a list of expressions.
+     *
+     * @param exprs The expressions.
+     */
+    public void writeExprs(List<? extends Expr> exprs) {
+        writeInt(exprs.size());
+        for (Expr expr : exprs) {
+            writeExpr(expr);
+        }
+    }
+
+    /**
+     * Writes the part common to all expressions: a tag, the expression's token, and its annotations. Expressions
+     * call this before writing their operands.
+     *
+     * @param tag  The expression's tag, from {@link ModuleFormat}.
+     * @param expr The expression.
+     */
+    public void writeHeader(int tag, Expr expr) {
+        writeByte(tag);
+        writeToken(expr.getToken());
+        List<Annotation> annotations = expr.getAnnotations();
+        writeInt(annotations.size());
+        for (Annotation annotation : annotations) {
+            writeString(annotation.getName());
+        }
+    }
+
+    /**
+     * Writes a token, which may be null.
+     *
+     * @param token The token.
+     */
+    public void writeToken(Token token) {
+        if (token == null) {
+            writeString(null);
+        } else {
+            writeType(token.getType());
+            writeString(token.getValue());
+            writeInt(token.getLine());
+            writeString(token.getFile());
+        }
+    }
+
+    /**
+     * Writes a token type by name.
+     *
+     * @param type The type.
+     */
+    public void writeType(Token.Type type) {
+        writeString(type.name());
+    }
+
+    /**
+     * Writes a string, which may be null, as an index into the string table.
+     *
+     * @param string The string.
+     */
+    public void writeString(String string) {
+        if (string == null) {
+            writeInt(-1);
+            return;
+        }
+        Integer index = stringIndices.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.add(string);
+            stringIndices.put(string, index);
+        }
+        writeInt(index);
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) value;
+    }
+
+    public void writeChar(char value) {
+        ensureCapacity(2);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+
+    public void writeInt(int value) {
+        ensureCapacity(4);
+        bytes[size++] = (byte) (value >>> 24);
+        bytes[size++] = (byte) (value >>> 16);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+
+    public void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    public void writeDouble(double value) {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    private void ensureCapacity(int needed) {
+        if (size + needed > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + needed));
+    }
+
+    /**
+     * Returns the complete module: the header, the string table, and everything written so far.
+     *
+     * @param hash The {@link ModuleFormat#hash(byte[]) hash} of the module's source.
+     */
+    public byte[] toByteArray(long hash) {
+        byte[][] encoded = new byte[strings.size()][];
+        int length = Integer.BYTES * 3 + Long.BYTES + size;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            length += Integer.BYTES + encoded[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(ModuleFormat.MAGIC);
+        buffer.putInt(ModuleFormat.VERSION);
+        buffer.putLong(hash);
+        buffer.putInt(encoded.length);
+        for (byte[] string : encoded) {
+            buffer.putInt(string.length);
+            buffer.put(string);
+        }
+        buffer.put(bytes, 0, size);
+        return buffer.array();
+    }
+}
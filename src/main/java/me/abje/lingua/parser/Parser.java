@@ -27,7 +27,9 @@ import me.abje.lingua.lexer.Token;
 import me.abje.lingua.parser.expr.Expr;
 import me.abje.lingua.parser.parselet.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static me.abje.lingua.lexer.Token.Type.*;
@@ -183,6 +185,20 @@ public class Parser {
         return next(read());
     }
 
+    /**
+     * Parses every remaining expression in the input.
+     *
+     * @return The expressions.
+     */
+    public List<Expr> parseAll() {
+        List<Expr> exprs = new ArrayList<>();
+        Expr expr;
+        while ((expr = next()) != null) {
+            exprs.add(expr);
+        }
+        return exprs;
+    }
+
     /**
      * Returns the precedence of the current token.
      */
@@ -25,8 +25,18 @@ package me.abje.lingua.parser.expr;
 import me.abje.lingua.interpreter.Environment;
 import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.jit.NodeCompiler;
+import me.abje.lingua.jit.StoreNode;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.Annotation;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
 import me.abje.lingua.util.DefinitionType;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * A variable assignment expression.
@@ -40,7 +50,7 @@ public class AssignmentExpr extends Expr {
     /**
      * The expression of the value to be assigned to this variable.
      */
-    private final Expr value;
+    private Expr value;
 
     /**
      * Creates a new assignment expression.
@@ -57,8 +67,50 @@ public class AssignmentExpr extends Expr {
     @Override
     public Obj evaluate(Interpreter interpreter) {
         Obj valueObj = interpreter.next(value);
-        return name.match(interpreter, interpreter.getEnv().getStack().peek(), valueObj,
-                getAnnotations().contains("var") ? DefinitionType.ALWAYS_NEW : DefinitionType.NEVER_NEW);
+        return name.match(interpreter, interpreter.getEnv().peekFrame(), valueObj, getDefinitionType());
+    }
+
+    private DefinitionType getDefinitionType() {
+        return hasAnnotation(Annotation.VAR) ? DefinitionType.ALWAYS_NEW : DefinitionType.NEVER_NEW;
+    }
+
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        value = optimizer.optimize(value);
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        value.resolve(resolver);
+        name.resolvePattern(resolver, getDefinitionType());
+    }
+
+    @Override
+    public void resolvePattern(Resolver resolver, DefinitionType type) {
+        value.resolvePattern(resolver, type);
+        resolve(resolver);
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        if (name instanceof NameExpr) {
+            compiler.compile(value);
+            ((NameExpr) name).compileStore(compiler, getDefinitionType());
+        } else {
+            compiler.emitFallback(this);
+        }
+    }
+
+    @Override
+    public Node specialize(NodeCompiler compiler) {
+        if (name instanceof NameExpr) {
+            NameExpr nameExpr = (NameExpr) name;
+            return new StoreNode(nameExpr.getValue(), nameExpr.getAddress(), getDefinitionType(),
+                    compiler.compile(value));
+        } else {
+            return super.specialize(compiler);
+        }
     }
 
     @Override
@@ -86,6 +138,13 @@ public class AssignmentExpr extends Expr {
         return value;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.ASSIGNMENT, this);
+        writer.writeExpr(name);
+        writer.writeExpr(value);
+    }
+
     @Override
     public String toString() {
         return name + " = " + value;
@@ -25,7 +25,17 @@ package me.abje.lingua.parser.expr;
 import com.google.common.base.Joiner;
 import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.jit.BlockNode;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.jit.NodeCompiler;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.resolver.Scope;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 import java.util.List;
 
@@ -38,6 +48,11 @@ public class BlockExpr extends Expr {
      */
     private final List<Expr> exprs;
 
+    /**
+     * The scope of this block's frame, or null if it has not been resolved.
+     */
+    private Scope scope;
+
     /**
      * Creates a new block expression.
      *
@@ -50,15 +65,70 @@ public class BlockExpr extends Expr {
 
     @Override
     public Obj evaluate(Interpreter interpreter) {
-        interpreter.getEnv().pushFrame("<anon>");
+        interpreter.getEnv().peekFrame().setPosition(this, 0);
+        interpreter.getEnv().pushFrame("<anon>", scope);
         Obj result = null;
         for (Expr expr : exprs) {
             result = interpreter.next(expr);
         }
-        interpreter.getEnv().popFrame();
+        interpreter.getEnv().popFrame(scope);
         return result;
     }
 
+    @Override
+    public void markTailPosition() {
+        if (!exprs.isEmpty())
+            exprs.get(exprs.size() - 1).markTailPosition();
+    }
+
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        exprs.replaceAll(optimizer::optimize);
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        scope = resolver.beginScope();
+        for (Expr expr : exprs) {
+            expr.resolve(resolver);
+        }
+        resolver.endScope();
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        if (exprs.isEmpty()) {
+            compiler.emitFallback(this);
+            return;
+        }
+
+        boolean frame = scope == null || scope.hasFrame();
+        if (frame)
+            compiler.emit(Opcodes.PUSH_FRAME, compiler.constant(scope));
+        for (int i = 0; i < exprs.size(); i++) {
+            if (i != 0)
+                compiler.emit(Opcodes.POP);
+            compiler.compile(exprs.get(i));
+        }
+        if (frame)
+            compiler.emit(Opcodes.POP_FRAME, compiler.constant(scope));
+    }
+
+    @Override
+    public Node specialize(NodeCompiler compiler) {
+        if (exprs.isEmpty())
+            return super.specialize(compiler);
+        return new BlockNode(this, scope, compiler.compileAll(exprs), exprs.toArray(new Expr[0]));
+    }
+
+    /**
+     * Returns the scope of this block's frame, or null if it has not been resolved.
+     */
+    public Scope getScope() {
+        return scope;
+    }
+
     /**
      * Returns the list of expressions within this block.
      */
@@ -81,6 +151,12 @@ public class BlockExpr extends Expr {
         return exprs.hashCode();
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.BLOCK, this);
+        writer.writeExprs(exprs);
+    }
+
     @Override
     public String toString() {
         return "{\n" + Joiner.on('\n').join(exprs) + "\n}";
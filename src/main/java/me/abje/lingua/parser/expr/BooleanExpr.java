@@ -26,8 +26,15 @@ import me.abje.lingua.interpreter.Environment;
 import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.BooleanObj;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.jit.ConstantNode;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.jit.NodeCompiler;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
 import me.abje.lingua.util.DefinitionType;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * A boolean literal expression.
@@ -48,11 +55,26 @@ public class BooleanExpr extends Expr {
         this.value = value;
     }
 
+    @Override
+    public Obj getConstant() {
+        return BooleanObj.of(value);
+    }
+
     @Override
     public Obj evaluate(Interpreter interpreter) {
         return BooleanObj.of(value);
     }
 
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.emit(Opcodes.CONST, compiler.constant(BooleanObj.of(value)));
+    }
+
+    @Override
+    public Node specialize(NodeCompiler compiler) {
+        return new ConstantNode(BooleanObj.of(value));
+    }
+
     /**
      * Returns this boolean's value.
      */
@@ -83,6 +105,12 @@ public class BooleanExpr extends Expr {
         return (value ? 1 : 0);
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.BOOLEAN, this);
+        writer.writeBoolean(value);
+    }
+
     @Override
     public String toString() {
         return String.valueOf(value);
@@ -24,9 +24,21 @@ package me.abje.lingua.parser.expr;
 
 import com.google.common.base.Joiner;
 import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.FunctionObj;
 import me.abje.lingua.interpreter.obj.NullObj;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.interpreter.obj.TailCall;
+import me.abje.lingua.jit.CallNode;
+import me.abje.lingua.jit.InvokeNode;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.jit.NodeCompiler;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -38,13 +50,18 @@ public class CallExpr extends Expr {
     /**
      * The left side of the expression (the function to be called).
      */
-    private final Expr func;
+    private Expr func;
 
     /**
      * The arguments provided to the function.
      */
     private final List<Expr> args;
 
+    /**
+     * Whether this call is in tail position.
+     */
+    private boolean tail;
+
     /**
      * Creates a new call expression.
      *
@@ -60,15 +77,71 @@ public class CallExpr extends Expr {
     @Override
     public Obj evaluate(Interpreter interpreter) {
         List<Obj> argObjs = args.stream().map(interpreter::next).collect(Collectors.toList());
-        if (func instanceof MemberAccessExpr && ((MemberAccessExpr) func).isNullable()) {
-            Obj funcObj = interpreter.next(func);
-            if (funcObj != NullObj.NULL) {
-                return funcObj.call(interpreter, argObjs);
-            } else {
+        if (func instanceof MemberAccessExpr) {
+            // Call the member directly instead of evaluating it to a function bound to the object.
+            MemberAccessExpr access = (MemberAccessExpr) func;
+            Obj self = interpreter.next(access.getLeft());
+            if (access.isNullable() && self == NullObj.NULL)
                 return NullObj.NULL;
+            interpreter.getEnv().peekFrame().setPosition(this, 0);
+            if (tail) {
+                FunctionObj function = access.getCache().function(interpreter, self, argObjs);
+                if (function != null)
+                    return new TailCall(function, self, argObjs);
             }
+            return access.getCache().invoke(interpreter, self, argObjs);
         } else {
-            return interpreter.next(func).call(interpreter, argObjs);
+            Obj funcObj = interpreter.next(func);
+            interpreter.getEnv().peekFrame().setPosition(this, 0);
+            if (tail && funcObj instanceof FunctionObj)
+                return ((FunctionObj) funcObj).tailCall(argObjs);
+            return funcObj.call(interpreter, argObjs);
+        }
+    }
+
+    @Override
+    public void markTailPosition() {
+        tail = true;
+    }
+
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        func = optimizer.optimize(func);
+        args.replaceAll(optimizer::optimize);
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        func.resolve(resolver);
+        for (Expr arg : args) {
+            arg.resolve(resolver);
+        }
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        for (Expr arg : args) {
+            compiler.compile(arg);
+        }
+        if (func instanceof MemberAccessExpr) {
+            MemberAccessExpr access = (MemberAccessExpr) func;
+            compiler.compile(access.getLeft());
+            compiler.emit(Opcodes.INVOKE, args.size(), compiler.constant(this));
+        } else {
+            compiler.compile(func);
+            compiler.emit(Opcodes.CALL, args.size(), tail ? 1 : 0);
+        }
+    }
+
+    @Override
+    public Node specialize(NodeCompiler compiler) {
+        if (func instanceof MemberAccessExpr) {
+            MemberAccessExpr access = (MemberAccessExpr) func;
+            return new InvokeNode(this, compiler.compile(access.getLeft()), access.getCache(),
+                    compiler.compileAll(args), access.isNullable(), tail);
+        } else {
+            return new CallNode(this, compiler.compile(func), compiler.compileAll(args), tail);
         }
     }
 
@@ -86,6 +159,13 @@ public class CallExpr extends Expr {
         return args;
     }
 
+    /**
+     * Returns whether this call is in tail position.
+     */
+    public boolean isTail() {
+        return tail;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -103,6 +183,13 @@ public class CallExpr extends Expr {
         return result;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.CALL, this);
+        writer.writeExpr(func);
+        writer.writeExprs(args);
+    }
+
     @Override
     public String toString() {
         return func + "(" + Joiner.on(", ").join(args) + ")";
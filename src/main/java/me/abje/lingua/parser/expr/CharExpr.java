@@ -26,6 +26,10 @@ import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.CharObj;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 public class CharExpr extends Expr {
     private final char c;
@@ -35,11 +39,31 @@ public class CharExpr extends Expr {
         this.c = c;
     }
 
+    public char getValue() {
+        return c;
+    }
+
+    @Override
+    public Obj getConstant() {
+        return CharObj.of(c);
+    }
+
     @Override
     public Obj evaluate(Interpreter interpreter) {
         return CharObj.of(c);
     }
 
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.emit(Opcodes.CONST, compiler.constant(CharObj.of(c)));
+    }
+
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.CHAR, this);
+        writer.writeChar(c);
+    }
+
     @Override
     public String toString() {
         return "'" + c + "'";
@@ -26,10 +26,17 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import me.abje.lingua.interpreter.Interpreter;
-import me.abje.lingua.interpreter.InterpreterException;
 import me.abje.lingua.interpreter.obj.*;
 import me.abje.lingua.lexer.Token;
-
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.LexicalAddress;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
+
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -52,13 +59,23 @@ public class ClassExpr extends Expr {
     /**
      * The class's fields.
      */
-    private final List<ObjField> fields;
+    private final List<DefaultObjField> fields;
 
     /**
      * This class's superclass name.
      */
     private final String superClassName;
 
+    /**
+     * The lexical address of this class's name, or null if it has not been resolved.
+     */
+    private LexicalAddress address;
+
+    /**
+     * The lexical address of this class's superclass name, or null if it has not been resolved.
+     */
+    private LexicalAddress superClassAddress;
+
     /**
      * Creates a new class declaration expression.
      *
@@ -67,7 +84,7 @@ public class ClassExpr extends Expr {
      * @param fields         The class's fields.
      * @param superClassName This class's superclass name.
      */
-    public ClassExpr(Token token, String name, List<FunctionExpr> functions, List<ObjField> fields, String superClassName) {
+    public ClassExpr(Token token, String name, List<FunctionExpr> functions, List<DefaultObjField> fields, String superClassName) {
         super(token);
         this.name = name;
         this.functions = functions;
@@ -77,10 +94,26 @@ public class ClassExpr extends Expr {
 
     @Override
     public Obj evaluate(Interpreter interpreter) {
-        ClassObj superClass = (ClassObj) interpreter.getEnv().get(superClassName);
-        ListMultimap<String, FunctionObj> objs = ArrayListMultimap.create();
+        ClassObj superClass = (ClassObj) (superClassAddress != null ?
+                interpreter.getEnv().get(superClassAddress) : interpreter.getEnv().get(superClassName));
+        List<FunctionObj> functionObjs = new ArrayList<>();
         for (Expr expr : functions) {
-            FunctionObj obj = (FunctionObj) interpreter.next(expr);
+            functionObjs.add((FunctionObj) interpreter.next(expr));
+        }
+        return define(interpreter, superClass, functionObjs);
+    }
+
+    /**
+     * Creates this class from its evaluated functions, and defines it.
+     *
+     * @param interpreter  The interpreter.
+     * @param superClass   The class's superclass.
+     * @param functionObjs The class's functions.
+     * @return The new class.
+     */
+    public ClassObj define(Interpreter interpreter, ClassObj superClass, List<FunctionObj> functionObjs) {
+        ListMultimap<String, FunctionObj> objs = ArrayListMultimap.create();
+        for (FunctionObj obj : functionObjs) {
             objs.put(obj.getName(), obj);
         }
 
@@ -88,34 +121,46 @@ public class ClassExpr extends Expr {
         for (Map.Entry<String, Collection<FunctionObj>> entry : objs.asMap().entrySet()) {
             String name = entry.getKey();
             Collection<FunctionObj> possibilities = entry.getValue();
-            flattened.put(name, new SyntheticFunctionObj(FunctionObj.SYNTHETIC) {
-                @Override
-                public Obj call(Interpreter interpreter, List<Obj> args) {
-                    for (FunctionObj function : possibilities) {
-                        Obj result;
-                        interpreter.getEnv().pushFrame("<" + function.getName() + ":args>");
-                        if (function.isApplicable(interpreter, args)) {
-                            interpreter.getEnv().popFrame();
-                            result = function.withSelf(getSelf()).call(interpreter, args);
-                            return result;
-                        } else {
-                            interpreter.getEnv().popFrame();
-                        }
-                    }
-
-                    if (superClass.getFunctionMap().containsKey(name) && !name.equals("init")) {
-                        return superClass.getMember(interpreter, name).call(interpreter, args);
-                    } else {
-                        throw new InterpreterException("CallException", "invalid arguments for function " + name);
-                    }
-                }
-            });
+            flattened.put(name, new MethodObj(name, possibilities, superClass));
         }
         ClassObj clazz = new ClassObj(name, flattened, fields, superClass);
-        interpreter.getEnv().define(name, clazz);
+        if (address != null)
+            interpreter.getEnv().define(address, clazz);
+        else
+            interpreter.getEnv().define(name, clazz);
         return clazz;
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        for (FunctionExpr function : functions) {
+            function.optimize(optimizer);
+        }
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        resolver.reference(superClassName, address -> superClassAddress = address);
+        resolver.declare(name);
+        resolver.reference(name, address -> this.address = address);
+        for (FunctionExpr function : functions) {
+            function.resolve(resolver, true);
+        }
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        if (superClassAddress != null)
+            compiler.emit(Opcodes.LOAD, compiler.constant(superClassAddress));
+        else
+            compiler.emit(Opcodes.LOAD_NAME, compiler.constant(superClassName));
+        for (FunctionExpr function : functions) {
+            compiler.compile(function);
+        }
+        compiler.emit(Opcodes.CLASS, functions.size(), compiler.constant(this));
+    }
+
     /**
      * Returns this class's name.
      */
@@ -133,7 +178,7 @@ public class ClassExpr extends Expr {
     /**
      * Returns this class's fields.
      */
-    public List<ObjField> getFields() {
+    public List<DefaultObjField> getFields() {
         return fields;
     }
 
@@ -155,6 +200,20 @@ public class ClassExpr extends Expr {
         return result;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.CLASS, this);
+        writer.writeString(name);
+        writer.writeString(superClassName);
+        writer.writeExprs(functions);
+        writer.writeInt(fields.size());
+        for (DefaultObjField field : fields) {
+            writer.writeString(field.getName());
+            writer.writeBoolean(field.isStatic());
+            writer.writeExpr(field.getDefaultValue());
+        }
+    }
+
     @Override
     public String toString() {
         return "class " + name + "{\n" + Joiner.on("\n") + "\n\n" + fields + "\n}";
@@ -24,23 +24,47 @@ package me.abje.lingua.parser.expr;
 
 import me.abje.lingua.interpreter.Environment;
 import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.PositionTable;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.jit.EvalNode;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.jit.NodeCompiler;
+import me.abje.lingua.jit.Profile;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.Annotation;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
 import me.abje.lingua.util.DefinitionType;
+import me.abje.lingua.vm.Compiler;
 
 import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
  * The base class for all expressions -- the middle-ground between tokens and objects.
+ * <p>
+ * Expressions are their own {@link PositionTable}: a frame running the tree-walking interpreter records the expression
+ * it is at, and the line is read from its token.
  */
-public abstract class Expr {
+public abstract class Expr implements PositionTable {
     /**
-     * The annotations present on this expression.
+     * The annotations present on this expression with indices below 64, as a bitset.
      */
-    private final List<String> annotations = new ArrayList<>();
+    private long annotations;
+
+    /**
+     * The annotations present on this expression with indices of 64 and above, or null if there are none.
+     */
+    private BitSet moreAnnotations;
+
+    /**
+     * The JIT's profile of this expression as the body of a function, or null if it hasn't been run as one.
+     */
+    private Profile profile;
 
     private final Token token;
 
@@ -56,6 +80,16 @@ public abstract class Expr {
      */
     public abstract Obj evaluate(Interpreter interpreter);
 
+    /**
+     * Returns the value of this expression if it is a literal, which evaluates to the same object every time without
+     * side effects.
+     *
+     * @return The value, or null if this expression is not a literal.
+     */
+    public Obj getConstant() {
+        return null;
+    }
+
     public Obj match(Interpreter interpreter, Environment.Frame frame, Obj obj, DefinitionType type) {
         Obj evaluated = evaluate(interpreter);
         if (evaluated.equals(obj))
@@ -64,14 +98,161 @@ public abstract class Expr {
             return null;
     }
 
+    /**
+     * Optimizes this expression's children, and returns the expression to use in place of this one.
+     * By default, nothing is optimized.
+     *
+     * @param optimizer The optimizer to optimize subexpressions with.
+     * @return The optimized expression, which may be this one.
+     */
+    public Expr optimize(Optimizer optimizer) {
+        return this;
+    }
+
+    /**
+     * Resolves the names referenced by this expression and its children.
+     *
+     * @param resolver The resolver to declare and reference names with.
+     */
+    public void resolve(Resolver resolver) {
+    }
+
+    /**
+     * Resolves this expression as a pattern. Names bound by the pattern are declared in the current scope.
+     *
+     * @param resolver The resolver to declare and reference names with.
+     * @param type     The type of definition the pattern will be matched with.
+     */
+    public void resolvePattern(Resolver resolver, DefinitionType type) {
+        resolve(resolver);
+    }
+
+    /**
+     * Marks this expression as being in tail position: its value is the result of the function it is in. Calls in
+     * tail position return a {@link me.abje.lingua.interpreter.obj.TailCall} instead of calling the function, and
+     * expressions which return the value of a subexpression mark that subexpression.
+     * By default, nothing is marked.
+     */
+    public void markTailPosition() {
+    }
+
+    /**
+     * Compiles this expression to bytecode that leaves its value on the stack.
+     * By default, the expression is evaluated by the tree-walking interpreter.
+     *
+     * @param compiler The compiler to emit code with.
+     */
+    public void compile(Compiler compiler) {
+        compiler.emitFallback(this);
+    }
+
+    /**
+     * Translates this expression into a specialized node for the JIT.
+     * By default, the node evaluates the expression with the tree-walking interpreter.
+     *
+     * @param compiler The compiler to specialize subexpressions with.
+     * @return The specialized node.
+     */
+    public Node specialize(NodeCompiler compiler) {
+        return new EvalNode(this);
+    }
+
+    /**
+     * Writes this expression to a precompiled module. Expressions start with
+     * {@link ModuleWriter#writeHeader(int, Expr)}, and then write the operands listed in
+     * {@link me.abje.lingua.parser.ModuleFormat} for their tag.
+     *
+     * @param writer The writer to write to.
+     */
+    public abstract void write(ModuleWriter writer);
+
+    /**
+     * Returns the JIT's profile of this expression as the body of a function.
+     *
+     * @return The profile, or null if this expression hasn't been run as a function body with a JIT.
+     */
+    public Profile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Sets the JIT's profile of this expression as the body of a function.
+     *
+     * @param profile The profile.
+     */
+    public void setProfile(Profile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Returns whether an annotation is present on this expression.
+     *
+     * @param annotation The annotation, or null for an annotation that was never registered.
+     */
+    public boolean hasAnnotation(Annotation annotation) {
+        if (annotation == null)
+            return false;
+        int index = annotation.getIndex();
+        if (index < Long.SIZE)
+            return (annotations & (1L << index)) != 0;
+        return moreAnnotations != null && moreAnnotations.get(index - Long.SIZE);
+    }
+
+    /**
+     * Adds an annotation to this expression.
+     *
+     * @param annotation The annotation.
+     */
+    public void addAnnotation(Annotation annotation) {
+        int index = annotation.getIndex();
+        if (index < Long.SIZE) {
+            annotations |= 1L << index;
+        } else {
+            if (moreAnnotations == null)
+                moreAnnotations = new BitSet();
+            moreAnnotations.set(index - Long.SIZE);
+        }
+    }
+
     /**
      * Returns the annotations present on this expression.
      */
-    public List<String> getAnnotations() {
-        return annotations;
+    public List<Annotation> getAnnotations() {
+        List<Annotation> result = new ArrayList<>();
+        if (annotations == 0 && moreAnnotations == null)
+            return result;
+        for (Annotation annotation : Annotation.values()) {
+            if (hasAnnotation(annotation))
+                result.add(annotation);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the annotations present on another expression to this one.
+     *
+     * @param other The other expression.
+     */
+    public void addAnnotations(Expr other) {
+        annotations |= other.annotations;
+        if (other.moreAnnotations != null) {
+            if (moreAnnotations == null)
+                moreAnnotations = new BitSet();
+            moreAnnotations.or(other.moreAnnotations);
+        }
     }
 
     public Token getToken() {
         return token;
     }
+
+    @Override
+    public int getLine(int offset) {
+        return token != null ? token.getLine() : 0;
+    }
+
+    @Override
+    public String getFileName() {
+        return token != null ? token.getFile() : null;
+    }
 }
@@ -26,8 +26,16 @@ import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.FunctionObj;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.LexicalAddress;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.resolver.Scope;
+import me.abje.lingua.util.DefinitionType;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
-import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -49,7 +57,17 @@ public class FunctionExpr extends Expr {
     /**
      * This function's body.
      */
-    private final Expr body;
+    private Expr body;
+
+    /**
+     * The scope of this function's call frames, or null if it has not been resolved.
+     */
+    private Scope scope;
+
+    /**
+     * The lexical address of this function's name, or null if it has not been resolved.
+     */
+    private LexicalAddress address;
 
     /**
      * Creates a new function declaration expression.
@@ -63,15 +81,68 @@ public class FunctionExpr extends Expr {
         this.name = name;
         this.argNames = argNames;
         this.body = body;
+        body.markTailPosition();
     }
 
     @Override
     public Obj evaluate(Interpreter interpreter) {
-        Obj functionObj = new FunctionObj(name, argNames, body, new ArrayDeque<>(interpreter.getEnv().getStack()));
-        interpreter.getEnv().put(name, functionObj);
+        Obj functionObj = new FunctionObj(name, argNames, body, scope, interpreter.getEnv().capture(scope));
+        if (address != null)
+            interpreter.getEnv().put(address, functionObj);
+        else
+            interpreter.getEnv().put(name, functionObj);
         return functionObj;
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        body = optimizer.optimize(body);
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        resolve(resolver, false);
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.emit(Opcodes.FUNCTION, compiler.constant(this), compiler.constant(Compiler.compileChunk(body)));
+        if (address != null)
+            compiler.emit(Opcodes.STORE, compiler.constant(address), DefinitionType.AUTO.ordinal());
+        else
+            compiler.emit(Opcodes.STORE_NAME, compiler.constant(name), DefinitionType.AUTO.ordinal());
+    }
+
+    /**
+     * Resolves this function's name and body.
+     *
+     * @param resolver The resolver to declare and reference names with.
+     * @param method   Whether this function is a method, and so has <code>self</code> and <code>super</code>.
+     */
+    void resolve(Resolver resolver, boolean method) {
+        resolver.declare(name);
+        resolver.reference(name, address -> this.address = address);
+        scope = resolver.beginFunctionScope();
+        for (Expr argName : argNames) {
+            argName.resolvePattern(resolver, DefinitionType.ALWAYS_NEW);
+        }
+        if (method) {
+            resolver.declare("self");
+            resolver.declare("super");
+        }
+        body.resolve(resolver);
+        resolver.endScope();
+    }
+
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.FUNCTION, this);
+        writer.writeString(name);
+        writer.writeExprs(argNames);
+        writer.writeExpr(body);
+    }
+
     @Override
     public String toString() {
         return name + argNames.stream().map(Objects::toString).collect(Collectors.joining(", ", "(", ")")) +
@@ -99,6 +170,13 @@ public class FunctionExpr extends Expr {
         return body;
     }
 
+    /**
+     * Returns the scope of this function's call frames, or null if it has not been resolved.
+     */
+    public Scope getScope() {
+        return scope;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -25,7 +25,16 @@ package me.abje.lingua.parser.expr;
 import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.NullObj;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.jit.IfNode;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.jit.NodeCompiler;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 import java.util.Objects;
 
@@ -36,17 +45,17 @@ public class IfExpr extends Expr {
     /**
      * The condition expression.
      */
-    private final Expr condition;
+    private Expr condition;
 
     /**
      * The "then" branch expression.
      */
-    private final Expr thenBranch;
+    private Expr thenBranch;
 
     /**
      * The "else" branch expression. Can be null.
      */
-    private final Expr elseBranch;
+    private Expr elseBranch;
 
     /**
      * Creates a new if expression.
@@ -96,6 +105,58 @@ public class IfExpr extends Expr {
         }
     }
 
+    @Override
+    public void markTailPosition() {
+        thenBranch.markTailPosition();
+        if (elseBranch != null)
+            elseBranch.markTailPosition();
+    }
+
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        condition = optimizer.optimize(condition);
+        thenBranch = optimizer.optimize(thenBranch);
+        if (elseBranch != null)
+            elseBranch = optimizer.optimize(elseBranch);
+
+        Obj obj = condition.getConstant();
+        if (obj == null)
+            return this;
+        else if (obj.isTruthy())
+            return optimizer.prune(this, thenBranch);
+        else
+            return optimizer.prune(this, elseBranch != null ? elseBranch : new NullExpr(getToken()));
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        condition.resolve(resolver);
+        thenBranch.resolve(resolver);
+        if (elseBranch != null)
+            elseBranch.resolve(resolver);
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.compile(condition);
+        int otherwise = compiler.emitJump(Opcodes.JUMP_IF_FALSE);
+        compiler.compile(thenBranch);
+        int end = compiler.emitJump(Opcodes.JUMP);
+        compiler.adjustDepth(-1);
+        compiler.patchJump(otherwise);
+        if (elseBranch != null)
+            compiler.compile(elseBranch);
+        else
+            compiler.emit(Opcodes.CONST, compiler.constant(NullObj.NULL));
+        compiler.patchJump(end);
+    }
+
+    @Override
+    public Node specialize(NodeCompiler compiler) {
+        return new IfNode(compiler.compile(condition), compiler.compile(thenBranch),
+                elseBranch != null ? compiler.compile(elseBranch) : null);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -114,6 +175,14 @@ public class IfExpr extends Expr {
         return result;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.IF, this);
+        writer.writeExpr(condition);
+        writer.writeExpr(thenBranch);
+        writer.writeExpr(elseBranch);
+    }
+
     @Override
     public String toString() {
         if (elseBranch != null) {
@@ -27,6 +27,8 @@ import me.abje.lingua.interpreter.InterpreterException;
 import me.abje.lingua.interpreter.obj.NullObj;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
 
 public class ImportExpr extends Expr {
     private final Expr name;
@@ -49,6 +51,12 @@ public class ImportExpr extends Expr {
         }
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.IMPORT, this);
+        writer.writeExpr(name);
+    }
+
     @Override
     public String toString() {
         return "import " + name;
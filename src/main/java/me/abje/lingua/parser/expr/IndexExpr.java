@@ -25,6 +25,12 @@ package me.abje.lingua.parser.expr;
 import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * An index expression, in the form of <code>target[index]</code>.
@@ -33,12 +39,12 @@ public class IndexExpr extends Expr {
     /**
      * This expression's target.
      */
-    private final Expr target;
+    private Expr target;
 
     /**
      * This expression's index.
      */
-    private final Expr index;
+    private Expr index;
 
     /**
      * Creates a new index expression.
@@ -57,6 +63,26 @@ public class IndexExpr extends Expr {
         return interpreter.next(target).getAtIndex(interpreter.next(index));
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        target = optimizer.optimize(target);
+        index = optimizer.optimize(index);
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        target.resolve(resolver);
+        index.resolve(resolver);
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.compile(target);
+        compiler.compile(index);
+        compiler.emit(Opcodes.GET_INDEX);
+    }
+
     /**
      * Returns this expression's target.
      */
@@ -88,6 +114,13 @@ public class IndexExpr extends Expr {
         return result;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.INDEX, this);
+        writer.writeExpr(target);
+        writer.writeExpr(index);
+    }
+
     @Override
     public String toString() {
         return target + "[" + index + "]";
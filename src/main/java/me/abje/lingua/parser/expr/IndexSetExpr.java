@@ -25,6 +25,12 @@ package me.abje.lingua.parser.expr;
 import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * An index set expression, in the form of <code>target[index] = value</code>.
@@ -33,17 +39,17 @@ public class IndexSetExpr extends Expr {
     /**
      * This expression's target.
      */
-    private final Expr target;
+    private Expr target;
 
     /**
      * This expression's index.
      */
-    private final Expr index;
+    private Expr index;
 
     /**
      * This expression's value.
      */
-    private final Expr value;
+    private Expr value;
 
     /**
      * Creates a new index set expression.
@@ -68,6 +74,29 @@ public class IndexSetExpr extends Expr {
         return valueObj;
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        target = optimizer.optimize(target);
+        index = optimizer.optimize(index);
+        value = optimizer.optimize(value);
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        target.resolve(resolver);
+        index.resolve(resolver);
+        value.resolve(resolver);
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.compile(target);
+        compiler.compile(index);
+        compiler.compile(value);
+        compiler.emit(Opcodes.SET_INDEX);
+    }
+
     /**
      * Returns this expression's target.
      */
@@ -107,6 +136,14 @@ public class IndexSetExpr extends Expr {
         return result;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.INDEX_SET, this);
+        writer.writeExpr(target);
+        writer.writeExpr(index);
+        writer.writeExpr(value);
+    }
+
     @Override
     public String toString() {
         return target + "[" + index + "] = " + value;
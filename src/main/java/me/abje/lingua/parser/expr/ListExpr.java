@@ -28,7 +28,14 @@ import me.abje.lingua.interpreter.InterpreterException;
 import me.abje.lingua.interpreter.obj.ListObj;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.Annotation;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
 import me.abje.lingua.util.DefinitionType;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -59,6 +66,15 @@ public class ListExpr extends Expr {
         return items;
     }
 
+    /**
+     * Returns the number of items a list must have to match this pattern, not counting a trailing
+     * <code>@rest</code> item.
+     */
+    public int getArity() {
+        int size = items.size();
+        return size > 0 && items.get(size - 1).hasAnnotation(Annotation.REST) ? size - 1 : size;
+    }
+
     @Override
     public Obj evaluate(Interpreter interpreter) {
         List<Obj> itemObjs = items.stream().map(interpreter::next).collect(Collectors.toList());
@@ -69,9 +85,12 @@ public class ListExpr extends Expr {
     public Obj match(Interpreter interpreter, Environment.Frame frame, Obj obj, DefinitionType type) {
         if (obj instanceof ListObj) {
             ListObj list = (ListObj) obj;
+            if (list.size() < getArity()) {
+                return null;
+            }
             for (int i = 0; i < items.size(); i++) {
                 Expr item = items.get(i);
-                if (item.getAnnotations().contains("rest")) {
+                if (item.hasAnnotation(Annotation.REST)) {
                     if (i == items.size() - 1) {
                         if (item.match(interpreter, frame, list.drop(i), type) == null) {
                             return null;
@@ -92,6 +111,34 @@ public class ListExpr extends Expr {
         }
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        items.replaceAll(optimizer::optimize);
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        for (Expr item : items) {
+            item.resolve(resolver);
+        }
+    }
+
+    @Override
+    public void resolvePattern(Resolver resolver, DefinitionType type) {
+        for (Expr item : items) {
+            item.resolvePattern(resolver, type);
+        }
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        for (Expr item : items) {
+            compiler.compile(item);
+        }
+        compiler.emit(Opcodes.LIST, items.size());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -107,6 +154,12 @@ public class ListExpr extends Expr {
         return items.hashCode();
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.LIST, this);
+        writer.writeExprs(items);
+    }
+
     @Override
     public String toString() {
         return items.toString();
@@ -27,7 +27,13 @@ import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.MapObj;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
 import me.abje.lingua.util.DefinitionType;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -62,6 +68,47 @@ public class MapExpr extends Expr {
         }
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        items.replaceAll((key, value) -> optimizer.optimize(value));
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        for (Map.Entry<Expr, Expr> entry : items.entrySet()) {
+            entry.getKey().resolve(resolver);
+            entry.getValue().resolve(resolver);
+        }
+    }
+
+    @Override
+    public void resolvePattern(Resolver resolver, DefinitionType type) {
+        for (Map.Entry<Expr, Expr> entry : items.entrySet()) {
+            entry.getKey().resolve(resolver);
+            entry.getValue().resolvePattern(resolver, type);
+        }
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        for (Map.Entry<Expr, Expr> entry : items.entrySet()) {
+            compiler.compile(entry.getKey());
+            compiler.compile(entry.getValue());
+        }
+        compiler.emit(Opcodes.MAP, items.size());
+    }
+
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.MAP, this);
+        writer.writeInt(items.size());
+        items.forEach((key, value) -> {
+            writer.writeExpr(key);
+            writer.writeExpr(value);
+        });
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
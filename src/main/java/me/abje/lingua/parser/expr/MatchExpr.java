@@ -24,16 +24,38 @@ package me.abje.lingua.parser.expr;
 
 import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.InterpreterException;
+import me.abje.lingua.interpreter.obj.ClassObj;
+import me.abje.lingua.interpreter.obj.ListObj;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.interpreter.obj.TupleObj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.resolver.Scope;
 import me.abje.lingua.util.DefinitionType;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * A match expression, in the form of <code>value match { pattern1 =&gt; body1 ... patternN =&gt; bodyN }</code>.
+ * <p>
+ * The value is evaluated once, and the clauses are compiled into a decision tree the first time the expression is
+ * evaluated: runs of literal patterns become a hash lookup, runs of type patterns become a switch on the value's
+ * class, and list and tuple patterns are skipped without binding when the value has the wrong shape. Only the clause
+ * the tree selects is bound, so clauses are still tried in order.
+ */
 public class MatchExpr extends Expr {
-    private final Expr left;
+    private Expr left;
     private final LinkedHashMap<Expr, Expr> clauses;
+    private Scope[] clauseScopes;
+    private volatile Tree tree;
 
     public MatchExpr(Token token, Expr left, LinkedHashMap<Expr, Expr> clauses) {
         super(token);
@@ -43,23 +65,266 @@ public class MatchExpr extends Expr {
 
     @Override
     public Obj evaluate(Interpreter interpreter) {
-        for (Map.Entry<Expr, Expr> clause : clauses.entrySet()) {
-            interpreter.getEnv().pushFrame("<case>");
-            Obj result = null;
-            if (clause.getKey().match(interpreter, interpreter.getEnv().getStack().peek(), left.evaluate(interpreter), DefinitionType.ALWAYS_NEW) != null) {
-                result = clause.getValue().evaluate(interpreter);
-            }
-            interpreter.getEnv().popFrame();
+        Tree tree = this.tree;
+        if (tree == null) {
+            this.tree = tree = new Tree();
+        }
 
-            if (result != null)
-                return result;
+        Obj value = left.evaluate(interpreter);
+        for (Node node : tree.nodes) {
+            int i = node.select(interpreter, value);
+            if (i != -1) {
+                Obj result = tree.run(interpreter, i, value);
+                if (result != null)
+                    return result;
+            }
         }
 
         throw new InterpreterException("CallException", "no match clause matches input");
     }
 
+    @Override
+    public void markTailPosition() {
+        for (Expr body : clauses.values()) {
+            body.markTailPosition();
+        }
+    }
+
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        left = optimizer.optimize(left);
+        clauses.replaceAll((pattern, body) -> optimizer.optimize(body));
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        left.resolve(resolver);
+        clauseScopes = new Scope[clauses.size()];
+        int i = 0;
+        for (Map.Entry<Expr, Expr> clause : clauses.entrySet()) {
+            clauseScopes[i++] = resolver.beginScope();
+            clause.getKey().resolvePattern(resolver, DefinitionType.ALWAYS_NEW);
+            clause.getValue().resolve(resolver);
+            resolver.endScope();
+        }
+    }
+
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.MATCH, this);
+        writer.writeExpr(left);
+        writer.writeInt(clauses.size());
+        clauses.forEach((pattern, body) -> {
+            writer.writeExpr(pattern);
+            writer.writeExpr(body);
+        });
+    }
+
     @Override
     public String toString() {
         return left + " match {...}";
     }
+
+    /**
+     * The clauses of a match expression, grouped into the nodes that select between them.
+     */
+    private class Tree {
+        private final Expr[] patterns;
+        private final Expr[] bodies;
+        private final Scope[] scopes;
+        private final Node[] nodes;
+
+        Tree() {
+            int size = clauses.size();
+            patterns = clauses.keySet().toArray(new Expr[size]);
+            bodies = clauses.values().toArray(new Expr[size]);
+            scopes = clauseScopes != null ? clauseScopes : new Scope[size];
+
+            List<Node> nodes = new ArrayList<>();
+            int i = 0;
+            while (i < size) {
+                int end = i + 1;
+                if (patterns[i].getConstant() != null) {
+                    while (end < size && patterns[end].getConstant() != null)
+                        end++;
+                    nodes.add(new LiteralTable(i, end));
+                } else if (isTypeSwitchable(patterns[i])) {
+                    while (end < size && isTypeSwitchable(patterns[end]))
+                        end++;
+                    nodes.add(new TypeSwitch(i, end));
+                } else if (patterns[i] instanceof ListExpr) {
+                    nodes.add(new ArityCheck(i, ListObj.class, ((ListExpr) patterns[i]).getArity()));
+                } else if (patterns[i] instanceof TupleExpr) {
+                    nodes.add(new ArityCheck(i, TupleObj.class, ((TupleExpr) patterns[i]).getArity()));
+                } else {
+                    nodes.add(new Probe(i));
+                }
+                i = end;
+            }
+            this.nodes = nodes.toArray(new Node[0]);
+        }
+
+        /**
+         * Binds the given clause's pattern to the value and evaluates its body, returning null if the pattern does
+         * not match.
+         */
+        Obj run(Interpreter interpreter, int i, Obj value) {
+            Scope scope = scopes[i];
+            interpreter.getEnv().peekFrame().setPosition(MatchExpr.this, 0);
+            interpreter.getEnv().pushFrame("<case>", scope);
+            Obj result = null;
+            if (patterns[i].match(interpreter, interpreter.getEnv().peekFrame(), value, DefinitionType.ALWAYS_NEW) != null) {
+                result = interpreter.next(bodies[i]);
+            }
+            interpreter.getEnv().popFrame(scope);
+            return result;
+        }
+
+        /**
+         * Returns whether the given clause's type pattern matches the value, without binding it.
+         */
+        boolean matchesType(Interpreter interpreter, int i, Obj value) {
+            Scope scope = scopes[i];
+            interpreter.getEnv().pushFrame("<case>", scope);
+            try {
+                return ((TypePatternExpr) patterns[i]).matchesType(interpreter, value);
+            } finally {
+                interpreter.getEnv().popFrame(scope);
+            }
+        }
+
+        private boolean isTypeSwitchable(Expr pattern) {
+            return pattern instanceof TypePatternExpr && ((TypePatternExpr) pattern).getLeft() instanceof NameExpr;
+        }
+
+        /**
+         * Selects among clauses whose patterns are literals by looking the value up in a table.
+         */
+        private class LiteralTable implements Node {
+            private final Map<Obj, Integer> table = new HashMap<>();
+            private final List<Class<?>> classes = new ArrayList<>();
+
+            LiteralTable(int start, int end) {
+                for (int i = start; i < end; i++) {
+                    Obj constant = patterns[i].getConstant();
+                    table.putIfAbsent(constant, i);
+                    if (!classes.contains(constant.getClass()))
+                        classes.add(constant.getClass());
+                }
+            }
+
+            @Override
+            public int select(Interpreter interpreter, Obj value) {
+                if (!classes.contains(value.getClass()))
+                    return -1;
+                Integer i = table.get(value);
+                return i != null ? i : -1;
+            }
+        }
+
+        /**
+         * Selects among clauses whose patterns are type patterns by the value's class, remembering the clause
+         * selected for each class until a class name may have been rebound.
+         */
+        private class TypeSwitch implements Node {
+            private final int start;
+            private final int end;
+            private volatile TypeCache cache = new TypeCache(ClassObj.getBindingVersion());
+
+            TypeSwitch(int start, int end) {
+                this.start = start;
+                this.end = end;
+            }
+
+            @Override
+            public int select(Interpreter interpreter, Obj value) {
+                TypeCache cache = this.cache;
+                int version = ClassObj.getBindingVersion();
+                if (cache.bindingVersion != version) {
+                    this.cache = cache = new TypeCache(version);
+                }
+
+                ClassObj type = value.getType();
+                Integer cached = cache.selected.get(type);
+                if (cached != null)
+                    return cached;
+
+                int selected = -1;
+                for (int i = start; i < end; i++) {
+                    if (matchesType(interpreter, i, value)) {
+                        selected = i;
+                        break;
+                    }
+                }
+                cache.selected.put(type, selected);
+                return selected;
+            }
+        }
+
+        /**
+         * The clauses a type switch selected for each class while class names had the given binding version.
+         */
+        private class TypeCache {
+            private final int bindingVersion;
+            private final Map<ClassObj, Integer> selected = new ConcurrentHashMap<>();
+
+            TypeCache(int bindingVersion) {
+                this.bindingVersion = bindingVersion;
+            }
+        }
+
+        /**
+         * Skips a list or tuple pattern when the value is not a list or tuple with enough items.
+         */
+        private class ArityCheck implements Node {
+            private final int index;
+            private final Class<? extends Obj> type;
+            private final int arity;
+
+            ArityCheck(int index, Class<? extends Obj> type, int arity) {
+                this.index = index;
+                this.type = type;
+                this.arity = arity;
+            }
+
+            @Override
+            public int select(Interpreter interpreter, Obj value) {
+                if (value instanceof ListObj && type == ListObj.class) {
+                    return ((ListObj) value).size() >= arity ? index : -1;
+                } else if (value instanceof TupleObj && type == TupleObj.class) {
+                    return ((TupleObj) value).size() >= arity ? index : -1;
+                } else {
+                    return -1;
+                }
+            }
+        }
+
+        /**
+         * Selects a clause that can only be checked by binding it.
+         */
+        private class Probe implements Node {
+            private final int index;
+
+            Probe(int index) {
+                this.index = index;
+            }
+
+            @Override
+            public int select(Interpreter interpreter, Obj value) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * A node of a match expression's decision tree.
+     */
+    private interface Node {
+        /**
+         * Returns the index of the clause this node selects for the given value, or -1 if none of its clauses can
+         * match.
+         */
+        int select(Interpreter interpreter, Obj value);
+    }
 }
@@ -23,9 +23,16 @@
 package me.abje.lingua.parser.expr;
 
 import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.MemberCache;
 import me.abje.lingua.interpreter.obj.NullObj;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * An object member access expression, in the form of <code>left.name</code>.
@@ -34,7 +41,7 @@ public class MemberAccessExpr extends Expr {
     /**
      * The left side of the expression -- the object which contains the member to be accessed.
      */
-    private final Expr left;
+    private Expr left;
 
     /**
      * The name of the member.
@@ -46,6 +53,11 @@ public class MemberAccessExpr extends Expr {
      */
     private final boolean nullable;
 
+    /**
+     * The inline cache for this access.
+     */
+    private final MemberCache cache;
+
     /**
      * Creates a new member access expression.
      *
@@ -58,6 +70,7 @@ public class MemberAccessExpr extends Expr {
         this.left = left;
         this.name = name;
         this.nullable = nullable;
+        this.cache = new MemberCache(name);
     }
 
     @Override
@@ -65,15 +78,32 @@ public class MemberAccessExpr extends Expr {
         if (nullable) {
             Obj leftObj = interpreter.next(left);
             if (leftObj != NullObj.NULL) {
-                return leftObj.getMember(interpreter, name);
+                return cache.get(interpreter, leftObj);
             } else {
                 return NullObj.NULL;
             }
         } else {
-            return interpreter.next(left).getMember(interpreter, name);
+            return cache.get(interpreter, interpreter.next(left));
         }
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        left = optimizer.optimize(left);
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        left.resolve(resolver);
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.compile(left);
+        compiler.emit(Opcodes.GET_MEMBER, compiler.constant(cache), nullable ? 1 : 0);
+    }
+
     /**
      * Returns the left side of the expression.
      */
@@ -88,6 +118,13 @@ public class MemberAccessExpr extends Expr {
         return name;
     }
 
+    /**
+     * Returns the inline cache for this access.
+     */
+    public MemberCache getCache() {
+        return cache;
+    }
+
     /**
      * Returns whether this member access is a nullable access (returns null if left side is null).
      */
@@ -116,6 +153,14 @@ public class MemberAccessExpr extends Expr {
         return left + "." + name;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.MEMBER_ACCESS, this);
+        writer.writeExpr(left);
+        writer.writeString(name);
+        writer.writeBoolean(nullable);
+    }
+
     @Override
     public String toString() {
         return getPath();
@@ -23,8 +23,15 @@
 package me.abje.lingua.parser.expr;
 
 import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.MemberCache;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * A member set expression, in the form of <code>left.name = value</code>.
@@ -33,7 +40,7 @@ public class MemberSetExpr extends Expr {
     /**
      * The left side of the expression -- the object which contains the member to be set.
      */
-    private final Expr left;
+    private Expr left;
 
     /**
      * The name of the member to be set.
@@ -43,7 +50,12 @@ public class MemberSetExpr extends Expr {
     /**
      * The value to set the member to.
      */
-    private final Expr value;
+    private Expr value;
+
+    /**
+     * The inline cache for this assignment.
+     */
+    private final MemberCache cache;
 
     /**
      * Creates a new member set expression.
@@ -57,16 +69,37 @@ public class MemberSetExpr extends Expr {
         this.left = left;
         this.name = name;
         this.value = value;
+        this.cache = new MemberCache(name);
     }
 
     @Override
     public Obj evaluate(Interpreter interpreter) {
         Obj leftObj = interpreter.next(left);
         Obj valueObj = interpreter.next(value);
-        leftObj.setMember(interpreter, name, valueObj);
+        cache.set(interpreter, leftObj, valueObj);
         return valueObj;
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        left = optimizer.optimize(left);
+        value = optimizer.optimize(value);
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        left.resolve(resolver);
+        value.resolve(resolver);
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.compile(left);
+        compiler.compile(value);
+        compiler.emit(Opcodes.SET_MEMBER, compiler.constant(cache));
+    }
+
     /**
      * Returns the left side of the expression.
      */
@@ -106,6 +139,14 @@ public class MemberSetExpr extends Expr {
         return result;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.MEMBER_SET, this);
+        writer.writeExpr(left);
+        writer.writeString(name);
+        writer.writeExpr(value);
+    }
+
     @Override
     public String toString() {
         return left + "." + name + " = " + value;
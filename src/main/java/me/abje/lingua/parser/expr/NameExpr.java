@@ -25,8 +25,17 @@ package me.abje.lingua.parser.expr;
 import me.abje.lingua.interpreter.Environment;
 import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.jit.LoadNode;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.jit.NodeCompiler;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.LexicalAddress;
+import me.abje.lingua.resolver.Resolver;
 import me.abje.lingua.util.DefinitionType;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * A name expression, in the form of <code>xyz</code>.
@@ -37,6 +46,11 @@ public class NameExpr extends Expr {
      */
     private final String value;
 
+    /**
+     * The lexical address of this name, or null if it has not been resolved.
+     */
+    private LexicalAddress address;
+
     /**
      * Creates a new name expression.
      *
@@ -54,6 +68,19 @@ public class NameExpr extends Expr {
         return value;
     }
 
+    /**
+     * Returns the lexical address of this name, or null if it has not been resolved.
+     */
+    public LexicalAddress getAddress() {
+        return address;
+    }
+
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.NAME, this);
+        writer.writeString(value);
+    }
+
     @Override
     public String toString() {
         return value;
@@ -61,17 +88,67 @@ public class NameExpr extends Expr {
 
     @Override
     public Obj evaluate(Interpreter interpreter) {
-        return interpreter.getEnv().get(value);
+        if (address != null)
+            return interpreter.getEnv().get(address);
+        else
+            return interpreter.getEnv().get(value);
     }
 
     @Override
     public Obj match(Interpreter interpreter, Environment.Frame frame, Obj obj, DefinitionType type) {
         if (!value.equals("_")) {
-            interpreter.getEnv().update(value, obj, type);
+            if (address != null)
+                interpreter.getEnv().update(address, obj, type);
+            else
+                interpreter.getEnv().update(value, obj, type);
         }
         return obj;
     }
 
+    @Override
+    public void resolve(Resolver resolver) {
+        resolver.reference(value, address -> this.address = address);
+    }
+
+    @Override
+    public void resolvePattern(Resolver resolver, DefinitionType type) {
+        if (!value.equals("_")) {
+            if (type != DefinitionType.NEVER_NEW)
+                resolver.declare(value);
+            else
+                resolver.assign();
+            resolve(resolver);
+        }
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        if (address != null)
+            compiler.emit(Opcodes.LOAD, compiler.constant(address));
+        else
+            compiler.emit(Opcodes.LOAD_NAME, compiler.constant(value));
+    }
+
+    @Override
+    public Node specialize(NodeCompiler compiler) {
+        return new LoadNode(value, address);
+    }
+
+    /**
+     * Compiles a store of the value on top of the stack to this name. The value is left on the stack.
+     *
+     * @param compiler The compiler to emit code with.
+     * @param type     The definition's type.
+     */
+    public void compileStore(Compiler compiler, DefinitionType type) {
+        if (!value.equals("_")) {
+            if (address != null)
+                compiler.emit(Opcodes.STORE, compiler.constant(address), type.ordinal());
+            else
+                compiler.emit(Opcodes.STORE_NAME, compiler.constant(value), type.ordinal());
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
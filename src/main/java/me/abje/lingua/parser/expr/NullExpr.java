@@ -26,8 +26,15 @@ import me.abje.lingua.interpreter.Environment;
 import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.NullObj;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.jit.ConstantNode;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.jit.NodeCompiler;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
 import me.abje.lingua.util.DefinitionType;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * A null literal expression.
@@ -37,11 +44,26 @@ public class NullExpr extends Expr {
         super(token);
     }
 
+    @Override
+    public Obj getConstant() {
+        return NullObj.NULL;
+    }
+
     @Override
     public Obj evaluate(Interpreter interpreter) {
         return NullObj.NULL;
     }
 
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.emit(Opcodes.CONST, compiler.constant(NullObj.NULL));
+    }
+
+    @Override
+    public Node specialize(NodeCompiler compiler) {
+        return new ConstantNode(NullObj.NULL);
+    }
+
     @Override
     public Obj match(Interpreter interpreter, Environment.Frame frame, Obj obj, DefinitionType type) {
         if (obj instanceof NullObj)
@@ -59,6 +81,11 @@ public class NullExpr extends Expr {
         return 0;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.NULL_LITERAL, this);
+    }
+
     @Override
     public String toString() {
         return "null";
@@ -27,17 +27,24 @@ import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.InterpreterException;
 import me.abje.lingua.interpreter.obj.NumberObj;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.jit.ConstantNode;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.jit.NodeCompiler;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
 import me.abje.lingua.util.DefinitionType;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * A number literal expression.
  */
 public class NumberExpr extends Expr {
     /**
-     * The float value of this number.
+     * The value of this number. Created once, so that evaluating the literal never allocates.
      */
-    private final float value;
+    private final NumberObj value;
 
     /**
      * Creates a new number literal expression.
@@ -46,11 +53,17 @@ public class NumberExpr extends Expr {
      */
     public NumberExpr(Token token, String value) {
         super(token);
+        NumberObj parsed;
         try {
-            this.value = Float.parseFloat(value);
+            parsed = NumberObj.of(Long.parseLong(value));
         } catch (NumberFormatException e) {
-            throw new InterpreterException("ConversionException", "invalid number");
+            try {
+                parsed = NumberObj.of(Double.parseDouble(value));
+            } catch (NumberFormatException e2) {
+                throw new InterpreterException("ConversionException", "invalid number");
+            }
         }
+        this.value = parsed;
     }
 
     /**
@@ -58,31 +71,57 @@ public class NumberExpr extends Expr {
      *
      * @param value The value of the number.
      */
-    public NumberExpr(Token token, float value) {
+    public NumberExpr(Token token, NumberObj value) {
         super(token);
         this.value = value;
     }
 
     /**
-     * Returns the float value of this number.
+     * Returns the value of this number.
      */
-    public float getValue() {
+    public NumberObj getValue() {
         return value;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        if (value.isIntegral()) {
+            writer.writeHeader(ModuleFormat.INTEGER, this);
+            writer.writeLong(value.longValue());
+        } else {
+            writer.writeHeader(ModuleFormat.DECIMAL, this);
+            writer.writeDouble(value.doubleValue());
+        }
+    }
+
     @Override
     public String toString() {
         return String.valueOf(value);
     }
 
+    @Override
+    public Obj getConstant() {
+        return value;
+    }
+
     @Override
     public Obj evaluate(Interpreter interpreter) {
-        return NumberObj.of(value);
+        return value;
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.emit(Opcodes.CONST, compiler.constant(value));
+    }
+
+    @Override
+    public Node specialize(NodeCompiler compiler) {
+        return new ConstantNode(value);
     }
 
     @Override
     public Obj match(Interpreter interpreter, Environment.Frame frame, Obj obj, DefinitionType type) {
-        if (obj instanceof NumberObj && Float.compare(((NumberObj) obj).getValue(), value) == 0)
+        if (value.equals(obj))
             return obj;
         else
             return null;
@@ -95,11 +134,11 @@ public class NumberExpr extends Expr {
 
         NumberExpr that = (NumberExpr) o;
 
-        return Float.compare(that.value, value) == 0;
+        return value.equals(that.value);
     }
 
     @Override
     public int hashCode() {
-        return (value != +0.0f ? Float.floatToIntBits(value) : 0);
+        return value.hashCode();
     }
 }
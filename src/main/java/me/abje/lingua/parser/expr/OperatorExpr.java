@@ -25,7 +25,21 @@ package me.abje.lingua.parser.expr;
 import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.InterpreterException;
 import me.abje.lingua.interpreter.obj.*;
+import me.abje.lingua.jit.ArithmeticNode;
+import me.abje.lingua.jit.CompareNode;
+import me.abje.lingua.jit.LogicalNode;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.jit.NodeCompiler;
+import me.abje.lingua.jit.OperatorNode;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.parser.expr.operation.OperationNode;
+import me.abje.lingua.parser.expr.operation.UninitializedNode;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * A binary operator expression, in the form of <code>left + right</code>.
@@ -34,12 +48,17 @@ public class OperatorExpr extends Expr {
     /**
      * The left expression.
      */
-    private final Expr left;
+    private Expr left;
 
     /**
      * The right expression.
      */
-    private final Expr right;
+    private Expr right;
+
+    /**
+     * The node which applies this expression's operator. Replaces itself as it sees operands.
+     */
+    private OperationNode operation = UninitializedNode.INSTANCE;
 
     /**
      * Creates a new operator expression.
@@ -82,6 +101,13 @@ public class OperatorExpr extends Expr {
         return right;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.OPERATOR, this);
+        writer.writeExpr(left);
+        writer.writeExpr(right);
+    }
+
     @Override
     public String toString() {
         return left + " " + getToken().getValue() + " " + right;
@@ -89,68 +115,254 @@ public class OperatorExpr extends Expr {
 
     @Override
     public Obj evaluate(Interpreter interpreter) {
-        try {
-            switch (getToken().getType()) {
-                case PLUS: {
-                    Obj leftObj = interpreter.next(left);
-                    Obj rightObj = interpreter.next(right);
-                    if (leftObj instanceof NumberObj && rightObj instanceof NumberObj) {
-                        return NumberObj.of(((NumberObj) leftObj).getValue() + ((NumberObj) rightObj).getValue());
-                    } else {
-                        return new StringObj(leftObj.toString() + rightObj.toString());
-                    }
-                }
-                case MINUS:
-                    return NumberObj.of(((NumberObj) next(left, interpreter)).getValue() -
-                            ((NumberObj) next(right, interpreter)).getValue());
-                case TIMES:
-                    return NumberObj.of(((NumberObj) next(left, interpreter)).getValue() *
-                            ((NumberObj) next(right, interpreter)).getValue());
-                case DIVIDE:
-                    return NumberObj.of(((NumberObj) next(left, interpreter)).getValue() /
-                            ((NumberObj) next(right, interpreter)).getValue());
-                case POW:
-                    return NumberObj.of((float) Math.pow(((NumberObj) next(left, interpreter)).getValue(),
-                            ((NumberObj) next(right, interpreter)).getValue()));
-                case EQEQ:
-                    return BooleanObj.of(interpreter.next(left).equals(interpreter.next(right)));
-                case NEQ:
-                    return BooleanObj.of(!interpreter.next(left).equals(interpreter.next(right)));
-                case LT:
-                    return BooleanObj.of(((NumberObj) next(left, interpreter)).getValue() <
-                            ((NumberObj) next(right, interpreter)).getValue());
-                case LTE:
-                    return BooleanObj.of(((NumberObj) next(left, interpreter)).getValue() <=
-                            ((NumberObj) next(right, interpreter)).getValue());
-                case GT:
-                    return BooleanObj.of(((NumberObj) next(left, interpreter)).getValue() >
-                            ((NumberObj) next(right, interpreter)).getValue());
-                case GTE:
-                    return BooleanObj.of(((NumberObj) next(left, interpreter)).getValue() >=
-                            ((NumberObj) next(right, interpreter)).getValue());
-                case ANDAND:
-                    return BooleanObj.of(interpreter.next(left).isTruthy() && interpreter.next(right).isTruthy());
-                case OROR:
-                    return BooleanObj.of(interpreter.next(left).isTruthy() || interpreter.next(right).isTruthy());
-                case IS:
-                    return BooleanObj.of(interpreter.next(left).getType().isSubclassOf(interpreter.next(right)));
-                case ELVIS: {
-                    Obj leftObj = interpreter.next(left);
-                    if (leftObj != NullObj.NULL)
-                        return leftObj;
-                    else
-                        return interpreter.next(right);
-                }
-                default:
-                    throw new InterpreterException("InvalidOperationException", "invalid operator", interpreter);
+        switch (getToken().getType()) {
+            case ANDAND:
+                return BooleanObj.of(interpreter.next(left).isTruthy() && interpreter.next(right).isTruthy());
+            case OROR:
+                return BooleanObj.of(interpreter.next(left).isTruthy() || interpreter.next(right).isTruthy());
+            case ELVIS: {
+                Obj leftObj = interpreter.next(left);
+                if (leftObj != NullObj.NULL)
+                    return leftObj;
+                else
+                    return interpreter.next(right);
             }
-        } catch (ClassCastException e) {
-            throw new InterpreterException("CallException", "invalid type", interpreter);
+            default:
+                return operation.execute(interpreter, this, interpreter.next(left), interpreter.next(right));
+        }
+    }
+
+    /**
+     * Returns the node which applies this expression's operator.
+     */
+    public OperationNode getOperation() {
+        return operation;
+    }
+
+    /**
+     * Replaces the node which applies this expression's operator.
+     *
+     * @param operation The new node.
+     */
+    public void replaceOperation(OperationNode operation) {
+        this.operation = operation;
+    }
+
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        left = optimizer.optimize(left);
+        right = optimizer.optimize(right);
+        Obj leftObj = left.getConstant();
+        Obj rightObj = right.getConstant();
+        if (leftObj == null)
+            return this;
+
+        Token.Type type = getToken().getType();
+        switch (type) {
+            case ANDAND:
+                if (!leftObj.isTruthy())
+                    return optimizer.fold(this, BooleanObj.FALSE);
+                else if (rightObj != null)
+                    return optimizer.fold(this, BooleanObj.of(rightObj.isTruthy()));
+                return this;
+            case OROR:
+                if (leftObj.isTruthy())
+                    return optimizer.fold(this, BooleanObj.TRUE);
+                else if (rightObj != null)
+                    return optimizer.fold(this, BooleanObj.of(rightObj.isTruthy()));
+                return this;
+            case ELVIS:
+                return optimizer.prune(this, leftObj == NullObj.NULL ? right : left);
+            case PLUS:
+            case EQEQ:
+            case NEQ:
+                break;
+            case MINUS:
+            case TIMES:
+            case DIVIDE:
+            case POW:
+            case LT:
+            case LTE:
+            case GT:
+            case GTE:
+                if (leftObj instanceof NumberObj && rightObj instanceof NumberObj)
+                    break;
+                return this;
+            default:
+                return this;
         }
+        if (rightObj == null)
+            return this;
+        return optimizer.fold(this, apply(null, type, leftObj, rightObj));
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        left.resolve(resolver);
+        right.resolve(resolver);
     }
 
-    private Obj next(Expr expr, Interpreter interpreter) {
-        return interpreter.next(expr);
+    @Override
+    public void compile(Compiler compiler) {
+        switch (getToken().getType()) {
+            case ANDAND: {
+                compiler.compile(left);
+                int otherwise = compiler.emitJump(Opcodes.JUMP_IF_FALSE);
+                compiler.compile(right);
+                int otherwise2 = compiler.emitJump(Opcodes.JUMP_IF_FALSE);
+                compiler.emit(Opcodes.CONST, compiler.constant(BooleanObj.TRUE));
+                int end = compiler.emitJump(Opcodes.JUMP);
+                compiler.adjustDepth(-1);
+                compiler.patchJump(otherwise);
+                compiler.patchJump(otherwise2);
+                compiler.emit(Opcodes.CONST, compiler.constant(BooleanObj.FALSE));
+                compiler.patchJump(end);
+                break;
+            }
+            case OROR: {
+                compiler.compile(left);
+                int otherwise = compiler.emitJump(Opcodes.JUMP_IF_TRUE);
+                compiler.compile(right);
+                int otherwise2 = compiler.emitJump(Opcodes.JUMP_IF_TRUE);
+                compiler.emit(Opcodes.CONST, compiler.constant(BooleanObj.FALSE));
+                int end = compiler.emitJump(Opcodes.JUMP);
+                compiler.adjustDepth(-1);
+                compiler.patchJump(otherwise);
+                compiler.patchJump(otherwise2);
+                compiler.emit(Opcodes.CONST, compiler.constant(BooleanObj.TRUE));
+                compiler.patchJump(end);
+                break;
+            }
+            case ELVIS: {
+                compiler.compile(left);
+                int end = compiler.emitJump(Opcodes.JUMP_IF_NOT_NULL);
+                compiler.compile(right);
+                compiler.patchJump(end);
+                break;
+            }
+            case PLUS:
+                compileBinary(compiler, Opcodes.ADD);
+                break;
+            case MINUS:
+                compileBinary(compiler, Opcodes.SUBTRACT);
+                break;
+            case TIMES:
+                compileBinary(compiler, Opcodes.MULTIPLY);
+                break;
+            case LT:
+                compileBinary(compiler, Opcodes.LESS);
+                break;
+            case LTE:
+                compileBinary(compiler, Opcodes.LESS_EQUAL);
+                break;
+            case GT:
+                compileBinary(compiler, Opcodes.GREATER);
+                break;
+            case GTE:
+                compileBinary(compiler, Opcodes.GREATER_EQUAL);
+                break;
+            default:
+                compiler.compile(left);
+                compiler.compile(right);
+                compiler.emit(Opcodes.BINARY, compiler.constant(getToken().getType()));
+        }
+    }
+
+    @Override
+    public Node specialize(NodeCompiler compiler) {
+        if (getToken().getType() == Token.Type.ELVIS)
+            return super.specialize(compiler);
+
+        Node leftNode = compiler.compile(left);
+        Node rightNode = compiler.compile(right);
+        boolean generic = compiler.getProfile().isGeneric(this);
+        switch (getToken().getType()) {
+            case ANDAND:
+                return new LogicalNode(true, leftNode, rightNode);
+            case OROR:
+                return new LogicalNode(false, leftNode, rightNode);
+            case PLUS:
+            case MINUS:
+            case TIMES:
+            case DIVIDE:
+            case POW:
+                if (!generic)
+                    return new ArithmeticNode(this, leftNode, rightNode, compiler.getProfile());
+                break;
+            case LT:
+            case LTE:
+            case GT:
+            case GTE:
+                if (!generic)
+                    return new CompareNode(this, leftNode, rightNode, compiler.getProfile());
+                break;
+        }
+        return new OperatorNode(this, leftNode, rightNode);
+    }
+
+    private void compileBinary(Compiler compiler, int opcode) {
+        compiler.compile(left);
+        compiler.compile(right);
+        compiler.emit(opcode);
+    }
+
+    /**
+     * Applies a binary operator that always evaluates both of its operands.
+     *
+     * @param interpreter The interpreter.
+     * @param type        The operator's token type.
+     * @param leftObj     The left operand.
+     * @param rightObj    The right operand.
+     * @return The result of the operation.
+     */
+    public static Obj apply(Interpreter interpreter, Token.Type type, Obj leftObj, Obj rightObj) {
+        switch (type) {
+            case PLUS:
+                if (leftObj instanceof NumberObj && rightObj instanceof NumberObj) {
+                    return ((NumberObj) leftObj).plus((NumberObj) rightObj);
+                } else {
+                    return new StringObj(leftObj.toString() + rightObj.toString());
+                }
+            case MINUS:
+                return number(interpreter, leftObj).minus(number(interpreter, rightObj));
+            case TIMES:
+                return number(interpreter, leftObj).times(number(interpreter, rightObj));
+            case DIVIDE:
+                return number(interpreter, leftObj).dividedBy(number(interpreter, rightObj));
+            case POW:
+                return number(interpreter, leftObj).pow(number(interpreter, rightObj));
+            case EQEQ:
+                return BooleanObj.of(leftObj.equals(rightObj));
+            case NEQ:
+                return BooleanObj.of(!leftObj.equals(rightObj));
+            case LT:
+                return BooleanObj.of(number(interpreter, leftObj).lessThan(number(interpreter, rightObj)));
+            case LTE:
+                return BooleanObj.of(number(interpreter, leftObj).lessThanOrEqual(number(interpreter, rightObj)));
+            case GT:
+                return BooleanObj.of(number(interpreter, leftObj).greaterThan(number(interpreter, rightObj)));
+            case GTE:
+                return BooleanObj.of(number(interpreter, leftObj).greaterThanOrEqual(number(interpreter, rightObj)));
+            case IS:
+                return BooleanObj.of(leftObj.getType().isSubclassOf(rightObj));
+            default:
+                throw new InterpreterException("InvalidOperationException", "invalid operator", interpreter);
+        }
+    }
+
+    /**
+     * Returns an operand that must be a number.
+     *
+     * @param interpreter The interpreter.
+     * @param obj         The operand.
+     * @return The operand.
+     * @throws InterpreterException If the operand is not a number.
+     */
+    private static NumberObj number(Interpreter interpreter, Obj obj) {
+        if (obj instanceof NumberObj)
+            return (NumberObj) obj;
+        else
+            throw new InterpreterException("CallException", "invalid type", interpreter);
     }
 
     @Override
@@ -27,6 +27,12 @@ import me.abje.lingua.interpreter.InterpreterException;
 import me.abje.lingua.interpreter.obj.NumberObj;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * A postfix operator expression, in the form of <code>expr++</code>.
@@ -35,7 +41,7 @@ public class PostfixExpr extends Expr {
     /**
      * The left-side expression operated on by this operator.
      */
-    private final Expr expr;
+    private Expr expr;
 
     /**
      * The type of the operator.
@@ -68,6 +74,13 @@ public class PostfixExpr extends Expr {
         return type;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.POSTFIX, this);
+        writer.writeExpr(expr);
+        writer.writeType(type);
+    }
+
     @Override
     public String toString() {
         return String.valueOf(expr) + type;
@@ -75,15 +88,31 @@ public class PostfixExpr extends Expr {
 
     @Override
     public Obj evaluate(Interpreter interpreter) {
+        return apply(interpreter, type, interpreter.next(expr));
+    }
+
+    /**
+     * Applies a postfix operator.
+     *
+     * @param interpreter The interpreter.
+     * @param type        The operator's type.
+     * @param obj         The operand.
+     * @return The result of the operation.
+     */
+    public static Obj apply(Interpreter interpreter, Token.Type type, Obj obj) {
         if (type == Token.Type.BANG) {
-            NumberObj operand = (NumberObj) interpreter.next(expr);
-            int current = (int) operand.getValue();
-            int result = 1;
-            if (current == 0) {
-                return NumberObj.of(1);
-            } else while (current > 0) {
-                result *= current;
-                current -= 1;
+            long n = ((NumberObj) obj).longValue();
+            long result = 1;
+            for (long i = 2; i <= n; i++) {
+                if (Math.multiplyHigh(result, i) != 0 || result * i < 0) {
+                    // Overflowed a long; finish in floating point.
+                    double product = result;
+                    for (; i <= n; i++) {
+                        product *= i;
+                    }
+                    return NumberObj.of(product);
+                }
+                result *= i;
             }
             return NumberObj.of(result);
         }
@@ -91,6 +120,26 @@ public class PostfixExpr extends Expr {
         throw new InterpreterException("InvalidOperationException", "invalid postfix operator", interpreter);
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        expr = optimizer.optimize(expr);
+        Obj obj = expr.getConstant();
+        if (type != Token.Type.BANG || !optimizer.isFoldableFactorial(obj))
+            return this;
+        return optimizer.fold(this, apply(null, type, obj));
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        expr.resolve(resolver);
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.compile(expr);
+        compiler.emit(Opcodes.POSTFIX, compiler.constant(type));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
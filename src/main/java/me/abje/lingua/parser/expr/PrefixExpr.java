@@ -28,6 +28,12 @@ import me.abje.lingua.interpreter.obj.BooleanObj;
 import me.abje.lingua.interpreter.obj.NumberObj;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * A prefix operator expression, in the form of <code>++operand</code>.
@@ -41,7 +47,7 @@ public class PrefixExpr extends Expr {
     /**
      * The right-side expression operated on by this operator.
      */
-    private final Expr operand;
+    private Expr operand;
 
     /**
      * Creates a new prefix operator expression.
@@ -69,6 +75,13 @@ public class PrefixExpr extends Expr {
         return operand;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.PREFIX, this);
+        writer.writeType(type);
+        writer.writeExpr(operand);
+    }
+
     @Override
     public String toString() {
         return type + String.valueOf(operand);
@@ -76,11 +89,22 @@ public class PrefixExpr extends Expr {
 
     @Override
     public Obj evaluate(Interpreter interpreter) {
-        Obj obj = interpreter.next(operand);
+        return apply(interpreter, type, interpreter.next(operand));
+    }
+
+    /**
+     * Applies a prefix operator.
+     *
+     * @param interpreter The interpreter.
+     * @param type        The operator's type.
+     * @param obj         The operand.
+     * @return The result of the operation.
+     */
+    public static Obj apply(Interpreter interpreter, Token.Type type, Obj obj) {
         switch (type) {
             case MINUS:
                 if (obj instanceof NumberObj) {
-                    return NumberObj.of(-((NumberObj) obj).getValue());
+                    return ((NumberObj) obj).negate();
                 } else {
                     throw new InterpreterException("CallException", "operand is not a number", interpreter);
                 }
@@ -97,6 +121,36 @@ public class PrefixExpr extends Expr {
         }
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        operand = optimizer.optimize(operand);
+        Obj obj = operand.getConstant();
+        switch (type) {
+            case MINUS:
+            case PLUS:
+                if (obj instanceof NumberObj)
+                    return optimizer.fold(this, apply(null, type, obj));
+                return this;
+            case BANG:
+                if (obj != null)
+                    return optimizer.fold(this, apply(null, type, obj));
+                return this;
+            default:
+                return this;
+        }
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        operand.resolve(resolver);
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.compile(operand);
+        compiler.emit(Opcodes.PREFIX, compiler.constant(type));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
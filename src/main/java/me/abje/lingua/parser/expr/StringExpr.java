@@ -26,8 +26,16 @@ import me.abje.lingua.interpreter.Environment;
 import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.interpreter.obj.StringObj;
+import me.abje.lingua.jit.ConstantNode;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.jit.NodeCompiler;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
 import me.abje.lingua.util.DefinitionType;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * A string literal expression.
@@ -38,14 +46,29 @@ public class StringExpr extends Expr {
      */
     private final String value;
 
+    /**
+     * The string this expression evaluates to. Strings are immutable, so one object is shared by every evaluation.
+     */
+    private StringObj obj;
+
     /**
      * Creates a new string literal expression.
      *
      * @param value The expression's value.
      */
     public StringExpr(Token token, String value) {
+        this(token, new StringObj(value));
+    }
+
+    /**
+     * Creates a new string literal expression that evaluates to the given string.
+     *
+     * @param obj The string.
+     */
+    public StringExpr(Token token, StringObj obj) {
         super(token);
-        this.value = value;
+        this.value = obj.getValue();
+        this.obj = obj;
     }
 
     /**
@@ -55,9 +78,37 @@ public class StringExpr extends Expr {
         return value;
     }
 
+    /**
+     * The string this expression evaluates to.
+     */
+    public StringObj getObj() {
+        return obj;
+    }
+
+    @Override
+    public Obj getConstant() {
+        return obj;
+    }
+
     @Override
     public Obj evaluate(Interpreter interpreter) {
-        return new StringObj(value);
+        return obj;
+    }
+
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        obj = optimizer.intern(obj);
+        return this;
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        compiler.emit(Opcodes.CONST, compiler.constant(obj));
+    }
+
+    @Override
+    public Node specialize(NodeCompiler compiler) {
+        return new ConstantNode(obj);
     }
 
     @Override
@@ -83,6 +134,12 @@ public class StringExpr extends Expr {
         return value.hashCode();
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.STRING, this);
+        writer.writeString(value);
+    }
+
     @Override
     public String toString() {
         return getToken().getValue();
@@ -27,14 +27,19 @@ import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.InterpreterException;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.resolver.Scope;
 import me.abje.lingua.util.DefinitionType;
 
-import java.util.Deque;
 import java.util.Map;
 
 public class TryCatchExpr extends Expr {
-    private final Expr body;
+    private Expr body;
     private final Map<Expr, Expr> clauses;
+    private Scope[] clauseScopes;
 
     public TryCatchExpr(Token token, Expr body, Map<Expr, Expr> clauses) {
         super(token);
@@ -44,28 +49,68 @@ public class TryCatchExpr extends Expr {
 
     @Override
     public Obj evaluate(Interpreter interpreter) {
+        Environment env = interpreter.getEnv();
+        Environment.Frame top = env.peekFrame();
         try {
             return body.evaluate(interpreter);
         } catch (InterpreterException e) {
             e.initialize(interpreter);
+            Environment.Frame oldTop = env.getOldTop();
+            env.setOldTop(env.peekFrame());
+            env.setTop(top);
+            top.setPosition(this, 0);
+            int i = 0;
             for (Map.Entry<Expr, Expr> clause : clauses.entrySet()) {
-                Deque<Environment.Frame> stack = interpreter.getEnv().getStack();
-                interpreter.getEnv().setOldStack(stack);
-                interpreter.getEnv().pushFrame("<catch>");
+                Scope scope = clauseScopes != null ? clauseScopes[i++] : null;
+                env.pushFrame("<catch>", scope);
                 Obj result = null;
-                if (clause.getKey().match(interpreter, interpreter.getEnv().getStack().peek(), e.getExceptionObj(), DefinitionType.ALWAYS_NEW) != null) {
+                if (clause.getKey().match(interpreter, env.peekFrame(), e.getExceptionObj(), DefinitionType.ALWAYS_NEW) != null) {
                     result = clause.getValue().evaluate(interpreter);
                 }
-                interpreter.getEnv().popFrame();
+                env.popFrame(scope);
 
-                if (result != null)
+                if (result != null) {
+                    env.setOldTop(oldTop);
                     return result;
+                }
             }
 
+            env.setOldTop(oldTop);
             throw e;
         }
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        body = optimizer.optimize(body);
+        clauses.replaceAll((pattern, handler) -> optimizer.optimize(handler));
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        body.resolve(resolver);
+        clauseScopes = new Scope[clauses.size()];
+        int i = 0;
+        for (Map.Entry<Expr, Expr> clause : clauses.entrySet()) {
+            clauseScopes[i++] = resolver.beginScope();
+            clause.getKey().resolvePattern(resolver, DefinitionType.ALWAYS_NEW);
+            clause.getValue().resolve(resolver);
+            resolver.endScope();
+        }
+    }
+
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.TRY_CATCH, this);
+        writer.writeExpr(body);
+        writer.writeInt(clauses.size());
+        clauses.forEach((pattern, handler) -> {
+            writer.writeExpr(pattern);
+            writer.writeExpr(handler);
+        });
+    }
+
     @Override
     public String toString() {
         return "try {...} catch {...}";
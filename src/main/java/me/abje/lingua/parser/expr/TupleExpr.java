@@ -29,7 +29,14 @@ import me.abje.lingua.interpreter.InterpreterException;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.interpreter.obj.TupleObj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.Annotation;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
 import me.abje.lingua.util.DefinitionType;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -42,6 +49,11 @@ public class TupleExpr extends Expr {
         this.items = items;
     }
 
+    public int getArity() {
+        int size = items.size();
+        return size > 0 && items.get(size - 1).hasAnnotation(Annotation.REST) ? size - 1 : size;
+    }
+
     @Override
     public Obj evaluate(Interpreter interpreter) {
         return new TupleObj(items.stream().map(interpreter::next).collect(Collectors.toList()));
@@ -53,7 +65,7 @@ public class TupleExpr extends Expr {
             TupleObj tuple = (TupleObj) obj;
             for (int i = 0; i < items.size(); i++) {
                 Expr item = items.get(i);
-                if (item.getAnnotations().contains("rest")) {
+                if (item.hasAnnotation(Annotation.REST)) {
                     if (i == items.size() - 1) {
                         if (tuple.size() < i || item.match(interpreter, frame, tuple.drop(i), type) == null) {
                             return null;
@@ -74,10 +86,44 @@ public class TupleExpr extends Expr {
         }
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        items.replaceAll(optimizer::optimize);
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        for (Expr item : items) {
+            item.resolve(resolver);
+        }
+    }
+
+    @Override
+    public void resolvePattern(Resolver resolver, DefinitionType type) {
+        for (Expr item : items) {
+            item.resolvePattern(resolver, type);
+        }
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        for (Expr item : items) {
+            compiler.compile(item);
+        }
+        compiler.emit(Opcodes.TUPLE, items.size());
+    }
+
     public List<Expr> getItems() {
         return items;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.TUPLE, this);
+        writer.writeExprs(items);
+    }
+
     @Override
     public String toString() {
         return "(" + Joiner.on(", ").join(items) + ")";
@@ -27,11 +27,16 @@ import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.InterpreterException;
 import me.abje.lingua.interpreter.obj.Obj;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.LexicalAddress;
+import me.abje.lingua.resolver.Resolver;
 import me.abje.lingua.util.DefinitionType;
 
 public class TypePatternExpr extends Expr {
     private final Expr left;
     private final String type;
+    private LexicalAddress typeAddress;
 
     public TypePatternExpr(Token token, Expr left, String type) {
         super(token);
@@ -39,6 +44,10 @@ public class TypePatternExpr extends Expr {
         this.type = type;
     }
 
+    public Expr getLeft() {
+        return left;
+    }
+
     @Override
     public Obj evaluate(Interpreter interpreter) {
         throw new InterpreterException("InvalidOperationException", "cannot evaluate type pattern");
@@ -46,13 +55,40 @@ public class TypePatternExpr extends Expr {
 
     @Override
     public Obj match(Interpreter interpreter, Environment.Frame frame, Obj obj, DefinitionType type) {
-        if (left.match(interpreter, frame, obj, type).getType().isSubclassOf(interpreter.getEnv().get(this.type))) {
+        if (left.match(interpreter, frame, obj, type).getType().isSubclassOf(typeObj(interpreter))) {
             return obj;
         } else {
             return null;
         }
     }
 
+    /**
+     * Returns whether the given object is an instance of this pattern's type, without binding anything.
+     *
+     * @param interpreter The interpreter.
+     * @param obj         The object to test.
+     */
+    public boolean matchesType(Interpreter interpreter, Obj obj) {
+        return obj.getType().isSubclassOf(typeObj(interpreter));
+    }
+
+    private Obj typeObj(Interpreter interpreter) {
+        return typeAddress != null ? interpreter.getEnv().get(typeAddress) : interpreter.getEnv().get(this.type);
+    }
+
+    @Override
+    public void resolvePattern(Resolver resolver, DefinitionType type) {
+        left.resolvePattern(resolver, type);
+        resolver.reference(this.type, address -> typeAddress = address);
+    }
+
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.TYPE_PATTERN, this);
+        writer.writeExpr(left);
+        writer.writeString(type);
+    }
+
     @Override
     public String toString() {
         return left + ": " + type;
@@ -25,7 +25,16 @@ package me.abje.lingua.parser.expr;
 import me.abje.lingua.interpreter.Interpreter;
 import me.abje.lingua.interpreter.obj.NullObj;
 import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.jit.Node;
+import me.abje.lingua.jit.NodeCompiler;
+import me.abje.lingua.jit.WhileNode;
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.optimizer.Optimizer;
+import me.abje.lingua.parser.ModuleFormat;
+import me.abje.lingua.parser.ModuleWriter;
+import me.abje.lingua.resolver.Resolver;
+import me.abje.lingua.vm.Compiler;
+import me.abje.lingua.vm.Opcodes;
 
 /**
  * A while loop expression.
@@ -34,12 +43,12 @@ public class WhileExpr extends Expr {
     /**
      * The loop condition.
      */
-    private final Expr condition;
+    private Expr condition;
 
     /**
      * The loop body.
      */
-    private final Expr body;
+    private Expr body;
 
     /**
      * Whether this loop is a do-while or while-do loop.
@@ -74,6 +83,43 @@ public class WhileExpr extends Expr {
         return NullObj.NULL;
     }
 
+    @Override
+    public Expr optimize(Optimizer optimizer) {
+        condition = optimizer.optimize(condition);
+        body = optimizer.optimize(body);
+        return this;
+    }
+
+    @Override
+    public void resolve(Resolver resolver) {
+        condition.resolve(resolver);
+        body.resolve(resolver);
+    }
+
+    @Override
+    public void compile(Compiler compiler) {
+        if (doWhile) {
+            compiler.emitFallback(this);
+            return;
+        }
+
+        int loop = compiler.loopLabel();
+        compiler.compile(condition);
+        int end = compiler.emitJump(Opcodes.JUMP_IF_FALSE);
+        compiler.compile(body);
+        compiler.emit(Opcodes.POP);
+        compiler.emitLoop(loop);
+        compiler.patchJump(end);
+        compiler.emit(Opcodes.CONST, compiler.constant(NullObj.NULL));
+    }
+
+    @Override
+    public Node specialize(NodeCompiler compiler) {
+        if (doWhile)
+            return super.specialize(compiler);
+        return new WhileNode(compiler.compile(condition), compiler.compile(body));
+    }
+
     /**
      * Returns the loop condition.
      */
@@ -113,6 +159,14 @@ public class WhileExpr extends Expr {
         return result;
     }
 
+    @Override
+    public void write(ModuleWriter writer) {
+        writer.writeHeader(ModuleFormat.WHILE, this);
+        writer.writeExpr(condition);
+        writer.writeExpr(body);
+        writer.writeBoolean(doWhile);
+    }
+
     @Override
     public String toString() {
         return "while (" + condition + ") {...}";
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.parser.expr.operation;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.BooleanObj;
+import me.abje.lingua.interpreter.obj.NumberObj;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.parser.expr.OperatorExpr;
+
+/**
+ * Compares two numbers. Becomes a {@link GenericOperationNode} when either operand is not a number.
+ */
+public abstract class NumberCompareNode extends OperationNode {
+    public static final NumberCompareNode LESS = new NumberCompareNode() {
+        @Override
+        protected boolean compare(NumberObj left, NumberObj right) {
+            return left.lessThan(right);
+        }
+    };
+
+    public static final NumberCompareNode LESS_EQUAL = new NumberCompareNode() {
+        @Override
+        protected boolean compare(NumberObj left, NumberObj right) {
+            return left.lessThanOrEqual(right);
+        }
+    };
+
+    public static final NumberCompareNode GREATER = new NumberCompareNode() {
+        @Override
+        protected boolean compare(NumberObj left, NumberObj right) {
+            return left.greaterThan(right);
+        }
+    };
+
+    public static final NumberCompareNode GREATER_EQUAL = new NumberCompareNode() {
+        @Override
+        protected boolean compare(NumberObj left, NumberObj right) {
+            return left.greaterThanOrEqual(right);
+        }
+    };
+
+    private NumberCompareNode() {
+    }
+
+    /**
+     * Compares two numbers.
+     *
+     * @param left  The left operand.
+     * @param right The right operand.
+     * @return The result of the comparison.
+     */
+    protected abstract boolean compare(NumberObj left, NumberObj right);
+
+    @Override
+    public Obj execute(Interpreter interpreter, OperatorExpr site, Obj left, Obj right) {
+        if (left instanceof NumberObj && right instanceof NumberObj)
+            return BooleanObj.of(compare((NumberObj) left, (NumberObj) right));
+        else
+            return replace(GenericOperationNode.INSTANCE, interpreter, site, left, right);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.parser.expr.operation;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.parser.expr.OperatorExpr;
+
+/**
+ * Applies an operator expression's operator to its evaluated operands. Each operator expression starts out with an
+ * {@link UninitializedNode}, which replaces itself with a node specialized to the operand types it sees. Specialized
+ * nodes check their assumptions and replace themselves with a more general node when they no longer hold, so a node
+ * only ever becomes more general.
+ */
+public abstract class OperationNode {
+    /**
+     * Applies the operator.
+     *
+     * @param interpreter The interpreter.
+     * @param site        The operator expression this node belongs to.
+     * @param left        The left operand.
+     * @param right       The right operand.
+     * @return The result.
+     */
+    public abstract Obj execute(Interpreter interpreter, OperatorExpr site, Obj left, Obj right);
+
+    /**
+     * Replaces this node in the given expression and applies the replacement.
+     *
+     * @param node        The replacement.
+     * @param interpreter The interpreter.
+     * @param site        The operator expression this node belongs to.
+     * @param left        The left operand.
+     * @param right       The right operand.
+     * @return The result.
+     */
+    protected Obj replace(OperationNode node, Interpreter interpreter, OperatorExpr site, Obj left, Obj right) {
+        site.replaceOperation(node);
+        return node.execute(interpreter, site, left, right);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.parser.expr.operation;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.NumberObj;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.interpreter.obj.StringObj;
+import me.abje.lingua.parser.expr.OperatorExpr;
+
+/**
+ * The node every operator expression starts out with. Chooses a specialization based on the operator and the first
+ * operands it sees.
+ */
+public class UninitializedNode extends OperationNode {
+    public static final UninitializedNode INSTANCE = new UninitializedNode();
+
+    private UninitializedNode() {
+    }
+
+    @Override
+    public Obj execute(Interpreter interpreter, OperatorExpr site, Obj left, Obj right) {
+        boolean numbers = left instanceof NumberObj && right instanceof NumberObj;
+        switch (site.getToken().getType()) {
+            case PLUS:
+                if (numbers)
+                    return replace(NumberAddNode.INSTANCE, interpreter, site, left, right);
+                else if (left instanceof StringObj)
+                    return replace(StringConcatNode.INSTANCE, interpreter, site, left, right);
+                else
+                    return replace(GenericAddNode.INSTANCE, interpreter, site, left, right);
+            case MINUS:
+                return replace(numbers ? NumberArithmeticNode.SUBTRACT : GenericOperationNode.INSTANCE,
+                        interpreter, site, left, right);
+            case TIMES:
+                return replace(numbers ? NumberArithmeticNode.MULTIPLY : GenericOperationNode.INSTANCE,
+                        interpreter, site, left, right);
+            case DIVIDE:
+                return replace(numbers ? NumberArithmeticNode.DIVIDE : GenericOperationNode.INSTANCE,
+                        interpreter, site, left, right);
+            case POW:
+                return replace(numbers ? NumberArithmeticNode.POW : GenericOperationNode.INSTANCE,
+                        interpreter, site, left, right);
+            case LT:
+                return replace(numbers ? NumberCompareNode.LESS : GenericOperationNode.INSTANCE,
+                        interpreter, site, left, right);
+            case LTE:
+                return replace(numbers ? NumberCompareNode.LESS_EQUAL : GenericOperationNode.INSTANCE,
+                        interpreter, site, left, right);
+            case GT:
+                return replace(numbers ? NumberCompareNode.GREATER : GenericOperationNode.INSTANCE,
+                        interpreter, site, left, right);
+            case GTE:
+                return replace(numbers ? NumberCompareNode.GREATER_EQUAL : GenericOperationNode.INSTANCE,
+                        interpreter, site, left, right);
+            default:
+                return replace(GenericOperationNode.INSTANCE, interpreter, site, left, right);
+        }
+    }
+}
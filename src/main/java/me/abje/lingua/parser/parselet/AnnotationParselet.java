@@ -23,6 +23,7 @@
 package me.abje.lingua.parser.parselet;
 
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.Annotation;
 import me.abje.lingua.parser.Parser;
 import me.abje.lingua.parser.expr.Expr;
 
@@ -33,7 +34,7 @@ public class AnnotationParselet implements PrefixParselet {
     @Override
     public Expr parse(Parser parser, Token token) {
         Expr next = parser.next();
-        next.getAnnotations().add(token.getValue());
+        next.addAnnotation(Annotation.of(token.getValue()));
         return next;
     }
 }
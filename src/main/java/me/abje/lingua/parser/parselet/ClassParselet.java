@@ -23,7 +23,6 @@
 package me.abje.lingua.parser.parselet;
 
 import me.abje.lingua.interpreter.obj.DefaultObjField;
-import me.abje.lingua.interpreter.obj.ObjField;
 import me.abje.lingua.lexer.Token;
 import me.abje.lingua.parser.ParseException;
 import me.abje.lingua.parser.Parser;
@@ -46,7 +45,7 @@ public class ClassParselet implements PrefixParselet {
         if (parser.match(Token.Type.COLON))
             superClassName = parser.read().getValue();
         parser.expect(Token.Type.OPEN_BRACE);
-        List<ObjField> fields = new ArrayList<>();
+        List<DefaultObjField> fields = new ArrayList<>();
         List<FunctionExpr> functions = new ArrayList<>();
         while (!parser.match(Token.Type.CLOSE_BRACE)) {
             Expr expr = parser.next();
@@ -23,6 +23,7 @@
 package me.abje.lingua.parser.parselet;
 
 import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.Annotation;
 import me.abje.lingua.parser.ParseException;
 import me.abje.lingua.parser.Parser;
 import me.abje.lingua.parser.expr.AssignmentExpr;
@@ -33,7 +34,7 @@ public class VarParselet implements PrefixParselet {
     public Expr parse(Parser parser, Token token) {
         Expr next = parser.next();
         if (next instanceof AssignmentExpr) {
-            next.getAnnotations().add("var");
+            next.addAnnotation(Annotation.VAR);
             return next;
         } else {
             throw new ParseException("invalid var declaration", next.getToken());
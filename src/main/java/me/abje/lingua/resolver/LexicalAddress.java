@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.resolver;
+
+/**
+ * The statically resolved location of a variable.
+ * <p>
+ * A variable may be declared in several enclosing scopes (and declarations are not guaranteed to have executed by the
+ * time the variable is read), so an address holds every candidate (depth, slot) pair from the innermost scope
+ * outwards. If no candidate is defined at runtime, the variable is either looked up directly in the globals frame or,
+ * if the module was not resolved against the globals frame, by name.
+ */
+public class LexicalAddress {
+    /**
+     * The variable's name.
+     */
+    private final String name;
+
+    /**
+     * The number of frames between the referencing frame and each candidate's frame.
+     */
+    private final int[] depths;
+
+    /**
+     * The slot of the variable in each candidate's frame, or for candidates reached through an upvalue of the
+     * frame's function, the upvalue's index encoded with {@link #upvalueSlot(int)}.
+     */
+    private final int[] slots;
+
+    /**
+     * The scope of each candidate's frame. Used to check that the runtime frames match the resolved ones.
+     */
+    private final Scope[] scopes;
+
+    /**
+     * Whether the outermost frame is the globals frame.
+     */
+    private final boolean global;
+
+    /**
+     * Creates a new lexical address.
+     *
+     * @param name   The variable's name.
+     * @param depths The depth of each candidate.
+     * @param slots  The slot of each candidate.
+     * @param scopes The scope of each candidate.
+     * @param global Whether the outermost frame is the globals frame.
+     */
+    public LexicalAddress(String name, int[] depths, int[] slots, Scope[] scopes, boolean global) {
+        this.name = name;
+        this.depths = depths;
+        this.slots = slots;
+        this.scopes = scopes;
+        this.global = global;
+    }
+
+    /**
+     * Returns the variable's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of candidates.
+     */
+    public int size() {
+        return depths.length;
+    }
+
+    /**
+     * Returns the depth of the given candidate.
+     *
+     * @param i The candidate's index.
+     */
+    public int getDepth(int i) {
+        return depths[i];
+    }
+
+    /**
+     * Returns the slot of the given candidate.
+     *
+     * @param i The candidate's index.
+     */
+    public int getSlot(int i) {
+        return slots[i];
+    }
+
+    /**
+     * Returns whether the given candidate is reached through an upvalue of its frame's function.
+     *
+     * @param i The candidate's index.
+     */
+    public boolean isUpvalue(int i) {
+        return slots[i] < 0;
+    }
+
+    /**
+     * Returns the upvalue index of the given candidate, if it is reached through an upvalue.
+     *
+     * @param i The candidate's index.
+     */
+    public int getUpvalue(int i) {
+        return -1 - slots[i];
+    }
+
+    /**
+     * Encodes an upvalue index as a slot.
+     *
+     * @param upvalue The upvalue's index.
+     * @return The encoded slot.
+     */
+    static int upvalueSlot(int upvalue) {
+        return -1 - upvalue;
+    }
+
+    /**
+     * Returns the scope of the given candidate.
+     *
+     * @param i The candidate's index.
+     */
+    public Scope getScope(int i) {
+        return scopes[i];
+    }
+
+    /**
+     * Returns whether the variable is declared in the innermost scope of the reference.
+     */
+    public boolean isLocal() {
+        return depths.length > 0 && depths[0] == 0 && slots[0] >= 0;
+    }
+
+    /**
+     * Returns whether the outermost frame is the globals frame.
+     */
+    public boolean isGlobal() {
+        return global;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(name).append('@');
+        for (int i = 0; i < depths.length; i++) {
+            if (isUpvalue(i))
+                sb.append('(').append(depths[i]).append(", ^").append(getUpvalue(i)).append(')');
+            else
+                sb.append('(').append(depths[i]).append(", ").append(slots[i]).append(')');
+        }
+        return sb.append(global ? "global" : "dynamic").toString();
+    }
+}
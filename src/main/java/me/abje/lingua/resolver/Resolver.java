@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.resolver;
+
+import me.abje.lingua.parser.expr.Expr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The phase which assigns lexical addresses to variable references. Runs between the parser and the interpreter.
+ * <p>
+ * Declarations are hoisted to the top of their scope, so addresses are computed only once the whole module has been
+ * walked. Modules that reference <code>eval</code> are left unresolved, since evaluated code can declare variables
+ * that the resolver cannot see.
+ */
+public class Resolver {
+    /**
+     * The name of the intrinsic that evaluates code in the current frame.
+     */
+    private static final String EVAL = "eval";
+
+    /**
+     * Whether the module's root frame is the globals frame.
+     */
+    private final boolean global;
+
+    /**
+     * The current scope, or null at the root of the module.
+     */
+    private Scope scope;
+
+    /**
+     * Whether the module must be left unresolved.
+     */
+    private boolean dynamic;
+
+    /**
+     * The references waiting for an address.
+     */
+    private final List<Reference> references = new ArrayList<>();
+
+    /**
+     * The scopes entered so far.
+     */
+    private final List<Scope> scopes = new ArrayList<>();
+
+    /**
+     * Creates a new Resolver.
+     *
+     * @param global Whether the module will be evaluated with the globals frame on top.
+     */
+    public Resolver(boolean global) {
+        this.global = global;
+    }
+
+    /**
+     * Resolves each expression in a module.
+     *
+     * @param exprs The module's expressions.
+     */
+    public void resolve(List<Expr> exprs) {
+        for (Expr expr : exprs) {
+            expr.resolve(this);
+        }
+
+        if (!dynamic) {
+            // Scopes must be marked first, since whether they have a frame is only known once they are resolved.
+            for (Scope scope : scopes) {
+                scope.markResolved();
+            }
+            for (Reference reference : references) {
+                reference.target.accept(address(reference.scope, reference.name));
+            }
+        }
+        references.clear();
+        scopes.clear();
+    }
+
+    /**
+     * Enters a new scope nested in the current one.
+     *
+     * @return The new scope.
+     */
+    public Scope beginScope() {
+        return beginScope(false);
+    }
+
+    /**
+     * Enters a new scope nested in the current one, for the call frames of a function.
+     *
+     * @return The new scope.
+     */
+    public Scope beginFunctionScope() {
+        return beginScope(true);
+    }
+
+    private Scope beginScope(boolean function) {
+        scope = new Scope(scope, function);
+        scopes.add(scope);
+        return scope;
+    }
+
+    /**
+     * Exits the current scope.
+     */
+    public void endScope() {
+        scope = scope.getParent();
+    }
+
+    /**
+     * Declares a name in the current scope. Names declared at the root are left to the root frame.
+     *
+     * @param name The name.
+     */
+    public void declare(String name) {
+        if (scope != null)
+            scope.declare(name);
+    }
+
+    /**
+     * Records that a name is assigned in the current scope without being declared there.
+     */
+    public void assign() {
+        if (scope != null)
+            scope.assign();
+    }
+
+    /**
+     * Requests the address of a name, as seen from the current scope.
+     *
+     * @param name   The name.
+     * @param target Receives the address once the module has been resolved.
+     */
+    public void reference(String name, Consumer<LexicalAddress> target) {
+        if (name.equals(EVAL))
+            dynamic = true;
+        references.add(new Reference(scope, name, target));
+    }
+
+    /**
+     * Computes the address of a name as seen from the given scope. Candidates outside the innermost enclosing
+     * function are reached through that function's upvalues, since its call frames are not pushed on top of the
+     * frames it was defined in.
+     *
+     * @param from The scope the name is referenced from.
+     * @param name The name.
+     * @return The address.
+     */
+    private LexicalAddress address(Scope from, String name) {
+        List<Integer> depths = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Scope> scopes = new ArrayList<>();
+        Scope function = null;
+        int depth = 0;
+        int functionDepth = 0;
+        for (Scope current = from; current != null; current = current.getParent()) {
+            int slot = current.slotOf(name);
+            if (slot != -1) {
+                current.reference(name);
+                if (function == null) {
+                    depths.add(depth);
+                    slots.add(slot);
+                    scopes.add(current);
+                } else {
+                    depths.add(functionDepth);
+                    slots.add(LexicalAddress.upvalueSlot(capture(function, current, name, slot)));
+                    scopes.add(function);
+                }
+            }
+            if (function == null && current.isFunction()) {
+                function = current;
+                functionDepth = depth;
+            }
+            if (current.hasFrame())
+                depth++;
+        }
+
+        return new LexicalAddress(name,
+                depths.stream().mapToInt(Integer::intValue).toArray(),
+                slots.stream().mapToInt(Integer::intValue).toArray(),
+                scopes.toArray(new Scope[0]),
+                global);
+    }
+
+    /**
+     * Returns the index of the upvalue through which a function sees a variable declared outside it, adding the
+     * upvalue (and any upvalues of enclosing functions it is captured through) if it does not exist yet.
+     *
+     * @param function  The function's scope.
+     * @param declaring The scope the variable is declared in.
+     * @param name      The variable's name.
+     * @param slot      The variable's slot in the declaring scope.
+     * @return The upvalue's index.
+     */
+    private int capture(Scope function, Scope declaring, String name, int slot) {
+        int index = function.upvalueOf(declaring, name);
+        if (index != -1)
+            return index;
+
+        Scope enclosing = null;
+        int depth = 0;
+        for (Scope current = function.getParent(); current != declaring; current = current.getParent()) {
+            if (current.isFunction()) {
+                enclosing = current;
+                break;
+            }
+            if (current.hasFrame())
+                depth++;
+        }
+
+        Upvalue upvalue;
+        if (enclosing == null) {
+            declaring.capture(slot);
+            upvalue = new Upvalue(name, depth, slot, true, declaring);
+        } else {
+            upvalue = new Upvalue(name, depth, capture(enclosing, declaring, name, slot), false, enclosing);
+        }
+        return function.addUpvalue(declaring, upvalue);
+    }
+
+    /**
+     * A reference waiting for an address.
+     */
+    private static class Reference {
+        private final Scope scope;
+        private final String name;
+        private final Consumer<LexicalAddress> target;
+
+        private Reference(Scope scope, String name, Consumer<LexicalAddress> target) {
+            this.scope = scope;
+            this.name = name;
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.resolver;
+
+import java.util.*;
+
+/**
+ * A lexical scope. A scope corresponds to one frame pushed at runtime, and assigns each name declared directly inside
+ * it a slot in that frame. Once resolved, a scope which is not a function's and neither declares nor assigns any name
+ * shares the frame of its enclosing scope instead (see {@link #hasFrame()}).
+ */
+public class Scope {
+    /**
+     * The enclosing scope, or null if this scope is directly inside the root of its module.
+     */
+    private final Scope parent;
+
+    /**
+     * Whether this scope is the scope of a function's call frames.
+     */
+    private final boolean function;
+
+    /**
+     * The slots of the names declared in this scope. Slots are allocated in declaration order.
+     */
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    /**
+     * The slots which are captured by functions defined in this scope or a nested one, and so hold a cell.
+     */
+    private int[] captured = new int[0];
+
+    /**
+     * The variables a function with this scope captures. Empty unless this is a function scope.
+     */
+    private final List<Upvalue> upvalues = new ArrayList<>();
+
+    /**
+     * The scope each upvalue's variable is declared in.
+     */
+    private final List<Scope> upvalueScopes = new ArrayList<>();
+
+    /**
+     * Whether names are assigned without being declared directly inside this scope. Such assignments update the top
+     * frame, so the scope must keep its own.
+     */
+    private boolean assigned;
+
+    /**
+     * The names declared in this scope which are referenced from this scope or a nested one.
+     */
+    private final Set<String> referenced = new HashSet<>();
+
+    /**
+     * Whether references into this scope are known, which is not the case until the module has been resolved, or
+     * at all if the module was left unresolved.
+     */
+    private boolean resolved;
+
+    /**
+     * Creates a new scope.
+     *
+     * @param parent The enclosing scope, or null if this scope is directly inside the root.
+     */
+    public Scope(Scope parent) {
+        this(parent, false);
+    }
+
+    /**
+     * Creates a new scope.
+     *
+     * @param parent   The enclosing scope, or null if this scope is directly inside the root.
+     * @param function Whether this scope is the scope of a function's call frames.
+     */
+    public Scope(Scope parent, boolean function) {
+        this.parent = parent;
+        this.function = function;
+    }
+
+    /**
+     * Declares a name in this scope. Declaring a name twice returns the same slot.
+     *
+     * @param name The name.
+     * @return The name's slot.
+     */
+    public int declare(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(name, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the slot of the given name, or -1 if it is not declared in this scope.
+     *
+     * @param name The name.
+     */
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Records that a name is assigned without being declared directly inside this scope.
+     */
+    void assign() {
+        assigned = true;
+    }
+
+    /**
+     * Records that a name declared in this scope is referenced.
+     *
+     * @param name The name.
+     */
+    void reference(String name) {
+        referenced.add(name);
+    }
+
+    /**
+     * Records that a slot of this scope is captured by a function.
+     *
+     * @param slot The slot.
+     */
+    void capture(int slot) {
+        for (int existing : captured) {
+            if (existing == slot)
+                return;
+        }
+        captured = Arrays.copyOf(captured, captured.length + 1);
+        captured[captured.length - 1] = slot;
+    }
+
+    /**
+     * Returns the index of this function scope's upvalue for a variable, or -1 if it has none.
+     *
+     * @param declaring The scope the variable is declared in.
+     * @param name      The variable's name.
+     */
+    int upvalueOf(Scope declaring, String name) {
+        for (int i = 0; i < upvalues.size(); i++) {
+            if (upvalueScopes.get(i) == declaring && upvalues.get(i).getName().equals(name))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds an upvalue to this function scope.
+     *
+     * @param declaring The scope the variable is declared in.
+     * @param upvalue   The upvalue.
+     * @return The upvalue's index.
+     */
+    int addUpvalue(Scope declaring, Upvalue upvalue) {
+        upvalues.add(upvalue);
+        upvalueScopes.add(declaring);
+        return upvalues.size() - 1;
+    }
+
+    /**
+     * Marks the references into this scope as known.
+     */
+    void markResolved() {
+        resolved = true;
+    }
+
+    /**
+     * Returns whether the given name may be referenced from this scope or a nested one. Always true if the
+     * references into this scope are not known.
+     *
+     * @param name The name.
+     */
+    public boolean isReferenced(String name) {
+        return !resolved || referenced.contains(name);
+    }
+
+    /**
+     * Returns whether the references into this scope, and so its captured slots and upvalues, are known.
+     */
+    public boolean isResolved() {
+        return resolved;
+    }
+
+    /**
+     * Returns whether this scope is the scope of a function's call frames.
+     */
+    public boolean isFunction() {
+        return function;
+    }
+
+    /**
+     * Returns whether a frame is pushed for this scope at runtime. Frames are not counted in lexical addresses for
+     * scopes that have none.
+     */
+    public boolean hasFrame() {
+        return function || !resolved || assigned || !slots.isEmpty();
+    }
+
+    /**
+     * Returns the slots which hold a cell because functions capture them.
+     */
+    public int[] getCaptured() {
+        return captured;
+    }
+
+    /**
+     * Returns the variables a function with this scope captures.
+     */
+    public List<Upvalue> getUpvalues() {
+        return upvalues;
+    }
+
+    /**
+     * Returns the number of slots in this scope.
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Returns the enclosing scope, or null if this scope is directly inside the root.
+     */
+    public Scope getParent() {
+        return parent;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.resolver;
+
+/**
+ * A variable a function captures from an enclosing scope, described by where to find its cell when the function is
+ * created: either a captured slot of a frame the function is defined in, or an upvalue of the function it is defined
+ * in.
+ */
+public class Upvalue {
+    /**
+     * The variable's name.
+     */
+    private final String name;
+
+    /**
+     * The number of frames between the frame the function is defined in and the frame holding the cell.
+     */
+    private final int depth;
+
+    /**
+     * The cell's slot, if it is local to that frame, or upvalue index otherwise.
+     */
+    private final int index;
+
+    /**
+     * Whether the cell is in a slot of that frame, rather than one of its upvalues.
+     */
+    private final boolean local;
+
+    /**
+     * The scope of the frame holding the cell.
+     */
+    private final Scope scope;
+
+    /**
+     * Creates a new upvalue.
+     *
+     * @param name  The variable's name.
+     * @param depth The number of frames between the defining frame and the frame holding the cell.
+     * @param index The cell's slot or upvalue index.
+     * @param local Whether the cell is in a slot rather than an upvalue.
+     * @param scope The scope of the frame holding the cell.
+     */
+    Upvalue(String name, int depth, int index, boolean local, Scope scope) {
+        this.name = name;
+        this.depth = depth;
+        this.index = index;
+        this.local = local;
+        this.scope = scope;
+    }
+
+    /**
+     * Returns the variable's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of frames between the frame the function is defined in and the frame holding the cell.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the cell's slot or upvalue index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns whether the cell is in a slot of its frame, rather than one of its upvalues.
+     */
+    public boolean isLocal() {
+        return local;
+    }
+
+    /**
+     * Returns the scope of the frame holding the cell.
+     */
+    public Scope getScope() {
+        return scope;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.script;
+
+import me.abje.lingua.interpreter.Environment;
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.InterpreterException;
+import me.abje.lingua.interpreter.obj.NullObj;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.parser.expr.Expr;
+
+import javax.script.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A script compiled by a {@link LinguaScriptEngine}. Holds the parsed, optimized and resolved expressions, which are
+ * run by a new interpreter each time the script is evaluated.
+ */
+public class LinguaCompiledScript extends CompiledScript {
+    private final LinguaScriptEngine engine;
+    private final List<Expr> exprs;
+
+    /**
+     * Creates a new compiled script.
+     *
+     * @param engine The engine which compiled the script.
+     * @param exprs  The script's expressions.
+     */
+    LinguaCompiledScript(LinguaScriptEngine engine, List<Expr> exprs) {
+        this.engine = engine;
+        this.exprs = exprs;
+    }
+
+    @Override
+    public Object eval(ScriptContext context) throws ScriptException {
+        Map<String, Obj> variables = new HashMap<>();
+        try {
+            convert(context.getBindings(ScriptContext.GLOBAL_SCOPE), variables);
+            convert(context.getBindings(ScriptContext.ENGINE_SCOPE), variables);
+        } catch (IllegalArgumentException e) {
+            throw new ScriptException(e.getMessage());
+        }
+
+        Interpreter interpreter = engine.getFactory().getPool().borrow(variables);
+        interpreter.setOut(context.getWriter());
+        interpreter.setErr(context.getErrorWriter());
+        interpreter.setIn(context.getReader());
+        Environment.Frame globals = interpreter.getEnv().getGlobals();
+
+        Map<String, Obj> before = new HashMap<>();
+        for (String name : globals.getDefinedNames()) {
+            before.put(name, globals.get(name));
+        }
+
+        Obj result = NullObj.NULL;
+        try {
+            for (Expr expr : exprs) {
+                result = interpreter.run(expr);
+            }
+        } catch (InterpreterException e) {
+            throw toScriptException(e, interpreter);
+        } finally {
+            interpreter.getOut().flush();
+            interpreter.getErr().flush();
+        }
+
+        Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+        if (bindings != null) {
+            for (String name : globals.getDefinedNames()) {
+                Obj value = globals.get(name);
+                if (before.get(name) != value)
+                    bindings.put(name, Values.toJava(value));
+            }
+        }
+        return Values.toJava(result);
+    }
+
+    @Override
+    public LinguaScriptEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Converts the variables in the given bindings to Lingua objects, replacing any with the same names. Entries whose
+     * names aren't valid variable names, like {@link ScriptEngine#FILENAME}, are skipped.
+     *
+     * @param bindings  The bindings. Can be null.
+     * @param variables The converted variables.
+     * @throws IllegalArgumentException If a value can't be converted.
+     */
+    private static void convert(Bindings bindings, Map<String, Obj> variables) {
+        if (bindings == null)
+            return;
+        bindings.forEach((name, value) -> {
+            if (isName(name))
+                variables.put(name, Values.toObj(value));
+        });
+    }
+
+    private static boolean isName(String name) {
+        if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0)))
+            return false;
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isJavaIdentifierPart(name.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Converts an uncaught exception to a ScriptException, with the position it was thrown at.
+     *
+     * @param e           The exception.
+     * @param interpreter The interpreter it was thrown in.
+     * @return The ScriptException.
+     */
+    private static ScriptException toScriptException(InterpreterException e, Interpreter interpreter) {
+        Environment.Frame top = interpreter.getEnv().peekFrame();
+        String message;
+        try {
+            e.initialize(interpreter);
+            Obj obj = e.getExceptionObj();
+            message = obj.getType().getName() + ": " + obj.getMember(interpreter, "message");
+        } catch (InterpreterException ignored) {
+            message = e.getMessage();
+        }
+
+        ScriptException exception = top.getFileName() != null ?
+                new ScriptException(message, top.getFileName(), top.getLine()) : new ScriptException(message);
+        exception.initCause(e);
+        return exception;
+    }
+}
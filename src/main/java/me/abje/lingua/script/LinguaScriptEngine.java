@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.script;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.parser.ParseException;
+import me.abje.lingua.parser.expr.Expr;
+
+import javax.script.*;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+/**
+ * Runs Lingua scripts through <code>javax.script</code>.
+ * <p>
+ * Each evaluation borrows a fresh interpreter from the factory's {@link me.abje.lingua.interpreter.InterpreterPool},
+ * so evaluations on different threads don't interfere. The variables in the context's bindings are visible to the
+ * script as globals, which it can redeclare, and the globals the script defines or changes are copied back into the
+ * engine bindings afterwards (see {@link Values} for how values are converted). Compiled scripts are cached, so
+ * evaluating the same source again skips lexing, parsing and resolving.
+ */
+public class LinguaScriptEngine extends AbstractScriptEngine implements Compilable {
+    /**
+     * The file name given to scripts whose context doesn't set {@link ScriptEngine#FILENAME}.
+     */
+    private static final String DEFAULT_FILE_NAME = "<script>";
+
+    private final LinguaScriptEngineFactory factory;
+
+    /**
+     * Creates a new engine.
+     *
+     * @param factory The factory which created this engine.
+     */
+    LinguaScriptEngine(LinguaScriptEngineFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        return compile(script, getFileName(context)).eval(context);
+    }
+
+    @Override
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+        return eval(read(reader), context);
+    }
+
+    @Override
+    public CompiledScript compile(String script) throws ScriptException {
+        return compile(script, getFileName(context));
+    }
+
+    @Override
+    public CompiledScript compile(Reader script) throws ScriptException {
+        return compile(read(script));
+    }
+
+    @Override
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    @Override
+    public LinguaScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Compiles a script, or finds it in the factory's cache.
+     *
+     * @param script   The script's source.
+     * @param fileName The script's file name.
+     * @return The compiled script.
+     * @throws ScriptException If the script could not be parsed.
+     */
+    private LinguaCompiledScript compile(String script, String fileName) throws ScriptException {
+        ScriptCache cache = factory.getCache();
+        List<Expr> exprs = cache.get(fileName, script);
+        if (exprs == null) {
+            try {
+                exprs = new Interpreter().compile(new StringReader(script), fileName);
+            } catch (ParseException e) {
+                ScriptException exception = new ScriptException(e.getMessage());
+                exception.initCause(e);
+                throw exception;
+            }
+            cache.put(fileName, script, exprs);
+        }
+        return new LinguaCompiledScript(this, exprs);
+    }
+
+    private static String getFileName(ScriptContext context) {
+        Object fileName = context.getAttribute(ScriptEngine.FILENAME);
+        return fileName != null ? fileName.toString() : DEFAULT_FILE_NAME;
+    }
+
+    private static String read(Reader reader) throws ScriptException {
+        StringWriter writer = new StringWriter();
+        try {
+            reader.transferTo(writer);
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.script;
+
+import me.abje.lingua.interpreter.InterpreterPool;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import java.util.List;
+
+/**
+ * Creates {@link LinguaScriptEngine LinguaScriptEngines} for <code>javax.script</code>.
+ * <p>
+ * The engines created by a factory share an {@link InterpreterPool}, which is created the first time a script runs, and
+ * a cache of compiled scripts. The size of the cache is read from the <code>lingua.scriptCache.size</code> system
+ * property.
+ */
+public class LinguaScriptEngineFactory implements ScriptEngineFactory {
+    private static final int DEFAULT_CACHE_SIZE = 256;
+
+    private static final List<String> NAMES = List.of("lingua", "Lingua");
+    private static final List<String> EXTENSIONS = List.of("ling");
+    private static final List<String> MIME_TYPES = List.of("application/x-lingua", "text/x-lingua");
+
+    /**
+     * The compiled scripts shared by this factory's engines.
+     */
+    private final ScriptCache cache =
+            new ScriptCache(Integer.getInteger("lingua.scriptCache.size", DEFAULT_CACHE_SIZE));
+
+    /**
+     * The pool scripts borrow interpreters from, or null if no script has run yet.
+     */
+    private volatile InterpreterPool pool;
+
+    @Override
+    public String getEngineName() {
+        return "Lingua";
+    }
+
+    @Override
+    public String getEngineVersion() {
+        return "1.0";
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return EXTENSIONS;
+    }
+
+    @Override
+    public List<String> getMimeTypes() {
+        return MIME_TYPES;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return NAMES;
+    }
+
+    @Override
+    public String getLanguageName() {
+        return "Lingua";
+    }
+
+    @Override
+    public String getLanguageVersion() {
+        return "1.0";
+    }
+
+    @Override
+    public Object getParameter(String key) {
+        switch (key) {
+            case ScriptEngine.ENGINE:
+                return getEngineName();
+            case ScriptEngine.ENGINE_VERSION:
+                return getEngineVersion();
+            case ScriptEngine.NAME:
+                return NAMES.get(0);
+            case ScriptEngine.LANGUAGE:
+                return getLanguageName();
+            case ScriptEngine.LANGUAGE_VERSION:
+                return getLanguageVersion();
+            case "THREADING":
+                return "MULTITHREADED";
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String getMethodCallSyntax(String obj, String m, String... args) {
+        return obj + "." + m + "(" + String.join(", ", args) + ")";
+    }
+
+    @Override
+    public String getOutputStatement(String toDisplay) {
+        return "print(\"" + toDisplay.replace("\\", "\\\\").replace("\"", "\\\"") + "\")";
+    }
+
+    @Override
+    public String getProgram(String... statements) {
+        return String.join("\n", statements);
+    }
+
+    @Override
+    public ScriptEngine getScriptEngine() {
+        return new LinguaScriptEngine(this);
+    }
+
+    /**
+     * Returns the compiled scripts shared by this factory's engines.
+     */
+    ScriptCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the pool scripts borrow interpreters from, creating it if necessary.
+     */
+    InterpreterPool getPool() {
+        InterpreterPool pool = this.pool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = this.pool;
+                if (pool == null)
+                    this.pool = pool = new InterpreterPool();
+            }
+        }
+        return pool;
+    }
+}
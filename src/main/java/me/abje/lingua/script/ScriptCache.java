@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.script;
+
+import me.abje.lingua.parser.expr.Expr;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of compiled scripts, keyed by file name and source. Lookups hash the source, and only
+ * compare it in full to the sources with the same hash.
+ */
+class ScriptCache {
+    /**
+     * The maximum number of scripts kept.
+     */
+    private final int maxSize;
+
+    /**
+     * The scripts, from least to most recently used.
+     */
+    private final Map<Key, List<Expr>> scripts;
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param maxSize The maximum number of scripts kept. If zero, nothing is cached.
+     */
+    ScriptCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.scripts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Expr>> eldest) {
+                return size() > ScriptCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the compiled expressions of a script, or null if they aren't cached.
+     *
+     * @param fileName The script's file name.
+     * @param source   The script's source.
+     */
+    synchronized List<Expr> get(String fileName, String source) {
+        return scripts.get(new Key(fileName, source));
+    }
+
+    /**
+     * Caches the compiled expressions of a script.
+     *
+     * @param fileName The script's file name.
+     * @param source   The script's source.
+     * @param exprs    The expressions.
+     */
+    synchronized void put(String fileName, String source, List<Expr> exprs) {
+        if (maxSize > 0)
+            scripts.put(new Key(fileName, source), exprs);
+    }
+
+    /**
+     * Returns the number of scripts cached.
+     */
+    synchronized int size() {
+        return scripts.size();
+    }
+
+    private static class Key {
+        private final String fileName;
+        private final String source;
+
+        private Key(String fileName, String source) {
+            this.fileName = fileName;
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            return source.equals(key.source) && fileName.equals(key.fileName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * source.hashCode() + fileName.hashCode();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.script;
+
+import me.abje.lingua.interpreter.obj.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts values between Java and Lingua for {@link LinguaScriptEngine} bindings.
+ * <p>
+ * Strings, characters, booleans and numbers are converted both ways; integral Java numbers become integral Numbers,
+ * and integral Numbers become Longs. Java lists and maps become Lingua lists and maps, and other Lingua objects are
+ * passed to Java as they are.
+ */
+final class Values {
+    private Values() {
+    }
+
+    /**
+     * Converts a Java value to a Lingua object.
+     *
+     * @param value The value. Can be null.
+     * @return The object.
+     * @throws IllegalArgumentException If the value has no Lingua equivalent.
+     */
+    static Obj toObj(Object value) {
+        if (value == null) {
+            return NullObj.NULL;
+        } else if (value instanceof Obj) {
+            return (Obj) value;
+        } else if (value instanceof String) {
+            return new StringObj((String) value);
+        } else if (value instanceof Character) {
+            return CharObj.of((Character) value);
+        } else if (value instanceof Boolean) {
+            return BooleanObj.of((Boolean) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            return NumberObj.of(((Number) value).doubleValue());
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short ||
+                value instanceof Byte) {
+            return NumberObj.of(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            return NumberObj.of(((Number) value).doubleValue());
+        } else if (value instanceof List) {
+            List<Obj> items = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                items.add(toObj(item));
+            }
+            return new ListObj(items);
+        } else if (value instanceof Map) {
+            Map<Obj, Obj> items = new HashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                items.put(toObj(entry.getKey()), toObj(entry.getValue()));
+            }
+            return new MapObj(items);
+        } else {
+            throw new IllegalArgumentException("cannot convert " + value.getClass().getName() + " to a Lingua value");
+        }
+    }
+
+    /**
+     * Converts a Lingua object to a Java value.
+     *
+     * @param obj The object.
+     * @return The value, or the object itself if it has no Java equivalent.
+     */
+    static Object toJava(Obj obj) {
+        if (obj == null || obj instanceof NullObj) {
+            return null;
+        } else if (obj instanceof StringObj) {
+            return ((StringObj) obj).getValue();
+        } else if (obj instanceof CharObj) {
+            return ((CharObj) obj).getValue();
+        } else if (obj instanceof BooleanObj) {
+            return ((BooleanObj) obj).getValue();
+        } else if (obj instanceof NumberObj) {
+            NumberObj number = (NumberObj) obj;
+            return number.isIntegral() ? (Object) number.longValue() : (Object) number.doubleValue();
+        } else {
+            return obj;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.vm;
+
+import me.abje.lingua.interpreter.PositionTable;
+
+import java.util.Arrays;
+
+/**
+ * A compiled unit of bytecode: the body of a function, or a top-level expression.
+ * <p>
+ * Source lines are kept in a table on the side instead of being set by instructions. A frame running a chunk records
+ * the position of the instruction it is at when it makes a call or an exception passes through it.
+ */
+public class Chunk implements PositionTable {
+    /**
+     * The instructions and their operands.
+     */
+    private final int[] code;
+
+    /**
+     * The constant pool.
+     */
+    private final Object[] constants;
+
+    /**
+     * The maximum depth of the operand stack.
+     */
+    private final int maxStack;
+
+    /**
+     * The file this chunk was compiled from. Can be null.
+     */
+    private final String fileName;
+
+    /**
+     * The position of the first instruction of each run of instructions compiled from the same line, in order.
+     */
+    private final int[] lineStarts;
+
+    /**
+     * The line each run of instructions in {@link #lineStarts} was compiled from.
+     */
+    private final int[] lines;
+
+    /**
+     * Creates a new chunk.
+     *
+     * @param code       The instructions and their operands.
+     * @param constants  The constant pool.
+     * @param maxStack   The maximum depth of the operand stack.
+     * @param fileName   The file the chunk was compiled from.
+     * @param lineStarts The position of the first instruction of each run of instructions from the same line.
+     * @param lines      The line of each run.
+     */
+    public Chunk(int[] code, Object[] constants, int maxStack, String fileName, int[] lineStarts, int[] lines) {
+        this.code = code;
+        this.constants = constants;
+        this.maxStack = maxStack;
+        this.fileName = fileName;
+        this.lineStarts = lineStarts;
+        this.lines = lines;
+    }
+
+    public int[] getCode() {
+        return code;
+    }
+
+    public Object[] getConstants() {
+        return constants;
+    }
+
+    public int getMaxStack() {
+        return maxStack;
+    }
+
+    @Override
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Returns the line the instruction at the given position was compiled from, or 0 if it is not known.
+     *
+     * @param offset The position of the instruction, or of one of its operands.
+     */
+    @Override
+    public int getLine(int offset) {
+        int i = Arrays.binarySearch(lineStarts, offset);
+        if (i < 0)
+            i = -i - 2;
+        return i >= 0 ? lines[i] : 0;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.vm;
+
+import me.abje.lingua.interpreter.Environment;
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.obj.FunctionObj;
+import me.abje.lingua.interpreter.obj.Obj;
+import me.abje.lingua.parser.expr.Expr;
+import me.abje.lingua.resolver.Scope;
+
+import java.util.List;
+
+/**
+ * A function whose body has been compiled to bytecode. Its body is run by the {@link VM}.
+ */
+public class CompiledFunctionObj extends FunctionObj {
+    /**
+     * This function's compiled body.
+     */
+    private final Chunk chunk;
+
+    /**
+     * Creates a new compiled function.
+     *
+     * @param name     The function's name.
+     * @param argNames The function's formal argument list.
+     * @param body     The function's body expression.
+     * @param self     The function's "self" implicit argument.
+     * @param scope    The scope of the function's call frames.
+     * @param closure  The function's captured environment.
+     * @param chunk    The function's compiled body.
+     */
+    public CompiledFunctionObj(String name, List<Expr> argNames, Expr body, Obj self, Scope scope,
+                               Environment.Closure closure, Chunk chunk) {
+        super(name, argNames, body, self, scope, closure);
+        this.chunk = chunk;
+    }
+
+    /**
+     * Returns this function's compiled body.
+     */
+    public Chunk getChunk() {
+        return chunk;
+    }
+
+    @Override
+    protected Obj invoke(Interpreter interpreter) {
+        VM vm = interpreter.getVm();
+        if (vm != null)
+            return vm.execute(chunk);
+        else
+            return super.invoke(interpreter);
+    }
+
+    @Override
+    public FunctionObj withSelf(Obj self) {
+        return new CompiledFunctionObj(getName(), getArgNames(), getBody(), self, getScope(), getClosure(), chunk);
+    }
+}
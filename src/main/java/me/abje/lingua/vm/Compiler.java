@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.vm;
+
+import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.expr.Expr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static me.abje.lingua.vm.Opcodes.*;
+
+/**
+ * Compiles expressions to {@link Chunk Chunks} of bytecode.
+ * <p>
+ * Each expression compiles itself (see {@link Expr#compile(Compiler)}) and leaves exactly one value on the stack.
+ * Expressions that have no bytecode form are evaluated by the tree-walking interpreter.
+ */
+public class Compiler {
+    /**
+     * The file being compiled. Can be null.
+     */
+    private final String fileName;
+
+    private int[] code = new int[32];
+    private int size;
+
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndices = new IdentityHashMap<>();
+
+    /**
+     * The current and maximum depth of the operand stack.
+     */
+    private int depth, maxDepth;
+
+    /**
+     * The line table: where each run of instructions compiled from the same line starts, and that line.
+     */
+    private int[] lineStarts = new int[8], lines = new int[8];
+    private int lineCount;
+
+    /**
+     * The position of the last instruction, and of the last jump target.
+     */
+    private int last = -1, target = -1;
+
+    private Compiler(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Compiles an expression to a chunk that returns its value.
+     *
+     * @param expr The expression.
+     * @return The compiled chunk.
+     */
+    public static Chunk compileChunk(Expr expr) {
+        Compiler compiler = new Compiler(expr.getToken() != null ? expr.getToken().getFile() : null);
+        compiler.compile(expr);
+        compiler.emit(RETURN);
+        return new Chunk(Arrays.copyOf(compiler.code, compiler.size), compiler.constants.toArray(),
+                compiler.maxDepth, compiler.fileName, Arrays.copyOf(compiler.lineStarts, compiler.lineCount),
+                Arrays.copyOf(compiler.lines, compiler.lineCount));
+    }
+
+    /**
+     * Compiles an expression into the current chunk.
+     *
+     * @param expr The expression.
+     */
+    public void compile(Expr expr) {
+        Token token = expr.getToken();
+        if (token != null)
+            markLine(token.getLine());
+        expr.compile(this);
+    }
+
+    /**
+     * Records that the instructions emitted from here on are compiled from the given line.
+     *
+     * @param line The line.
+     */
+    private void markLine(int line) {
+        if (lineCount > 0 && lines[lineCount - 1] == line)
+            return;
+        if (lineCount > 0 && lineStarts[lineCount - 1] == size) {
+            lines[lineCount - 1] = line;
+            return;
+        }
+        if (lineCount == lines.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+            lines = Arrays.copyOf(lines, lineCount * 2);
+        }
+        lineStarts[lineCount] = size;
+        lines[lineCount++] = line;
+    }
+
+    /**
+     * Emits code that evaluates an expression with the tree-walking interpreter.
+     *
+     * @param expr The expression.
+     */
+    public void emitFallback(Expr expr) {
+        emit(EVAL, constant(expr));
+    }
+
+    public void emit(int opcode) {
+        if (opcode == POP && last != -1 && target != size && (code[last] == STORE || code[last] == STORE_NAME)) {
+            // an assignment whose value is discarded
+            code[last] = code[last] == STORE ? STORE_POP : STORE_NAME_POP;
+            adjustDepth(-1);
+            return;
+        }
+
+        last = size;
+        write(opcode);
+        adjustDepth(stackEffect(opcode, 0));
+    }
+
+    public void emit(int opcode, int operand) {
+        last = size;
+        write(opcode);
+        write(operand);
+        adjustDepth(stackEffect(opcode, operand));
+    }
+
+    public void emit(int opcode, int operand1, int operand2) {
+        last = size;
+        write(opcode);
+        write(operand1);
+        write(operand2);
+        adjustDepth(stackEffect(opcode, operand1));
+    }
+
+    /**
+     * Emits a jump with a target to be patched later.
+     *
+     * @param opcode The jump's opcode.
+     * @return The position of the jump's target, for {@link #patchJump(int)}.
+     */
+    public int emitJump(int opcode) {
+        if (opcode == JUMP_IF_FALSE && last == size - 1 && target != size) {
+            // a comparison that is only used to branch
+            int fused = fuseComparison(code[last]);
+            if (fused != -1) {
+                size = last;
+                adjustDepth(2);
+                opcode = fused;
+            }
+        }
+
+        emit(opcode, -1);
+        return size - 1;
+    }
+
+    private static int fuseComparison(int opcode) {
+        switch (opcode) {
+            case LESS:
+                return JUMP_IF_NOT_LESS;
+            case LESS_EQUAL:
+                return JUMP_IF_NOT_LESS_EQUAL;
+            case GREATER:
+                return JUMP_IF_NOT_GREATER;
+            case GREATER_EQUAL:
+                return JUMP_IF_NOT_GREATER_EQUAL;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Points a jump emitted by {@link #emitJump(int)} at the next instruction.
+     *
+     * @param position The position of the jump's target.
+     */
+    public void patchJump(int position) {
+        code[position] = label();
+    }
+
+    /**
+     * Returns the position of the next instruction, so that it can be jumped to from before it.
+     */
+    public int label() {
+        return target = size;
+    }
+
+    /**
+     * Returns the position of the next instruction, so that it can be jumped back to by {@link #emitLoop(int)}.
+     */
+    public int loopLabel() {
+        target = size;
+        return size;
+    }
+
+    /**
+     * Emits a jump back to a label returned by {@link #loopLabel()}.
+     *
+     * @param label The label.
+     */
+    public void emitLoop(int label) {
+        emit(JUMP, label);
+    }
+
+    /**
+     * Returns the index of a constant in the pool, adding it if needed.
+     *
+     * @param value The constant.
+     */
+    public int constant(Object value) {
+        Integer index = constantIndices.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndices.put(value, index);
+        }
+        return index;
+    }
+
+    /**
+     * Adjusts the tracked depth of the operand stack. Used where control flow merges, since only one of the branches
+     * actually pushes its value.
+     *
+     * @param delta The change in depth.
+     */
+    public void adjustDepth(int delta) {
+        depth += delta;
+        if (depth > maxDepth)
+            maxDepth = depth;
+    }
+
+    private void write(int value) {
+        if (size == code.length)
+            code = Arrays.copyOf(code, size * 2);
+        code[size++] = value;
+    }
+
+    private static int stackEffect(int opcode, int operand) {
+        switch (opcode) {
+            case CONST:
+            case LOAD:
+            case LOAD_NAME:
+            case FUNCTION:
+            case EVAL:
+                return 1;
+            case POP:
+            case STORE_POP:
+            case STORE_NAME_POP:
+            case JUMP_IF_FALSE:
+            case JUMP_IF_TRUE:
+            case JUMP_IF_NOT_NULL:
+            case SET_MEMBER:
+            case GET_INDEX:
+            case BINARY:
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case LESS:
+            case LESS_EQUAL:
+            case GREATER:
+            case GREATER_EQUAL:
+            case RETURN:
+                return -1;
+            case SET_INDEX:
+            case JUMP_IF_NOT_LESS:
+            case JUMP_IF_NOT_LESS_EQUAL:
+            case JUMP_IF_NOT_GREATER:
+            case JUMP_IF_NOT_GREATER_EQUAL:
+                return -2;
+            case CALL:
+            case INVOKE:
+            case CLASS:
+                return -operand;
+            case LIST:
+            case TUPLE:
+                return 1 - operand;
+            case MAP:
+                return 1 - operand * 2;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.vm;
+
+/**
+ * The instruction set of the {@link VM}. Operands follow their opcode inline in the code array.
+ */
+public final class Opcodes {
+    /**
+     * <code>CONST index</code>: pushes a constant.
+     */
+    public static final int CONST = 0;
+
+    /**
+     * <code>POP</code>: discards the top of the stack.
+     */
+    public static final int POP = 2;
+
+    /**
+     * <code>LOAD index</code>: pushes the value of the variable at a constant lexical address.
+     */
+    public static final int LOAD = 3;
+
+    /**
+     * <code>LOAD_NAME index</code>: pushes the value of the variable with a constant name.
+     */
+    public static final int LOAD_NAME = 4;
+
+    /**
+     * <code>STORE index type</code>: stores the top of the stack in the variable at a constant lexical address.
+     * The value is left on the stack.
+     */
+    public static final int STORE = 5;
+
+    /**
+     * <code>STORE_NAME index type</code>: stores the top of the stack in the variable with a constant name.
+     * The value is left on the stack.
+     */
+    public static final int STORE_NAME = 6;
+
+    /**
+     * <code>STORE_POP index type</code>: like <code>STORE</code>, but pops the value.
+     */
+    public static final int STORE_POP = 7;
+
+    /**
+     * <code>STORE_NAME_POP index type</code>: like <code>STORE_NAME</code>, but pops the value.
+     */
+    public static final int STORE_NAME_POP = 8;
+
+    /**
+     * <code>JUMP target</code>: continues at the target.
+     */
+    public static final int JUMP = 9;
+
+    /**
+     * <code>JUMP_IF_FALSE target</code>: pops a value and continues at the target if it is not truthy.
+     */
+    public static final int JUMP_IF_FALSE = 10;
+
+    /**
+     * <code>JUMP_IF_TRUE target</code>: pops a value and continues at the target if it is truthy.
+     */
+    public static final int JUMP_IF_TRUE = 11;
+
+    /**
+     * <code>JUMP_IF_NOT_LESS target</code>: pops two operands and continues at the target unless the first is less
+     * than the second. Emitted in place of <code>LESS</code> followed by <code>JUMP_IF_FALSE</code>.
+     */
+    public static final int JUMP_IF_NOT_LESS = 12;
+
+    /**
+     * <code>JUMP_IF_NOT_LESS_EQUAL target</code>: like <code>JUMP_IF_NOT_LESS</code>, with <code>&lt;=</code>.
+     */
+    public static final int JUMP_IF_NOT_LESS_EQUAL = 13;
+
+    /**
+     * <code>JUMP_IF_NOT_GREATER target</code>: like <code>JUMP_IF_NOT_LESS</code>, with <code>&gt;</code>.
+     */
+    public static final int JUMP_IF_NOT_GREATER = 14;
+
+    /**
+     * <code>JUMP_IF_NOT_GREATER_EQUAL target</code>: like <code>JUMP_IF_NOT_LESS</code>, with <code>&gt;=</code>.
+     */
+    public static final int JUMP_IF_NOT_GREATER_EQUAL = 15;
+
+    /**
+     * <code>JUMP_IF_NOT_NULL target</code>: continues at the target, keeping the top of the stack, if it is not
+     * null. Pops it otherwise.
+     */
+    public static final int JUMP_IF_NOT_NULL = 16;
+
+    /**
+     * <code>PUSH_FRAME index</code>: pushes a block frame laid out for a constant scope, unless the scope needs no
+     * frame of its own.
+     */
+    public static final int PUSH_FRAME = 17;
+
+    /**
+     * <code>POP_FRAME index</code>: pops the frame of a constant scope, unless the scope needs no frame of its own.
+     */
+    public static final int POP_FRAME = 18;
+
+    /**
+     * <code>CALL argc tail</code>: pops a function and its arguments, and pushes the result of calling it. Calls in
+     * tail position of a function's body are flagged.
+     */
+    public static final int CALL = 19;
+
+    /**
+     * <code>INVOKE argc index</code>: pops an object and the arguments, and pushes the result of calling the object's
+     * member for a constant call of a member access expression, without binding the member to the object first.
+     */
+    public static final int INVOKE = 20;
+
+    /**
+     * <code>GET_MEMBER index nullable</code>: replaces the top of the stack with its member, looked up through a
+     * constant {@link me.abje.lingua.interpreter.obj.MemberCache}.
+     */
+    public static final int GET_MEMBER = 21;
+
+    /**
+     * <code>SET_MEMBER index</code>: pops a value and sets the member of the object below it, looked up through
+     * a constant {@link me.abje.lingua.interpreter.obj.MemberCache}. Leaves the value.
+     */
+    public static final int SET_MEMBER = 22;
+
+    /**
+     * <code>GET_INDEX</code>: pops an index and replaces the target below it with the value at that index.
+     */
+    public static final int GET_INDEX = 23;
+
+    /**
+     * <code>SET_INDEX</code>: pops a value and an index and sets them on the target below. Leaves the value.
+     */
+    public static final int SET_INDEX = 24;
+
+    /**
+     * <code>LIST count</code>: pops items and pushes a list of them.
+     */
+    public static final int LIST = 25;
+
+    /**
+     * <code>TUPLE count</code>: pops items and pushes a tuple of them.
+     */
+    public static final int TUPLE = 26;
+
+    /**
+     * <code>MAP count</code>: pops key-value pairs and pushes a map of them.
+     */
+    public static final int MAP = 27;
+
+    /**
+     * <code>BINARY index</code>: pops two operands and pushes the result of a constant binary operator.
+     */
+    public static final int BINARY = 28;
+
+    /**
+     * <code>ADD</code>: like <code>BINARY</code> with <code>+</code>, with a fast path for numbers.
+     */
+    public static final int ADD = 29;
+
+    /**
+     * <code>SUBTRACT</code>: like <code>BINARY</code> with <code>-</code>, with a fast path for numbers.
+     */
+    public static final int SUBTRACT = 30;
+
+    /**
+     * <code>MULTIPLY</code>: like <code>BINARY</code> with <code>*</code>, with a fast path for numbers.
+     */
+    public static final int MULTIPLY = 31;
+
+    /**
+     * <code>LESS</code>: like <code>BINARY</code> with <code>&lt;</code>, with a fast path for numbers.
+     */
+    public static final int LESS = 32;
+
+    /**
+     * <code>LESS_EQUAL</code>: like <code>BINARY</code> with <code>&lt;=</code>, with a fast path for numbers.
+     */
+    public static final int LESS_EQUAL = 33;
+
+    /**
+     * <code>GREATER</code>: like <code>BINARY</code> with <code>&gt;</code>, with a fast path for numbers.
+     */
+    public static final int GREATER = 34;
+
+    /**
+     * <code>GREATER_EQUAL</code>: like <code>BINARY</code> with <code>&gt;=</code>, with a fast path for numbers.
+     */
+    public static final int GREATER_EQUAL = 35;
+
+    /**
+     * <code>PREFIX index</code>: replaces the top of the stack with the result of a constant prefix operator.
+     */
+    public static final int PREFIX = 36;
+
+    /**
+     * <code>POSTFIX index</code>: replaces the top of the stack with the result of a constant postfix operator.
+     */
+    public static final int POSTFIX = 37;
+
+    /**
+     * <code>FUNCTION index chunk</code>: pushes a function for a constant function expression, capturing its
+     * environment from the top frame
+     * (see {@link me.abje.lingua.interpreter.Environment#capture(me.abje.lingua.resolver.Scope)}).
+     */
+    public static final int FUNCTION = 38;
+
+    /**
+     * <code>CLASS count index</code>: pops methods and a superclass, and pushes a class for a constant class
+     * expression.
+     */
+    public static final int CLASS = 39;
+
+    /**
+     * <code>EVAL index</code>: pushes the result of evaluating a constant expression with the tree-walking interpreter.
+     */
+    public static final int EVAL = 40;
+
+    /**
+     * <code>RETURN</code>: pops a value and returns it.
+     */
+    public static final int RETURN = 42;
+
+    private Opcodes() {
+    }
+}
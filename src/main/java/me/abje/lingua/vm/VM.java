@@ -0,0 +1,497 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.vm;
+
+import me.abje.lingua.interpreter.Environment;
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.InterpreterException;
+import me.abje.lingua.interpreter.obj.*;
+import me.abje.lingua.lexer.Token;
+import me.abje.lingua.parser.expr.CallExpr;
+import me.abje.lingua.parser.expr.ClassExpr;
+import me.abje.lingua.parser.expr.Expr;
+import me.abje.lingua.parser.expr.FunctionExpr;
+import me.abje.lingua.parser.expr.MemberAccessExpr;
+import me.abje.lingua.parser.expr.OperatorExpr;
+import me.abje.lingua.parser.expr.PostfixExpr;
+import me.abje.lingua.parser.expr.PrefixExpr;
+import me.abje.lingua.resolver.LexicalAddress;
+import me.abje.lingua.resolver.Scope;
+import me.abje.lingua.util.DefinitionType;
+
+import java.util.*;
+
+import static me.abje.lingua.vm.Opcodes.*;
+
+/**
+ * A stack-based virtual machine that runs {@link Chunk Chunks} of bytecode.
+ * <p>
+ * Variables still live in the interpreter's {@link Environment}, so compiled code and code run by the tree-walking
+ * interpreter can call each other freely.
+ */
+public class VM {
+    private static final DefinitionType[] DEFINITION_TYPES = DefinitionType.values();
+
+    /**
+     * The interpreter this VM runs code for.
+     */
+    private final Interpreter interpreter;
+
+    /**
+     * Creates a new VM.
+     *
+     * @param interpreter The interpreter to run code for.
+     */
+    public VM(Interpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    /**
+     * Runs a chunk in the current top frame.
+     * <p>
+     * Calls from compiled code to compiled functions don't recurse on the Java stack: the caller's state is saved in
+     * an {@link Activation} on the heap and the callee's chunk is run by the same loop. Calls in tail position replace
+     * the caller instead. Unless a JIT is in use, recursion between compiled functions therefore only uses heap.
+     *
+     * @param chunk The chunk.
+     * @return The chunk's result, which may be a {@link TailCall} if the chunk is a function's body.
+     */
+    public Obj execute(Chunk chunk) {
+        Environment env = interpreter.getEnv();
+        boolean inline = interpreter.getJit() == null;
+        Activation caller = null;
+        Chunk current = chunk;
+        int[] code = chunk.getCode();
+        Object[] constants = chunk.getConstants();
+        Obj[] stack = new Obj[chunk.getMaxStack()];
+        int sp = 0;
+        int pc = 0;
+        if (chunk.getFileName() != null)
+            env.peekFrame().setPosition(chunk, 0);
+
+        try {
+            while (true) {
+                switch (code[pc++]) {
+                    case CONST:
+                        stack[sp++] = (Obj) constants[code[pc++]];
+                        break;
+                    case POP:
+                        sp--;
+                        break;
+                    case LOAD:
+                        stack[sp++] = env.get((LexicalAddress) constants[code[pc++]]);
+                        break;
+                    case LOAD_NAME:
+                        stack[sp++] = env.get((String) constants[code[pc++]]);
+                        break;
+                    case STORE: {
+                        LexicalAddress address = (LexicalAddress) constants[code[pc++]];
+                        env.update(address, stack[sp - 1], DEFINITION_TYPES[code[pc++]]);
+                        break;
+                    }
+                    case STORE_NAME: {
+                        String name = (String) constants[code[pc++]];
+                        env.update(name, stack[sp - 1], DEFINITION_TYPES[code[pc++]]);
+                        break;
+                    }
+                    case STORE_POP: {
+                        LexicalAddress address = (LexicalAddress) constants[code[pc++]];
+                        env.update(address, stack[--sp], DEFINITION_TYPES[code[pc++]]);
+                        break;
+                    }
+                    case STORE_NAME_POP: {
+                        String name = (String) constants[code[pc++]];
+                        env.update(name, stack[--sp], DEFINITION_TYPES[code[pc++]]);
+                        break;
+                    }
+                    case JUMP:
+                        pc = code[pc];
+                        break;
+                    case JUMP_IF_FALSE: {
+                        int target = code[pc++];
+                        if (!stack[--sp].isTruthy())
+                            pc = target;
+                        break;
+                    }
+                    case JUMP_IF_TRUE: {
+                        int target = code[pc++];
+                        if (stack[--sp].isTruthy())
+                            pc = target;
+                        break;
+                    }
+                    case JUMP_IF_NOT_LESS: {
+                        int target = code[pc++];
+                        Obj right = stack[--sp];
+                        Obj left = stack[--sp];
+                        boolean result;
+                        if (left instanceof NumberObj && right instanceof NumberObj)
+                            result = ((NumberObj) left).lessThan((NumberObj) right);
+                        else
+                            result = OperatorExpr.apply(interpreter, Token.Type.LT, left, right).isTruthy();
+                        if (!result)
+                            pc = target;
+                        break;
+                    }
+                    case JUMP_IF_NOT_LESS_EQUAL: {
+                        int target = code[pc++];
+                        Obj right = stack[--sp];
+                        Obj left = stack[--sp];
+                        boolean result;
+                        if (left instanceof NumberObj && right instanceof NumberObj)
+                            result = ((NumberObj) left).lessThanOrEqual((NumberObj) right);
+                        else
+                            result = OperatorExpr.apply(interpreter, Token.Type.LTE, left, right).isTruthy();
+                        if (!result)
+                            pc = target;
+                        break;
+                    }
+                    case JUMP_IF_NOT_GREATER: {
+                        int target = code[pc++];
+                        Obj right = stack[--sp];
+                        Obj left = stack[--sp];
+                        boolean result;
+                        if (left instanceof NumberObj && right instanceof NumberObj)
+                            result = ((NumberObj) left).greaterThan((NumberObj) right);
+                        else
+                            result = OperatorExpr.apply(interpreter, Token.Type.GT, left, right).isTruthy();
+                        if (!result)
+                            pc = target;
+                        break;
+                    }
+                    case JUMP_IF_NOT_GREATER_EQUAL: {
+                        int target = code[pc++];
+                        Obj right = stack[--sp];
+                        Obj left = stack[--sp];
+                        boolean result;
+                        if (left instanceof NumberObj && right instanceof NumberObj)
+                            result = ((NumberObj) left).greaterThanOrEqual((NumberObj) right);
+                        else
+                            result = OperatorExpr.apply(interpreter, Token.Type.GTE, left, right).isTruthy();
+                        if (!result)
+                            pc = target;
+                        break;
+                    }
+                    case JUMP_IF_NOT_NULL: {
+                        int target = code[pc++];
+                        if (stack[sp - 1] != NullObj.NULL)
+                            pc = target;
+                        else
+                            sp--;
+                        break;
+                    }
+                    case PUSH_FRAME:
+                        env.peekFrame().setPosition(current, pc - 1);
+                        env.pushFrame("<anon>", (Scope) constants[code[pc++]]);
+                        break;
+                    case POP_FRAME:
+                        env.popFrame((Scope) constants[code[pc++]]);
+                        break;
+                    case CALL: {
+                        int argc = code[pc++];
+                        boolean tail = code[pc++] != 0;
+                        Obj func = stack[--sp];
+                        sp -= argc;
+                        List<Obj> args = collect(stack, sp, argc);
+                        env.peekFrame().setPosition(current, pc - 1);
+                        FunctionObj target = func instanceof FunctionObj ? (FunctionObj) func : null;
+                        if (inline && target instanceof CompiledFunctionObj) {
+                            if (!tail)
+                                caller = new Activation(caller, current, stack, sp, pc, env.peekFrame());
+                            else if (caller != null)
+                                env.popFrame();
+                            Chunk body = enter((CompiledFunctionObj) target, target.getSelf(), args);
+                            current = body;
+                            code = body.getCode();
+                            constants = body.getConstants();
+                            stack = new Obj[body.getMaxStack()];
+                            sp = 0;
+                            pc = 0;
+                        } else if (tail && target != null && caller == null) {
+                            stack[sp++] = target.tailCall(args);
+                        } else {
+                            stack[sp++] = func.call(interpreter, args);
+                        }
+                        break;
+                    }
+                    case INVOKE: {
+                        int argc = code[pc++];
+                        CallExpr call = (CallExpr) constants[code[pc++]];
+                        MemberAccessExpr access = (MemberAccessExpr) call.getFunc();
+                        Obj self = stack[--sp];
+                        sp -= argc;
+                        List<Obj> args = collect(stack, sp, argc);
+                        if (access.isNullable() && self == NullObj.NULL) {
+                            stack[sp++] = NullObj.NULL;
+                            break;
+                        }
+                        env.peekFrame().setPosition(current, pc - 1);
+                        FunctionObj target = access.getCache().function(interpreter, self, args);
+                        if (inline && target instanceof CompiledFunctionObj) {
+                            if (!call.isTail())
+                                caller = new Activation(caller, current, stack, sp, pc, env.peekFrame());
+                            else if (caller != null)
+                                env.popFrame();
+                            Chunk body = enter((CompiledFunctionObj) target, self, args);
+                            current = body;
+                            code = body.getCode();
+                            constants = body.getConstants();
+                            stack = new Obj[body.getMaxStack()];
+                            sp = 0;
+                            pc = 0;
+                        } else if (call.isTail() && target != null && caller == null) {
+                            stack[sp++] = new TailCall(target, self, args);
+                        } else {
+                            stack[sp++] = access.getCache().invoke(interpreter, self, args);
+                        }
+                        break;
+                    }
+                    case GET_MEMBER: {
+                        MemberCache cache = (MemberCache) constants[code[pc++]];
+                        boolean nullable = code[pc++] != 0;
+                        Obj left = stack[sp - 1];
+                        if (!nullable || left != NullObj.NULL)
+                            stack[sp - 1] = cache.get(interpreter, left);
+                        break;
+                    }
+                    case SET_MEMBER: {
+                        MemberCache cache = (MemberCache) constants[code[pc++]];
+                        Obj value = stack[--sp];
+                        cache.set(interpreter, stack[sp - 1], value);
+                        stack[sp - 1] = value;
+                        break;
+                    }
+                    case GET_INDEX: {
+                        Obj index = stack[--sp];
+                        stack[sp - 1] = stack[sp - 1].getAtIndex(index);
+                        break;
+                    }
+                    case SET_INDEX: {
+                        Obj value = stack[--sp];
+                        Obj index = stack[--sp];
+                        stack[sp - 1].setAtIndex(index, value);
+                        stack[sp - 1] = value;
+                        break;
+                    }
+                    case LIST: {
+                        int count = code[pc++];
+                        sp -= count;
+                        stack[sp] = new ListObj(collect(stack, sp, count));
+                        sp++;
+                        break;
+                    }
+                    case TUPLE: {
+                        int count = code[pc++];
+                        sp -= count;
+                        stack[sp] = new TupleObj(collect(stack, sp, count));
+                        sp++;
+                        break;
+                    }
+                    case MAP: {
+                        int count = code[pc++];
+                        sp -= count * 2;
+                        Map<Obj, Obj> map = new HashMap<>();
+                        for (int i = 0; i < count; i++) {
+                            map.put(stack[sp + i * 2], stack[sp + i * 2 + 1]);
+                        }
+                        stack[sp++] = new MapObj(map);
+                        break;
+                    }
+                    case BINARY: {
+                        Token.Type type = (Token.Type) constants[code[pc++]];
+                        Obj right = stack[--sp];
+                        stack[sp - 1] = OperatorExpr.apply(interpreter, type, stack[sp - 1], right);
+                        break;
+                    }
+                    case ADD: {
+                        Obj right = stack[--sp];
+                        Obj left = stack[sp - 1];
+                        if (left instanceof NumberObj && right instanceof NumberObj)
+                            stack[sp - 1] = ((NumberObj) left).plus((NumberObj) right);
+                        else
+                            stack[sp - 1] = OperatorExpr.apply(interpreter, Token.Type.PLUS, left, right);
+                        break;
+                    }
+                    case SUBTRACT: {
+                        Obj right = stack[--sp];
+                        Obj left = stack[sp - 1];
+                        if (left instanceof NumberObj && right instanceof NumberObj)
+                            stack[sp - 1] = ((NumberObj) left).minus((NumberObj) right);
+                        else
+                            stack[sp - 1] = OperatorExpr.apply(interpreter, Token.Type.MINUS, left, right);
+                        break;
+                    }
+                    case MULTIPLY: {
+                        Obj right = stack[--sp];
+                        Obj left = stack[sp - 1];
+                        if (left instanceof NumberObj && right instanceof NumberObj)
+                            stack[sp - 1] = ((NumberObj) left).times((NumberObj) right);
+                        else
+                            stack[sp - 1] = OperatorExpr.apply(interpreter, Token.Type.TIMES, left, right);
+                        break;
+                    }
+                    case LESS: {
+                        Obj right = stack[--sp];
+                        Obj left = stack[sp - 1];
+                        if (left instanceof NumberObj && right instanceof NumberObj)
+                            stack[sp - 1] = BooleanObj.of(((NumberObj) left).lessThan((NumberObj) right));
+                        else
+                            stack[sp - 1] = OperatorExpr.apply(interpreter, Token.Type.LT, left, right);
+                        break;
+                    }
+                    case LESS_EQUAL: {
+                        Obj right = stack[--sp];
+                        Obj left = stack[sp - 1];
+                        if (left instanceof NumberObj && right instanceof NumberObj)
+                            stack[sp - 1] = BooleanObj.of(((NumberObj) left).lessThanOrEqual((NumberObj) right));
+                        else
+                            stack[sp - 1] = OperatorExpr.apply(interpreter, Token.Type.LTE, left, right);
+                        break;
+                    }
+                    case GREATER: {
+                        Obj right = stack[--sp];
+                        Obj left = stack[sp - 1];
+                        if (left instanceof NumberObj && right instanceof NumberObj)
+                            stack[sp - 1] = BooleanObj.of(((NumberObj) left).greaterThan((NumberObj) right));
+                        else
+                            stack[sp - 1] = OperatorExpr.apply(interpreter, Token.Type.GT, left, right);
+                        break;
+                    }
+                    case GREATER_EQUAL: {
+                        Obj right = stack[--sp];
+                        Obj left = stack[sp - 1];
+                        if (left instanceof NumberObj && right instanceof NumberObj)
+                            stack[sp - 1] = BooleanObj.of(((NumberObj) left).greaterThanOrEqual((NumberObj) right));
+                        else
+                            stack[sp - 1] = OperatorExpr.apply(interpreter, Token.Type.GTE, left, right);
+                        break;
+                    }
+                    case PREFIX:
+                        stack[sp - 1] = PrefixExpr.apply(interpreter, (Token.Type) constants[code[pc++]], stack[sp - 1]);
+                        break;
+                    case POSTFIX:
+                        stack[sp - 1] = PostfixExpr.apply(interpreter, (Token.Type) constants[code[pc++]], stack[sp - 1]);
+                        break;
+                    case FUNCTION: {
+                        FunctionExpr expr = (FunctionExpr) constants[code[pc++]];
+                        Chunk body = (Chunk) constants[code[pc++]];
+                        stack[sp++] = new CompiledFunctionObj(expr.getName(), expr.getArgNames(), expr.getBody(), null,
+                                expr.getScope(), env.capture(expr.getScope()), body);
+                        break;
+                    }
+                    case CLASS: {
+                        int count = code[pc++];
+                        ClassExpr expr = (ClassExpr) constants[code[pc++]];
+                        sp -= count;
+                        List<FunctionObj> functions = new ArrayList<>(count);
+                        for (int i = 0; i < count; i++) {
+                            functions.add((FunctionObj) stack[sp + i]);
+                        }
+                        stack[sp - 1] = expr.define(interpreter, (ClassObj) stack[sp - 1], functions);
+                        break;
+                    }
+                    case EVAL:
+                        env.peekFrame().setPosition(current, pc);
+                        stack[sp++] = interpreter.next((Expr) constants[code[pc++]]);
+                        break;
+                    case RETURN: {
+                        Obj result = stack[--sp];
+                        if (caller == null)
+                            return result;
+                        if (result instanceof TailCall)
+                            result = ((TailCall) result).complete(interpreter);
+                        env.popFrame();
+                        env.setTop(caller.top);
+                        current = caller.chunk;
+                        code = current.getCode();
+                        constants = current.getConstants();
+                        stack = caller.stack;
+                        sp = caller.sp;
+                        pc = caller.pc;
+                        caller = caller.caller;
+                        stack[sp++] = result;
+                        break;
+                    }
+                    default:
+                        throw new InterpreterException("InvalidOperationException", "invalid opcode " + code[pc - 1]);
+                }
+            }
+        } catch (InterpreterException e) {
+            e.locate(env.peekFrame(), current, pc - 1);
+            throw e;
+        }
+    }
+
+    /**
+     * Enters a compiled function, to run its body in the current loop.
+     *
+     * @param function The function.
+     * @param self     The "self" implicit argument. Can be null.
+     * @param args     The arguments.
+     * @return The function's body.
+     */
+    private Chunk enter(CompiledFunctionObj function, Obj self, List<Obj> args) {
+        function.enter(interpreter, self, args);
+        Chunk body = function.getChunk();
+        if (body.getFileName() != null)
+            interpreter.getEnv().peekFrame().setPosition(body, 0);
+        return body;
+    }
+
+    private static List<Obj> collect(Obj[] stack, int start, int count) {
+        List<Obj> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(stack[start + i]);
+        }
+        return items;
+    }
+
+    /**
+     * The saved state of a compiled function which called another compiled function.
+     */
+    private static class Activation {
+        /**
+         * The activation this one returns to, or null if it returns from {@link #execute(Chunk)}.
+         */
+        private final Activation caller;
+
+        private final Chunk chunk;
+        private final Obj[] stack;
+        private final int sp;
+        private final int pc;
+
+        /**
+         * The top frame when the call was made.
+         */
+        private final Environment.Frame top;
+
+        private Activation(Activation caller, Chunk chunk, Obj[] stack, int sp, int pc, Environment.Frame top) {
+            this.caller = caller;
+            this.chunk = chunk;
+            this.stack = stack;
+            this.sp = sp;
+            this.pc = pc;
+            this.top = top;
+        }
+    }
+}
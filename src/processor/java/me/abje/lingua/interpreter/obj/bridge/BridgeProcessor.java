@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter.obj.bridge;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a <code>GeneratedBridge</code> for each class with methods annotated with <code>@Bridge</code> or
+ * <code>@FieldBridge</code>, so that bridging the class calls its methods directly instead of looking them up and
+ * invoking them with reflection when the class is initialized. Objects that define a synthetic class in a
+ * <code>SYNTHETIC</code> field get a bridge even if they have no bridged methods, so that they aren't searched for any.
+ * <p>
+ * The generated bridges behave like the reflective ones in <code>ObjectBridge</code>: overloads are chosen by the
+ * number of arguments, with an <code>anyLength</code> overload taking one argument accepting any number; arguments are
+ * checked against the parameter types unless the overload is <code>anyLength</code>; and arguments and results are
+ * converted by the methods in <code>Conversions</code>, so that primitive, String, array and Optional parameters
+ * accept the matching objects and such results are returned as objects. Parameter types the reflective bridge can
+ * never accept are reported as errors.
+ * <p>
+ * The processor refers to the annotations by name, so it can be compiled before the classes it processes.
+ */
+@SupportedAnnotationTypes("*")
+public class BridgeProcessor extends AbstractProcessor {
+    private static final String BRIDGE = "me.abje.lingua.interpreter.Bridge";
+    private static final String FIELD_BRIDGE = "me.abje.lingua.interpreter.FieldBridge";
+    private static final String STATIC = "me.abje.lingua.interpreter.Static";
+    private static final String INTERPRETER = "me.abje.lingua.interpreter.Interpreter";
+    private static final String OBJ = "me.abje.lingua.interpreter.obj.Obj";
+
+    /**
+     * The parameter types that arguments are converted to, each with the type of object it accepts and the method in
+     * <code>Conversions</code> that converts that object.
+     */
+    private static final Map<String, String[]> ARGUMENT_CONVERSIONS = new HashMap<>();
+
+    static {
+        String number = "me.abje.lingua.interpreter.obj.NumberObj";
+        String list = "me.abje.lingua.interpreter.obj.ListObj";
+        ARGUMENT_CONVERSIONS.put("int", new String[]{number, "toInt"});
+        ARGUMENT_CONVERSIONS.put("long", new String[]{number, "toLong"});
+        ARGUMENT_CONVERSIONS.put("short", new String[]{number, "toShort"});
+        ARGUMENT_CONVERSIONS.put("byte", new String[]{number, "toByte"});
+        ARGUMENT_CONVERSIONS.put("double", new String[]{number, "toDouble"});
+        ARGUMENT_CONVERSIONS.put("float", new String[]{number, "toFloat"});
+        ARGUMENT_CONVERSIONS.put("boolean", new String[]{OBJ, "toBoolean"});
+        ARGUMENT_CONVERSIONS.put("char", new String[]{"me.abje.lingua.interpreter.obj.CharObj", "toChar"});
+        ARGUMENT_CONVERSIONS.put("java.lang.String", new String[]{"me.abje.lingua.interpreter.obj.StringObj",
+                "toJavaString"});
+        ARGUMENT_CONVERSIONS.put("java.util.Optional", new String[]{OBJ, "toOptional"});
+        ARGUMENT_CONVERSIONS.put("byte[]", new String[]{list, "toBytes"});
+        ARGUMENT_CONVERSIONS.put("int[]", new String[]{list, "toInts"});
+        ARGUMENT_CONVERSIONS.put("long[]", new String[]{list, "toLongs"});
+        ARGUMENT_CONVERSIONS.put("double[]", new String[]{list, "toDoubles"});
+        ARGUMENT_CONVERSIONS.put("java.lang.String[]", new String[]{list, "toJavaStrings"});
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<Element> annotated = new HashSet<>();
+        Set<TypeElement> owners = new LinkedHashSet<>();
+        for (String name : new String[]{BRIDGE, FIELD_BRIDGE}) {
+            TypeElement annotation = processingEnv.getElementUtils().getTypeElement(name);
+            if (annotation == null)
+                continue;
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.METHOD) {
+                    error(element, "@" + annotation.getSimpleName() + " can only be used on methods");
+                } else if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                    error(element, "bridged methods cannot be private");
+                } else {
+                    annotated.add(element);
+                    owners.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+        for (Element root : roundEnv.getRootElements()) {
+            findSyntheticClasses(root, owners);
+        }
+
+        for (TypeElement owner : owners) {
+            // Visit the methods in declaration order, so that a later overload replaces an earlier one with the same
+            // number of parameters, as it does when the reflective bridge finds them.
+            Map<String, SortedMap<Integer, ExecutableElement>> functions = new LinkedHashMap<>();
+            List<ExecutableElement> fields = new ArrayList<>();
+            for (Element element : owner.getEnclosedElements()) {
+                if (!annotated.contains(element))
+                    continue;
+                ExecutableElement method = (ExecutableElement) element;
+                AnnotationMirror bridge = findAnnotation(method, BRIDGE);
+                if (bridge != null && checkFunction(method)) {
+                    functions.computeIfAbsent(bridgeName(method, bridge), name -> new TreeMap<>())
+                            .put(arity(method), method);
+                }
+                if (findAnnotation(method, FIELD_BRIDGE) != null && checkField(owner, method))
+                    fields.add(method);
+            }
+
+            try {
+                generate(owner, functions, fields);
+            } catch (IOException e) {
+                error(owner, "couldn't write bridge: " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the objects among a class and the classes nested in it that define their synthetic class in a
+     * <code>SYNTHETIC</code> field, as bridged objects do.
+     */
+    private void findSyntheticClasses(Element element, Set<TypeElement> found) {
+        if (!(element instanceof TypeElement))
+            return;
+        TypeElement type = (TypeElement) element;
+        TypeElement obj = processingEnv.getElementUtils().getTypeElement(OBJ);
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.FIELD && enclosed.getSimpleName().contentEquals("SYNTHETIC") &&
+                    obj != null && processingEnv.getTypeUtils().isSubtype(type.asType(), obj.asType()))
+                found.add(type);
+            findSyntheticClasses(enclosed, found);
+        }
+    }
+
+    private boolean checkFunction(ExecutableElement method) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            TypeMirror type = parameters.get(i).asType();
+            boolean varargs = method.isVarArgs() && i == parameters.size() - 1;
+            boolean unconverted = (type.getKind().isPrimitive() || type.getKind() == TypeKind.ARRAY) &&
+                    !ARGUMENT_CONVERSIONS.containsKey(erasure(type));
+            if (!varargs && unconverted || varargs &&
+                    ((ArrayType) type).getComponentType().getKind().isPrimitive()) {
+                error(parameters.get(i), "unsupported parameter type for a bridged method: " + type);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean checkField(TypeElement owner, ExecutableElement method) {
+        if (method.getReturnType().getKind() == TypeKind.VOID) {
+            error(method, "bridged fields must return a value");
+            return false;
+        }
+        for (VariableElement parameter : method.getParameters()) {
+            if (!isInterpreter(parameter.asType())) {
+                error(parameter, "bridged fields can only take an Interpreter");
+                return false;
+            }
+        }
+        TypeElement obj = processingEnv.getElementUtils().getTypeElement(OBJ);
+        if (!method.getModifiers().contains(Modifier.STATIC) &&
+                !processingEnv.getTypeUtils().isSubtype(owner.asType(), obj.asType())) {
+            error(method, "bridged fields must be static or belong to an Obj");
+            return false;
+        }
+        return true;
+    }
+
+    private void generate(TypeElement owner, Map<String, SortedMap<Integer, ExecutableElement>> functions,
+                          List<ExecutableElement> fields) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(owner).getQualifiedName().toString();
+        String ownerName = erasure(owner.asType());
+        String bridgeName = flatName(owner) + "_Bridge";
+
+        StringBuilder out = new StringBuilder();
+        out.append("// Generated by BridgeProcessor from ").append(owner.getQualifiedName()).append(". Do not edit.\n");
+        if (!packageName.isEmpty())
+            out.append("package ").append(packageName).append(";\n");
+        out.append("\n");
+        out.append("import me.abje.lingua.interpreter.Interpreter;\n");
+        out.append("import me.abje.lingua.interpreter.InterpreterException;\n");
+        out.append("import me.abje.lingua.interpreter.obj.GetterObjField;\n");
+        out.append("import me.abje.lingua.interpreter.obj.NullObj;\n");
+        out.append("import me.abje.lingua.interpreter.obj.NumberObj;\n");
+        out.append("import me.abje.lingua.interpreter.obj.Obj;\n");
+        out.append("import me.abje.lingua.interpreter.obj.ObjField;\n");
+        out.append("import me.abje.lingua.interpreter.obj.bridge.Conversions;\n");
+        out.append("import me.abje.lingua.interpreter.obj.bridge.GeneratedBridge;\n");
+        out.append("import me.abje.lingua.interpreter.obj.bridge.ObjectBridge;\n");
+        out.append("import me.abje.lingua.util.TriFunction;\n");
+        out.append("\n");
+        out.append("import java.util.ArrayList;\n");
+        out.append("import java.util.HashMap;\n");
+        out.append("import java.util.List;\n");
+        out.append("import java.util.Map;\n");
+        out.append("\n");
+        out.append("public final class ").append(bridgeName)
+                .append(" implements GeneratedBridge<").append(ownerName).append("> {\n");
+
+        out.append("    @Override\n");
+        out.append("    public Map<String, TriFunction<Interpreter, ").append(ownerName)
+                .append(", List<Obj>, Obj>> createFunctions() {\n");
+        out.append("        Map<String, TriFunction<Interpreter, ").append(ownerName)
+                .append(", List<Obj>, Obj>> functions = new HashMap<>();\n");
+        int index = 0;
+        for (String name : functions.keySet()) {
+            out.append("        functions.put(").append(literal(name)).append(", ").append(bridgeName)
+                    .append("::call").append(index++).append(");\n");
+        }
+        out.append("        return functions;\n");
+        out.append("    }\n\n");
+
+        out.append("    @Override\n");
+        out.append("    public List<ObjField> createFields() {\n");
+        out.append("        List<ObjField> fields = new ArrayList<>();\n");
+        for (ExecutableElement field : fields) {
+            generateField(out, ownerName, field);
+        }
+        out.append("        return fields;\n");
+        out.append("    }\n");
+
+        index = 0;
+        for (Map.Entry<String, SortedMap<Integer, ExecutableElement>> entry : functions.entrySet()) {
+            out.append("\n");
+            generateFunction(out, ownerName, "call" + index++, entry.getKey(), entry.getValue());
+        }
+        out.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? bridgeName : packageName + "." + bridgeName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, owner).openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    private void generateFunction(StringBuilder out, String ownerName, String methodName, String name,
+                                  SortedMap<Integer, ExecutableElement> overloads) {
+        out.append("    private static Obj ").append(methodName).append("(Interpreter interpreter, ").append(ownerName)
+                .append(" self, List<Obj> args) {\n");
+        out.append("        try {\n");
+        out.append("            switch (args.size()) {\n");
+        for (Map.Entry<Integer, ExecutableElement> overload : overloads.entrySet()) {
+            ExecutableElement method = overload.getValue();
+            out.append("                case ").append(overload.getKey()).append(":\n");
+            if (!isAnyLength(method))
+                generateChecks(out, name, method);
+            generateCall(out, ownerName, method);
+        }
+        out.append("                default:\n");
+        ExecutableElement anyLength = overloads.get(1);
+        if (anyLength != null && isAnyLength(anyLength) && anyLength.isVarArgs())
+            generateCall(out, ownerName, anyLength);
+        else
+            out.append("                    throw ObjectBridge.invalidArgumentCount(").append(literal(name)).append(");\n");
+        out.append("            }\n");
+        out.append("        } catch (InterpreterException e) {\n");
+        out.append("            throw e;\n");
+        out.append("        } catch (Throwable t) {\n");
+        out.append("            t.printStackTrace();\n");
+        out.append("            return NullObj.NULL;\n");
+        out.append("        }\n");
+        out.append("    }\n");
+    }
+
+    private void generateChecks(StringBuilder out, String name, ExecutableElement method) {
+        int index = 0;
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            TypeMirror type = parameters.get(i).asType();
+            if (isInterpreter(type))
+                continue;
+            if (!(method.isVarArgs() && i == parameters.size() - 1)) {
+                String[] conversion = ARGUMENT_CONVERSIONS.get(erasure(type));
+                String checked = conversion != null ? conversion[0] : erasure(type);
+                if (!checked.equals(OBJ)) {
+                    out.append("                    if (!(args.get(").append(index).append(") instanceof ")
+                            .append(checked).append("))\n");
+                    out.append("                        throw ObjectBridge.invalidArgument(").append(literal(name))
+                            .append(");\n");
+                }
+            }
+            index++;
+        }
+    }
+
+    private void generateCall(StringBuilder out, String ownerName, ExecutableElement method) {
+        String call = receiver(ownerName, method) + "." + method.getSimpleName() + "(" + arguments(method) + ")";
+        if (method.getReturnType().getKind() == TypeKind.VOID) {
+            out.append("                    ").append(call).append(";\n");
+            out.append("                    return NullObj.NULL;\n");
+        } else {
+            // The overload of toObj for the result's static type converts it.
+            out.append("                    return Conversions.toObj(").append(call).append(");\n");
+        }
+    }
+
+    private void generateField(StringBuilder out, String ownerName, ExecutableElement method) {
+        AnnotationMirror bridge = findAnnotation(method, FIELD_BRIDGE);
+        String receiver = method.getModifiers().contains(Modifier.STATIC) ? ownerName :
+                "((" + ownerName + ") self)";
+        String call = receiver + "." + method.getSimpleName() + "(" + arguments(method) + ")";
+        call = "Conversions.toObj(" + call + ")";
+
+        out.append("        fields.add(new GetterObjField(").append(literal(bridgeName(method, bridge))).append(", ")
+                .append(findAnnotation(method, STATIC) != null);
+        if (method.getThrownTypes().isEmpty()) {
+            out.append(", (interpreter, self) -> ").append(call).append(", null));\n");
+        } else {
+            // Only checked exceptions need converting; unchecked ones, including InterpreterExceptions, pass through.
+            out.append(", (interpreter, self) -> {\n");
+            out.append("            try {\n");
+            out.append("                return ").append(call).append(";\n");
+            out.append("            } catch (RuntimeException | Error e) {\n");
+            out.append("                throw e;\n");
+            out.append("            } catch (Throwable t) {\n");
+            out.append("                throw ObjectBridge.uncheckedException(t);\n");
+            out.append("            }\n");
+            out.append("        }, null));\n");
+        }
+    }
+
+    private String receiver(String ownerName, ExecutableElement method) {
+        return method.getModifiers().contains(Modifier.STATIC) ? ownerName : "self";
+    }
+
+    private String arguments(ExecutableElement method) {
+        StringJoiner arguments = new StringJoiner(", ");
+        int index = 0;
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            TypeMirror type = parameters.get(i).asType();
+            if (isInterpreter(type)) {
+                arguments.add("interpreter");
+            } else if (method.isVarArgs() && i == parameters.size() - 1) {
+                String component = erasure(((ArrayType) type).getComponentType());
+                arguments.add("args.subList(" + index++ + ", args.size()).toArray(new " + component + "[0])");
+            } else if (ARGUMENT_CONVERSIONS.containsKey(erasure(type))) {
+                String[] conversion = ARGUMENT_CONVERSIONS.get(erasure(type));
+                String argument = "args.get(" + index++ + ")";
+                if (!conversion[0].equals(OBJ))
+                    argument = "(" + conversion[0] + ") " + argument;
+                arguments.add("Conversions." + conversion[1] + "(" + argument + ")");
+            } else if (erasure(type).equals(OBJ)) {
+                arguments.add("args.get(" + index++ + ")");
+            } else {
+                arguments.add("(" + erasure(type) + ") args.get(" + index++ + ")");
+            }
+        }
+        return arguments.toString();
+    }
+
+    /**
+     * Returns the number of arguments a method takes from Lingua: every parameter but the interpreter.
+     */
+    private int arity(ExecutableElement method) {
+        int arity = 0;
+        for (VariableElement parameter : method.getParameters()) {
+            if (!isInterpreter(parameter.asType()))
+                arity++;
+        }
+        return arity;
+    }
+
+    private boolean isInterpreter(TypeMirror type) {
+        return erasure(type).equals(INTERPRETER);
+    }
+
+    private boolean isAnyLength(ExecutableElement method) {
+        Object anyLength = annotationValue(findAnnotation(method, BRIDGE), "anyLength");
+        return Boolean.TRUE.equals(anyLength);
+    }
+
+    private String bridgeName(ExecutableElement method, AnnotationMirror annotation) {
+        Object value = annotationValue(annotation, "value");
+        return value == null || value.toString().isEmpty() ? method.getSimpleName().toString() : value.toString();
+    }
+
+    private AnnotationMirror findAnnotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(name))
+                return mirror;
+        }
+        return null;
+    }
+
+    private Object annotationValue(AnnotationMirror annotation, String name) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                processingEnv.getElementUtils().getElementValuesWithDefaults(annotation);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name))
+                return entry.getValue().getValue();
+        }
+        return null;
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    /**
+     * Returns the name of a class with the names of the classes it is nested in, separated by underscores.
+     */
+    private String flatName(TypeElement type) {
+        Element enclosing = type.getEnclosingElement();
+        if (enclosing instanceof TypeElement)
+            return flatName((TypeElement) enclosing) + "_" + type.getSimpleName();
+        return type.getSimpleName().toString();
+    }
+
+    private static String literal(String string) {
+        return "\"" + string.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter;
+
+import me.abje.lingua.vm.VM;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static me.abje.lingua.interpreter.Scripts.eval;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int RUNS = 40;
+
+    private static final String SOURCE = "class Counter {\n    n = 0\n    add(x) = self.n = self.n + x\n}\n" +
+            "var c = Counter()\nvar inc = c.add\ninc(K)\ninc(1)\n" +
+            "var xs = [1, 2, 3].map(x -> x * K)\nvar push = xs.add\npush(K)\n" +
+            "kind(v) = v match {\n    0 -> \"zero\"\n    s: String -> \"string\"\n    [a, b] -> a + b\n    _ -> \"other\"\n}\n" +
+            "fail(k) = {\n    try {\n        throw(Exception(\"boom \" + k))\n    } catch e: Exception {\n" +
+            "        e.message\n    }\n}\n" +
+            "print(xs, \" \", c.n, \" \", kind(K), kind(\"s\"), kind([K, 1]), \" \", fail(K))\n" +
+            "var result = xs\n";
+
+    private static String expected(int k) {
+        return "[" + k + ", " + 2 * k + ", " + 3 * k + ", " + k + "] " + (k + 1) + " otherstring" + (k + 1) +
+                " boom " + k + System.lineSeparator();
+    }
+
+    private static String run(int k, boolean vm) {
+        StringWriter output = new StringWriter();
+        Interpreter interpreter = Scripts.interpreter(i -> {
+            i.setOut(output);
+            if (vm)
+                i.setVm(new VM(i));
+        });
+        eval(interpreter, SOURCE.replace("K", String.valueOf(k)));
+        return output.toString();
+    }
+
+    @Test
+    public void testConcurrentInterpreters() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(THREADS);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    for (int i = 0; i < RUNS; i++) {
+                        int k = thread * RUNS + i + 2;
+                        assertThat(run(k, i % 2 == 1), is(expected(k)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.interpreter;
+
+import me.abje.lingua.interpreter.obj.StringObj;
+import org.junit.Test;
+
+import static me.abje.lingua.interpreter.Scripts.eval;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class InterpreterExceptionTest {
+    private final Interpreter interpreter = Scripts.interpreter();
+
+    @Test
+    public void testCaught() {
+        assertThat(eval(interpreter, "parse(s) = Number(s)\nf(s) = parse(s) + 1\n" +
+                "var result = try {\n    f(\"abc\")\n} catch e: ConversionException {\n" +
+                "    [classOf(e), e.message, e.stack]\n}").toString(),
+                is("[ConversionException, not a number: abc, " +
+                        "[Number.init(native), parse(<test>:1), <main>(<test>:4)]]"));
+        assertThat(eval(interpreter, "g() = {\n    throw(CallException(\"boom\"))\n}\n" +
+                "result = try {\n    g()\n} catch e: Exception {\n    [classOf(e), e.message, e.stack]\n}")
+                .toString(), is("[CallException, boom, [g(<test>:2), <main>(<test>:5)]]"));
+    }
+
+    @Test
+    public void testLazy() {
+        InterpreterException e = new InterpreterException("CallException", "bad call", interpreter);
+        assertThat(e.getStackTrace().length, is(0));
+        assertThat(e.getMessage(), is("bad call"));
+        assertThat(e.getExceptionObj(), is(instanceOf(StringObj.class)));
+
+        e.initialize(interpreter);
+        assertThat(e.getExceptionObj().getType().getName(), is("CallException"));
+        assertThat(e.getExceptionObj().getType().isSubclassOf(interpreter.getEnv().get("Exception")),
+                is(true));
+        assertThat(e.getExceptionObj().getMember(interpreter, "message").toString(), is("bad call"));
+        assertThat(e.getMessage(), is("bad call"));
+    }
+
+    @Test
+    public void testUncaught() {
+        try {
+            eval(interpreter, "var result = Number(\"x\")");
+        } catch (InterpreterException e) {
+            assertThat(e.getMessage(), is("not a number: x"));
+            assertThat(e.getStackTrace().length, is(0));
+            e.initialize(interpreter);
+            assertThat(e.getExceptionObj().getType().getName(), is("ConversionException"));
+            return;
+        }
+        throw new AssertionError("no exception thrown");
+    }
+}
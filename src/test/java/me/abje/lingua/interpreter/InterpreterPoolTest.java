@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static me.abje.lingua.interpreter.Scripts.eval;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class InterpreterPoolTest {
+    private static final InterpreterPool pool = new InterpreterPool();
+
+    @Test
+    public void testCore() {
+        Interpreter interpreter = pool.borrow();
+        assertThat(eval(interpreter, "f(x) = {\n    try {\n        throw(CallException(\"bad \" + x))\n" +
+                "    } catch e: Exception {\n        e.message + \" \" + e.stack.size()\n    }\n}\n" +
+                "var result = [f(1), classOf([]) == List]").toString(), is("[bad 1 2, true]"));
+    }
+
+    @Test
+    public void testShadowing() {
+        Interpreter first = pool.borrow();
+        Interpreter second = pool.borrow();
+        assertThat(eval(first, "List = 1\nclass Exception {\n    x = 2\n}\nvar result = [List, Exception().x]")
+                .toString(), is("[1, 2]"));
+        assertThat(eval(second, "var result = [classOf([]) == List, Exception(\"m\").message]").toString(),
+                is("[true, m]"));
+    }
+
+    @Test
+    public void testStreams() {
+        Interpreter interpreter = pool.borrow();
+        StringWriter output = new StringWriter();
+        interpreter.setOut(output);
+        interpreter.interpret(new StringReader("var e = Exception(\"x\")\nprint(e.message, e.stack.size())"), "<test>");
+        assertThat(output.toString(), is("x1" + System.lineSeparator()));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.interpreter;
+
+import me.abje.lingua.interpreter.obj.Obj;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+/**
+ * Creates interpreters for tests and runs scripts in them.
+ */
+public final class Scripts {
+    private Scripts() {
+    }
+
+    /**
+     * Creates an interpreter with the intrinsics registered and lingua.core imported.
+     */
+    public static Interpreter interpreter() {
+        return interpreter(interpreter -> {
+        });
+    }
+
+    /**
+     * Creates an interpreter with the intrinsics registered and lingua.core imported.
+     *
+     * @param setup Configures the interpreter, for example with a VM or a JIT, before lingua.core is imported.
+     */
+    public static Interpreter interpreter(Consumer<Interpreter> setup) {
+        Interpreter interpreter = new Interpreter();
+        new Intrinsics(interpreter).register(Collections.emptyList());
+        setup.accept(interpreter);
+        interpreter.addImport("lingua.core");
+        return interpreter;
+    }
+
+    /**
+     * Runs a script.
+     *
+     * @param interpreter The interpreter to run the script in.
+     * @param input       The script's source.
+     * @return The value of the script's global <code>result</code>.
+     */
+    public static Obj eval(Interpreter interpreter, String input) {
+        interpreter.interpret(new StringReader(input), "<test>");
+        return interpreter.getEnv().getGlobals().get("result");
+    }
+}
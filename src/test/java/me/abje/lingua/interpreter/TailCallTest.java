@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.interpreter;
+
+import me.abje.lingua.jit.JIT;
+import me.abje.lingua.vm.VM;
+import org.junit.Test;
+
+import static me.abje.lingua.interpreter.Scripts.eval;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TailCallTest {
+    private String run(String input, String engine) {
+        Interpreter interpreter = Scripts.interpreter(i -> {
+            if (engine.equals("vm"))
+                i.setVm(new VM(i));
+            else if (engine.equals("jit"))
+                i.setJit(new JIT(10));
+        });
+        return eval(interpreter, input).toString();
+    }
+
+    private void check(String input, String expected) {
+        assertThat(run(input, "ast"), is(expected));
+        assertThat(run(input, "vm"), is(expected));
+        assertThat(run(input, "jit"), is(expected));
+    }
+
+    @Test
+    public void testSelfRecursion() {
+        check("count(n, acc) = if (n == 0) acc else count(n - 1, acc + 1)\n" +
+                "var result = count(1000000, 0)", "1000000");
+    }
+
+    @Test
+    public void testMutualRecursion() {
+        check("isEven(n) = if (n == 0) true else isOdd(n - 1)\n" +
+                "isOdd(n) = if (n == 0) false else isEven(n - 1)\n" +
+                "var result = isEven(1000000)", "true");
+    }
+
+    @Test
+    public void testTailPositions() {
+        check("down(n) = {\n    var m = n - 1\n    if (m < 0) \"block\" else down(m)\n}\n" +
+                "var result = down(1000000)", "block");
+        check("down(n) = n match {\n    0 -> \"match\"\n    _ -> down(n - 1)\n}\n" +
+                "var result = down(1000000)", "match");
+        check("class C {\n    down(n) = if (n == 0) \"method\" else self.down(n - 1)\n}\n" +
+                "var result = C().down(1000000)", "method");
+    }
+
+    @Test
+    public void testFold() {
+        check("var xs = []\nfill(n) = if (n > 0) {\n    xs.add(1)\n    fill(n - 1)\n}\nfill(100000)\n" +
+                "var result = (xs.foldLeft((a, b) -> a + b, 0), xs.foldRight((a, b) -> a + b, 0))",
+                "(100000, 100000)");
+    }
+
+    @Test
+    public void testDeepRecursionOnVM() {
+        assertThat(run("depth(n) = if (n == 0) 0 else 1 + depth(n - 1)\nvar result = depth(100000)", "vm"),
+                is("100000"));
+    }
+}
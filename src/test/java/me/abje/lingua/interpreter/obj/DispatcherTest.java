@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.abje.lingua.interpreter.obj;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.Scripts;
+import org.junit.Test;
+
+import static me.abje.lingua.interpreter.Scripts.eval;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DispatcherTest {
+    private final Interpreter interpreter = Scripts.interpreter();
+
+    @Test
+    public void testPatterns() {
+        assertThat(eval(interpreter, "class A {\n    f(0, \"a\") = 1\n    f(0, x) = 2\n    f([a, b], y) = 3\n" +
+                "    f(x: String, y) = 4\n    f(x, y) = 5\n    f(0) = 6\n    f(1) = 7\n    f(n) = 8\n}\n" +
+                "var a = A()\n" +
+                "var result = [a.f(0, \"a\"), a.f(0, \"b\"), a.f([1, 2], 3), a.f(\"s\", 1), a.f(2, 3), a.f(0), " +
+                "a.f(1), a.f(2), a.f(\"0\"), a.f(0, \"a\")]").toString(),
+                is("[1, 2, 3, 4, 5, 6, 7, 8, 8, 1]"));
+    }
+
+    @Test
+    public void testReboundType() {
+        assertThat(eval(interpreter, "class T {\n    x = 1\n}\nclass U {\n    x = 2\n}\n" +
+                "class A {\n    f(x: T) = 1\n    f(x) = 2\n}\nvar a = A()\nvar u = U()\n" +
+                "var before = a.f(u)\nT = U\nvar result = [before, a.f(u), a.f(u)]").toString(),
+                is("[2, 1, 1]"));
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.interpreter.obj;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.Scripts;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static me.abje.lingua.interpreter.Scripts.eval;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MemberCacheTest {
+    private final Interpreter interpreter = Scripts.interpreter();
+
+    @Test
+    public void testPolymorphic() {
+        assertThat(eval(interpreter, "class A {\n    x = 1\n    get() = self.x\n}\n" +
+                "class B : A {\n    get() = super.get() + 10\n}\n" +
+                "class C : A {\n    x = 5\n}\n" +
+                "var result = [A(), B(), C(), A(), B(), C()].map(o -> o.get())").toString(),
+                is("[1, 11, 5, 1, 11, 5]"));
+    }
+
+    @Test
+    public void testMegamorphic() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            source.append("class C").append(i).append(" {\n    x = ").append(i).append("\n}\n");
+        }
+        source.append("var result = [C0(), C1(), C2(), C3(), C4(), C5(), C0(), C5()].map(o -> o.x)");
+        assertThat(eval(interpreter, source.toString()).toString(), is("[0, 1, 2, 3, 4, 5, 0, 5]"));
+    }
+
+    @Test
+    public void testInvoke() {
+        assertThat(eval(interpreter, "class A {\n    f = x -> x + 1\n    g(x) = x * 2\n    g(x, y) = x * y\n}\n" +
+                "class B : A {\n    g(x) = super.g(x) + 1\n}\n" +
+                "var a = A()\nvar b = B()\nvar n = null\n" +
+                "var result = [a.f(1), a.g(2), a.g(2, 3), b.g(2), n?.g(1)]").toString(),
+                is("[2, 4, 6, 5, null]"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        ClassObj clazz = (ClassObj) eval(interpreter, "class A {\n    x = 1\n    f() = 1\n}\nvar result = A");
+        Obj instance = clazz.call(interpreter, Collections.emptyList());
+        MemberCache cache = new MemberCache("f");
+        Obj function = cache.get(interpreter, instance);
+        assertThat(cache.get(interpreter, instance), is(function));
+
+        Obj replacement = new Obj(FunctionObj.SYNTHETIC);
+        clazz.setFunction("f", replacement);
+        assertThat(cache.get(interpreter, instance), is(replacement));
+    }
+}
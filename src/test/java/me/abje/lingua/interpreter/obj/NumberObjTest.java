@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.interpreter.obj;
+
+import me.abje.lingua.interpreter.InterpreterException;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class NumberObjTest {
+    @Test
+    public void testIntegral() {
+        NumberObj counter = NumberObj.of(1 << 24).plus(NumberObj.of(1));
+        assertThat(counter.isIntegral(), is(true));
+        assertThat(counter.longValue(), is(16777217L));
+        assertThat(NumberObj.of(7).dividedBy(NumberObj.of(2)).toString(), is("3.5"));
+        assertThat(NumberObj.of(8).dividedBy(NumberObj.of(2)).isIntegral(), is(true));
+        assertThat(NumberObj.of(0.5).plus(NumberObj.of(0.5)), is(NumberObj.of(1)));
+        assertThat(NumberObj.of(3).pow(NumberObj.of(39)).longValue(), is(4052555153018976267L));
+    }
+
+    @Test
+    public void testOverflow() {
+        NumberObj max = NumberObj.of(Long.MAX_VALUE);
+        NumberObj sum = max.plus(NumberObj.of(1));
+        assertThat(sum.isIntegral(), is(false));
+        assertThat(sum.doubleValue(), is(0x1p63));
+        assertThat(max.times(NumberObj.of(2)).doubleValue(), is(0x1p64));
+        assertThat(NumberObj.of(Long.MIN_VALUE).negate().doubleValue(), is(0x1p63));
+        assertThat(NumberObj.of(2).pow(NumberObj.of(64)).doubleValue(), is(0x1p64));
+    }
+
+    /**
+     * Converts a string to a number the way Number() did before it rejected strings up front.
+     *
+     * @return The number, or the exception's message if the string isn't one.
+     */
+    private static Object legacyInit(String string) {
+        try {
+            return NumberObj.of(Long.parseLong(string));
+        } catch (NumberFormatException e) {
+            try {
+                return NumberObj.of(Double.parseDouble(string));
+            } catch (NumberFormatException e2) {
+                return "not a number: " + string;
+            }
+        }
+    }
+
+    @Test
+    public void testInit() {
+        String[] inputs = {"abc", "", "-", "+", "NaN", "-Infinity", "1e3", "9223372036854775807",
+                "9223372036854775808", "-9223372036854775808", "+5", "-0", "1.", ".5", " 7", "7 ", "1d", "0x10",
+                "1_000", "--1", "e5"};
+        for (String input : inputs) {
+            Object result;
+            try {
+                result = NumberObj.init(new StringObj(input));
+            } catch (InterpreterException e) {
+                result = e.getMessage();
+            }
+            assertThat(input, result, is(legacyInit(input)));
+        }
+        assertThat(NumberObj.init(new StringObj("1e3")).isIntegral(), is(true));
+        assertThat(NumberObj.init(new StringObj("9223372036854775808")).isIntegral(), is(false));
+    }
+
+    @Test
+    public void testCache() {
+        assertThat(NumberObj.of(NumberObj.DEFAULT_CACHE_HIGH), sameInstance(NumberObj.of(NumberObj.DEFAULT_CACHE_HIGH)));
+        assertThat(NumberObj.of(-128.0), sameInstance(NumberObj.of(-128)));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter.obj.bridge;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.Scripts;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+import static me.abje.lingua.interpreter.Scripts.eval;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class JavaInteropTest {
+    private final Interpreter interpreter = Scripts.interpreter();
+
+    @Test
+    public void testBitSet() {
+        assertThat(eval(interpreter, "var BitSet = java(\"java.util.BitSet\")\nvar bs = BitSet(16)\n" +
+                "bs.set(1)\nbs.set(4, 7)\n" +
+                "var result = [bs.cardinality(), bs.get(5), bs.get(8), bs.nextSetBit(2), bs]").toString(),
+                is("[4, true, false, 4, {1, 4, 5, 6}]"));
+    }
+
+    @Test
+    public void testOverloads() {
+        assertThat(eval(interpreter, "var Math = java(\"java.lang.Math\")\n" +
+                "var result = [Math.abs(-2), Math.abs(-2.5), Math.max(1, 3), Math.max(1.5, 0.5), " +
+                "java(\"java.lang.Integer\").MAX_VALUE]").toString(),
+                is("[2, 2.5, 3, 1.5, 2147483647]"));
+    }
+
+    @Test
+    public void testVarargs() {
+        assertThat(eval(interpreter, "var result = [java(\"java.lang.String\").format(\"%s-%s\", \"a\", 1), " +
+                "java(\"java.util.Arrays\").asList(1, 2, 3).size(), \"a,b\".split(\",\")]").toString(),
+                is("[a-1, 3, [a, b]]"));
+    }
+
+    @Test
+    public void testWrapping() {
+        assertThat(eval(interpreter, "var sb = java(\"java.lang.StringBuilder\")()\n" +
+                "sb.append(\"ab\").append(1).append('c')\n" +
+                "var date = java(\"java.time.LocalDate\").of(2020, 1, 31).plusMonths(1)\n" +
+                "var append = sb.append\nappend(\"!\")\n" +
+                "var result = [sb.toString(), sb.length(), date, date.getYear()]").toString(),
+                is("[ab1c!, 5, 2020-02-29, 2020]"));
+    }
+
+    @Test
+    public void testMemberCache() {
+        JavaLinker.Property set = JavaLinker.property(BitSet.class, false, "set");
+        assertThat(set.getSite(), is(notNullValue()));
+        assertThat(JavaLinker.property(BitSet.class, false, "set").getSite(), is(sameInstance(set.getSite())));
+        assertThat(JavaLinker.property(BitSet.class, true, "set").getSite(), is((JavaCallSite) null));
+        assertThat(eval(interpreter, "var bs = java(\"java.util.BitSet\")()\n" +
+                "[1, 2, 3].map(i -> {\n    var set = bs.set\n    set(i)\n    set(i * 10, i * 10 + 2)\n})\n" +
+                "var result = bs").toString(), is("{1, 2, 3, 10, 11, 20, 21, 30, 31}"));
+    }
+
+    @Test
+    public void testPolymorphic() {
+        assertThat(eval(interpreter, "var ArrayList = java(\"java.util.ArrayList\")\n" +
+                "var HashSet = java(\"java.util.HashSet\")\n" +
+                "var LinkedHashSet = java(\"java.util.LinkedHashSet\")\n" +
+                "var LinkedList = java(\"java.util.LinkedList\")\n" +
+                "var ArrayDeque = java(\"java.util.ArrayDeque\")\n" +
+                "var add = (c, x) -> c.add(x)\n" +
+                "var cs = [ArrayList(), HashSet(), LinkedHashSet(), LinkedList(), ArrayDeque(), ArrayList()]\n" +
+                "cs.map(c -> add(c, 1))\ncs.map(c -> add(c, \"x\"))\n" +
+                "var result = cs.map(c -> c.size())").toString(),
+                is("[2, 2, 2, 2, 2, 2]"));
+    }
+
+    @Test
+    public void testErrors() {
+        assertThat(eval(interpreter, "var result = [try {\n    java(\"java.util.ArrayList\")().get(1)\n" +
+                "} catch e: JavaException {\n    e.message\n}, try {\n    java(\"java.util.BitSet\")().set(\"x\")\n" +
+                "} catch e: CallException {\n    e.message\n}, try {\n    java(\"no.Such\")\n" +
+                "} catch e: UndefinedException {\n    e.message\n}]").toString(),
+                is("[java.lang.IndexOutOfBoundsException: Index 1 out of bounds for length 0, " +
+                        "no overload of java.util.BitSet.set accepts these arguments, unknown Java class: no.Such]"));
+        assertThat(eval(interpreter, "result = try {\n    java(\"" + Thrower.class.getName() + "\").checked()\n" +
+                "} catch e: JavaException {\n    e.message\n}").toString(), is("java.io.IOException: checked"));
+    }
+
+    @Test(expected = StackOverflowError.class)
+    public void testError() {
+        eval(interpreter, "try {\n    java(\"" + Thrower.class.getName() + "\").error()\n" +
+                "} catch e: Exception {\n    e.message\n}");
+    }
+
+    public static class Thrower {
+        public static void checked() throws IOException {
+            throw new IOException("checked");
+        }
+
+        public static void error() {
+            throw new StackOverflowError("error");
+        }
+    }
+}
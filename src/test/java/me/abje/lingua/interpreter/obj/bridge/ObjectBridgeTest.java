@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.interpreter.obj.bridge;
+
+import me.abje.lingua.interpreter.Bridge;
+import me.abje.lingua.interpreter.FieldBridge;
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.InterpreterException;
+import me.abje.lingua.interpreter.obj.*;
+import me.abje.lingua.util.TriFunction;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ObjectBridgeTest {
+    private final Interpreter interpreter = new Interpreter();
+
+    /**
+     * Calls a function with both its generated and its reflective bridge, and checks that they agree.
+     *
+     * @return The result, or the exception's message if the call failed.
+     */
+    private <C> String call(Class<C> clazz, String name, C self, Obj... args) {
+        TriFunction<Interpreter, C, List<Obj>, Obj> generated = ObjectBridge.findGeneratedBridge(clazz)
+                .createFunctions().get(name);
+        TriFunction<Interpreter, C, List<Obj>, Obj> reflective = ObjectBridge.createFunctionBridge(name,
+                ObjectBridge.createMethodMap(clazz, null).get(name));
+        String result = apply(generated, self, args);
+        assertThat(result, is(apply(reflective, self, args)));
+        return result;
+    }
+
+    private <C> String apply(TriFunction<Interpreter, C, List<Obj>, Obj> function, C self, Obj... args) {
+        try {
+            return function.apply(interpreter, self, new ArrayList<>(Arrays.asList(args))).toString();
+        } catch (InterpreterException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void testGenerated() {
+        assertThat(ObjectBridge.findGeneratedBridge(ListObj.class), is(notNullValue()));
+        assertThat(ObjectBridge.findGeneratedBridge(Obj.class), is(notNullValue()));
+        assertThat(ObjectBridge.findGeneratedBridge(FunctionObj.class).createFields().get(0).getName(), is("name"));
+    }
+
+    @Test
+    public void testCalls() {
+        ListObj list = new ListObj(new ArrayList<>(Arrays.asList(NumberObj.of(1), NumberObj.of(2), NumberObj.of(3))));
+        assertThat(call(ListObj.class, "size", list), is("3"));
+        assertThat(call(ListObj.class, "drop", list, NumberObj.of(1)), is("[2, 3]"));
+        assertThat(call(ListObj.class, "drop", list, new StringObj("x")), is("invalid argument for function drop"));
+        assertThat(call(ListObj.class, "join", list), is("123"));
+        assertThat(call(ListObj.class, "join", list, new StringObj(", ")), is("1, 2, 3"));
+        assertThat(call(ListObj.class, "join", list, NumberObj.of(1), NumberObj.of(2)),
+                is("invalid number of arguments for function join"));
+        assertThat(call(StringObj.class, "init", null, NumberObj.of(1), new StringObj("a")), is("1a"));
+        assertThat(call(StringObj.class, "replace", new StringObj("abc"), new StringObj("b"), new StringObj("x")),
+                is("axc"));
+    }
+
+    @Test
+    public void testInterpreterArguments() {
+        ListObj empty = new ListObj(new ArrayList<>());
+        assertThat(call(ListObj.class, "filter", empty, NullObj.NULL), is("[]"));
+        assertThat(call(ListObj.class, "foldLeft", empty, NullObj.NULL, NumberObj.of(5)), is("5"));
+    }
+
+    @Test
+    public void testConversions() {
+        MapObj map = new MapObj(new HashMap<>(Collections.singletonMap(NumberObj.of(1), NumberObj.of(2))));
+        assertThat(call(MapObj.class, "contains", map, NumberObj.of(1)), is("true"));
+        assertThat(call(MapObj.class, "size", map), is("1"));
+        assertThat(call(StringObj.class, "charAt", new StringObj("abc"), NumberObj.of(1)), is("b"));
+        assertThat(call(StringObj.class, "length", new StringObj("abc")), is("3"));
+        assertThat(call(CharObj.class, "isDigit", CharObj.of('1')), is("true"));
+
+        Map<String, Map<Integer, ObjectBridge.MethodMetadata>> methods =
+                ObjectBridge.createMethodMap(Primitives.class, null);
+        assertThat(apply(ObjectBridge.createFunctionBridge("sum", methods.get("sum")), null,
+                NumberObj.of(1), NumberObj.of(0.5), BooleanObj.TRUE), is("1.5"));
+        assertThat(apply(ObjectBridge.createFunctionBridge("sum", methods.get("sum")), null,
+                NumberObj.of(1), new StringObj("x"), BooleanObj.TRUE), is("invalid argument for function sum"));
+        assertThat(apply(ObjectBridge.createFunctionBridge("bytes", methods.get("bytes")), null,
+                new StringObj("ab")), is("[97, 98]"));
+        assertThat(apply(ObjectBridge.createFunctionBridge("first", methods.get("first")), null,
+                new ListObj(new ArrayList<>())), is("null"));
+        assertThat(apply(ObjectBridge.createFunctionBridge("first", methods.get("first")), null,
+                new ListObj(new ArrayList<>(Collections.singletonList(NumberObj.of(7))))), is("7"));
+    }
+
+    @Test
+    public void testFields() {
+        Map<String, ObjField> fields = ObjectBridge.createFieldMap(Fields.class, null);
+        assertThat(fields.get("string").get(interpreter, null), is(new StringObj("abc")));
+        assertThat(fields.get("nothing").get(interpreter, null), is(NullObj.NULL));
+        assertThat(fields.get("number").get(interpreter, null), is(NumberObj.of(3)));
+        assertThat(fields.get("interpreter").get(interpreter, null), is(new StringObj(interpreter.toString())));
+    }
+
+    public static class Fields {
+        @FieldBridge
+        public static String string() {
+            return "abc";
+        }
+
+        @FieldBridge
+        public static String nothing() {
+            return null;
+        }
+
+        @FieldBridge
+        public static int number() {
+            return 3;
+        }
+
+        @FieldBridge
+        public static String interpreter(Interpreter interpreter) {
+            return interpreter.toString();
+        }
+    }
+
+    public static class Primitives {
+        @Bridge
+        public static double sum(long a, double b, boolean add) {
+            return add ? a + b : a;
+        }
+
+        @Bridge
+        public static byte[] bytes(String s) {
+            return s.getBytes();
+        }
+
+        @Bridge
+        public static Optional<Long> first(long[] longs) {
+            return longs.length > 0 ? Optional.of(longs[0]) : Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.jit;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.InterpreterException;
+import me.abje.lingua.interpreter.Scripts;
+import me.abje.lingua.interpreter.obj.FunctionObj;
+import org.junit.Test;
+
+import static me.abje.lingua.interpreter.Scripts.eval;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class JITTest {
+    private final JIT jit = new JIT(2);
+    private final Interpreter interpreter = Scripts.interpreter(i -> i.setJit(jit));
+
+    @Test
+    public void testCompile() {
+        assertThat(eval(interpreter, "fib(n) = if (n < 2 || (n == 2 && false)) n else fib(n - 1) + fib(n - 2)\n" +
+                "var result = fib(15)").toString(), is("610"));
+        assertThat(jit.getCompilations(), is(1));
+        assertThat(jit.getDeoptimizations(), is(0));
+    }
+
+    @Test
+    public void testProfileOnBody() {
+        FunctionObj function = (FunctionObj) eval(interpreter, "add(a, b) = a + b\nvar i = 0\n" +
+                "while (i < 10) i = add(i, 1)\nvar result = add");
+        Profile profile = function.getBody().getProfile();
+        assertThat(profile.getJit(), is(sameInstance(jit)));
+        assertThat(profile.getCompiled(), is(notNullValue()));
+
+        JIT other = new JIT(2);
+        Interpreter second = Scripts.interpreter(i -> i.setJit(other));
+        second.getEnv().define("add", function);
+        assertThat(eval(second, "var i = 0\nwhile (i < 10) i = add(i, 2)\nvar result = i").toString(), is("10"));
+        assertThat(function.getBody().getProfile().getJit(), is(sameInstance(other)));
+        assertThat(other.getCompilations(), is(1));
+    }
+
+    @Test(expected = InterpreterException.class)
+    public void testInvalidType() {
+        eval(interpreter, "mul(a, b) = a * b\nvar i = 1\nwhile (i < 10) i = mul(i, 2)\nvar result = i");
+        assertThat(jit.getCompilations(), is(1));
+        eval(interpreter, "result = mul(\"a\", 1)");
+    }
+
+    @Test
+    public void testRecompile() {
+        assertThat(eval(interpreter, "add(a, b) = a + b\nvar i = 0\nwhile (i < 10) i = add(i, 1)\nvar result = i")
+                .toString(), is("10"));
+        assertThat(jit.getCompilations(), is(1));
+        assertThat(eval(interpreter, "result = (add(\"a\", 1), add(1, 2), add(1, 2), add(\"b\", 2))").toString(),
+                is("(a1, 3, 3, b2)"));
+        assertThat(jit.getDeoptimizations(), is(1));
+        assertThat(jit.getCompilations(), is(2));
+    }
+}
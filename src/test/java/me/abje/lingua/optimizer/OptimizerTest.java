@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+
+package me.abje.lingua.optimizer;
+
+import me.abje.lingua.interpreter.obj.NumberObj;
+import me.abje.lingua.lexer.Lexer;
+import me.abje.lingua.lexer.Morpher;
+import me.abje.lingua.parser.Parser;
+import me.abje.lingua.parser.expr.*;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class OptimizerTest {
+    private Optimizer optimizer;
+
+    private List<Expr> optimize(String input) {
+        Parser parser = new Parser(new Morpher(new Lexer(new StringReader(input), "<test>")));
+        List<Expr> exprs = new ArrayList<>();
+        Expr expr;
+        while ((expr = parser.next()) != null) {
+            exprs.add(expr);
+        }
+        optimizer = new Optimizer(false);
+        optimizer.optimize(exprs);
+        return exprs;
+    }
+
+    @Test
+    public void testFold() {
+        List<Expr> exprs = optimize("-(1 + 2) * 4\n\"a\" + 1\nx + 1 * 2\n1 - \"a\"");
+        assertThat(exprs.get(0), is(new NumberExpr(null, NumberObj.of(-12))));
+        assertThat(exprs.get(1), is(new StringExpr(null, "a1")));
+
+        OperatorExpr partial = (OperatorExpr) exprs.get(2);
+        assertThat(partial.getRight(), is(new NumberExpr(null, NumberObj.of(2))));
+
+        assertThat(exprs.get(3), instanceOf(OperatorExpr.class));
+        assertThat(optimizer.getFolded(), is(5));
+    }
+
+    @Test
+    public void testPrune() {
+        List<Expr> exprs = optimize("if (1 < 2) a else b\nif (false) a\nnull ?: b\nif (x) a else b");
+        assertThat(exprs.get(0), is(new NameExpr(null, "a")));
+        assertThat(exprs.get(1), instanceOf(NullExpr.class));
+        assertThat(exprs.get(2), is(new NameExpr(null, "b")));
+        assertThat(exprs.get(3), instanceOf(IfExpr.class));
+        assertThat(optimizer.getPruned(), is(3));
+    }
+
+    @Test
+    public void testPool() {
+        List<Expr> exprs = optimize("\"a\"\n[\"a\", \"b\"]\n\"b\"");
+        StringExpr first = (StringExpr) exprs.get(0);
+        ListExpr list = (ListExpr) exprs.get(1);
+        assertThat(((StringExpr) list.getItems().get(0)).getObj(), is(sameInstance(first.getObj())));
+        assertThat(((StringExpr) exprs.get(2)).getObj(),
+                is(sameInstance(((StringExpr) list.getItems().get(1)).getObj())));
+        assertThat(optimizer.getPooled(), is(2));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.parser;
+
+import me.abje.lingua.lexer.Lexer;
+import me.abje.lingua.lexer.Morpher;
+import me.abje.lingua.parser.expr.Expr;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ModuleWriterTest {
+    private static List<Expr> parse(String input) {
+        return new Parser(new Morpher(new Lexer(new StringReader(input), "test.ling"))).parseAll();
+    }
+
+    /**
+     * Asserts that reading a module and writing it again produces the same bytes, so nothing written is lost.
+     */
+    private static void assertRoundTrips(String input) {
+        List<Expr> exprs = parse(input);
+        byte[] written = ModuleWriter.write(exprs, 42);
+        List<Expr> read = ModuleReader.read(ByteBuffer.wrap(written), 42);
+        assertThat(read.size(), is(exprs.size()));
+        assertThat(ModuleWriter.write(read, 42), is(written));
+    }
+
+    @Test
+    public void testBundledModules() throws IOException {
+        for (String module : new String[]{"core", "io", "testing"}) {
+            try (InputStream stream = getClass().getResourceAsStream("/lingua/" + module + ".ling")) {
+                assertRoundTrips(new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void testExpressions() {
+        assertRoundTrips("var xs = [1, 2.5, -3, 'c', \"s\", true, null, (1, 2), #{1: 2}, 3!]\n" +
+                "xs[0] = xs[1] ^ 2\n" +
+                "@rest y\n@moduleWriterTestAnnotation z\n" +
+                "f(a, @rest b) = a match {\n    [x, y] -> x\n    n: Number -> n\n    _ -> if (a) b else null\n}\n" +
+                "class A : B {\n    x = 1\n    y\n    g() = self?.x\n}\n" +
+                "try {\n    a.b = !c\n} catch e: Exception {\n    while (false) 1\n}\n" +
+                "import lingua.io");
+
+        List<Expr> read = ModuleReader.read(ByteBuffer.wrap(ModuleWriter.write(parse("@rest y"), 0)), 0);
+        assertThat(read.get(0).hasAnnotation(Annotation.REST), is(true));
+        assertThat(read.get(0).getToken().getFile(), is("test.ling"));
+    }
+
+    @Test
+    public void testHashMismatch() {
+        byte[] bytes = ModuleWriter.write(parse("1 + 2"), 1);
+        assertThat(ModuleReader.read(ByteBuffer.wrap(bytes), 2), is(nullValue()));
+        assertThat(ModuleReader.read(ByteBuffer.wrap(new byte[0]), 1), is(nullValue()));
+    }
+}
@@ -24,10 +24,15 @@ package me.abje.lingua.parser;
 
 import me.abje.lingua.lexer.Lexer;
 import me.abje.lingua.lexer.Morpher;
+import me.abje.lingua.parser.expr.Expr;
 import org.junit.Test;
 
 import java.io.StringReader;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
 /**
  * BROKEN :(
  */
@@ -41,4 +46,18 @@ public class ParserTest {
     @Test
     public void testNext() throws Exception {
     }
+
+    @Test
+    public void testAnnotations() {
+        input("var x = 1\n@rest y\n@parserTestAnnotation z");
+        Expr var = parser.next();
+        assertThat(var.hasAnnotation(Annotation.VAR), is(true));
+        assertThat(var.hasAnnotation(Annotation.REST), is(false));
+        assertThat(parser.next().hasAnnotation(Annotation.REST), is(true));
+
+        Expr custom = parser.next();
+        assertThat(custom.hasAnnotation(Annotation.forName("parserTestAnnotation")), is(true));
+        assertThat(custom.hasAnnotation(Annotation.VAR), is(false));
+        assertThat(Annotation.forName("neverUsedAnnotation"), is(nullValue()));
+    }
 }
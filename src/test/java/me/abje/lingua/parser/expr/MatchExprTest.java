@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.abje.lingua.parser.expr;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.Scripts;
+import org.junit.Test;
+
+import static me.abje.lingua.interpreter.Scripts.eval;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MatchExprTest {
+    private final Interpreter interpreter = Scripts.interpreter();
+
+    @Test
+    public void testClauses() {
+        assertThat(eval(interpreter, "class A {\n    x = 1\n}\nclass B {\n    x = 2\n}\n" +
+                "f(v) = v match {\n    1 -> 1\n    \"a\" -> 2\n    x: A -> 3\n    x: B -> 4\n" +
+                "    [a, b] -> a + b\n    [h, @rest t] -> h\n    (a, b, c) -> 7\n    s: String -> 8\n    _ -> 9\n}\n" +
+                "var result = [f(1), f(\"a\"), f(A()), f(B()), f([2, 3]), f([6]), f([]), f((1, 2, 3)), f((1, 2)), " +
+                "f(\"b\"), f(2)]").toString(),
+                is("[1, 2, 3, 4, 5, 6, 9, 7, 9, 8, 9]"));
+    }
+
+    @Test
+    public void testSingleEvaluation() {
+        assertThat(eval(interpreter, "var calls = []\nnext(x) = {\n    calls.add(x)\n    x\n}\n" +
+                "var r = next(3) match {\n    1 -> 1\n    2 -> 2\n    x: String -> 3\n    _ -> 4\n}\n" +
+                "var result = [r, calls.length()]").toString(),
+                is("[4, 1]"));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.parser.expr.operation;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.Scripts;
+import me.abje.lingua.interpreter.obj.FunctionObj;
+import me.abje.lingua.interpreter.obj.NumberObj;
+import me.abje.lingua.parser.expr.OperatorExpr;
+import org.junit.Test;
+
+import static me.abje.lingua.interpreter.Scripts.eval;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class OperationNodeTest {
+    private final Interpreter interpreter = Scripts.interpreter();
+
+    /**
+     * Defines a function of two arguments whose body is a single operator expression, and returns that expression.
+     */
+    private OperatorExpr site(String operator) {
+        FunctionObj function = (FunctionObj) eval(interpreter, "f(a, b) = a " + operator + " b\nvar result = f");
+        OperatorExpr site = (OperatorExpr) function.getBody();
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) UninitializedNode.INSTANCE)));
+        return site;
+    }
+
+    private String call(String args) {
+        return eval(interpreter, "result = f(" + args + ")").toString();
+    }
+
+    /**
+     * Calls the function with arguments it can't be applied to, and returns the message of the CallException thrown.
+     */
+    private String fails(String args) {
+        return eval(interpreter, "result = try {\n    f(" + args + ")\n} catch e: CallException {\n    e.message\n}")
+                .toString();
+    }
+
+    @Test
+    public void testAdd() {
+        OperatorExpr site = site("+");
+        assertThat(call("1, 2"), is("3"));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) NumberAddNode.INSTANCE)));
+        assertThat(call("1, 0.5"), is("1.5"));
+        assertThat(call("9223372036854775807, 1"), is(NumberObj.of(9223372036854775807.0 + 1).toString()));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) NumberAddNode.INSTANCE)));
+        assertThat(call("1, \"a\""), is("1a"));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) GenericAddNode.INSTANCE)));
+        assertThat(call("2, 3"), is("5"));
+        assertThat(call("\"a\", 1"), is("a1"));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) GenericAddNode.INSTANCE)));
+    }
+
+    @Test
+    public void testConcat() {
+        OperatorExpr site = site("+");
+        assertThat(call("\"a\", 1"), is("a1"));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) StringConcatNode.INSTANCE)));
+        assertThat(call("\"a\", 1.5"), is("a1.5"));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) StringConcatNode.INSTANCE)));
+        assertThat(call("1, 2"), is("3"));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) GenericAddNode.INSTANCE)));
+    }
+
+    @Test
+    public void testArithmetic() {
+        OperatorExpr site = site("-");
+        assertThat(call("3, 1"), is("2"));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) NumberArithmeticNode.SUBTRACT)));
+        assertThat(call("3, 0.5"), is("2.5"));
+        assertThat(call("-9223372036854775807, 2"), is(NumberObj.of(-9223372036854775807.0 - 2).toString()));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) NumberArithmeticNode.SUBTRACT)));
+        assertThat(fails("\"a\", 1"), is("invalid type"));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) GenericOperationNode.INSTANCE)));
+        assertThat(call("5, 2"), is("3"));
+    }
+
+    @Test
+    public void testCompare() {
+        OperatorExpr site = site("<");
+        assertThat(call("1, 2"), is("true"));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) NumberCompareNode.LESS)));
+        assertThat(call("2.5, 2"), is("false"));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) NumberCompareNode.LESS)));
+        assertThat(fails("1, \"b\""), is("invalid type"));
+        assertThat(site.getOperation(), is(sameInstance((OperationNode) GenericOperationNode.INSTANCE)));
+        assertThat(call("1, 2"), is("true"));
+    }
+}
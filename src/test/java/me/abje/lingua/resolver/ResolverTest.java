@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.resolver;
+
+import me.abje.lingua.lexer.Lexer;
+import me.abje.lingua.lexer.Morpher;
+import me.abje.lingua.parser.Parser;
+import me.abje.lingua.parser.expr.*;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ResolverTest {
+    private List<Expr> resolve(String input) {
+        Parser parser = new Parser(new Morpher(new Lexer(new StringReader(input), "<test>")));
+        List<Expr> exprs = new ArrayList<>();
+        Expr expr;
+        while ((expr = parser.next()) != null) {
+            exprs.add(expr);
+        }
+        new Resolver(true).resolve(exprs);
+        return exprs;
+    }
+
+    @Test
+    public void testLocal() {
+        List<Expr> exprs = resolve("f(a) = {\n    var b = a\n    b\n}");
+        BlockExpr body = (BlockExpr) ((FunctionExpr) exprs.get(0)).getBody();
+
+        LexicalAddress b = ((NameExpr) body.getExprs().get(1)).getAddress();
+        assertThat(b.size(), is(1));
+        assertThat(b.isLocal(), is(true));
+        assertThat(b.getSlot(0), is(0));
+
+        LexicalAddress a = ((NameExpr) ((AssignmentExpr) body.getExprs().get(0)).getValue()).getAddress();
+        assertThat(a.size(), is(1));
+        assertThat(a.getDepth(0), is(1));
+        assertThat(a.getSlot(0), is(0));
+    }
+
+    @Test
+    public void testFramelessBlock() {
+        List<Expr> exprs = resolve("f(a) = {\n    {\n        x -> a\n    }\n    a\n}\nh(a) = {\n    a = 1\n}");
+        FunctionExpr f = (FunctionExpr) exprs.get(0);
+        BlockExpr body = (BlockExpr) f.getBody();
+        assertThat(body.getScope().hasFrame(), is(false));
+
+        LexicalAddress a = ((NameExpr) body.getExprs().get(1)).getAddress();
+        assertThat(a.isLocal(), is(true));
+        assertThat(a.getScope(0), is(f.getScope()));
+
+        FunctionExpr lambda = (FunctionExpr) ((BlockExpr) body.getExprs().get(0)).getExprs().get(0);
+        assertThat(lambda.getScope().getUpvalues().get(0).getDepth(), is(1));
+
+        BlockExpr assigning = (BlockExpr) ((FunctionExpr) exprs.get(1)).getBody();
+        LexicalAddress assigned = ((NameExpr) ((AssignmentExpr) assigning.getExprs().get(0)).getName()).getAddress();
+        assertThat(assigned.getDepth(0), is(1));
+    }
+
+    @Test
+    public void testGlobal() {
+        List<Expr> exprs = resolve("var x = 1\nf() = x");
+        LexicalAddress x = ((NameExpr) ((FunctionExpr) exprs.get(1)).getBody()).getAddress();
+        assertThat(x.size(), is(0));
+        assertThat(x.isGlobal(), is(true));
+    }
+
+    @Test
+    public void testUpvalue() {
+        List<Expr> exprs = resolve("f(a) = x -> y -> a");
+        FunctionExpr f = (FunctionExpr) exprs.get(0);
+        FunctionExpr outer = (FunctionExpr) f.getBody();
+        FunctionExpr inner = (FunctionExpr) outer.getBody();
+
+        LexicalAddress a = ((NameExpr) inner.getBody()).getAddress();
+        assertThat(a.size(), is(1));
+        assertThat(a.isLocal(), is(false));
+        assertThat(a.isUpvalue(0), is(true));
+        assertThat(a.getScope(0), is(inner.getScope()));
+
+        Upvalue fromOuter = outer.getScope().getUpvalues().get(0);
+        assertThat(fromOuter.isLocal(), is(true));
+        assertThat(fromOuter.getScope(), is(f.getScope()));
+        assertThat(f.getScope().getCaptured()[0], is(fromOuter.getIndex()));
+
+        Upvalue fromInner = inner.getScope().getUpvalues().get(a.getUpvalue(0));
+        assertThat(fromInner.isLocal(), is(false));
+        assertThat(fromInner.getScope(), is(outer.getScope()));
+        assertThat(fromInner.getDepth(), is(0));
+    }
+
+    @Test
+    public void testEval() {
+        List<Expr> exprs = resolve("f(a) = {\n    eval(\"var b = 1\")\n    a\n}");
+        BlockExpr body = (BlockExpr) ((FunctionExpr) exprs.get(0)).getBody();
+        assertThat(((NameExpr) body.getExprs().get(1)).getAddress(), is(nullValue()));
+    }
+}
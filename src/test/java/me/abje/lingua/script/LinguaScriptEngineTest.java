@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package me.abje.lingua.script;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.script.*;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class LinguaScriptEngineTest {
+    private ScriptEngine engine;
+
+    @Before
+    public void setUp() {
+        engine = new ScriptEngineManager().getEngineByName("lingua");
+    }
+
+    @Test
+    public void testBindings() throws ScriptException {
+        Bindings bindings = engine.createBindings();
+        bindings.put("x", 20);
+        bindings.put("names", List.of("a", "b"));
+        assertThat(engine.eval("var y = x * 2 + names.size()\nx = 1.5\ny", bindings), is(42L));
+        assertThat(bindings.get("y"), is(42L));
+        assertThat(bindings.get("x"), is(1.5));
+        assertThat(engine.eval("null", bindings), is(nullValue()));
+    }
+
+    @Test
+    public void testOutput() throws ScriptException {
+        StringWriter writer = new StringWriter();
+        engine.getContext().setWriter(writer);
+        engine.eval("print(\"hello \", 1 + 2)");
+        assertThat(writer.toString(), is("hello 3" + System.lineSeparator()));
+    }
+
+    @Test
+    public void testCache() throws ScriptException {
+        ScriptCache cache = ((LinguaScriptEngine) engine).getFactory().getCache();
+        String source = "var cached = [1, 2, 3].map(x -> x + 1)";
+        CompiledScript script = ((Compilable) engine).compile(source);
+        int size = cache.size();
+        ((Compilable) engine).compile(source);
+        assertThat(cache.size(), is(size));
+        assertThat(script.eval().toString(), is("[2, 3, 4]"));
+        assertThat(script.eval().toString(), is("[2, 3, 4]"));
+    }
+
+    @Test
+    public void testException() {
+        try {
+            engine.eval("f() = throw(InvalidOperationException(\"bad\"))\n\nf()");
+            fail();
+        } catch (ScriptException e) {
+            assertThat(e.getMessage(), is("InvalidOperationException: bad in <script> at line number 1"));
+        }
+    }
+}
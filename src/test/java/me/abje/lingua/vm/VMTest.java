@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2015 Abe Jellinek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package me.abje.lingua.vm;
+
+import me.abje.lingua.interpreter.Interpreter;
+import me.abje.lingua.interpreter.Scripts;
+import org.junit.Test;
+
+import static me.abje.lingua.interpreter.Scripts.eval;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class VMTest {
+    private String run(String input, boolean vm) {
+        Interpreter interpreter = Scripts.interpreter(i -> {
+            if (vm)
+                i.setVm(new VM(i));
+        });
+        return eval(interpreter, input).toString();
+    }
+
+    private void check(String input, String expected) {
+        assertThat(run(input, false), is(expected));
+        assertThat(run(input, true), is(expected));
+    }
+
+    @Test
+    public void testArithmetic() {
+        check("var result = 1 + 2 * 3 - 4 / 2 ^ 1", "5");
+        check("var result = (1 < 2, 2 <= 1, 3 > 2, 3 >= 4, 1 == 1, 1 != 1)", "(true, false, true, false, true, false)");
+        check("var result = (true && false, false || true, null ?: 3, 4 ?: 5, -2, 3!)", "(false, true, 3, 4, -2, 6)");
+        check("var result = \"a\" + 1", "a1");
+    }
+
+    @Test
+    public void testControlFlow() {
+        check("loop(n) = {\n    var i = 0\n    while (i < n) i = i + 1\n    i\n}\nvar result = loop(100)", "100");
+        check("var result = if (1 > 2) 1 else if (2 > 1) 2 else 3", "2");
+        check("var result = if (false) 1", "null");
+    }
+
+    @Test
+    public void testStackTrace() {
+        check("f(x) = {\n    var y = x\n\n    [y][2]\n}\nvar result = try {\n    f(1)\n} catch e: OutOfBoundsException {\n" +
+                "    e.stack\n}", "[<anon>(<test>:4), f(<test>:1), <main>(<test>:7)]");
+    }
+
+    @Test
+    public void testFunctions() {
+        check("fib(n) = if (n < 2) n else fib(n - 1) + fib(n - 2)\nvar result = fib(15)", "610");
+        check("var adder = n -> (k -> n + k)\nvar result = adder(5)(10)", "15");
+        check("var result = [1, 2, 3].map(x -> x * x)", "[1, 4, 9]");
+    }
+
+    @Test
+    public void testObjects() {
+        check("class Point {\n    x\n    y\n    init(x, y) = {\n        self.x = x\n        self.y = y\n    }\n    sum() = self.x + self.y\n    plus(n: Number) = self.x + n\n    plus(s: String) = s\n}\nvar p = Point(1, 2)\np.x = 5\nvar result = (p.sum(), p.plus(1), p.plus(\"s\"))", "(7, 6, s)");
+        check("var l = [1, 2]\nl[0] = 3\nvar result = (l, l[1])", "([3, 2], 2)");
+        check("var result = 3 match {\n    1 -> \"one\"\n    x -> x + 1\n}", "4");
+    }
+}